@@ -1,24 +1,29 @@
 package net.fhirfactory.pegacorn.common.model.componentid;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import net.fhirfactory.pegacorn.common.model.generalid.FDN;
 import net.fhirfactory.pegacorn.common.model.generalid.FDNToken;
+import net.fhirfactory.pegacorn.common.model.generalid.FDNTokenContentTable;
 
 import java.io.Serializable;
 import java.util.Objects;
 
 public class TopologyNodeFDNToken implements Serializable {
     private String tokenValue;
+    // Derived from the tokenValue (null if the tokenValue is null), see FDNTokenContentTable
+    private transient volatile FDNTokenContentTable.InternedContent internedTokenValue;
 
     public TopologyNodeFDNToken(){
-        tokenValue = new String();
+        setTokenValue("");
     }
 
     public TopologyNodeFDNToken(TopologyNodeFDNToken ori){
         this.tokenValue = ori.getTokenValue();
+        this.internedTokenValue = ori.getInternedTokenValue();
     }
 
     public TopologyNodeFDNToken(String token){
-        this.tokenValue = token;
+        setTokenValue(token);
     }
 
     public String getTokenValue() {
@@ -26,7 +31,25 @@ public class TopologyNodeFDNToken implements Serializable {
     }
 
     public void setTokenValue(String tokenValue) {
-        this.tokenValue = tokenValue;
+        if(tokenValue == null){
+            this.tokenValue = null;
+            this.internedTokenValue = null;
+            return;
+        }
+        FDNTokenContentTable.InternedContent newTokenValue = FDNTokenContentTable.intern(tokenValue);
+        this.tokenValue = newTokenValue.getContent();
+        this.internedTokenValue = newTokenValue;
+    }
+
+    @JsonIgnore
+    public FDNTokenContentTable.InternedContent getInternedTokenValue(){
+        FDNTokenContentTable.InternedContent currentTokenValue = this.internedTokenValue;
+        if((currentTokenValue == null) && (this.tokenValue != null)){
+            currentTokenValue = FDNTokenContentTable.intern(this.tokenValue);
+            this.tokenValue = currentTokenValue.getContent();
+            this.internedTokenValue = currentTokenValue;
+        }
+        return(currentTokenValue);
     }
 
     public FDNToken toTypeBasedFDNToken(){
@@ -55,11 +78,16 @@ public class TopologyNodeFDNToken implements Serializable {
         if (this == o) return true;
         if (!(o instanceof TopologyNodeFDNToken)) return false;
         TopologyNodeFDNToken that = (TopologyNodeFDNToken) o;
-        return Objects.equals(getTokenValue(), that.getTokenValue());
+        // Equal tokenValues are always interned to the same (canonical) InternedContent
+        return (getInternedTokenValue() == that.getInternedTokenValue());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getTokenValue());
+        FDNTokenContentTable.InternedContent currentTokenValue = getInternedTokenValue();
+        if(currentTokenValue == null){
+            return Objects.hash(getTokenValue());
+        }
+        return (currentTokenValue.getContentHash());
     }
 }
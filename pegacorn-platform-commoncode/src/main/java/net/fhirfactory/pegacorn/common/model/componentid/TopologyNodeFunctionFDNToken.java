@@ -2,23 +2,25 @@ package net.fhirfactory.pegacorn.common.model.componentid;
 
 import net.fhirfactory.pegacorn.common.model.generalid.FDN;
 import net.fhirfactory.pegacorn.common.model.generalid.FDNToken;
-import org.apache.commons.lang3.SerializationUtils;
+import net.fhirfactory.pegacorn.common.model.generalid.FDNTokenContentTable;
 
 import java.io.Serializable;
 
 public class TopologyNodeFunctionFDNToken implements Serializable {
     public String token;
+    // Keeps the canonical (interned) token String registered, see FDNTokenContentTable
+    private transient FDNTokenContentTable.InternedContent internedToken;
 
     public TopologyNodeFunctionFDNToken(){
         token = new String();
     }
 
     public TopologyNodeFunctionFDNToken(TopologyNodeFunctionFDNToken ori){
-        this.token = SerializationUtils.clone(ori.getToken());
+        setToken(ori.getToken());
     }
 
     public TopologyNodeFunctionFDNToken(String token){
-        this.token = SerializationUtils.clone(token);
+        setToken(token);
     }
 
     public String getToken() {
@@ -26,7 +28,14 @@ public class TopologyNodeFunctionFDNToken implements Serializable {
     }
 
     public void setToken(String token) {
-        this.token = token;
+        if(token == null){
+            this.token = null;
+            this.internedToken = null;
+            return;
+        }
+        FDNTokenContentTable.InternedContent newToken = FDNTokenContentTable.intern(token);
+        this.token = newToken.getContent();
+        this.internedToken = newToken;
     }
 
     public FDNToken toTypeBasedFDNToken(){
@@ -24,6 +24,7 @@ package net.fhirfactory.pegacorn.common.model.componentid;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.io.Serializable;
+import java.util.Objects;
 
 public class TopologyNodeRDN implements Serializable {
     private String nodeName;
@@ -72,6 +73,19 @@ public class TopologyNodeRDN implements Serializable {
         return(newTag);
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof TopologyNodeRDN)) return false;
+        TopologyNodeRDN that = (TopologyNodeRDN) o;
+        return Objects.equals(getNodeName(), that.getNodeName()) && Objects.equals(getNodeVersion(), that.getNodeVersion()) && getNodeType() == that.getNodeType();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getNodeName(), getNodeVersion(), getNodeType());
+    }
+
     @Override
     public String toString() {
         return "TopologyNodeRDN{" +
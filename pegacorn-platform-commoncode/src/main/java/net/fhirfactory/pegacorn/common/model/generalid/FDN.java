@@ -25,7 +25,6 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Objects;
 
-import org.apache.commons.lang3.SerializationUtils;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,15 +47,19 @@ public class FDN implements Serializable {
     }
     private ArrayList<RDN> rdnSet;
     private String FDNType;
-    private FDNToken token;
-    private String fdnToString;
-    private String unqualifiedToken;
+    // The token, toString() and unqualified token values are derived from the rdnSet lazily (and cached),
+    // with appendRDN() extending an already cached value rather than rebuilding it.
+    private volatile FDNToken token;
+    private volatile String fdnToString;
+    private volatile String unqualifiedToken;
 
     private static final String RDN_TO_STRING_ENTRY_SEPERATOR = ".";
     private static final String FDN_TO_STRING_PREFIX = "FDN(";
     private static final String FDN_TO_STRING_SUFFIX = ")";
 
     private static final String FDN_TOKEN_ID = "FDNToken";
+    private static final String LEGACY_TOKEN_QUALIFIER_ID = "Qualifier";
+    private static final String LEGACY_TOKEN_VALUE_ID = "Value";
 
     /**
      * Default Constructor
@@ -65,9 +68,9 @@ public class FDN implements Serializable {
         getLogger().trace(".FDN(): Default constructor invoked.");
         this.rdnSet = new ArrayList<RDN>();
         getLogger().trace(".FDN(): this.rdnElementSet intialised.");
-        this.token = new FDNToken();
-        this.fdnToString = new String();
-        this.unqualifiedToken = new String();
+        this.token = null;
+        this.fdnToString = null;
+        this.unqualifiedToken = null;
     }
 
     /**
@@ -81,29 +84,23 @@ public class FDN implements Serializable {
         if (originalFDN == null) {
             throw (new IllegalArgumentException("Empty FDN passed to copy Constructor"));
         }
-        // Essentially, we iterate through the HashMap from the OriginalFDN, 
-        // create new RDN's from the content, and append these RDN's (in the 
-        // appropriate order) into the new FDN.
-        this.rdnSet = new ArrayList<RDN>();
         ArrayList<RDN> otherRDNSet = originalFDN.getRDNSet();
-        if (otherRDNSet.size() != originalFDN.getRDNCount()) {
-            throw (new IllegalArgumentException("Malformed FDN passed to copy Constructor"));
-        }
-        for (int counter = 0; counter < originalFDN.getRDNCount(); counter++) {
-            RDN currentRDN = otherRDNSet.get(counter);
-            RDN clonedRDN = SerializationUtils.clone(currentRDN);
-            this.rdnSet.add(counter, clonedRDN);
+        this.rdnSet = new ArrayList<RDN>(otherRDNSet.size());
+        for (RDN currentRDN : otherRDNSet) {
+            this.rdnSet.add(new RDN(currentRDN));
         }
-        // We need to pre-build the toString() and getToken() content so we don't re-do it 
-        // every time we do some comparison etc.
-        generateToString();
-        generateToken();
-        generateUnqualifiedToken();
-        getLogger().trace(".FDN( FDN originalFDN ): generatedFDN = {}", this.fdnToString);
+        // The derived values are Strings (immutable), so they can be shared rather than re-generated
+        FDNToken originalToken = originalFDN.token;
+        this.token = (originalToken == null) ? null : new FDNToken(originalToken);
+        this.fdnToString = originalFDN.fdnToString;
+        this.unqualifiedToken = originalFDN.unqualifiedToken;
+        getLogger().trace(".FDN( FDN originalFDN ): Exit");
     }
 
     /**
-     * This constructor uses an FDNToken to construct a new FDN.
+     * This constructor uses an FDNToken to construct a new FDN. The token content
+     * (of the form {@code <0:Qualifier>Value</0:Qualifier><1:Qualifier>Value</1:Qualifier>...})
+     * is parsed in a single pass.
      *
      * @param token An FDNToken from which the FDN may be instantiated.
      */
@@ -114,58 +111,131 @@ public class FDN implements Serializable {
         }
         String tokenContent = token.getContent();
         getLogger().trace(".FDN( FDNToken token ): tokenContent --> {}", tokenContent);
-        String[] rdnStringEntries = tokenContent.split("><");
-        if(rdnStringEntries.length <= 0){
-            throw (new IllegalArgumentException("Badly formed FDNToken passed to Constructor, cannot parse -> " + token.getContent()));
+        if ((tokenContent == null) || tokenContent.isEmpty()) {
+            throw (new IllegalArgumentException("Badly formed FDNToken passed to Constructor, cannot parse -> " + tokenContent));
         }
-        getLogger().trace(".FDN(FDNToken token): We have a valid JSONObject for the FDNToken!, now extract content & process");
         this.rdnSet = new ArrayList<RDN>();
-        for (int counter = 0; counter < rdnStringEntries.length; counter++) {
-            getLogger().trace(".FDN( FDNToken token ): Iterating through the extracted Token, attempting to extract RDN[{}]", counter);
-            String currentCounterEntry = null;
-            for(int loopCounter = 0; counter < rdnStringEntries.length; loopCounter += 1){
-                if(rdnStringEntries[loopCounter].startsWith("<"+counter+":")){
-                    currentCounterEntry = rdnStringEntries[loopCounter];
-                    break;
-                }
-                if(currentCounterEntry == null){
-                    if(rdnStringEntries[loopCounter].startsWith(counter+":")){
-                        currentCounterEntry = rdnStringEntries[loopCounter];
-                        break;
-                    }
-                }
+        this.token = null;
+        this.fdnToString = null;
+        this.unqualifiedToken = null;
+        if (tokenContent.startsWith("{")) {
+            parseLegacyTokenContent(tokenContent);
+        } else if (parseTokenContent(tokenContent)) {
+            // The content was in exactly the form generateToken() would produce, so keep it as the token
+            this.token = new FDNToken(tokenContent);
+        }
+        getLogger().trace(".FDN( FDNToken token ): Exit, rdnCount --> {}", this.rdnSet.size());
+    }
+
+    /**
+     * Parse the token content (a sequence of {@code <n:Qualifier>Value</n:Qualifier>} entries) into the rdnSet.
+     * The leading "<" and the closing element are tolerated if missing/different (as they were by the
+     * earlier split-based parser). As with that parser (which split the content on "><"), an entry runs
+     * up to the next "><" and its Value ends at the first "<" after the Qualifier - so a Value
+     * containing a "<" is truncated there, and the rest of its entry is skipped.
+     *
+     * @param tokenContent The FDNToken content
+     * @return True if the content was exactly the canonical (generated) form of the parsed RDN set
+     */
+    private boolean parseTokenContent(String tokenContent) {
+        int contentLength = tokenContent.length();
+        int position = 0;
+        int counter = 0;
+        boolean isCanonical = true;
+        while (position < contentLength) {
+            // Opening element: "<n:Qualifier>"
+            if (tokenContent.charAt(position) == '<') {
+                position += 1;
+            } else {
+                isCanonical = false;
+            }
+            int orderEnd = tokenContent.indexOf(':', position);
+            if (orderEnd < 0) {
+                throw (new IllegalArgumentException("Badly formed FDNToken passed to Constructor, cannot parse -> " + tokenContent));
             }
-            getLogger().trace(".FDN( FDNToken token ): processing ->{}", currentCounterEntry);
-            // Extract the RDN Type/Qualifier
-            String rdnQualifierWorking = null;
-            if(currentCounterEntry.startsWith("<"+counter+":")){
-                rdnQualifierWorking = currentCounterEntry.replace("<"+counter+":", "");
-            } else if(currentCounterEntry.startsWith(counter+":")) {
-                rdnQualifierWorking = currentCounterEntry.replace(counter + ":", "");
+            if (parseOrder(tokenContent, position, orderEnd) != counter) {
+                throw (new IllegalArgumentException("Badly formed FDNToken passed to Constructor, RDN[" + counter + "] is out of sequence -> " + tokenContent));
             }
-            int rdnQualifierEnd = rdnQualifierWorking.indexOf(">");
-            String rdnQualifier = rdnQualifierWorking.substring(0,rdnQualifierEnd);
-            // Extract the RDN Value
-            String rdnValueWorking = null;
-            if(currentCounterEntry.startsWith("<")) {
-                rdnValueWorking = currentCounterEntry.substring(1, currentCounterEntry.length() - 1);
+            int qualifierStart = orderEnd + 1;
+            int qualifierEnd = tokenContent.indexOf('>', qualifierStart);
+            if (qualifierEnd < 0) {
+                throw (new IllegalArgumentException("Badly formed FDNToken passed to Constructor, cannot parse -> " + tokenContent));
+            }
+            // Value: everything up to the start of the closing element
+            int valueStart = qualifierEnd + 1;
+            int valueEnd = tokenContent.indexOf('<', valueStart);
+            if (valueEnd < 0) {
+                throw (new IllegalArgumentException("Badly formed FDNToken passed to Constructor, cannot parse -> " + tokenContent));
+            }
+            String rdnQualifier = tokenContent.substring(qualifierStart, qualifierEnd);
+            String rdnValue = tokenContent.substring(valueStart, valueEnd);
+            getLogger().trace(".parseTokenContent(): creating RDN, rdnQualifier->{}, rdnValue->{}", rdnQualifier, rdnValue);
+            this.rdnSet.add(new RDN(rdnQualifier, rdnValue));
+            // Closing element: "</n:Qualifier>", up to the next "><" (a missing final ">" is tolerated)
+            int closingEnd = tokenContent.indexOf("><", valueEnd);
+            int nextPosition;
+            if (closingEnd >= 0) {
+                nextPosition = closingEnd + 1;
             } else {
-                rdnValueWorking = currentCounterEntry;
+                closingEnd = (tokenContent.charAt(contentLength - 1) == '>') ? contentLength - 1 : -1;
+                nextPosition = contentLength;
+            }
+            if (isCanonical) {
+                isCanonical = (closingEnd >= 0) && isCanonicalClosingElement(tokenContent, valueEnd, closingEnd, position, qualifierEnd);
+            }
+            position = nextPosition;
+            counter += 1;
+        }
+        return (isCanonical);
+    }
+
+    private static int parseOrder(String tokenContent, int orderStart, int orderEnd) {
+        if (orderStart >= orderEnd) {
+            throw (new IllegalArgumentException("Badly formed FDNToken passed to Constructor, cannot parse -> " + tokenContent));
+        }
+        int order = 0;
+        for (int index = orderStart; index < orderEnd; index++) {
+            char digit = tokenContent.charAt(index);
+            if ((digit < '0') || (digit > '9')) {
+                throw (new IllegalArgumentException("Badly formed FDNToken passed to Constructor, cannot parse -> " + tokenContent));
             }
-            int startPoint = rdnValueWorking.indexOf(">");
-            int endPoint = rdnValueWorking.indexOf("<");
-            String rdnValue = rdnValueWorking.substring(startPoint+1, endPoint);
-            getLogger().trace(".FDN( FDNToken token ): creating RDN, rdnQualifier->{}, rdnValue->{}", rdnQualifier, rdnValue);
-            RDN currentRDN = new RDN(rdnQualifier, rdnValue);
-            getLogger().trace(".FDN( FDNToken token ): Iterating through the extracted RDNs, current RDN --> {}", currentRDN);
-            this.rdnSet.add(counter, currentRDN);
+            order = (order * 10) + (digit - '0');
+        }
+        return (order);
+    }
+
+    // The closing element is canonical if it is "</" followed by the same "n:Qualifier" as the opening element
+    private static boolean isCanonicalClosingElement(String tokenContent, int closingStart, int closingEnd, int openingNameStart, int openingNameEnd) {
+        int openingNameLength = openingNameEnd - openingNameStart;
+        if ((closingEnd - closingStart) != (openingNameLength + 2)) {
+            return (false);
         }
+        if (tokenContent.charAt(closingStart + 1) != '/') {
+            return (false);
+        }
+        return (tokenContent.regionMatches(closingStart + 2, tokenContent, openingNameStart, openingNameLength));
+    }
 
-        // We need to pre-build the toString() and getToken() content so we don't re-do it 
-        // every time we do some comparison etc.
-        generateToString();
-        generateToken();
-        generateUnqualifiedToken();
+    /**
+     * Parse the (earlier) JSON form of the token content, i.e.
+     * {@code {FDNToken:{"0":"{\"Qualifier\":\"...\",\"Value\":\"...\"}", ...}}}
+     *
+     * @param tokenContent The FDNToken content
+     */
+    private void parseLegacyTokenContent(String tokenContent) {
+        getLogger().trace(".parseLegacyTokenContent(): Entry");
+        try {
+            JSONObject tokenObject = new JSONObject(tokenContent);
+            JSONObject rdnEntries = tokenObject.getJSONObject(FDN_TOKEN_ID);
+            int rdnCount = rdnEntries.length();
+            for (int counter = 0; counter < rdnCount; counter++) {
+                JSONObject rdnEntry = new JSONObject(rdnEntries.getString(Integer.toString(counter)));
+                this.rdnSet.add(new RDN(rdnEntry.getString(LEGACY_TOKEN_QUALIFIER_ID), rdnEntry.getString(LEGACY_TOKEN_VALUE_ID)));
+            }
+        } catch (RuntimeException ex) {
+            throw (new IllegalArgumentException("Badly formed FDNToken passed to Constructor, cannot parse -> " + tokenContent, ex));
+        }
+        getLogger().trace(".parseLegacyTokenContent(): Exit");
     }
 
     /**
@@ -182,34 +252,45 @@ public class FDN implements Serializable {
         }
         RDN newRDN = new RDN(toBeAddedRDN);
         int existingSetSize = this.getRDNCount();
-        this.rdnSet.add(existingSetSize, newRDN);
-        // We need to pre-build the toString() and getToken() content so we don't re-do it 
-        // every time we do some comparison etc.
-        generateToString();
-        generateToken();
-        generateUnqualifiedToken();
+        this.rdnSet.add(newRDN);
+        // Extend (rather than regenerate) any already derived values
+        FDNToken existingToken = this.token;
+        if (existingToken != null) {
+            this.token = new FDNToken(existingToken.getContent() + pseudoXMLAttribute(existingSetSize, newRDN.getQualifier(), newRDN.getValue()));
+        }
+        String existingUnqualifiedToken = this.unqualifiedToken;
+        if (existingUnqualifiedToken != null) {
+            String newValue = newRDN.getValue().replace(".", "_");
+            this.unqualifiedToken = (existingSetSize == 0) ? newValue : existingUnqualifiedToken + "." + newValue;
+        }
+        this.fdnToString = null;
         getLogger().trace(".appendRDN(): Exit");
     }
 
     @Override
     public String toString() {
         getLogger().trace(".toString(): Entry/Exit");
-        return (this.fdnToString);
+        String currentToString = this.fdnToString;
+        if (currentToString == null) {
+            currentToString = generateToString();
+            this.fdnToString = currentToString;
+        }
+        return (currentToString);
     }
 
     /**
-     * This method pre-builds the FDN::toString() value. This value
+     * This method builds the FDN::toString() value. This value
      * (this.fdnToString) cannot be used as input into an FDN constructor and is
      * made available only for the purposes of documentation and/or reporting.
      */
-    private void generateToString() {
+    private String generateToString() {
         getLogger().trace(".generateToString(): Entry");
-        String toString = FDN_TO_STRING_PREFIX;
-        generateToken();
-        toString = toString + getToken();
-        toString = toString + FDN_TO_STRING_SUFFIX;
-        this.fdnToString = toString;
+        if (this.rdnSet.isEmpty()) {
+            return (new String());
+        }
+        String toString = FDN_TO_STRING_PREFIX + getToken() + FDN_TO_STRING_SUFFIX;
         getLogger().trace(".generateToString(): Exit");
+        return (toString);
     }
 
     /**
@@ -271,23 +352,32 @@ public class FDN implements Serializable {
 
     public FDNToken getToken() {
         getLogger().trace(".getToken(): Entry/Exit");
-        return (this.token);
+        FDNToken currentToken = this.token;
+        if (currentToken == null) {
+            currentToken = generateToken();
+            this.token = currentToken;
+        }
+        return (currentToken);
     }
 
-    private void generateToken() {
+    private FDNToken generateToken() {
         getLogger().trace(".generateToken(): Entry");
         StringBuilder tokenBuilder = new StringBuilder();
         for (int counter = 0; counter < this.getRDNCount(); counter++) {
             RDN currentRDN = this.rdnSet.get(counter);
-            String currentEntry = pseudoXMLAttribute(counter, currentRDN.getQualifier(), currentRDN.getValue());
-            tokenBuilder.append(currentEntry);
+            appendPseudoXMLAttribute(tokenBuilder, counter, currentRDN.getQualifier(), currentRDN.getValue());
         }
-        this.token = new FDNToken(tokenBuilder.toString());
         getLogger().trace(".generateToken(): Exit");
+        return (new FDNToken(tokenBuilder.toString()));
     }
 
     private String pseudoXMLAttribute(int order, String attributeName, String attributeValue){
         StringBuilder xmlAttributeBuilder = new StringBuilder();
+        appendPseudoXMLAttribute(xmlAttributeBuilder, order, attributeName, attributeValue);
+        return(xmlAttributeBuilder.toString());
+    }
+
+    private void appendPseudoXMLAttribute(StringBuilder xmlAttributeBuilder, int order, String attributeName, String attributeValue){
         xmlAttributeBuilder.append("<");
         xmlAttributeBuilder.append(order);
         xmlAttributeBuilder.append(":");
@@ -299,22 +389,20 @@ public class FDN implements Serializable {
         xmlAttributeBuilder.append(":");
         xmlAttributeBuilder.append(attributeName);
         xmlAttributeBuilder.append(">");
-        return(xmlAttributeBuilder.toString());
     }
 
-    private void generateUnqualifiedToken() {
+    private String generateUnqualifiedToken() {
         getLogger().trace(".generateUnqualifiedToken(): Entry");
-        String newUnqualifiedToken = new String();
+        StringBuilder unqualifiedTokenBuilder = new StringBuilder();
         for (int counter = 0; counter < this.getRDNCount(); counter++) {
             RDN currentRDN = this.rdnSet.get(counter);
-            String value = currentRDN.getValue().replace(".", "_");
-            newUnqualifiedToken = newUnqualifiedToken + value;
+            unqualifiedTokenBuilder.append(currentRDN.getValue().replace(".", "_"));
             if(counter < (this.getRDNCount()-1)){
-                newUnqualifiedToken = newUnqualifiedToken + ".";
+                unqualifiedTokenBuilder.append(".");
             }
         }
-        this.unqualifiedToken = newUnqualifiedToken;
         getLogger().trace(".generateUnqualifiedToken(): Exit");
+        return (unqualifiedTokenBuilder.toString());
     }
     
     public String getID() {
@@ -334,7 +422,12 @@ public class FDN implements Serializable {
 
     public String getUnqualifiedToken() {
         getLogger().trace(".getUnqualifiedToken(): Entry/Exit");
-        return unqualifiedToken;
+        String currentUnqualifiedToken = this.unqualifiedToken;
+        if (currentUnqualifiedToken == null) {
+            currentUnqualifiedToken = generateUnqualifiedToken();
+            this.unqualifiedToken = currentUnqualifiedToken;
+        }
+        return (currentUnqualifiedToken);
     }
 
     public String getFDNType() {
@@ -358,9 +451,6 @@ public class FDN implements Serializable {
         for (int counter = 0; counter < additionalFDNSize; counter++) {
             this.appendRDN(additionalRDNSet.get(counter));
         }
-        generateToString();
-        generateToken();
-        generateUnqualifiedToken();
         getLogger().trace(".appendFDN: Exit");
     }
     
@@ -22,7 +22,6 @@
 package net.fhirfactory.pegacorn.common.model.generalid;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import org.apache.commons.lang3.SerializationUtils;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -30,18 +29,28 @@ import java.util.Objects;
 
 public class FDNToken implements Serializable {
 
+    // The content is always the canonical (interned) String, see FDNTokenContentTable
     private String content;
+    // Derived from the content, re-established lazily after (de)serialisation (null if the content is null)
+    private transient volatile FDNTokenContentTable.InternedContent internedContent;
 
     public FDNToken() {
-        content = new String();
+        setContent("");
     }
 
     public FDNToken(String tokenContent) {
-        this.content = SerializationUtils.clone(tokenContent);
+        setContent(tokenContent);
     }
 
     public FDNToken(FDNToken originalToken) {
-        this.content = new String(originalToken.getContent());
+        FDNTokenContentTable.InternedContent originalContent = originalToken.getInternedContent();
+        if (originalContent == null) {
+            this.content = null;
+            this.internedContent = null;
+        } else {
+            this.content = originalContent.getContent();
+            this.internedContent = originalContent;
+        }
     }
 
     public String getContent() {
@@ -49,7 +58,28 @@ public class FDNToken implements Serializable {
     }
 
     public void setContent(String tokenContent) {
-        this.content = new String(tokenContent);
+        FDNTokenContentTable.InternedContent newContent = FDNTokenContentTable.intern(tokenContent);
+        if (newContent == null) {
+            this.content = null;
+            this.internedContent = null;
+            return;
+        }
+        this.content = newContent.getContent();
+        this.internedContent = newContent;
+    }
+
+    /**
+     * @return The canonical (interned) content of the token, or null if the token has no content
+     */
+    @JsonIgnore
+    public FDNTokenContentTable.InternedContent getInternedContent() {
+        FDNTokenContentTable.InternedContent currentContent = this.internedContent;
+        if ((currentContent == null) && (this.content != null)) {
+            currentContent = FDNTokenContentTable.intern(this.content);
+            this.content = currentContent.getContent();
+            this.internedContent = currentContent;
+        }
+        return (currentContent);
     }
 
     @Override
@@ -89,19 +119,24 @@ public class FDNToken implements Serializable {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         FDNToken fdnToken = (FDNToken) o;
-        boolean equalityTest = fdnToken.getContent().contentEquals(this.getContent());
+        // Equal content is always interned to the same (canonical) InternedContent
+        boolean equalityTest = (fdnToken.getInternedContent() == this.getInternedContent());
         return (equalityTest);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getContent());
+        FDNTokenContentTable.InternedContent currentContent = getInternedContent();
+        if (currentContent == null) {
+            return (Objects.hash(getContent()));
+        }
+        return (currentContent.getContentHash());
     }
 
     public String toTag(){
         String tag = new String();
         FDNToken tempToken = new FDNToken();
-        tempToken.setContent(SerializationUtils.clone(this.getContent()));
+        tempToken.setContent(this.getContent());
         FDN tempFDN = new FDN(tempToken);
         int setSize = tempFDN.getRDNSet().size();
         int counter = 0;
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.common.model.generalid;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A canonicalising table for the (pseudo-XML) content of the FDN based tokens (FDNToken and its subclasses,
+ * TopologyNodeFDNToken, TopologyNodeFunctionFDNToken). Interning the content maps each distinct content
+ * String to a single InternedContent instance, which carries the canonical String, its (cached) hash and a
+ * compact numeric handle. So:
+ * - tokens with the same content share the one String, rather than each holding its own copy, and
+ * - tokens can be compared by InternedContent identity (two InternedContent instances for the same content
+ *   can never both be reachable), rather than by comparing the (long) content Strings.
+ *
+ * The table only weakly references the InternedContent instances, so the entries for tokens that are no
+ * longer in use (e.g. the identifiers of finalised and purged parcels) are cleared and expunged as the
+ * table is used.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public final class FDNTokenContentTable {
+
+    private static final ConcurrentHashMap<String, InternedContentReference> contentTable = new ConcurrentHashMap<>();
+    private static final ReferenceQueue<InternedContent> clearedReferences = new ReferenceQueue<>();
+    private static final AtomicInteger nextHandle = new AtomicInteger(0);
+
+    private FDNTokenContentTable(){
+    }
+
+    /**
+     * Get the canonical InternedContent for the tokenContent, creating (and registering) it if need be.
+     *
+     * @param tokenContent The token content (may be null - tokens are allowed to have no content)
+     * @return The (canonical) InternedContent for the tokenContent, or null if the tokenContent is null
+     */
+    public static InternedContent intern(String tokenContent){
+        if(tokenContent == null){
+            return(null);
+        }
+        expungeClearedReferences();
+        InternedContentReference existingReference = contentTable.get(tokenContent);
+        if(existingReference != null){
+            InternedContent existingContent = existingReference.get();
+            if(existingContent != null){
+                return(existingContent);
+            }
+        }
+        InternedContent newContent = new InternedContent(tokenContent, nextHandle.incrementAndGet());
+        InternedContentReference newReference = new InternedContentReference(newContent, clearedReferences);
+        while(true){
+            existingReference = contentTable.putIfAbsent(tokenContent, newReference);
+            if(existingReference == null){
+                return(newContent);
+            }
+            InternedContent existingContent = existingReference.get();
+            if(existingContent != null){
+                return(existingContent);
+            }
+            // The existing entry has been cleared (but not yet expunged), so nothing can still be holding it
+            if(contentTable.replace(tokenContent, existingReference, newReference)){
+                return(newContent);
+            }
+        }
+    }
+
+    public static int getInternedContentCount(){
+        expungeClearedReferences();
+        return(contentTable.size());
+    }
+
+    private static void expungeClearedReferences(){
+        InternedContentReference clearedReference = (InternedContentReference)clearedReferences.poll();
+        while(clearedReference != null){
+            contentTable.remove(clearedReference.tokenContent, clearedReference);
+            clearedReference = (InternedContentReference)clearedReferences.poll();
+        }
+    }
+
+    /**
+     * The canonical (interned) form of a token content String.
+     */
+    public static final class InternedContent {
+        private final String content;
+        private final int handle;
+        private final int contentHash;
+
+        private InternedContent(String content, int handle){
+            this.content = content;
+            this.handle = handle;
+            this.contentHash = Objects.hash(content);
+        }
+
+        public String getContent() {
+            return content;
+        }
+
+        public int getHandle() {
+            return handle;
+        }
+
+        public int getContentHash() {
+            return contentHash;
+        }
+
+        @Override
+        public String toString() {
+            return "InternedContent{" +
+                    "handle=" + handle +
+                    ", content=" + content +
+                    '}';
+        }
+    }
+
+    private static final class InternedContentReference extends WeakReference<InternedContent> {
+        private final String tokenContent;
+
+        private InternedContentReference(InternedContent referent, ReferenceQueue<InternedContent> queue){
+            super(referent, queue);
+            this.tokenContent = referent.getContent();
+        }
+    }
+}
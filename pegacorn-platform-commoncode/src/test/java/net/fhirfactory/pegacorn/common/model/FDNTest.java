@@ -213,4 +213,159 @@ class FDNTest {
 		}
 	}
 
+	/**
+	 * Test method for
+	 * {@link FDN#FDN(FDNToken)} using the token (pseudo-XML) form generated by {@link FDN#getToken()}.
+	 */
+	@Test
+	void testPseudoXMLTokenRoundTrip() {
+		LOG.debug(".testPseudoXMLTokenRoundTrip(): Entry...");
+		FDNToken originalToken = testFDN1.getToken();
+		LOG.trace(".testPseudoXMLTokenRoundTrip(): originalToken --> {}", originalToken);
+		FDN reconstructedFDN = new FDN(originalToken);
+		if (reconstructedFDN.getRDNCount() != testFDN1.getRDNCount()) {
+			fail("Round-trip produced the wrong number of RDNs, should be " + testFDN1.getRDNCount() + ", but there is --> " + reconstructedFDN.getRDNCount());
+		}
+		for (int counter = 0; counter < testFDN1.getRDNCount(); counter++) {
+			RDN originalRDN = testFDN1.getRDNSet().get(counter);
+			RDN reconstructedRDN = reconstructedFDN.getRDNSet().get(counter);
+			if (!originalRDN.getQualifier().contentEquals(reconstructedRDN.getQualifier()) || !originalRDN.getValue().contentEquals(reconstructedRDN.getValue())) {
+				fail("Round-trip produced a different RDN at position " + counter + " --> " + reconstructedRDN);
+			}
+		}
+		assertEquals(originalToken, reconstructedFDN.getToken());
+		assertEquals(originalToken.hashCode(), reconstructedFDN.getToken().hashCode());
+		assertEquals(testFDN1, reconstructedFDN);
+		// And the reconstructed token must itself re-parse to the same FDN
+		assertEquals(testFDN1, new FDN(reconstructedFDN.getToken()));
+	}
+
+	/**
+	 * Test method for
+	 * {@link FDN#FDN(FDNToken)} using the (earlier) JSON form of the token content.
+	 */
+	@Test
+	void testLegacyJSONTokenRoundTrip() {
+		LOG.debug(".testLegacyJSONTokenRoundTrip(): Entry...");
+		String legacyTokenContent = "{FDNToken:{"
+				+ "\"0\":\"{\\\"Qualifier\\\":\\\"Level0\\\",\\\"Value\\\":\\\"TestValue0\\\"}\","
+				+ "\"1\":\"{\\\"Qualifier\\\":\\\"Level1\\\",\\\"Value\\\":\\\"TestValue1\\\"}\"}}";
+		FDN legacyFDN = new FDN(new FDNToken(legacyTokenContent));
+		if (legacyFDN.getRDNCount() != 2) {
+			fail("Legacy token produced the wrong number of RDNs, should be 2, but there is --> " + legacyFDN.getRDNCount());
+		}
+		RDN firstRDN = legacyFDN.getRDNSet().get(0);
+		if (!firstRDN.getQualifier().contentEquals("Level0") || !firstRDN.getValue().contentEquals("TestValue0")) {
+			fail("Legacy token produced the wrong first RDN --> " + firstRDN);
+		}
+		RDN lastRDN = legacyFDN.getUnqualifiedRDN();
+		if (!lastRDN.getQualifier().contentEquals("Level1") || !lastRDN.getValue().contentEquals("TestValue1")) {
+			fail("Legacy token produced the wrong last RDN --> " + lastRDN);
+		}
+		// The legacy content is not kept: the token is regenerated in the pseudo-XML form, which round-trips
+		FDNToken regeneratedToken = legacyFDN.getToken();
+		if (regeneratedToken.getContent().startsWith("{")) {
+			fail("Legacy token content should have been regenerated in the pseudo-XML form --> " + regeneratedToken);
+		}
+		FDN expectedFDN = new FDN();
+		expectedFDN.appendRDN(new RDN("Level0", "TestValue0"));
+		expectedFDN.appendRDN(new RDN("Level1", "TestValue1"));
+		assertEquals(expectedFDN.getToken(), regeneratedToken);
+		assertEquals(legacyFDN, new FDN(regeneratedToken));
+	}
+
+	/**
+	 * Test method for
+	 * {@link FDN#FDN(FDNToken)} where an RDN value contains a "<" - which (as with the earlier split("><") based
+	 * parser) truncates the value, without the rest of its entry being mistaken for further RDNs.
+	 */
+	@Test
+	void testRDNValueContainingLessThan() {
+		LOG.debug(".testRDNValueContainingLessThan(): Entry...");
+		FDN expectedFDN = new FDN();
+		expectedFDN.appendRDN(new RDN("Level0", "Test"));
+		expectedFDN.appendRDN(new RDN("Level1", "TestValue1"));
+
+		FDN parsedFDN = new FDN(new FDNToken("<0:Level0>Test<Value0</0:Level0><1:Level1>TestValue1</1:Level1>"));
+		assertEquals(expectedFDN, parsedFDN);
+		// the content was not canonical, so the token is regenerated from the (truncated) RDNs
+		assertEquals(expectedFDN.getToken(), parsedFDN.getToken());
+
+		// an RDN-like fragment within the value is part of the skipped remainder, not an RDN of its own
+		parsedFDN = new FDN(new FDNToken("<0:Level0>Test<1:Other>Value0</0:Level0><1:Level1>TestValue1</1:Level1>"));
+		assertEquals(expectedFDN, parsedFDN);
+
+		// hence an RDN value containing a "<" does not survive the round-trip through its token
+		FDN lessThanFDN = new FDN();
+		lessThanFDN.appendRDN(new RDN("Level0", "Test<Value0"));
+		FDN reconstructedFDN = new FDN(lessThanFDN.getToken());
+		assertEquals("Test", reconstructedFDN.getUnqualifiedRDN().getValue());
+	}
+
+	/**
+	 * Test method for
+	 * {@link FDN#FDN(FDNToken)} where the RDN indices run past a single digit.
+	 */
+	@Test
+	void testMultiDigitRDNIndices() {
+		LOG.debug(".testMultiDigitRDNIndices(): Entry...");
+		int rdnCount = 12;
+		FDN longFDN = new FDN();
+		for (int counter = 0; counter < rdnCount; counter++) {
+			longFDN.appendRDN(new RDN("TestType" + counter, "TestValue" + counter));
+		}
+		FDNToken longToken = longFDN.getToken();
+		LOG.trace(".testMultiDigitRDNIndices(): longToken --> {}", longToken);
+		if (!longToken.getContent().contains("<11:TestType11>TestValue11</11:TestType11>")) {
+			fail("Token does not contain the expected (multi-digit) RDN entry --> " + longToken);
+		}
+		FDN reconstructedFDN = new FDN(longToken);
+		if (reconstructedFDN.getRDNCount() != rdnCount) {
+			fail("Wrong number of RDNs, should be " + rdnCount + ", but there is --> " + reconstructedFDN.getRDNCount());
+		}
+		for (int counter = 0; counter < rdnCount; counter++) {
+			RDN currentRDN = reconstructedFDN.getRDNSet().get(counter);
+			if (!currentRDN.getQualifier().contentEquals("TestType" + counter) || !currentRDN.getValue().contentEquals("TestValue" + counter)) {
+				fail("RDN at position " + counter + " is out of order --> " + currentRDN);
+			}
+		}
+		RDN unqualifiedRDN = reconstructedFDN.getUnqualifiedRDN();
+		if (!unqualifiedRDN.getQualifier().contentEquals("TestType11") || !unqualifiedRDN.getValue().contentEquals("TestValue11")) {
+			fail("Wrong unqualified RDN --> " + unqualifiedRDN);
+		}
+		assertEquals(longToken, reconstructedFDN.getToken());
+		// An out-of-sequence multi-digit index must be rejected
+		String outOfSequenceContent = longToken.getContent().replace("<10:TestType10>TestValue10</10:TestType10>", "<01:TestType10>TestValue10</01:TestType10>");
+		assertThrows(IllegalArgumentException.class, () -> new FDN(new FDNToken(outOfSequenceContent)));
+	}
+
+	/**
+	 * Test method for
+	 * {@link FDN#appendRDN(RDN)}, checking the (incrementally extended) token against one generated in a single pass.
+	 */
+	@Test
+	void testTokenEqualityAfterAppendRDN() {
+		LOG.debug(".testTokenEqualityAfterAppendRDN(): Entry...");
+		FDN incrementalFDN = new FDN();
+		incrementalFDN.appendRDN(new RDN("TestType0", "TestValue0"));
+		// Force the token to be cached, so that the following appends extend it rather than regenerate it
+		FDNToken initialToken = incrementalFDN.getToken();
+		LOG.trace(".testTokenEqualityAfterAppendRDN(): initialToken --> {}", initialToken);
+		incrementalFDN.appendRDN(new RDN("TestType1", "TestValue1"));
+		incrementalFDN.appendRDN(new RDN("TestType2", "TestValue2"));
+		FDNToken singlePassToken = new FDN(new FDNToken("<0:TestType0>TestValue0</0:TestType0>"
+				+ "<1:TestType1>TestValue1</1:TestType1>"
+				+ "<2:TestType2>TestValue2</2:TestType2>")).getToken();
+		FDN uncachedFDN = new FDN();
+		uncachedFDN.appendRDN(new RDN("TestType0", "TestValue0"));
+		uncachedFDN.appendRDN(new RDN("TestType1", "TestValue1"));
+		uncachedFDN.appendRDN(new RDN("TestType2", "TestValue2"));
+		assertEquals(singlePassToken, incrementalFDN.getToken());
+		assertEquals(uncachedFDN.getToken(), incrementalFDN.getToken());
+		assertEquals(singlePassToken.hashCode(), incrementalFDN.getToken().hashCode());
+		assertEquals(uncachedFDN, incrementalFDN);
+		// The earlier token must be unaffected by the appends
+		assertEquals(new FDNToken("<0:TestType0>TestValue0</0:TestType0>"), initialToken);
+	}
+
 }
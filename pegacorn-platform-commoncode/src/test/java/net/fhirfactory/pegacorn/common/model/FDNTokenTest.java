@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package net.fhirfactory.pegacorn.common.model;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.fhirfactory.pegacorn.common.model.generalid.FDN;
+import net.fhirfactory.pegacorn.common.model.generalid.FDNToken;
+import net.fhirfactory.pegacorn.common.model.generalid.RDN;
+import org.apache.commons.lang3.SerializationUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ *
+ */
+class FDNTokenTest {
+	private static final Logger LOG = LoggerFactory.getLogger(FDNTokenTest.class);
+
+	FDNToken testToken;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		LOG.debug(".setUp(): Entry...");
+		FDN testFDN = new FDN();
+		testFDN.appendRDN(new RDN("TestType1", "o h n o"));
+		testFDN.appendRDN(new RDN("TestType2", "sre43#$*%&"));
+		testToken = testFDN.getToken();
+		LOG.debug(".setUp(): Exit, testToken --> {}", testToken);
+	}
+
+	@Test
+	void testIdentityEquality() {
+		LOG.info(".testIdentityEquality(): Entry");
+		// a distinct (non-interned) String with the same content
+		String contentCopy = new String(testToken.getContent().toCharArray());
+		FDNToken otherToken = new FDNToken(contentCopy);
+		assertEquals(testToken, otherToken);
+		assertSame(testToken.getInternedContent(), otherToken.getInternedContent());
+		// the tokens share the one (canonical) content String
+		assertSame(testToken.getContent(), otherToken.getContent());
+		FDNToken copiedToken = new FDNToken(testToken);
+		assertEquals(testToken, copiedToken);
+		assertSame(testToken.getContent(), copiedToken.getContent());
+		FDNToken setToken = new FDNToken();
+		setToken.setContent(contentCopy);
+		assertEquals(testToken, setToken);
+		assertNotEquals(testToken, new FDNToken(testToken.getContent() + "x"));
+		assertNotEquals(testToken, new FDNToken());
+	}
+
+	@Test
+	void testHashStability() {
+		LOG.info(".testHashStability(): Entry");
+		int originalHash = testToken.hashCode();
+		assertEquals(Objects.hash(testToken.getContent()), originalHash);
+		assertEquals(originalHash, testToken.hashCode());
+		assertEquals(originalHash, new FDNToken(testToken).hashCode());
+		assertEquals(originalHash, new FDNToken(new String(testToken.getContent().toCharArray())).hashCode());
+		Set<FDNToken> tokenSet = new HashSet<>();
+		tokenSet.add(testToken);
+		assertTrue(tokenSet.contains(new FDNToken(new String(testToken.getContent().toCharArray()))));
+	}
+
+	@Test
+	void testNullContent() {
+		LOG.info(".testNullContent(): Entry");
+		FDNToken nullToken = new FDNToken((String) null);
+		assertNull(nullToken.getContent());
+		assertNull(nullToken.getInternedContent());
+		FDNToken setNullToken = new FDNToken();
+		setNullToken.setContent(null);
+		assertNull(setNullToken.getContent());
+		assertEquals(nullToken, setNullToken);
+		assertEquals(nullToken.hashCode(), setNullToken.hashCode());
+		assertEquals(Objects.hash((Object) null), nullToken.hashCode());
+		assertNull(new FDNToken(nullToken).getContent());
+		assertNotEquals(nullToken, testToken);
+		assertNotEquals(testToken, nullToken);
+	}
+
+	@Test
+	void testEqualityAfterDeserialisation() {
+		LOG.info(".testEqualityAfterDeserialisation(): Entry");
+		FDNToken javaClone = SerializationUtils.clone(testToken);
+		assertEquals(testToken, javaClone);
+		assertEquals(testToken.hashCode(), javaClone.hashCode());
+		assertSame(testToken.getInternedContent(), javaClone.getInternedContent());
+		try {
+			ObjectMapper jsonMapper = new ObjectMapper();
+			FDNToken jsonClone = jsonMapper.readValue(jsonMapper.writeValueAsString(testToken), FDNToken.class);
+			assertEquals(testToken, jsonClone);
+			assertEquals(testToken.hashCode(), jsonClone.hashCode());
+			FDNToken nullClone = jsonMapper.readValue("{\"content\":null}", FDNToken.class);
+			assertNull(nullClone.getContent());
+			assertEquals(new FDNToken((String) null), nullClone);
+		} catch (Exception ex) {
+			fail("Could not (de)serialise the FDNToken via JSON: " + ex.getMessage());
+		}
+	}
+}
@@ -21,6 +21,8 @@
  */
 package net.fhirfactory.pegacorn.petasos.audit.brokers;
 
+import net.fhirfactory.pegacorn.petasos.audit.pipeline.ResilienceParcelAuditPipeline;
+import net.fhirfactory.pegacorn.petasos.audit.policy.WUPAuditPolicyRegistry;
 import net.fhirfactory.pegacorn.petasos.audit.transformers.DefaultResilienceParcel2FHIRAuditEvent;
 import net.fhirfactory.pegacorn.petasos.audit.transformers.UoWPayload2FHIRAuditEvent;
 import net.fhirfactory.pegacorn.petasos.model.audit.PetasosAuditWriterInterface;
@@ -47,7 +49,28 @@ public class MOAServicesAuditBroker {
     @Inject
     UoWPayload2FHIRAuditEvent uow2auditevent;
 
+    @Inject
+    ResilienceParcelAuditPipeline auditPipeline;
+
+    @Inject
+    WUPAuditPolicyRegistry auditPolicyRegistry;
+
+    /**
+     * Audit the current state of the ResilienceParcel, subject to the audit policy of its WUP (see
+     * WUPAuditPolicyRegistry). If the ResilienceParcelAuditPipeline is running, the AuditEvent is built and written
+     * (asynchronously) by the pipeline and null is returned.
+     *
+     * @param parcelInstance The ResilienceParcel to be audited
+     * @return The AuditEvent, or null if it is not to be audited or has been handed to the pipeline (or dropped by it)
+     */
     public AuditEvent logActivity(ResilienceParcel parcelInstance) {
+        if(auditPolicyRegistry != null && !auditPolicyRegistry.isToBeAudited(parcelInstance)){
+            return(null);
+        }
+        if(parcelInstance != null && auditPipeline != null && auditPipeline.isRunning()){
+            auditPipeline.submit(parcelInstance);
+            return(null);
+        }
         AuditEvent entry = logActivity(parcelInstance, false);
 
         return(entry);
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.audit.pipeline;
+
+/**
+ * What the ResilienceParcelAuditPipeline does when its ring buffer is full: either drop the (new) audit snapshot
+ * straight away, or block the caller (for up to the configured offer timeout) until there is space.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public enum AuditPipelineOverflowPolicyEnum {
+    AUDIT_PIPELINE_OVERFLOW_POLICY_DROP("drop"),
+    AUDIT_PIPELINE_OVERFLOW_POLICY_BLOCK("block");
+
+    private String overflowPolicy;
+
+    private AuditPipelineOverflowPolicyEnum(String overflowPolicy){
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public String getOverflowPolicy(){
+        return(this.overflowPolicy);
+    }
+
+    public static AuditPipelineOverflowPolicyEnum fromOverflowPolicy(String overflowPolicy){
+        if(overflowPolicy == null){
+            throw(new IllegalArgumentException(".fromOverflowPolicy(): overflowPolicy is null"));
+        }
+        for(AuditPipelineOverflowPolicyEnum policy: values()){
+            if(policy.getOverflowPolicy().equalsIgnoreCase(overflowPolicy.trim())){
+                return(policy);
+            }
+        }
+        throw(new IllegalArgumentException(".fromOverflowPolicy(): unknown overflowPolicy->" + overflowPolicy));
+    }
+}
@@ -0,0 +1,580 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.audit.pipeline;
+
+import net.fhirfactory.pegacorn.petasos.audit.transformers.DefaultResilienceParcel2FHIRAuditEvent;
+import net.fhirfactory.pegacorn.petasos.model.audit.PetasosAuditWriterInterface;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelFinalisationStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.util.PegacornEnvironmentProperties;
+import org.hl7.fhir.r4.model.AuditEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The ResilienceParcelAuditPipeline takes the building (and writing) of the ResilienceParcel AuditEvents off the
+ * (Camel) threads that drive the Parcel lifecycle.
+ * <p>
+ * The caller only takes a (shallow) snapshot of the Parcel and offers it to a bounded ring buffer - what happens when
+ * the buffer is full is the AuditPipelineOverflowPolicyEnum. A single dispatcher thread drains the buffer into a
+ * coalescing map (keyed on the ResilienceParcelIdentifier) so that the lifecycle transitions of a Parcel that occur
+ * within AUDIT_PIPELINE_COALESCE_WINDOW_MILLISECONDS (of its first transition) produce a single AuditEvent reflecting
+ * the latest state. A Parcel that reaches a terminal state (finalised or cancelled) is released straight away.
+ * <p>
+ * Released snapshots are handed, in batches, to a set of single-threaded workers - a Parcel always goes to the same
+ * worker, so its AuditEvents are written in order - which perform the DefaultResilienceParcel2FHIRAuditEvent
+ * transform and the (batch) write to the PetasosAuditWriterInterface. If the workers fall behind, the dispatcher
+ * waits for them, and so the back pressure ends up at the ring buffer.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@ApplicationScoped
+public class ResilienceParcelAuditPipeline {
+    private static final Logger LOG = LoggerFactory.getLogger(ResilienceParcelAuditPipeline.class);
+
+    private static final long MINIMUM_DISPATCHER_TICK_MILLISECONDS = 10;
+    // (well within SHUTDOWN_WAIT_MILLISECONDS, so the dispatcher sees the shutdown and flushes before the wait ends)
+    private static final long MAXIMUM_DISPATCHER_TICK_MILLISECONDS = 100;
+    private static final int WORKER_QUEUE_DEPTH = 4;
+    private static final long SHUTDOWN_WAIT_MILLISECONDS = 5000;
+
+    private boolean enabled;
+    private int ringBufferSize;
+    private int workerCount;
+    private long coalesceWindowMillis;
+    private int batchSize;
+    private AuditPipelineOverflowPolicyEnum overflowPolicy;
+    private long offerTimeoutMillis;
+
+    private ArrayBlockingQueue<ParcelAuditSnapshot> ringBuffer;
+    private LinkedHashMap<ResilienceParcelIdentifier, ParcelAuditSnapshot> coalesceMap;
+    private ExecutorService dispatcher;
+    private ThreadPoolExecutor[] workers;
+    private volatile boolean running;
+
+    private LongAdder enqueuedCount;
+    private LongAdder droppedCount;
+    private LongAdder coalescedCount;
+    private LongAdder writtenCount;
+    private LongAdder failedCount;
+    private LongAdder batchCount;
+    private LongAdder totalLagMillis;
+    private AtomicLong maxLagMillis;
+    private AtomicLong lastLagMillis;
+    private volatile int pendingCoalesceCount;
+    private volatile long oldestPendingCaptureTime;
+
+    @Inject
+    private DefaultResilienceParcel2FHIRAuditEvent parcel2auditevent;
+
+    @Inject
+    private PetasosAuditWriterInterface auditWriter;
+
+    @Inject
+    private PegacornEnvironmentProperties environmentProperties;
+
+    public ResilienceParcelAuditPipeline(){
+        this.enabled = true;
+        this.ringBufferSize = PetasosPropertyConstants.AUDIT_PIPELINE_RING_BUFFER_SIZE;
+        this.workerCount = PetasosPropertyConstants.AUDIT_PIPELINE_WORKER_COUNT;
+        this.coalesceWindowMillis = PetasosPropertyConstants.AUDIT_PIPELINE_COALESCE_WINDOW_MILLISECONDS;
+        this.batchSize = PetasosPropertyConstants.AUDIT_PIPELINE_BATCH_SIZE;
+        this.overflowPolicy = AuditPipelineOverflowPolicyEnum.AUDIT_PIPELINE_OVERFLOW_POLICY_BLOCK;
+        this.offerTimeoutMillis = PetasosPropertyConstants.AUDIT_PIPELINE_OFFER_TIMEOUT_MILLISECONDS;
+        this.coalesceMap = new LinkedHashMap<>();
+        this.running = false;
+        this.enqueuedCount = new LongAdder();
+        this.droppedCount = new LongAdder();
+        this.coalescedCount = new LongAdder();
+        this.writtenCount = new LongAdder();
+        this.failedCount = new LongAdder();
+        this.batchCount = new LongAdder();
+        this.totalLagMillis = new LongAdder();
+        this.maxLagMillis = new AtomicLong(0);
+        this.lastLagMillis = new AtomicLong(0);
+        this.pendingCoalesceCount = 0;
+        this.oldestPendingCaptureTime = 0;
+    }
+
+    @PostConstruct
+    protected void initialise(){
+        LOG.debug(".initialise(): Entry");
+        if(environmentProperties != null){
+            try {
+                enabled = environmentProperties.getBooleanProperty(PetasosPropertyConstants.AUDIT_PIPELINE_ENABLED_PROPERTY_NAME, true);
+                ringBufferSize = environmentProperties.getIntegerProperty(PetasosPropertyConstants.AUDIT_PIPELINE_RING_BUFFER_SIZE_PROPERTY_NAME, PetasosPropertyConstants.AUDIT_PIPELINE_RING_BUFFER_SIZE);
+                workerCount = environmentProperties.getIntegerProperty(PetasosPropertyConstants.AUDIT_PIPELINE_WORKER_COUNT_PROPERTY_NAME, PetasosPropertyConstants.AUDIT_PIPELINE_WORKER_COUNT);
+                coalesceWindowMillis = Long.parseLong(environmentProperties.getProperty(PetasosPropertyConstants.AUDIT_PIPELINE_COALESCE_WINDOW_MILLISECONDS_PROPERTY_NAME, String.valueOf(PetasosPropertyConstants.AUDIT_PIPELINE_COALESCE_WINDOW_MILLISECONDS)));
+                batchSize = environmentProperties.getIntegerProperty(PetasosPropertyConstants.AUDIT_PIPELINE_BATCH_SIZE_PROPERTY_NAME, PetasosPropertyConstants.AUDIT_PIPELINE_BATCH_SIZE);
+                overflowPolicy = AuditPipelineOverflowPolicyEnum.fromOverflowPolicy(environmentProperties.getProperty(PetasosPropertyConstants.AUDIT_PIPELINE_OVERFLOW_POLICY_PROPERTY_NAME, AuditPipelineOverflowPolicyEnum.AUDIT_PIPELINE_OVERFLOW_POLICY_BLOCK.getOverflowPolicy()));
+                offerTimeoutMillis = Long.parseLong(environmentProperties.getProperty(PetasosPropertyConstants.AUDIT_PIPELINE_OFFER_TIMEOUT_MILLISECONDS_PROPERTY_NAME, String.valueOf(PetasosPropertyConstants.AUDIT_PIPELINE_OFFER_TIMEOUT_MILLISECONDS)));
+            } catch(IllegalArgumentException ex){
+                LOG.warn(".initialise(): Invalid audit pipeline property, using the defaults, error->{}", ex.getMessage());
+                ringBufferSize = PetasosPropertyConstants.AUDIT_PIPELINE_RING_BUFFER_SIZE;
+                workerCount = PetasosPropertyConstants.AUDIT_PIPELINE_WORKER_COUNT;
+                coalesceWindowMillis = PetasosPropertyConstants.AUDIT_PIPELINE_COALESCE_WINDOW_MILLISECONDS;
+                batchSize = PetasosPropertyConstants.AUDIT_PIPELINE_BATCH_SIZE;
+                overflowPolicy = AuditPipelineOverflowPolicyEnum.AUDIT_PIPELINE_OVERFLOW_POLICY_BLOCK;
+                offerTimeoutMillis = PetasosPropertyConstants.AUDIT_PIPELINE_OFFER_TIMEOUT_MILLISECONDS;
+            }
+        }
+        if(!enabled){
+            LOG.debug(".initialise(): Exit, the audit pipeline is disabled, AuditEvents will be built on the caller's thread");
+            return;
+        }
+        ringBufferSize = Math.max(1, ringBufferSize);
+        workerCount = Math.max(1, workerCount);
+        coalesceWindowMillis = Math.max(0, coalesceWindowMillis);
+        batchSize = Math.max(1, batchSize);
+        offerTimeoutMillis = Math.max(0, offerTimeoutMillis);
+        ringBuffer = new ArrayBlockingQueue<>(ringBufferSize);
+        workers = new ThreadPoolExecutor[workerCount];
+        for(int counter = 0; counter < workerCount; counter++){
+            String workerName = "ResilienceParcelAuditPipeline-Worker-" + counter;
+            workers[counter] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(WORKER_QUEUE_DEPTH),
+                    runnable -> {
+                        Thread workerThread = new Thread(runnable, workerName);
+                        workerThread.setDaemon(true);
+                        return(workerThread);
+                    },
+                    new WaitForWorkerPolicy());
+        }
+        dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread dispatcherThread = new Thread(runnable, "ResilienceParcelAuditPipeline-Dispatcher");
+            dispatcherThread.setDaemon(true);
+            return(dispatcherThread);
+        });
+        running = true;
+        dispatcher.execute(this::dispatch);
+        LOG.debug(".initialise(): Exit, ringBufferSize->{}, workerCount->{}, coalesceWindowMillis->{}, batchSize->{}, overflowPolicy->{}",
+                ringBufferSize, workerCount, coalesceWindowMillis, batchSize, overflowPolicy);
+    }
+
+    @PreDestroy
+    protected void shutdown(){
+        LOG.debug(".shutdown(): Entry");
+        if(!running){
+            return;
+        }
+        running = false;
+        try {
+            dispatcher.shutdown();
+            if(!dispatcher.awaitTermination(SHUTDOWN_WAIT_MILLISECONDS, TimeUnit.MILLISECONDS)){
+                LOG.warn(".shutdown(): The dispatcher did not finish flushing, remaining->{}", ringBuffer.size() + pendingCoalesceCount);
+                dispatcher.shutdownNow();
+            }
+            for(ThreadPoolExecutor worker: workers){
+                worker.shutdown();
+            }
+            for(ThreadPoolExecutor worker: workers){
+                if(!worker.awaitTermination(SHUTDOWN_WAIT_MILLISECONDS, TimeUnit.MILLISECONDS)){
+                    worker.shutdownNow();
+                }
+            }
+        } catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+        }
+        LOG.debug(".shutdown(): Exit, written->{}, dropped->{}", getWrittenCount(), getDroppedCount());
+    }
+
+    public boolean isRunning(){
+        return(running);
+    }
+
+    /**
+     * Offer (a snapshot of) the ResilienceParcel to the pipeline, the AuditEvent will be built and written later.
+     *
+     * @param parcel The ResilienceParcel whose current state is to be audited
+     * @return True if the snapshot was accepted, false if the pipeline is not running or the snapshot was dropped
+     */
+    public boolean submit(ResilienceParcel parcel){
+        LOG.debug(".submit(): Entry, parcel->{}", parcel);
+        if(parcel == null){
+            throw(new IllegalArgumentException(".submit(): parcel is null"));
+        }
+        if(!running){
+            LOG.debug(".submit(): Exit, the pipeline is not running");
+            return(false);
+        }
+        ParcelAuditSnapshot snapshot = new ParcelAuditSnapshot(parcel);
+        boolean accepted;
+        if(overflowPolicy == AuditPipelineOverflowPolicyEnum.AUDIT_PIPELINE_OVERFLOW_POLICY_BLOCK){
+            try {
+                accepted = ringBuffer.offer(snapshot, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch(InterruptedException ex){
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        } else {
+            accepted = ringBuffer.offer(snapshot);
+        }
+        if(accepted){
+            enqueuedCount.increment();
+        } else {
+            droppedCount.increment();
+            LOG.warn(".submit(): Audit ring buffer is full, dropped the audit snapshot, parcelIdentifier->{}, dropped->{}", snapshot.getParcelIdentifier(), getDroppedCount());
+        }
+        LOG.debug(".submit(): Exit, accepted->{}", accepted);
+        return(accepted);
+    }
+
+    //
+    // Dispatcher
+    //
+
+    private void dispatch(){
+        LOG.debug(".dispatch(): Entry");
+        long tick = Math.min(MAXIMUM_DISPATCHER_TICK_MILLISECONDS, Math.max(MINIMUM_DISPATCHER_TICK_MILLISECONDS, coalesceWindowMillis / 4));
+        List<ParcelAuditSnapshot> drained = new ArrayList<>();
+        while(running || !ringBuffer.isEmpty()){
+            try {
+                List<ParcelAuditSnapshot> releasedList = new ArrayList<>();
+                ParcelAuditSnapshot snapshot = ringBuffer.poll(tick, TimeUnit.MILLISECONDS);
+                if(snapshot != null){
+                    coalesce(snapshot, releasedList);
+                    ringBuffer.drainTo(drained, batchSize * workerCount);
+                    for(ParcelAuditSnapshot drainedSnapshot: drained){
+                        coalesce(drainedSnapshot, releasedList);
+                    }
+                    drained.clear();
+                }
+                releaseExpired(releasedList, false);
+                submitToWorkers(releasedList);
+            } catch(InterruptedException ex){
+                break;
+            } catch(Exception ex){
+                LOG.error(".dispatch(): Unexpected error in the audit dispatcher, continuing", ex);
+            }
+        }
+        List<ParcelAuditSnapshot> remainingList = new ArrayList<>();
+        ringBuffer.drainTo(drained);
+        for(ParcelAuditSnapshot drainedSnapshot: drained){
+            coalesce(drainedSnapshot, remainingList);
+        }
+        releaseExpired(remainingList, true);
+        try {
+            submitToWorkers(remainingList);
+        } catch(RejectedExecutionException ex){
+            LOG.warn(".dispatch(): The workers were shutdown before the flush completed, remaining->{}", remainingList.size());
+            return;
+        }
+        LOG.debug(".dispatch(): Exit, flushed->{}", remainingList.size());
+    }
+
+    private void coalesce(ParcelAuditSnapshot snapshot, List<ParcelAuditSnapshot> releasedList){
+        ResilienceParcelIdentifier parcelIdentifier = snapshot.getParcelIdentifier();
+        if(parcelIdentifier == null){
+            releasedList.add(snapshot);
+            return;
+        }
+        ParcelAuditSnapshot pendingSnapshot = coalesceMap.get(parcelIdentifier);
+        if(pendingSnapshot != null){
+            pendingSnapshot.supersede(snapshot);
+            coalescedCount.increment();
+        } else {
+            pendingSnapshot = snapshot;
+            coalesceMap.put(parcelIdentifier, pendingSnapshot);
+        }
+        if(pendingSnapshot.isTerminal()){
+            coalesceMap.remove(parcelIdentifier);
+            releasedList.add(pendingSnapshot);
+        }
+    }
+
+    private void releaseExpired(List<ParcelAuditSnapshot> releasedList, boolean releaseAll){
+        long releaseBefore = System.currentTimeMillis() - coalesceWindowMillis;
+        Iterator<Map.Entry<ResilienceParcelIdentifier, ParcelAuditSnapshot>> pendingIterator = coalesceMap.entrySet().iterator();
+        while(pendingIterator.hasNext()){
+            ParcelAuditSnapshot pendingSnapshot = pendingIterator.next().getValue();
+            // The map is in order of first capture, so the first snapshot still within its window ends the scan
+            if(!releaseAll && (pendingSnapshot.getFirstCaptureTime() > releaseBefore)){
+                break;
+            }
+            pendingIterator.remove();
+            releasedList.add(pendingSnapshot);
+        }
+        pendingCoalesceCount = coalesceMap.size();
+        if(coalesceMap.isEmpty()){
+            oldestPendingCaptureTime = 0;
+        } else {
+            oldestPendingCaptureTime = coalesceMap.values().iterator().next().getFirstCaptureTime();
+        }
+    }
+
+    private void submitToWorkers(List<ParcelAuditSnapshot> releasedList){
+        if(releasedList.isEmpty()){
+            return;
+        }
+        List<List<ParcelAuditSnapshot>> workerBatches = new ArrayList<>(workerCount);
+        for(int counter = 0; counter < workerCount; counter++){
+            workerBatches.add(new ArrayList<>());
+        }
+        for(ParcelAuditSnapshot snapshot: releasedList){
+            int workerIndex = 0;
+            if(snapshot.getParcelIdentifier() != null){
+                workerIndex = Math.floorMod(snapshot.getParcelIdentifier().hashCode(), workerCount);
+            }
+            List<ParcelAuditSnapshot> workerBatch = workerBatches.get(workerIndex);
+            workerBatch.add(snapshot);
+            if(workerBatch.size() >= batchSize){
+                List<ParcelAuditSnapshot> fullBatch = new ArrayList<>(workerBatch);
+                workers[workerIndex].execute(() -> writeBatch(fullBatch));
+                workerBatch.clear();
+            }
+        }
+        for(int counter = 0; counter < workerCount; counter++){
+            List<ParcelAuditSnapshot> workerBatch = workerBatches.get(counter);
+            if(!workerBatch.isEmpty()){
+                workers[counter].execute(() -> writeBatch(workerBatch));
+            }
+        }
+    }
+
+    //
+    // Workers
+    //
+
+    private void writeBatch(List<ParcelAuditSnapshot> snapshotBatch){
+        LOG.debug(".writeBatch(): Entry, snapshotBatch.size()->{}", snapshotBatch.size());
+        List<AuditEvent> auditEventBatch = new ArrayList<>(snapshotBatch.size());
+        for(ParcelAuditSnapshot snapshot: snapshotBatch){
+            try {
+                AuditEvent auditEvent = parcel2auditevent.transform(snapshot.getParcel());
+                if(auditEvent != null){
+                    auditEventBatch.add(auditEvent);
+                } else {
+                    failedCount.increment();
+                }
+            } catch(Exception ex){
+                failedCount.increment();
+                LOG.warn(".writeBatch(): Could not transform the Parcel into an AuditEvent, parcelIdentifier->{}, error->{}", snapshot.getParcelIdentifier(), ex.getMessage());
+            }
+        }
+        if(auditEventBatch.isEmpty()){
+            return;
+        }
+        try {
+            auditWriter.logAuditEventBatchAsynchronously(auditEventBatch);
+            writtenCount.add(auditEventBatch.size());
+            batchCount.increment();
+        } catch(Exception ex){
+            failedCount.add(auditEventBatch.size());
+            LOG.warn(".writeBatch(): Could not write the AuditEvent batch, size->{}, error->{}", auditEventBatch.size(), ex.getMessage());
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for(ParcelAuditSnapshot snapshot: snapshotBatch){
+            long lag = now - snapshot.getFirstCaptureTime();
+            totalLagMillis.add(lag);
+            maxLagMillis.accumulateAndGet(lag, Math::max);
+            lastLagMillis.set(lag);
+        }
+        LOG.debug(".writeBatch(): Exit, written->{}", auditEventBatch.size());
+    }
+
+    /**
+     * When a worker's queue is full the dispatcher waits for space (rather than running the batch itself), so that
+     * the batches of a Parcel are still written in order and the back pressure ends up at the ring buffer.
+     */
+    private static class WaitForWorkerPolicy implements RejectedExecutionHandler {
+        @Override
+        public void rejectedExecution(Runnable batch, ThreadPoolExecutor worker) {
+            if(worker.isShutdown()){
+                throw(new RejectedExecutionException(".rejectedExecution(): worker is shutdown"));
+            }
+            try {
+                worker.getQueue().put(batch);
+            } catch(InterruptedException ex){
+                Thread.currentThread().interrupt();
+                throw(new RejectedExecutionException(".rejectedExecution(): interrupted waiting for the worker", ex));
+            }
+        }
+    }
+
+    //
+    // Metrics
+    //
+
+    public long getEnqueuedCount(){
+        return(enqueuedCount.sum());
+    }
+
+    public long getDroppedCount(){
+        return(droppedCount.sum());
+    }
+
+    public long getCoalescedCount(){
+        return(coalescedCount.sum());
+    }
+
+    public long getWrittenCount(){
+        return(writtenCount.sum());
+    }
+
+    public long getFailedCount(){
+        return(failedCount.sum());
+    }
+
+    public long getBatchCount(){
+        return(batchCount.sum());
+    }
+
+    public int getRingBufferDepth(){
+        if(ringBuffer == null){
+            return(0);
+        }
+        return(ringBuffer.size());
+    }
+
+    public int getRingBufferCapacity(){
+        return(ringBufferSize);
+    }
+
+    public int getPendingCoalesceCount(){
+        return(pendingCoalesceCount);
+    }
+
+    /**
+     * @return The time (in milliseconds) from the first captured transition of the last written Parcel to its write
+     */
+    public long getLastLagMillis(){
+        return(lastLagMillis.get());
+    }
+
+    public long getMaxLagMillis(){
+        return(maxLagMillis.get());
+    }
+
+    public long getAverageLagMillis(){
+        long written = writtenCount.sum();
+        if(written == 0){
+            return(0);
+        }
+        return(totalLagMillis.sum() / written);
+    }
+
+    /**
+     * @return The age (in milliseconds) of the oldest snapshot not yet released to the workers, 0 if there is none
+     */
+    public long getOldestPendingAgeMillis(){
+        long oldestCaptureTime = oldestPendingCaptureTime;
+        if(ringBuffer != null){
+            ParcelAuditSnapshot head = ringBuffer.peek();
+            if((head != null) && ((oldestCaptureTime == 0) || (head.getFirstCaptureTime() < oldestCaptureTime))){
+                oldestCaptureTime = head.getFirstCaptureTime();
+            }
+        }
+        if(oldestCaptureTime == 0){
+            return(0);
+        }
+        return(System.currentTimeMillis() - oldestCaptureTime);
+    }
+
+    public void resetLagStatistics(){
+        totalLagMillis.reset();
+        maxLagMillis.set(0);
+        lastLagMillis.set(0);
+    }
+
+    //
+    // Snapshot
+    //
+
+    /**
+     * A copy of the ResilienceParcel at the time of the lifecycle transition. The UoW is copied too (its payloads are
+     * shared, not re-read), so the AuditEvent built later on a worker thread reflects the UoW as it was at the
+     * transition - not egress content added since, nor a UoW the Parcel cache has since replaced.
+     */
+    private static class ParcelAuditSnapshot {
+        private ResilienceParcel parcel;
+        private ResilienceParcelIdentifier parcelIdentifier;
+        private long firstCaptureTime;
+
+        private ParcelAuditSnapshot(ResilienceParcel originalParcel){
+            this.parcel = new ResilienceParcel(originalParcel);
+            // The copy constructor does not carry the status across
+            if(originalParcel.hasProcessingStatus()){
+                this.parcel.setProcessingStatus(originalParcel.getProcessingStatus());
+            }
+            if(originalParcel.hasFinalisationStatus()){
+                this.parcel.setFinalisationStatus(originalParcel.getFinalisationStatus());
+            }
+            // (the UoW captured by the Parcel copy, so it is consistent with the rest of the copy)
+            if(this.parcel.hasActualUoW()){
+                this.parcel.setActualUoW(new UoW(this.parcel.getActualUoW()));
+            }
+            this.parcelIdentifier = originalParcel.getIdentifier();
+            this.firstCaptureTime = System.currentTimeMillis();
+        }
+
+        private void supersede(ParcelAuditSnapshot laterSnapshot){
+            this.parcel = laterSnapshot.getParcel();
+        }
+
+        private boolean isTerminal(){
+            ResilienceParcelProcessingStatusEnum processingStatus = parcel.getProcessingStatus();
+            if(processingStatus == ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED
+                    || processingStatus == ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED_ELSEWHERE
+                    || processingStatus == ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_CANCELLED){
+                return(true);
+            }
+            return(parcel.getFinalisationStatus() == ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED);
+        }
+
+        private ResilienceParcel getParcel(){
+            return(parcel);
+        }
+
+        private ResilienceParcelIdentifier getParcelIdentifier(){
+            return(parcelIdentifier);
+        }
+
+        private long getFirstCaptureTime(){
+            return(firstCaptureTime);
+        }
+    }
+}
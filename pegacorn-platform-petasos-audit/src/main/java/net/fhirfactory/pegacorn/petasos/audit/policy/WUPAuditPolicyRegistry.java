@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.audit.policy;
+
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeRDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeTypeEnum;
+import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
+import net.fhirfactory.pegacorn.petasos.model.audit.AuditPolicyEnum;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoWProcessingOutcomeEnum;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
+import net.fhirfactory.pegacorn.util.PegacornEnvironmentProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Holds the AuditPolicyEnum of each WUP, resolved once (per WUP) and then cached against its WUPIdentifier - which is
+ * what each ResilienceParcel carries - so that deciding whether a Parcel's lifecycle transition is to be audited is a
+ * single map lookup.
+ * <p>
+ * A WUP's policy is, in order of precedence: the policy it registered (see registerWUP(), typically from the WUP
+ * template's specifyAuditPolicy()), its entry in the AUDIT_POLICY_WUP_OVERRIDES property (by WUP name), or the
+ * processing plant default (AUDIT_POLICY_DEFAULT, itself defaulting to AUDIT_POLICY_FULL).
+ * <p>
+ * Sampling is by Parcel (on the hash of its ResilienceParcelIdentifier) rather than by transition, so a sampled Parcel
+ * has its whole lifecycle audited.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@ApplicationScoped
+public class WUPAuditPolicyRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(WUPAuditPolicyRegistry.class);
+
+    private ConcurrentHashMap<WUPIdentifier, AuditPolicyEnum> wupPolicyMap;
+    private ConcurrentHashMap<String, AuditPolicyEnum> wupNameOverrideMap;
+    private AuditPolicyEnum defaultPolicy;
+    private int sampleRate;
+    private LongAdder suppressedCount;
+
+    @Inject
+    private PegacornEnvironmentProperties environmentProperties;
+
+    public WUPAuditPolicyRegistry(){
+        this.wupPolicyMap = new ConcurrentHashMap<>();
+        this.wupNameOverrideMap = new ConcurrentHashMap<>();
+        this.defaultPolicy = AuditPolicyEnum.AUDIT_POLICY_FULL;
+        this.sampleRate = PetasosPropertyConstants.AUDIT_POLICY_SAMPLE_RATE;
+        this.suppressedCount = new LongAdder();
+    }
+
+    @PostConstruct
+    protected void initialise(){
+        LOG.debug(".initialise(): Entry");
+        if(environmentProperties == null){
+            LOG.debug(".initialise(): Exit, no environmentProperties, using the defaults");
+            return;
+        }
+        try {
+            defaultPolicy = AuditPolicyEnum.fromAuditPolicy(environmentProperties.getProperty(PetasosPropertyConstants.AUDIT_POLICY_DEFAULT_PROPERTY_NAME, AuditPolicyEnum.AUDIT_POLICY_FULL.getAuditPolicy()));
+            sampleRate = Math.max(1, environmentProperties.getIntegerProperty(PetasosPropertyConstants.AUDIT_POLICY_SAMPLE_RATE_PROPERTY_NAME, PetasosPropertyConstants.AUDIT_POLICY_SAMPLE_RATE));
+        } catch(IllegalArgumentException ex){
+            LOG.warn(".initialise(): Invalid audit policy property, using the defaults, error->{}", ex.getMessage());
+            defaultPolicy = AuditPolicyEnum.AUDIT_POLICY_FULL;
+            sampleRate = PetasosPropertyConstants.AUDIT_POLICY_SAMPLE_RATE;
+        }
+        String wupOverrides = environmentProperties.getProperty(PetasosPropertyConstants.AUDIT_POLICY_WUP_OVERRIDES_PROPERTY_NAME, "");
+        if(StringUtils.isNotBlank(wupOverrides)){
+            for(String wupOverride: wupOverrides.split(",")){
+                String[] wupOverrideParts = wupOverride.split("=");
+                if(wupOverrideParts.length != 2 || StringUtils.isBlank(wupOverrideParts[0])){
+                    LOG.warn(".initialise(): Ignoring invalid audit policy override, wupOverride->{}", wupOverride);
+                    continue;
+                }
+                try {
+                    wupNameOverrideMap.put(wupOverrideParts[0].trim(), AuditPolicyEnum.fromAuditPolicy(wupOverrideParts[1]));
+                } catch(IllegalArgumentException ex){
+                    LOG.warn(".initialise(): Ignoring invalid audit policy override, wupOverride->{}, error->{}", wupOverride, ex.getMessage());
+                }
+            }
+        }
+        LOG.debug(".initialise(): Exit, defaultPolicy->{}, sampleRate->{}, wupNameOverrideMap->{}", defaultPolicy, sampleRate, wupNameOverrideMap);
+    }
+
+    /**
+     * Register the audit policy of the WUP.
+     *
+     * @param wupNode The WorkUnitProcessorTopologyNode of the WUP
+     * @param auditPolicy The WUP's audit policy, or null to use the configured (override or default) policy
+     * @return The resolved audit policy of the WUP
+     */
+    public AuditPolicyEnum registerWUP(WorkUnitProcessorTopologyNode wupNode, AuditPolicyEnum auditPolicy){
+        LOG.debug(".registerWUP(): Entry, wupNode->{}, auditPolicy->{}", wupNode, auditPolicy);
+        if(wupNode == null){
+            throw(new IllegalArgumentException(".registerWUP(): wupNode is null"));
+        }
+        if(wupNode.getNodeFDN() == null){
+            throw(new IllegalArgumentException(".registerWUP(): wupNode.getNodeFDN() is null"));
+        }
+        WUPIdentifier wupIdentifier = new WUPIdentifier(wupNode.getNodeFDN().getToken());
+        AuditPolicyEnum resolvedPolicy = auditPolicy;
+        if(resolvedPolicy == null){
+            resolvedPolicy = resolveConfiguredPolicy(wupNode.getNodeRDN().getNodeName());
+        }
+        wupPolicyMap.put(wupIdentifier, resolvedPolicy);
+        LOG.debug(".registerWUP(): Exit, resolvedPolicy->{}", resolvedPolicy);
+        return(resolvedPolicy);
+    }
+
+    public AuditPolicyEnum getAuditPolicy(WUPIdentifier wupIdentifier){
+        if(wupIdentifier == null){
+            return(defaultPolicy);
+        }
+        AuditPolicyEnum auditPolicy = wupPolicyMap.get(wupIdentifier);
+        if(auditPolicy == null){
+            auditPolicy = wupPolicyMap.computeIfAbsent(new WUPIdentifier(wupIdentifier), key -> resolveConfiguredPolicy(extractWUPName(key)));
+        }
+        return(auditPolicy);
+    }
+
+    /**
+     * Decide whether the (current) lifecycle transition of the ResilienceParcel is to be audited, according to the
+     * audit policy of its WUP.
+     *
+     * @param parcel The ResilienceParcel
+     * @return True if the transition is to be audited
+     */
+    public boolean isToBeAudited(ResilienceParcel parcel){
+        if(parcel == null){
+            return(false);
+        }
+        boolean toBeAudited;
+        switch(getAuditPolicy(parcel.getAssociatedWUPIdentifier())){
+            case AUDIT_POLICY_OFF:
+                toBeAudited = false;
+                break;
+            case AUDIT_POLICY_SUMMARY:
+                toBeAudited = isEndOfLifecycle(parcel);
+                break;
+            case AUDIT_POLICY_SAMPLED:
+                toBeAudited = isFailed(parcel) || isSampled(parcel);
+                break;
+            case AUDIT_POLICY_FULL:
+            default:
+                toBeAudited = true;
+        }
+        if(!toBeAudited){
+            suppressedCount.increment();
+        }
+        return(toBeAudited);
+    }
+
+    public AuditPolicyEnum getDefaultPolicy(){
+        return(defaultPolicy);
+    }
+
+    public int getSampleRate(){
+        return(sampleRate);
+    }
+
+    public long getSuppressedCount(){
+        return(suppressedCount.sum());
+    }
+
+    public int getRegisteredWUPCount(){
+        return(wupPolicyMap.size());
+    }
+
+    //
+    // Helpers
+    //
+
+    private AuditPolicyEnum resolveConfiguredPolicy(String wupName){
+        if(wupName != null){
+            AuditPolicyEnum overridePolicy = wupNameOverrideMap.get(wupName);
+            if(overridePolicy != null){
+                return(overridePolicy);
+            }
+        }
+        return(defaultPolicy);
+    }
+
+    private String extractWUPName(WUPIdentifier wupIdentifier){
+        if(wupIdentifier.getTokenValue() == null){
+            return(null);
+        }
+        TopologyNodeRDN wupRDN = new TopologyNodeFDN(wupIdentifier).extractRDNForNodeType(TopologyNodeTypeEnum.WUP);
+        if(wupRDN == null){
+            return(null);
+        }
+        return(wupRDN.getNodeName());
+    }
+
+    private boolean isSampled(ResilienceParcel parcel){
+        if(sampleRate <= 1){
+            return(true);
+        }
+        if(!parcel.hasInstanceIdentifier()){
+            return(false);
+        }
+        return(Math.floorMod(parcel.getIdentifier().hashCode(), sampleRate) == 0);
+    }
+
+    private boolean isFailed(ResilienceParcel parcel){
+        if(parcel.getProcessingStatus() == ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED){
+            return(true);
+        }
+        if(parcel.hasActualUoW() && parcel.getActualUoW().hasProcessingOutcome()){
+            return(parcel.getActualUoW().getProcessingOutcome() == UoWProcessingOutcomeEnum.UOW_OUTCOME_FAILED);
+        }
+        return(false);
+    }
+
+    private boolean isEndOfLifecycle(ResilienceParcel parcel){
+        ResilienceParcelProcessingStatusEnum processingStatus = parcel.getProcessingStatus();
+        if(processingStatus == null){
+            return(false);
+        }
+        switch(processingStatus){
+            case PARCEL_STATUS_FINALISED:
+            case PARCEL_STATUS_FINALISED_ELSEWHERE:
+            case PARCEL_STATUS_CANCELLED:
+            case PARCEL_STATUS_FAILED:
+                return(true);
+            default:
+                return(false);
+        }
+    }
+}
@@ -21,9 +21,6 @@
  */
 package net.fhirfactory.pegacorn.petasos.audit.transformers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDN;
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeRDN;
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeTypeEnum;
@@ -36,6 +33,7 @@ import net.fhirfactory.pegacorn.internals.fhir.r4.resources.auditevent.factories
 import net.fhirfactory.pegacorn.internals.fhir.r4.resources.auditevent.factories.AuditEventFactory;
 import net.fhirfactory.pegacorn.internals.fhir.r4.resources.auditevent.valuesets.*;
 import net.fhirfactory.pegacorn.petasos.audit.transformers.common.Pegacorn2FHIRAuditEventBase;
+import net.fhirfactory.pegacorn.petasos.audit.transformers.common.ResilienceParcelAuditSerializer;
 import net.fhirfactory.pegacorn.petasos.model.audit.PetasosParcelAuditTrailEntry;
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
 import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
@@ -54,8 +52,6 @@ import java.util.Date;
 public class DefaultResilienceParcel2FHIRAuditEvent extends Pegacorn2FHIRAuditEventBase {
     private static final Logger LOG = LoggerFactory.getLogger(DefaultResilienceParcel2FHIRAuditEvent.class);
 
-    ObjectMapper jsonMapper = null;
-
     @Inject
     private AuditEventFactory auditEventFactory;
 
@@ -65,9 +61,10 @@ public class DefaultResilienceParcel2FHIRAuditEvent extends Pegacorn2FHIRAuditEv
     @Inject
     private ProcessingPlantInterface processingPlant;
 
+    @Inject
+    private ResilienceParcelAuditSerializer auditSerializer;
+
     public DefaultResilienceParcel2FHIRAuditEvent(){
-        jsonMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
-//        jsonMapper = new ObjectMapper();
     }
 
 
@@ -79,12 +76,9 @@ public class DefaultResilienceParcel2FHIRAuditEvent extends Pegacorn2FHIRAuditEv
         UoW uow = parcel.getActualUoW();
         String auditEventEntityName = extractAuditEventEntityNameFromParcel(parcel);
 
-        String parcelAsString = null;
-
-        try {
-            parcelAsString = jsonMapper.writeValueAsString(parcel);
-        } catch (JsonProcessingException e) {
-            LOG.error(".transform(): Cannot convert UoW to string!!!",e);
+        String parcelAsString = auditSerializer.serialiseParcel(parcel);
+        if(parcelAsString == null){
+            LOG.error(".transform(): Cannot convert Parcel to string!!!");
             return(null);
         }
 
@@ -21,9 +21,6 @@
  */
 package net.fhirfactory.pegacorn.petasos.audit.transformers;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDN;
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeRDN;
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeTypeEnum;
@@ -35,6 +32,7 @@ import net.fhirfactory.pegacorn.internals.fhir.r4.resources.auditevent.factories
 import net.fhirfactory.pegacorn.internals.fhir.r4.resources.auditevent.factories.AuditEventFactory;
 import net.fhirfactory.pegacorn.internals.fhir.r4.resources.auditevent.valuesets.*;
 import net.fhirfactory.pegacorn.petasos.audit.transformers.common.Pegacorn2FHIRAuditEventBase;
+import net.fhirfactory.pegacorn.petasos.audit.transformers.common.ResilienceParcelAuditSerializer;
 import net.fhirfactory.pegacorn.petasos.model.audit.PetasosParcelAuditTrailEntry;
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
 import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
@@ -55,8 +53,6 @@ import java.util.List;
 public class UoWPayload2FHIRAuditEvent extends Pegacorn2FHIRAuditEventBase {
     private static final Logger LOG = LoggerFactory.getLogger(UoWPayload2FHIRAuditEvent.class);
 
-    ObjectMapper jsonMapper = null;
-
     @Inject
     private AuditEventFactory auditEventFactory;
 
@@ -66,9 +62,10 @@ public class UoWPayload2FHIRAuditEvent extends Pegacorn2FHIRAuditEventBase {
     @Inject
     private ProcessingPlantInterface processingPlant;
 
+    @Inject
+    private ResilienceParcelAuditSerializer auditSerializer;
+
     public UoWPayload2FHIRAuditEvent(){
-        jsonMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
-//        jsonMapper = new ObjectMapper();
     }
 
 
@@ -80,12 +77,12 @@ public class UoWPayload2FHIRAuditEvent extends Pegacorn2FHIRAuditEventBase {
         String auditEventEntityName = extractAuditEventEntityNameFromParcel(parcel);
 
         List<AuditEvent.AuditEventEntityDetailComponent> detailList = new ArrayList<>();
-        AuditEvent.AuditEventEntityDetailComponent ingresDetailComponent = auditEventEntityFactory.newAuditEventEntityDetailComponent("UoW.Ingress.Payload", uow.getIngresContent().getPayload());
+        AuditEvent.AuditEventEntityDetailComponent ingresDetailComponent = auditEventEntityFactory.newAuditEventEntityDetailComponent("UoW.Ingress.Payload", auditSerializer.toAuditPayload(uow.getIngresContent().getPayload()));
         detailList.add(ingresDetailComponent);
         if(uow.hasEgressContent()) {
             int counter = 0;
             for (UoWPayload currentPayload : uow.getEgressContent().getPayloadElements()) {
-                AuditEvent.AuditEventEntityDetailComponent currentEgressDetail = auditEventEntityFactory.newAuditEventEntityDetailComponent("UoW.Egress.Payload[" + counter + "]", currentPayload.getPayload());
+                AuditEvent.AuditEventEntityDetailComponent currentEgressDetail = auditEventEntityFactory.newAuditEventEntityDetailComponent("UoW.Egress.Payload[" + counter + "]", auditSerializer.toAuditPayload(currentPayload.getPayload()));
                 detailList.add(currentEgressDetail);
                 counter += 1;
             }
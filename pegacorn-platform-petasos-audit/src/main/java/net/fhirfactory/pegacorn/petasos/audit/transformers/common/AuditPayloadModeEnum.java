@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.audit.transformers.common;
+
+/**
+ * How the ResilienceParcelAuditSerializer records UoW payloads in the audit content: either inline (capped at the
+ * maximum inline length, with a digest of the full payload when it is truncated) or by digest (and length) only.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public enum AuditPayloadModeEnum {
+    AUDIT_PAYLOAD_MODE_INLINE("inline"),
+    AUDIT_PAYLOAD_MODE_DIGEST("digest");
+
+    private String payloadMode;
+
+    private AuditPayloadModeEnum(String payloadMode){
+        this.payloadMode = payloadMode;
+    }
+
+    public String getPayloadMode(){
+        return(this.payloadMode);
+    }
+
+    public static AuditPayloadModeEnum fromPayloadMode(String payloadMode){
+        if(payloadMode == null){
+            throw(new IllegalArgumentException(".fromPayloadMode(): payloadMode is null"));
+        }
+        for(AuditPayloadModeEnum mode: values()){
+            if(mode.getPayloadMode().equalsIgnoreCase(payloadMode.trim())){
+                return(mode);
+            }
+        }
+        throw(new IllegalArgumentException(".fromPayloadMode(): unknown payloadMode->" + payloadMode));
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.audit.transformers.common;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.fhirfactory.pegacorn.common.model.generalid.FDNToken;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelTypeDescriptor;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
+import net.fhirfactory.pegacorn.petasos.model.resilience.episode.PetasosEpisodeIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoWPayload;
+import net.fhirfactory.pegacorn.util.PegacornEnvironmentProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+
+/**
+ * A compact (non-indented) JSON serialiser for the audit content of a ResilienceParcel and its UoW.
+ * <p>
+ * Rather than (reflectively) serialising the whole ResilienceParcel - including every lock object and every payload
+ * in full - the content is streamed through a single shared (thread-safe) JsonFactory with an explicit selection of
+ * fields. The UoW payloads are either inlined, capped at AUDIT_PAYLOAD_MAXIMUM_INLINE_LENGTH characters, or
+ * referenced by their SHA-256 digest (see AuditPayloadModeEnum).
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@ApplicationScoped
+public class ResilienceParcelAuditSerializer {
+    private static final Logger LOG = LoggerFactory.getLogger(ResilienceParcelAuditSerializer.class);
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final String DIGEST_PREFIX = "sha256:";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private static final ThreadLocal<MessageDigest> PAYLOAD_DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return(MessageDigest.getInstance(DIGEST_ALGORITHM));
+        } catch(NoSuchAlgorithmException ex){
+            throw(new IllegalStateException(".digest(): " + DIGEST_ALGORITHM + " is not available", ex));
+        }
+    });
+
+    private JsonFactory jsonFactory;
+    private AuditPayloadModeEnum payloadMode;
+    private int maximumInlineLength;
+
+    @Inject
+    private PegacornEnvironmentProperties environmentProperties;
+
+    public ResilienceParcelAuditSerializer(){
+        this.jsonFactory = new JsonFactory();
+        this.payloadMode = AuditPayloadModeEnum.AUDIT_PAYLOAD_MODE_INLINE;
+        this.maximumInlineLength = PetasosPropertyConstants.AUDIT_PAYLOAD_MAXIMUM_INLINE_LENGTH;
+    }
+
+    @PostConstruct
+    protected void initialise(){
+        LOG.debug(".initialise(): Entry");
+        if(environmentProperties != null){
+            try {
+                payloadMode = AuditPayloadModeEnum.fromPayloadMode(environmentProperties.getProperty(PetasosPropertyConstants.AUDIT_PAYLOAD_MODE_PROPERTY_NAME, AuditPayloadModeEnum.AUDIT_PAYLOAD_MODE_INLINE.getPayloadMode()));
+                maximumInlineLength = Math.max(0, environmentProperties.getIntegerProperty(PetasosPropertyConstants.AUDIT_PAYLOAD_MAXIMUM_INLINE_LENGTH_PROPERTY_NAME, PetasosPropertyConstants.AUDIT_PAYLOAD_MAXIMUM_INLINE_LENGTH));
+            } catch(IllegalArgumentException ex){
+                LOG.warn(".initialise(): Invalid audit payload property, using the defaults, error->{}", ex.getMessage());
+                payloadMode = AuditPayloadModeEnum.AUDIT_PAYLOAD_MODE_INLINE;
+                maximumInlineLength = PetasosPropertyConstants.AUDIT_PAYLOAD_MAXIMUM_INLINE_LENGTH;
+            }
+        }
+        LOG.debug(".initialise(): Exit, payloadMode->{}, maximumInlineLength->{}", payloadMode, maximumInlineLength);
+    }
+
+    /**
+     * Serialise the (audit relevant) content of the ResilienceParcel, including its UoW.
+     *
+     * @param parcel The ResilienceParcel
+     * @return The compact JSON representation of the ResilienceParcel, or null if it could not be serialised
+     */
+    public String serialiseParcel(ResilienceParcel parcel){
+        if(parcel == null){
+            return(null);
+        }
+        StringWriter parcelWriter = new StringWriter(INITIAL_BUFFER_SIZE);
+        try(JsonGenerator generator = jsonFactory.createGenerator(parcelWriter)){
+            generator.writeStartObject();
+            writeToken(generator, "identifier", parcel.getIdentifier());
+            writeToken(generator, "typeID", parcel.getTypeID());
+            writeToken(generator, "episodeIdentifier", parcel.getEpisodeIdentifier());
+            writeToken(generator, "upstreamEpisodeIdentifier", parcel.getUpstreamEpisodeIdentifier());
+            if(parcel.hasDownstreamEpisodeIdentifierSet()){
+                generator.writeArrayFieldStart("downstreamEpisodeIdentifiers");
+                for(PetasosEpisodeIdentifier downstreamEpisodeIdentifier: parcel.getDownstreamEpisodeIdentifierSet()){
+                    generator.writeString(downstreamEpisodeIdentifier.getContent());
+                }
+                generator.writeEndArray();
+            }
+            if(parcel.hasAssociatedWUPIdentifier()){
+                generator.writeStringField("associatedWUPIdentifier", parcel.getAssociatedWUPIdentifier().getTokenValue());
+            }
+            if(parcel.hasProcessingStatus()){
+                generator.writeStringField("processingStatus", parcel.getProcessingStatus().getPetasosParcelStatus());
+            }
+            if(parcel.hasFinalisationStatus()){
+                generator.writeStringField("finalisationStatus", parcel.getFinalisationStatus().name());
+            }
+            writeDate(generator, "registrationDate", parcel.getRegistrationDate());
+            writeDate(generator, "startDate", parcel.getStartDate());
+            writeDate(generator, "finishedDate", parcel.getFinishedDate());
+            writeDate(generator, "finalisationDate", parcel.getFinalisationDate());
+            writeDate(generator, "cancellationDate", parcel.getCancellationDate());
+            generator.writeBooleanField("anInteractWUP", parcel.isAnInteractWUP());
+            if(parcel.hasAssociatedPortType()){
+                generator.writeStringField("associatedPortType", parcel.getAssociatedPortType());
+            }
+            if(parcel.hasAssociatedPortValue()){
+                generator.writeStringField("associatedPortValue", parcel.getAssociatedPortValue());
+            }
+            if(parcel.hasActualUoW()){
+                generator.writeFieldName("actualUoW");
+                writeUoW(generator, parcel.getActualUoW());
+            }
+            generator.writeEndObject();
+        } catch(IOException ex){
+            LOG.error(".serialiseParcel(): Cannot serialise the Parcel, error->{}", ex.getMessage());
+            return(null);
+        }
+        return(parcelWriter.toString());
+    }
+
+    /**
+     * The representation of a UoW payload for an audit detail entry: the payload itself (capped) in the "inline"
+     * mode, otherwise its digest and length.
+     *
+     * @param payload The payload
+     * @return The audit representation of the payload
+     */
+    public String toAuditPayload(String payload){
+        if(payload == null){
+            return(null);
+        }
+        if(payloadMode == AuditPayloadModeEnum.AUDIT_PAYLOAD_MODE_DIGEST){
+            return(digest(payload) + " (length=" + payload.length() + ")");
+        }
+        if(payload.length() <= maximumInlineLength){
+            return(payload);
+        }
+        return(payload.substring(0, maximumInlineLength) + "... (truncated, length=" + payload.length() + ", " + digest(payload) + ")");
+    }
+
+    /**
+     * @param payload The payload
+     * @return The (prefixed, hex encoded) SHA-256 digest of the (UTF-8) payload
+     */
+    public String digest(String payload){
+        if(payload == null){
+            throw(new IllegalArgumentException(".digest(): payload is null"));
+        }
+        MessageDigest messageDigest = PAYLOAD_DIGEST.get();
+        messageDigest.reset();
+        byte[] digestBytes = messageDigest.digest(payload.getBytes(StandardCharsets.UTF_8));
+        char[] digestChars = new char[digestBytes.length * 2];
+        for(int counter = 0; counter < digestBytes.length; counter++){
+            digestChars[counter * 2] = HEX_DIGITS[(digestBytes[counter] >> 4) & 0x0F];
+            digestChars[(counter * 2) + 1] = HEX_DIGITS[digestBytes[counter] & 0x0F];
+        }
+        return(DIGEST_PREFIX + new String(digestChars));
+    }
+
+    public AuditPayloadModeEnum getPayloadMode(){
+        return(payloadMode);
+    }
+
+    public int getMaximumInlineLength(){
+        return(maximumInlineLength);
+    }
+
+    //
+    // Helpers
+    //
+
+    private void writeUoW(JsonGenerator generator, UoW uow) throws IOException {
+        generator.writeStartObject();
+        writeToken(generator, "instanceID", uow.getInstanceID());
+        writeToken(generator, "typeID", uow.getTypeID());
+        if(uow.hasProcessingOutcome()){
+            generator.writeStringField("processingOutcome", uow.getProcessingOutcome().getUoWProcessingOutcome());
+        }
+        if(uow.hasFailureDescription()){
+            generator.writeStringField("failureDescription", uow.getFailureDescription());
+        }
+        if(uow.hasIngresContent()){
+            generator.writeFieldName("ingresContent");
+            writePayload(generator, uow.getIngresContent());
+        }
+        if(uow.hasEgressContent()){
+            generator.writeArrayFieldStart("egressContent");
+            for(UoWPayload egressPayload: uow.getEgressContent().getPayloadElements()){
+                writePayload(generator, egressPayload);
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndObject();
+    }
+
+    private void writePayload(JsonGenerator generator, UoWPayload payload) throws IOException {
+        generator.writeStartObject();
+        DataParcelManifest manifest = payload.getPayloadManifest();
+        if(manifest != null){
+            if(manifest.hasContentDescriptor()){
+                generator.writeFieldName("contentDescriptor");
+                writeDescriptor(generator, manifest.getContentDescriptor());
+            }
+            if(manifest.hasContainerDescriptor()){
+                generator.writeFieldName("containerDescriptor");
+                writeDescriptor(generator, manifest.getContainerDescriptor());
+            }
+        }
+        String payloadContent = payload.getPayload();
+        if(payloadContent != null){
+            generator.writeNumberField("length", payloadContent.length());
+            boolean truncated = payloadContent.length() > maximumInlineLength;
+            if(payloadMode == AuditPayloadModeEnum.AUDIT_PAYLOAD_MODE_DIGEST || truncated){
+                generator.writeStringField("digest", digest(payloadContent));
+            }
+            if(payloadMode == AuditPayloadModeEnum.AUDIT_PAYLOAD_MODE_INLINE){
+                if(truncated){
+                    generator.writeStringField("payload", payloadContent.substring(0, maximumInlineLength));
+                    generator.writeBooleanField("truncated", true);
+                } else {
+                    generator.writeStringField("payload", payloadContent);
+                }
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeDescriptor(JsonGenerator generator, DataParcelTypeDescriptor descriptor) throws IOException {
+        generator.writeStartObject();
+        if(descriptor.hasDataParcelDefiner()){
+            generator.writeStringField("definer", descriptor.getDataParcelDefiner());
+        }
+        if(descriptor.hasDataParcelCategory()){
+            generator.writeStringField("category", descriptor.getDataParcelCategory());
+        }
+        if(descriptor.hasDataParcelSubCategory()){
+            generator.writeStringField("subCategory", descriptor.getDataParcelSubCategory());
+        }
+        if(descriptor.hasDataParcelResource()){
+            generator.writeStringField("resource", descriptor.getDataParcelResource());
+        }
+        if(descriptor.hasVersion()){
+            generator.writeStringField("version", descriptor.getVersion());
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeToken(JsonGenerator generator, String fieldName, FDNToken token) throws IOException {
+        if(token != null && token.getContent() != null){
+            generator.writeStringField(fieldName, token.getContent());
+        }
+    }
+
+    private void writeDate(JsonGenerator generator, String fieldName, Date date) throws IOException {
+        if(date != null){
+            generator.writeNumberField(fieldName, date.getTime());
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.audit.pipeline;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFunctionFDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeRDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeTypeEnum;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelTypeDescriptor;
+import net.fhirfactory.pegacorn.petasos.audit.transformers.DefaultResilienceParcel2FHIRAuditEvent;
+import net.fhirfactory.pegacorn.petasos.model.audit.PetasosAuditWriterInterface;
+import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelFinalisationStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoWPayload;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
+import org.hl7.fhir.r4.model.AuditEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+class ResilienceParcelAuditPipelineTest {
+	private static final Logger LOG = LoggerFactory.getLogger(ResilienceParcelAuditPipelineTest.class);
+
+	private static final String TEST_VERSION = "1.0.0";
+	private static final long WAIT_MILLIS = 5000;
+	private static final List<ResilienceParcelProcessingStatusEnum> LIFECYCLE = Arrays.asList(
+			ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE,
+			ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED,
+			ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
+
+	ResilienceParcelAuditPipeline pipeline;
+	Map<ResilienceParcelIdentifier, List<ResilienceParcelProcessingStatusEnum>> transformedStatusMap;
+	List<Integer> writtenBatchSizeList;
+	CountDownLatch transformLatch;
+	int parcelCounter;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		LOG.debug(".setUp(): Entry...");
+		transformedStatusMap = new HashMap<>();
+		writtenBatchSizeList = new ArrayList<>();
+		transformLatch = new CountDownLatch(0);
+		parcelCounter = 0;
+		pipeline = new ResilienceParcelAuditPipeline();
+		injectField(pipeline, "parcel2auditevent", new RecordingTransformer());
+		injectField(pipeline, "auditWriter", new RecordingWriter());
+	}
+
+	@AfterEach
+	void tearDown() {
+		transformLatch.countDown();
+		pipeline.shutdown();
+	}
+
+	void start(int workerCount, long coalesceWindowMillis, int batchSize, int ringBufferSize, AuditPipelineOverflowPolicyEnum overflowPolicy) {
+		injectField(pipeline, "workerCount", workerCount);
+		injectField(pipeline, "coalesceWindowMillis", coalesceWindowMillis);
+		injectField(pipeline, "batchSize", batchSize);
+		injectField(pipeline, "ringBufferSize", ringBufferSize);
+		injectField(pipeline, "overflowPolicy", overflowPolicy);
+		pipeline.initialise();
+		assertTrue(pipeline.isRunning());
+	}
+
+	ResilienceParcel newParcel() {
+		parcelCounter += 1;
+		String wupName = "wup" + parcelCounter;
+		TopologyNodeFDN wupFDN = new TopologyNodeFDN();
+		TopologyNodeFunctionFDN functionFDN = new TopologyNodeFunctionFDN();
+		TopologyNodeRDN wupRDN = new TopologyNodeRDN(TopologyNodeTypeEnum.WUP, wupName, TEST_VERSION);
+		wupFDN.appendTopologyNodeRDN(wupRDN);
+		functionFDN.appendTopologyNodeRDN(wupRDN);
+		ActivityID activityID = new ActivityID(null, null, null, new WUPIdentifier(wupFDN.getToken()));
+		activityID.setPresentWUPFunctionToken(functionFDN.getFunctionToken());
+		DataParcelTypeDescriptor descriptor = new DataParcelTypeDescriptor();
+		descriptor.setDataParcelDefiner("FHIRFactory");
+		descriptor.setDataParcelCategory("Test");
+		descriptor.setDataParcelSubCategory("Petasos");
+		descriptor.setDataParcelResource("Resource" + parcelCounter);
+		UoW uow = new UoW(new UoWPayload(new DataParcelManifest(descriptor), "payload" + parcelCounter));
+		ResilienceParcel parcel = new ResilienceParcel(activityID, uow);
+		setStatus(parcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+		return (parcel);
+	}
+
+	void setStatus(ResilienceParcel parcel, ResilienceParcelProcessingStatusEnum status) {
+		parcel.setProcessingStatus(status);
+		if (status == ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED) {
+			parcel.setFinalisationStatus(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED);
+		}
+	}
+
+	List<ResilienceParcelProcessingStatusEnum> transformedStatuses(ResilienceParcel parcel) {
+		synchronized (transformedStatusMap) {
+			List<ResilienceParcelProcessingStatusEnum> statusList = transformedStatusMap.get(parcel.getIdentifier());
+			if (statusList == null) {
+				return (new ArrayList<>());
+			}
+			return (new ArrayList<>(statusList));
+		}
+	}
+
+	void waitFor(BooleanSupplier condition) throws InterruptedException {
+		long giveUpTime = System.currentTimeMillis() + WAIT_MILLIS;
+		while (!condition.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < giveUpTime, "the pipeline did not get there in time");
+			Thread.sleep(5);
+		}
+	}
+
+	@Test
+	void testSnapshotsOfAParcelAreCoalesced() {
+		LOG.info(".testSnapshotsOfAParcelAreCoalesced(): Entry");
+		// a window long enough that only the shutdown flush releases the snapshots
+		start(2, 60000, 10, 64, AuditPipelineOverflowPolicyEnum.AUDIT_PIPELINE_OVERFLOW_POLICY_BLOCK);
+		ResilienceParcel parcel = newParcel();
+		assertTrue(pipeline.submit(parcel));
+		setStatus(parcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
+		assertTrue(pipeline.submit(parcel));
+		// (the snapshot, not the Parcel, is what gets audited)
+		setStatus(parcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED);
+
+		pipeline.shutdown();
+		assertFalse(pipeline.isRunning());
+		assertFalse(pipeline.submit(parcel));
+		assertEquals(Arrays.asList(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED), transformedStatuses(parcel));
+		assertEquals(2, pipeline.getEnqueuedCount());
+		assertEquals(1, pipeline.getCoalescedCount());
+		assertEquals(1, pipeline.getWrittenCount());
+		assertEquals(0, pipeline.getPendingCoalesceCount());
+	}
+
+	@Test
+	void testTerminalSnapshotIsReleasedImmediately() throws Exception {
+		LOG.info(".testTerminalSnapshotIsReleasedImmediately(): Entry");
+		start(2, 60000, 10, 64, AuditPipelineOverflowPolicyEnum.AUDIT_PIPELINE_OVERFLOW_POLICY_BLOCK);
+		ResilienceParcel activeParcel = newParcel();
+		ResilienceParcel finalisedParcel = newParcel();
+		assertTrue(pipeline.submit(activeParcel));
+		assertTrue(pipeline.submit(finalisedParcel));
+		setStatus(finalisedParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
+		assertTrue(pipeline.submit(finalisedParcel));
+
+		waitFor(() -> pipeline.getWrittenCount() == 1);
+		assertEquals(Arrays.asList(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED), transformedStatuses(finalisedParcel));
+		assertTrue(transformedStatuses(activeParcel).isEmpty());
+		assertEquals(1, pipeline.getPendingCoalesceCount());
+		assertTrue(pipeline.getOldestPendingAgeMillis() >= 0);
+
+		pipeline.shutdown();
+		assertEquals(Arrays.asList(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE), transformedStatuses(activeParcel));
+		assertEquals(2, pipeline.getWrittenCount());
+	}
+
+	@Test
+	void testFullRingBufferDropsUnderTheDropPolicy() throws Exception {
+		LOG.info(".testFullRingBufferDropsUnderTheDropPolicy(): Entry");
+		// hold the (single) worker, so its queue, the dispatcher and then the ring buffer back up
+		transformLatch = new CountDownLatch(1);
+		start(1, 0, 1, 2, AuditPipelineOverflowPolicyEnum.AUDIT_PIPELINE_OVERFLOW_POLICY_DROP);
+		int submitCount = 20;
+		int acceptedCount = 0;
+		for (int counter = 0; counter < submitCount; counter++) {
+			ResilienceParcel parcel = newParcel();
+			setStatus(parcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
+			if (pipeline.submit(parcel)) {
+				acceptedCount += 1;
+			}
+		}
+		assertTrue(pipeline.getDroppedCount() > 0);
+		assertEquals(acceptedCount, pipeline.getEnqueuedCount());
+		assertEquals(submitCount, pipeline.getEnqueuedCount() + pipeline.getDroppedCount());
+
+		transformLatch.countDown();
+		pipeline.shutdown();
+		assertEquals(acceptedCount, pipeline.getWrittenCount());
+		assertEquals(0, pipeline.getFailedCount());
+		assertEquals(0, pipeline.getRingBufferDepth());
+	}
+
+	@Test
+	void testTheAuditEventsOfAParcelAreWrittenInOrder() throws Exception {
+		LOG.info(".testTheAuditEventsOfAParcelAreWrittenInOrder(): Entry");
+		start(4, 0, 3, 256, AuditPipelineOverflowPolicyEnum.AUDIT_PIPELINE_OVERFLOW_POLICY_BLOCK);
+		List<ResilienceParcel> parcelList = new ArrayList<>();
+		for (int counter = 0; counter < 20; counter++) {
+			parcelList.add(newParcel());
+		}
+		for (ResilienceParcelProcessingStatusEnum status : LIFECYCLE) {
+			for (ResilienceParcel parcel : parcelList) {
+				setStatus(parcel, status);
+				assertTrue(pipeline.submit(parcel));
+			}
+		}
+		pipeline.shutdown();
+
+		for (ResilienceParcel parcel : parcelList) {
+			List<ResilienceParcelProcessingStatusEnum> statusList = transformedStatuses(parcel);
+			assertFalse(statusList.isEmpty());
+			for (int counter = 1; counter < statusList.size(); counter++) {
+				assertTrue(LIFECYCLE.indexOf(statusList.get(counter - 1)) < LIFECYCLE.indexOf(statusList.get(counter)), "out of order->" + statusList);
+			}
+			assertEquals(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED, statusList.get(statusList.size() - 1));
+		}
+		assertEquals(pipeline.getEnqueuedCount(), pipeline.getWrittenCount() + pipeline.getCoalescedCount());
+		synchronized (writtenBatchSizeList) {
+			for (Integer batchSize : writtenBatchSizeList) {
+				assertTrue(batchSize <= 3);
+			}
+			assertEquals(pipeline.getBatchCount(), writtenBatchSizeList.size());
+		}
+	}
+
+	//
+	// Container Stand-Ins
+	//
+
+	static void injectField(Object target, String fieldName, Object value) {
+		try {
+			Field field = target.getClass().getDeclaredField(fieldName);
+			field.setAccessible(true);
+			field.set(target, value);
+		} catch (NoSuchFieldException | IllegalAccessException e) {
+			throw (new IllegalStateException(".injectField(): Cannot set field, fieldName->" + fieldName, e));
+		}
+	}
+
+	class RecordingTransformer extends DefaultResilienceParcel2FHIRAuditEvent {
+		@Override
+		public AuditEvent transform(ResilienceParcel parcel) {
+			try {
+				transformLatch.await(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			synchronized (transformedStatusMap) {
+				transformedStatusMap.computeIfAbsent(parcel.getIdentifier(), identifier -> new ArrayList<>()).add(parcel.getProcessingStatus());
+			}
+			return (new AuditEvent());
+		}
+	}
+
+	class RecordingWriter implements PetasosAuditWriterInterface {
+		@Override
+		public AuditEvent logAuditEventAsynchronously(AuditEvent auditEvent) {
+			return (auditEvent);
+		}
+
+		@Override
+		public AuditEvent logAuditEventSynchronously(AuditEvent auditEvent) {
+			return (auditEvent);
+		}
+
+		@Override
+		public List<AuditEvent> logAuditEventBatchAsynchronously(List<AuditEvent> auditEventBatch) {
+			synchronized (writtenBatchSizeList) {
+				writtenBatchSizeList.add(auditEventBatch.size());
+			}
+			return (auditEventBatch);
+		}
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.audit.policy;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFunctionFDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeRDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeTypeEnum;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelTypeDescriptor;
+import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
+import net.fhirfactory.pegacorn.petasos.model.audit.AuditPolicyEnum;
+import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoWPayload;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+class WUPAuditPolicyRegistryTest {
+	private static final Logger LOG = LoggerFactory.getLogger(WUPAuditPolicyRegistryTest.class);
+
+	private static final String TEST_VERSION = "1.0.0";
+
+	WUPAuditPolicyRegistry registry;
+	int parcelCounter;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		LOG.debug(".setUp(): Entry...");
+		registry = new WUPAuditPolicyRegistry();
+		// (no environmentProperties, so the defaults)
+		registry.initialise();
+		parcelCounter = 0;
+	}
+
+	TopologyNodeFDN newWUPNodeFDN(String wupName) {
+		TopologyNodeFDN wupFDN = new TopologyNodeFDN();
+		wupFDN.appendTopologyNodeRDN(new TopologyNodeRDN(TopologyNodeTypeEnum.WORKSHOP, "test-workshop", TEST_VERSION));
+		wupFDN.appendTopologyNodeRDN(new TopologyNodeRDN(TopologyNodeTypeEnum.WUP, wupName, TEST_VERSION));
+		return (wupFDN);
+	}
+
+	WUPIdentifier newWUPIdentifier(String wupName) {
+		return (new WUPIdentifier(newWUPNodeFDN(wupName).getToken()));
+	}
+
+	ResilienceParcel newParcel(String wupName, ResilienceParcelProcessingStatusEnum status) {
+		parcelCounter += 1;
+		TopologyNodeFunctionFDN functionFDN = new TopologyNodeFunctionFDN();
+		functionFDN.appendTopologyNodeRDN(new TopologyNodeRDN(TopologyNodeTypeEnum.WUP, wupName, TEST_VERSION));
+		ActivityID activityID = new ActivityID(null, null, null, newWUPIdentifier(wupName));
+		activityID.setPresentWUPFunctionToken(functionFDN.getFunctionToken());
+		DataParcelTypeDescriptor descriptor = new DataParcelTypeDescriptor();
+		descriptor.setDataParcelDefiner("FHIRFactory");
+		descriptor.setDataParcelCategory("Test");
+		descriptor.setDataParcelSubCategory("Petasos");
+		descriptor.setDataParcelResource("Resource");
+		UoW uow = new UoW(new UoWPayload(new DataParcelManifest(descriptor), "payload" + parcelCounter));
+		ResilienceParcel parcel = new ResilienceParcel(activityID, uow);
+		parcel.setProcessingStatus(status);
+		return (parcel);
+	}
+
+	@SuppressWarnings("unchecked")
+	void addOverride(String wupName, AuditPolicyEnum auditPolicy) throws Exception {
+		Field overrideField = WUPAuditPolicyRegistry.class.getDeclaredField("wupNameOverrideMap");
+		overrideField.setAccessible(true);
+		((Map<String, AuditPolicyEnum>) overrideField.get(registry)).put(wupName, auditPolicy);
+	}
+
+	void setSampleRate(int sampleRate) throws Exception {
+		Field sampleRateField = WUPAuditPolicyRegistry.class.getDeclaredField("sampleRate");
+		sampleRateField.setAccessible(true);
+		sampleRateField.setInt(registry, sampleRate);
+	}
+
+	@Test
+	void testPolicyPrecedence() throws Exception {
+		LOG.info(".testPolicyPrecedence(): Entry");
+		assertEquals(AuditPolicyEnum.AUDIT_POLICY_FULL, registry.getDefaultPolicy());
+		addOverride("quiet-wup", AuditPolicyEnum.AUDIT_POLICY_OFF);
+		addOverride("registered-wup", AuditPolicyEnum.AUDIT_POLICY_OFF);
+
+		assertEquals(AuditPolicyEnum.AUDIT_POLICY_FULL, registry.getAuditPolicy(null));
+		assertEquals(AuditPolicyEnum.AUDIT_POLICY_FULL, registry.getAuditPolicy(newWUPIdentifier("other-wup")));
+		assertEquals(AuditPolicyEnum.AUDIT_POLICY_OFF, registry.getAuditPolicy(newWUPIdentifier("quiet-wup")));
+
+		// the registered policy wins over the override
+		WorkUnitProcessorTopologyNode wupNode = new WorkUnitProcessorTopologyNode();
+		wupNode.setNodeFDN(newWUPNodeFDN("registered-wup"));
+		assertEquals(AuditPolicyEnum.AUDIT_POLICY_SUMMARY, registry.registerWUP(wupNode, AuditPolicyEnum.AUDIT_POLICY_SUMMARY));
+		assertEquals(AuditPolicyEnum.AUDIT_POLICY_SUMMARY, registry.getAuditPolicy(newWUPIdentifier("registered-wup")));
+		assertThrows(IllegalArgumentException.class, () -> registry.registerWUP(null, AuditPolicyEnum.AUDIT_POLICY_FULL));
+
+		// resolved once, then cached (for the WUP)
+		assertEquals(3, registry.getRegisteredWUPCount());
+		registry.getAuditPolicy(newWUPIdentifier("quiet-wup"));
+		assertEquals(3, registry.getRegisteredWUPCount());
+	}
+
+	@Test
+	void testOffAndSummaryPolicies() throws Exception {
+		LOG.info(".testOffAndSummaryPolicies(): Entry");
+		addOverride("quiet-wup", AuditPolicyEnum.AUDIT_POLICY_OFF);
+		addOverride("summary-wup", AuditPolicyEnum.AUDIT_POLICY_SUMMARY);
+
+		assertFalse(registry.isToBeAudited(null));
+		assertTrue(registry.isToBeAudited(newParcel("full-wup", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE)));
+		assertFalse(registry.isToBeAudited(newParcel("quiet-wup", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED)));
+
+		assertFalse(registry.isToBeAudited(newParcel("summary-wup", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE)));
+		assertFalse(registry.isToBeAudited(newParcel("summary-wup", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED)));
+		assertTrue(registry.isToBeAudited(newParcel("summary-wup", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED)));
+		assertTrue(registry.isToBeAudited(newParcel("summary-wup", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_CANCELLED)));
+		assertTrue(registry.isToBeAudited(newParcel("summary-wup", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED)));
+		assertEquals(3, registry.getSuppressedCount());
+	}
+
+	@Test
+	void testSamplingIsByParcel() throws Exception {
+		LOG.info(".testSamplingIsByParcel(): Entry");
+		addOverride("sampled-wup", AuditPolicyEnum.AUDIT_POLICY_SAMPLED);
+		setSampleRate(4);
+		int parcelCount = 400;
+		int sampledCount = 0;
+		for (int counter = 0; counter < parcelCount; counter++) {
+			ResilienceParcel parcel = newParcel("sampled-wup", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+			boolean sampled = registry.isToBeAudited(parcel);
+			// the whole lifecycle of a sampled Parcel is audited (and none of an unsampled one)
+			parcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
+			assertEquals(sampled, registry.isToBeAudited(parcel));
+			if (sampled) {
+				sampledCount += 1;
+			}
+			// failures are always audited
+			parcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED);
+			assertTrue(registry.isToBeAudited(parcel));
+		}
+		assertTrue(sampledCount > 0);
+		assertTrue(sampledCount < parcelCount);
+
+		setSampleRate(1);
+		assertTrue(registry.isToBeAudited(newParcel("sampled-wup", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE)));
+	}
+
+	@Test
+	void testAuditPolicyFromProperty() {
+		LOG.info(".testAuditPolicyFromProperty(): Entry");
+		assertEquals(AuditPolicyEnum.AUDIT_POLICY_SAMPLED, AuditPolicyEnum.fromAuditPolicy("pegacorn.platform.petasos.audit_policy.sampled"));
+		assertEquals(AuditPolicyEnum.AUDIT_POLICY_OFF, AuditPolicyEnum.fromAuditPolicy(" OFF "));
+		assertThrows(IllegalArgumentException.class, () -> AuditPolicyEnum.fromAuditPolicy("partial"));
+		assertThrows(IllegalArgumentException.class, () -> AuditPolicyEnum.fromAuditPolicy(null));
+	}
+}
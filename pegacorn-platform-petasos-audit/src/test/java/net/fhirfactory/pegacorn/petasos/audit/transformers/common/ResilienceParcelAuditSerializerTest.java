@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.audit.transformers.common;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFunctionFDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeRDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeTypeEnum;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelTypeDescriptor;
+import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoWPayload;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Field;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+class ResilienceParcelAuditSerializerTest {
+	private static final Logger LOG = LoggerFactory.getLogger(ResilienceParcelAuditSerializerTest.class);
+
+	private static final String TEST_VERSION = "1.0.0";
+	// the SHA-256 test vector for "abc" (FIPS 180-2)
+	private static final String ABC_DIGEST = "sha256:ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+	private static final int MAXIMUM_INLINE_LENGTH = 8;
+
+	ResilienceParcelAuditSerializer serializer;
+	ObjectMapper jsonMapper;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		LOG.debug(".setUp(): Entry...");
+		serializer = new ResilienceParcelAuditSerializer();
+		injectField(serializer, "maximumInlineLength", MAXIMUM_INLINE_LENGTH);
+		jsonMapper = new ObjectMapper();
+	}
+
+	ResilienceParcel newParcel(String payloadContent) {
+		TopologyNodeFDN wupFDN = new TopologyNodeFDN();
+		TopologyNodeFunctionFDN functionFDN = new TopologyNodeFunctionFDN();
+		TopologyNodeRDN wupRDN = new TopologyNodeRDN(TopologyNodeTypeEnum.WUP, "wup", TEST_VERSION);
+		wupFDN.appendTopologyNodeRDN(wupRDN);
+		functionFDN.appendTopologyNodeRDN(wupRDN);
+		ActivityID activityID = new ActivityID(null, null, null, new WUPIdentifier(wupFDN.getToken()));
+		activityID.setPresentWUPFunctionToken(functionFDN.getFunctionToken());
+		DataParcelTypeDescriptor descriptor = new DataParcelTypeDescriptor();
+		descriptor.setDataParcelDefiner("FHIRFactory");
+		descriptor.setDataParcelCategory("Test");
+		descriptor.setDataParcelSubCategory("Petasos");
+		descriptor.setDataParcelResource("Resource");
+		UoW uow = new UoW(new UoWPayload(new DataParcelManifest(descriptor), payloadContent));
+		ResilienceParcel parcel = new ResilienceParcel(activityID, uow);
+		parcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+		return (parcel);
+	}
+
+	@Test
+	void testDigestIsTheSHA256OfThePayload() {
+		LOG.info(".testDigestIsTheSHA256OfThePayload(): Entry");
+		assertEquals(ABC_DIGEST, serializer.digest("abc"));
+		// (the thread's MessageDigest is reset between payloads)
+		assertEquals(ABC_DIGEST, serializer.digest("abc"));
+		assertNotEquals(ABC_DIGEST, serializer.digest("abcd"));
+		assertThrows(IllegalArgumentException.class, () -> serializer.digest(null));
+	}
+
+	@Test
+	void testInlinePayloadIsCapped() {
+		LOG.info(".testInlinePayloadIsCapped(): Entry");
+		assertEquals(AuditPayloadModeEnum.AUDIT_PAYLOAD_MODE_INLINE, serializer.getPayloadMode());
+		assertNull(serializer.toAuditPayload(null));
+		assertEquals("abc", serializer.toAuditPayload("abc"));
+		assertEquals("12345678", serializer.toAuditPayload("12345678"));
+
+		String longPayload = "1234567890";
+		assertEquals("12345678... (truncated, length=10, " + serializer.digest(longPayload) + ")", serializer.toAuditPayload(longPayload));
+	}
+
+	@Test
+	void testDigestModeNeverInlinesThePayload() {
+		LOG.info(".testDigestModeNeverInlinesThePayload(): Entry");
+		injectField(serializer, "payloadMode", AuditPayloadModeEnum.AUDIT_PAYLOAD_MODE_DIGEST);
+		assertEquals(ABC_DIGEST + " (length=3)", serializer.toAuditPayload("abc"));
+
+		JsonNode ingresContent = serialise(newParcel("abc")).get("actualUoW").get("ingresContent");
+		assertEquals(ABC_DIGEST, ingresContent.get("digest").asText());
+		assertEquals(3, ingresContent.get("length").asInt());
+		assertFalse(ingresContent.has("payload"));
+	}
+
+	@Test
+	void testSerialisedParcelIsCompactAndCapped() {
+		LOG.info(".testSerialisedParcelIsCompactAndCapped(): Entry");
+		assertNull(serializer.serialiseParcel(null));
+		ResilienceParcel parcel = newParcel("abc");
+		String parcelJSON = serializer.serialiseParcel(parcel);
+		assertFalse(parcelJSON.contains("\n"));
+		assertFalse(parcelJSON.contains("\": "));
+
+		JsonNode parcelNode = serialise(parcel);
+		assertEquals(parcel.getIdentifier().getContent(), parcelNode.get("identifier").asText());
+		assertEquals(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE.getPetasosParcelStatus(), parcelNode.get("processingStatus").asText());
+		assertEquals(parcel.getRegistrationDate().getTime(), parcelNode.get("registrationDate").asLong());
+		JsonNode ingresContent = parcelNode.get("actualUoW").get("ingresContent");
+		assertEquals("abc", ingresContent.get("payload").asText());
+		assertEquals("Resource", ingresContent.get("contentDescriptor").get("resource").asText());
+		assertFalse(ingresContent.has("digest"));
+		assertFalse(ingresContent.has("truncated"));
+
+		String longPayload = "1234567890";
+		JsonNode truncatedContent = serialise(newParcel(longPayload)).get("actualUoW").get("ingresContent");
+		assertEquals("12345678", truncatedContent.get("payload").asText());
+		assertTrue(truncatedContent.get("truncated").asBoolean());
+		assertEquals(10, truncatedContent.get("length").asInt());
+		assertEquals(serializer.digest(longPayload), truncatedContent.get("digest").asText());
+	}
+
+	@Test
+	void testPayloadModeFromProperty() {
+		LOG.info(".testPayloadModeFromProperty(): Entry");
+		assertEquals(AuditPayloadModeEnum.AUDIT_PAYLOAD_MODE_INLINE, AuditPayloadModeEnum.fromPayloadMode("inline"));
+		assertEquals(AuditPayloadModeEnum.AUDIT_PAYLOAD_MODE_DIGEST, AuditPayloadModeEnum.fromPayloadMode(" Digest "));
+		assertThrows(IllegalArgumentException.class, () -> AuditPayloadModeEnum.fromPayloadMode("full"));
+		assertThrows(IllegalArgumentException.class, () -> AuditPayloadModeEnum.fromPayloadMode(null));
+	}
+
+	JsonNode serialise(ResilienceParcel parcel) {
+		try {
+			return (jsonMapper.readTree(serializer.serialiseParcel(parcel)));
+		} catch (Exception e) {
+			throw (new AssertionError("the serialised Parcel is not valid JSON", e));
+		}
+	}
+
+	static void injectField(Object target, String fieldName, Object value) {
+		try {
+			Field field = target.getClass().getDeclaredField(fieldName);
+			field.setAccessible(true);
+			field.set(target, value);
+		} catch (NoSuchFieldException | IllegalAccessException e) {
+			throw (new IllegalStateException(".injectField(): Cannot set field, fieldName->" + fieldName, e));
+		}
+	}
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import net.fhirfactory.pegacorn.internals.fhir.r4.resources.auditevent.factories.AuditEventEntityFactory;
+import net.fhirfactory.pegacorn.internals.fhir.r4.resources.auditevent.factories.AuditEventFactory;
+import net.fhirfactory.pegacorn.petasos.audit.transformers.DefaultResilienceParcel2FHIRAuditEvent;
+import net.fhirfactory.pegacorn.petasos.core.PetasosCoreTestFixtures;
+import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
+import org.hl7.fhir.r4.model.AuditEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DefaultResilienceParcel2FHIRAuditEvent.transform() - executed for every Parcel state change that is
+ * audited - at varying UoW payload sizes. The transformer's (normally injected) factories are created
+ * directly and the ProcessingPlant is replaced with a stand-in.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuditEventTransformBenchmark {
+
+    @Param({"256", "16384", "262144"})
+    public int payloadSize;
+
+    private DefaultResilienceParcel2FHIRAuditEvent transformer;
+    private ResilienceParcel parcel;
+
+    @Setup
+    public void setup(){
+        transformer = new DefaultResilienceParcel2FHIRAuditEvent();
+        PetasosCoreTestFixtures.injectField(transformer, "auditEventFactory", new AuditEventFactory());
+        PetasosCoreTestFixtures.injectField(transformer, "auditEventEntityFactory", new AuditEventEntityFactory());
+        PetasosCoreTestFixtures.injectField(transformer, "processingPlant", PetasosCoreTestFixtures.newProcessingPlantStandIn());
+
+        WUPIdentifier wupIdentifier = PetasosCoreTestFixtures.newWUPIdentifier("benchmark-wup");
+        ActivityID activityID = PetasosCoreTestFixtures.newActivityID(wupIdentifier, PetasosCoreTestFixtures.newWUPFunctionToken("benchmark-wup"));
+        UoW uow = PetasosCoreTestFixtures.newUoW(
+                PetasosCoreTestFixtures.newManifest("Communication"),
+                PetasosCoreTestFixtures.newPayloadContent(payloadSize),
+                0);
+        parcel = PetasosCoreTestFixtures.newResilienceParcel(activityID, uow, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
+        parcel.setFinishedDate(new Date());
+    }
+
+    @Benchmark
+    public AuditEvent transform(){
+        return(transformer.transform(parcel));
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelTypeDescriptor;
+import net.fhirfactory.pegacorn.petasos.core.PetasosCoreTestFixtures;
+import net.fhirfactory.pegacorn.petasos.datasets.cache.DataParcelSubscriptionMapDM;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
+import net.fhirfactory.pegacorn.petasos.model.pubsub.IntraSubsystemPubSubParticipant;
+import net.fhirfactory.pegacorn.petasos.model.pubsub.PubSubParticipant;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DataParcelSubscriptionMapDM.deriveSubscriberList() at varying subscription counts. Half of the
+ * subscriptions are exact (resource specific) and half use a wildcard discriminator, so both branches
+ * of the descriptor match tree are exercised.
+ *
+ * The "repeatedManifest" benchmark publishes the same manifest every time (the routing cache hit path),
+ * whereas "distinctManifests" cycles through more distinct manifests than the routing cache can hold,
+ * so it predominantly measures the full subscription matching path.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DataParcelSubscriptionMapBenchmark {
+
+    private static final int DISTINCT_MANIFEST_COUNT = 2 * PetasosPropertyConstants.SUBSCRIPTION_ROUTING_CACHE_MAX_ENTRIES;
+
+    @Param({"10", "100", "1000"})
+    public int subscriptionCount;
+
+    private DataParcelSubscriptionMapDM subscriptionMap;
+    private DataParcelManifest repeatedManifest;
+    private DataParcelManifest[] distinctManifests;
+    private int distinctManifestIndex;
+
+    @Setup
+    public void setup(){
+        subscriptionMap = new DataParcelSubscriptionMapDM();
+        for(int counter = 0; counter < subscriptionCount; counter++){
+            DataParcelTypeDescriptor subscribedDescriptor = newResourceDescriptor(counter);
+            if((counter % 2) == 1){
+                subscribedDescriptor.setDataParcelDiscriminatorType(DataParcelManifest.WILDCARD_CHARACTER);
+                subscribedDescriptor.setDataParcelDiscriminatorValue(DataParcelManifest.WILDCARD_CHARACTER);
+            }
+            IntraSubsystemPubSubParticipant localSubscriber = new IntraSubsystemPubSubParticipant(PetasosCoreTestFixtures.newWUPNodeFDN("subscriber-" + counter).getToken());
+            subscriptionMap.addSubscriber(new DataParcelManifest(subscribedDescriptor), new PubSubParticipant(localSubscriber));
+        }
+        repeatedManifest = new DataParcelManifest(newResourceDescriptor(subscriptionCount / 2));
+        distinctManifests = new DataParcelManifest[DISTINCT_MANIFEST_COUNT];
+        for(int counter = 0; counter < DISTINCT_MANIFEST_COUNT; counter++){
+            DataParcelTypeDescriptor publishedDescriptor = newResourceDescriptor(counter % subscriptionCount);
+            publishedDescriptor.setDataParcelDiscriminatorType("Sequence");
+            publishedDescriptor.setDataParcelDiscriminatorValue("Sequence-" + counter);
+            distinctManifests[counter] = new DataParcelManifest(publishedDescriptor);
+        }
+        distinctManifestIndex = 0;
+    }
+
+    private DataParcelTypeDescriptor newResourceDescriptor(int resourceNumber){
+        return(PetasosCoreTestFixtures.newDescriptor("FHIRFactory", "Benchmark", "Petasos", "Resource-" + resourceNumber));
+    }
+
+    @Benchmark
+    public List<PubSubParticipant> repeatedManifest(){
+        return(subscriptionMap.deriveSubscriberList(repeatedManifest));
+    }
+
+    @Benchmark
+    public List<PubSubParticipant> distinctManifests(){
+        DataParcelManifest manifest = distinctManifests[distinctManifestIndex];
+        distinctManifestIndex = (distinctManifestIndex + 1) % DISTINCT_MANIFEST_COUNT;
+        return(subscriptionMap.deriveSubscriberList(manifest));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDNToken;
+import net.fhirfactory.pegacorn.common.model.generalid.FDN;
+import net.fhirfactory.pegacorn.common.model.generalid.FDNToken;
+import net.fhirfactory.pegacorn.common.model.generalid.RDN;
+import net.fhirfactory.pegacorn.petasos.core.PetasosCoreTestFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FDN/FDNToken construction and parsing. Every Petasos identifier (Parcel, Episode, UoW, WUP) is an
+ * FDNToken, and most of the hot path converts between the FDN and FDNToken forms.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FDNBenchmark {
+
+    @Param({"2", "4", "8"})
+    public int rdnCount;
+
+    private RDN[] rdnSet;
+    private FDN fdn;
+    private FDNToken fdnToken;
+    private TopologyNodeFDN topologyNodeFDN;
+    private TopologyNodeFDNToken topologyNodeFDNToken;
+
+    @Setup
+    public void setup(){
+        rdnSet = new RDN[rdnCount];
+        for(int counter = 0; counter < rdnCount; counter++){
+            rdnSet[counter] = new RDN("Qualifier" + counter, "Value." + counter);
+        }
+        fdn = buildFDN();
+        fdnToken = fdn.getToken();
+        topologyNodeFDN = PetasosCoreTestFixtures.newWUPNodeFDN("benchmark-wup");
+        topologyNodeFDNToken = topologyNodeFDN.getToken();
+    }
+
+    private FDN buildFDN(){
+        FDN newFDN = new FDN();
+        for(RDN currentRDN: rdnSet){
+            newFDN.appendRDN(currentRDN);
+        }
+        return(newFDN);
+    }
+
+    @Benchmark
+    public FDN appendRDNs(){
+        return(buildFDN());
+    }
+
+    @Benchmark
+    public FDNToken appendRDNsAndGetToken(){
+        return(buildFDN().getToken());
+    }
+
+    @Benchmark
+    public FDN copyFDN(){
+        return(new FDN(fdn));
+    }
+
+    @Benchmark
+    public FDN parseFDNToken(){
+        return(new FDN(fdnToken));
+    }
+
+    @Benchmark
+    public String fdnTokenToTag(){
+        return(fdnToken.toTag());
+    }
+
+    @Benchmark
+    public String fdnTokenUnqualifiedToken(){
+        return(fdnToken.getUnqualifiedToken());
+    }
+
+    @Benchmark
+    public TopologyNodeFDNToken topologyNodeFDNGetToken(){
+        return(topologyNodeFDN.getToken());
+    }
+
+    @Benchmark
+    public TopologyNodeFDN parseTopologyNodeFDNToken(){
+        return(new TopologyNodeFDN(topologyNodeFDNToken));
+    }
+}
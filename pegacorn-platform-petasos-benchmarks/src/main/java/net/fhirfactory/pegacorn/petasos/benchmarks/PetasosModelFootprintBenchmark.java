@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import net.fhirfactory.pegacorn.petasos.core.PetasosCoreTestFixtures;
+import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
+import net.fhirfactory.pegacorn.petasos.model.pathway.WorkUnitTransportPacket;
+import net.fhirfactory.pegacorn.petasos.model.resilience.activitymatrix.moa.ParcelStatusElement;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelFinalisationStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
+import org.apache.commons.lang3.SerializationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The per-instance footprint of the (mutable) Petasos model classes - the ResilienceParcel, the ParcelStatusElement
+ * and the WorkUnitTransportPacket (with its WUPJobCard) - and the cost of their status transitions. Run with
+ * "-prof gc": the gc.alloc.rate.norm (bytes/op) of the copy benchmarks is the shallow footprint of each object,
+ * and that of the serializationClone benchmarks is the cost of moving it between nodes.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PetasosModelFootprintBenchmark {
+
+    private ResilienceParcel parcel;
+    private ParcelStatusElement statusElement;
+    private WorkUnitTransportPacket packet;
+
+    @Setup
+    public void setup(){
+        WUPIdentifier wupIdentifier = PetasosCoreTestFixtures.newWUPIdentifier("benchmark-wup");
+        ActivityID activityID = PetasosCoreTestFixtures.newActivityID(wupIdentifier, PetasosCoreTestFixtures.newWUPFunctionToken("benchmark-wup"));
+        UoW uow = PetasosCoreTestFixtures.newUoW(
+                PetasosCoreTestFixtures.newManifest("Communication"),
+                PetasosCoreTestFixtures.newPayloadContent(256),
+                0);
+        parcel = PetasosCoreTestFixtures.newResilienceParcel(activityID, uow, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+        packet = PetasosCoreTestFixtures.newTransportPacket(activityID, uow);
+        statusElement = packet.getCurrentParcelStatus();
+    }
+
+    @Benchmark
+    public ResilienceParcel parcelCopy(){
+        return(new ResilienceParcel(parcel));
+    }
+
+    @Benchmark
+    public ParcelStatusElement statusElementCopy(){
+        return(new ParcelStatusElement(statusElement));
+    }
+
+    @Benchmark
+    public ResilienceParcel parcelSerializationClone(){
+        return(SerializationUtils.clone(parcel));
+    }
+
+    @Benchmark
+    public WorkUnitTransportPacket packetSerializationClone(){
+        return(SerializationUtils.clone(packet));
+    }
+
+    @Benchmark
+    public ResilienceParcel parcelStatusTransition(){
+        Date transitionDate = new Date();
+        parcel.updateProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED, transitionDate);
+        parcel.updateProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, null, transitionDate);
+        return(parcel);
+    }
+
+    @Benchmark
+    public WorkUnitTransportPacket packetStatusUpdate(){
+        Date updateDate = new Date();
+        packet.getCurrentJobCard().grantRequestedStatus(updateDate);
+        statusElement.updateParcelStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, updateDate);
+        return(packet);
+    }
+}
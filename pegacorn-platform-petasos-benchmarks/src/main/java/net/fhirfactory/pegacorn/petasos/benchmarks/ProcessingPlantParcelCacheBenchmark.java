@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFunctionFDNToken;
+import net.fhirfactory.pegacorn.common.model.generalid.FDNToken;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
+import net.fhirfactory.pegacorn.petasos.core.PetasosCoreTestFixtures;
+import net.fhirfactory.pegacorn.petasos.core.common.resilience.processingplant.cache.ProcessingPlantParcelCacheDM;
+import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ProcessingPlantParcelCacheDM lookups at varying cache sizes. The cache is populated with Parcels
+ * spread across a fixed set of WUPs, with one in ten Parcels ACTIVE and the rest FINISHED or FINALISED
+ * (approximating a cache that is mostly waiting on the watchdog to clear completed work).
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProcessingPlantParcelCacheBenchmark {
+
+    private static final int WUP_COUNT = 16;
+    private static final int ACTIVE_PARCEL_RATIO = 10;
+
+    @Param({"100", "10000", "100000"})
+    public int cacheSize;
+
+    private ProcessingPlantParcelCacheDM parcelCache;
+    private ResilienceParcel[] parcels;
+    private int lookupIndex;
+
+    @Setup
+    public void setup(){
+        parcelCache = new ProcessingPlantParcelCacheDM();
+        parcels = new ResilienceParcel[cacheSize];
+        WUPIdentifier[] wupIdentifiers = new WUPIdentifier[WUP_COUNT];
+        TopologyNodeFunctionFDNToken[] wupFunctionTokens = new TopologyNodeFunctionFDNToken[WUP_COUNT];
+        for(int counter = 0; counter < WUP_COUNT; counter++){
+            wupIdentifiers[counter] = PetasosCoreTestFixtures.newWUPIdentifier("benchmark-wup-" + counter);
+            wupFunctionTokens[counter] = PetasosCoreTestFixtures.newWUPFunctionToken("benchmark-wup-" + counter);
+        }
+        DataParcelManifest manifest = PetasosCoreTestFixtures.newManifest("Communication");
+        String payloadContent = PetasosCoreTestFixtures.newPayloadContent(256);
+        for(int counter = 0; counter < cacheSize; counter++){
+            int wupNumber = counter % WUP_COUNT;
+            ActivityID activityID = PetasosCoreTestFixtures.newActivityID(wupIdentifiers[wupNumber], wupFunctionTokens[wupNumber]);
+            UoW uow = PetasosCoreTestFixtures.newUoW(manifest, payloadContent, counter);
+            ResilienceParcel parcel = PetasosCoreTestFixtures.newResilienceParcel(activityID, uow, statusFor(counter));
+            parcels[counter] = parcel;
+            parcelCache.addParcel(parcel);
+        }
+        lookupIndex = 0;
+    }
+
+    private ResilienceParcelProcessingStatusEnum statusFor(int parcelNumber){
+        if((parcelNumber % ACTIVE_PARCEL_RATIO) == 0){
+            return(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+        }
+        if((parcelNumber % 2) == 0){
+            return(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
+        }
+        return(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
+    }
+
+    private ResilienceParcel nextParcel(){
+        ResilienceParcel parcel = parcels[lookupIndex];
+        lookupIndex = (lookupIndex + 1) % cacheSize;
+        return(parcel);
+    }
+
+    @Benchmark
+    public ResilienceParcel getParcelInstance(){
+        return(parcelCache.getParcelInstance(nextParcel().getIdentifier()));
+    }
+
+    @Benchmark
+    public ResilienceParcel getCurrentParcelForWUP(){
+        ResilienceParcel parcel = nextParcel();
+        FDNToken uowInstanceID = parcel.getActualUoW().getInstanceID();
+        return(parcelCache.getCurrentParcelForWUP(parcel.getAssociatedWUPIdentifier(), uowInstanceID));
+    }
+
+    @Benchmark
+    public List<ResilienceParcel> getParcelByEpisodeID(){
+        return(parcelCache.getParcelByEpisodeID(nextParcel().getEpisodeIdentifier()));
+    }
+
+    @Benchmark
+    public List<ResilienceParcel> getActiveParcelSet(){
+        return(parcelCache.getActiveParcelSet());
+    }
+
+    @Benchmark
+    public List<ResilienceParcel> getInProgressParcelSet(){
+        return(parcelCache.getInProgressParcelSet());
+    }
+}
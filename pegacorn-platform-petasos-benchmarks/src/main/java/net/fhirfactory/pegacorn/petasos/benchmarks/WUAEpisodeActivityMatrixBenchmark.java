@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFunctionFDNToken;
+import net.fhirfactory.pegacorn.common.model.generalid.FDN;
+import net.fhirfactory.pegacorn.common.model.generalid.RDN;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
+import net.fhirfactory.pegacorn.petasos.core.PetasosCoreTestFixtures;
+import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.cache.ProcessingPlantWUAEpisodeActivityMatrixDM;
+import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
+import net.fhirfactory.pegacorn.petasos.model.resilience.activitymatrix.moa.ParcelStatusElement;
+import net.fhirfactory.pegacorn.petasos.model.resilience.episode.PetasosEpisodeIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * ProcessingPlantWUAEpisodeActivityMatrixDM.addWUA(), removeWUA() and the (System Wide) focus hand-over at varying
+ * matrix sizes. None of these methods touches the (injected) ParcelCache or TopologyIM, so the matrix is used
+ * directly without a container.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WUAEpisodeActivityMatrixBenchmark {
+
+    private static final int WUP_COUNT = 16;
+
+    @Param({"100", "10000"})
+    public int matrixSize;
+
+    private ProcessingPlantWUAEpisodeActivityMatrixDM activityMatrix;
+    private ActivityID[] registeredActivityIDs;
+    private ActivityID[] transientActivityIDs;
+    private int registeredIndex;
+    private int transientIndex;
+
+    @Setup
+    public void setup(){
+        activityMatrix = new ProcessingPlantWUAEpisodeActivityMatrixDM();
+        registeredActivityIDs = newActivityIDSet(matrixSize, 0);
+        transientActivityIDs = newActivityIDSet(matrixSize, matrixSize);
+        for(int counter = 0; counter < matrixSize; counter++){
+            activityMatrix.addWUA(registeredActivityIDs[counter], statusFor(counter));
+        }
+        registeredIndex = 0;
+        transientIndex = 0;
+    }
+
+    private ActivityID[] newActivityIDSet(int setSize, int sequenceOffset){
+        WUPIdentifier[] wupIdentifiers = new WUPIdentifier[WUP_COUNT];
+        TopologyNodeFunctionFDNToken[] wupFunctionTokens = new TopologyNodeFunctionFDNToken[WUP_COUNT];
+        for(int counter = 0; counter < WUP_COUNT; counter++){
+            wupIdentifiers[counter] = PetasosCoreTestFixtures.newWUPIdentifier("benchmark-wup-" + counter);
+            wupFunctionTokens[counter] = PetasosCoreTestFixtures.newWUPFunctionToken("benchmark-wup-" + counter);
+        }
+        FDN upstreamEpisodeFDN = new FDN();
+        upstreamEpisodeFDN.appendRDN(new RDN("Episode", "benchmark-upstream-episode"));
+        PetasosEpisodeIdentifier upstreamEpisodeID = new PetasosEpisodeIdentifier(upstreamEpisodeFDN.getToken());
+        DataParcelManifest manifest = PetasosCoreTestFixtures.newManifest("Communication");
+        ActivityID[] activityIDSet = new ActivityID[setSize];
+        for(int counter = 0; counter < setSize; counter++){
+            int wupNumber = counter % WUP_COUNT;
+            ActivityID activityID = PetasosCoreTestFixtures.newActivityID(wupIdentifiers[wupNumber], wupFunctionTokens[wupNumber]);
+            activityID.setPreviousEpisodeIdentifier(upstreamEpisodeID);
+            PetasosCoreTestFixtures.newResilienceParcel(
+                    activityID,
+                    PetasosCoreTestFixtures.newUoW(manifest, "", sequenceOffset + counter),
+                    ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
+            activityIDSet[counter] = activityID;
+        }
+        return(activityIDSet);
+    }
+
+    private ResilienceParcelProcessingStatusEnum statusFor(int elementNumber){
+        switch(elementNumber % 4){
+            case 0:
+                return(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+            case 1:
+                return(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
+            case 2:
+                return(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
+            default:
+                return(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
+        }
+    }
+
+    /**
+     * Re-registration of an already known WUA (the status update path).
+     */
+    @Benchmark
+    public ParcelStatusElement addExistingWUA(){
+        ActivityID activityID = registeredActivityIDs[registeredIndex];
+        registeredIndex = (registeredIndex + 1) % matrixSize;
+        return(activityMatrix.addWUA(activityID, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE));
+    }
+
+    /**
+     * Registration of a new WUA (removed again so that the matrix size stays constant).
+     */
+    @Benchmark
+    public PetasosEpisodeIdentifier addAndRemoveNewWUA(){
+        ActivityID activityID = transientActivityIDs[transientIndex];
+        transientIndex = (transientIndex + 1) % matrixSize;
+        ParcelStatusElement statusElement = activityMatrix.addWUA(activityID, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
+        return(activityMatrix.removeWUA(statusElement.getParcelInstanceID()));
+    }
+
+    /**
+     * Hand the System Wide focus of an Episode to one of its Parcels and read the focus holder back.
+     */
+    @Benchmark
+    public ResilienceParcelIdentifier assignSystemWideFocus(){
+        ActivityID activityID = registeredActivityIDs[registeredIndex];
+        registeredIndex = (registeredIndex + 1) % matrixSize;
+        activityMatrix.setSystemWideFocusElement(activityID.getPresentEpisodeIdentifier(), activityID.getPresentParcelIdentifier());
+        return(activityMatrix.getSiteWideFocusElement(activityID.getPresentEpisodeIdentifier()));
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.fhirfactory.pegacorn.camel.BaseRouteBuilder;
+import net.fhirfactory.pegacorn.petasos.core.PetasosCoreTestFixtures;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNames;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
+import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
+import net.fhirfactory.pegacorn.petasos.model.pathway.WorkUnitTransportPacket;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Exchange;
+import org.apache.camel.LoggingLevel;
+import org.apache.camel.Processor;
+import org.apache.camel.ProducerTemplate;
+import org.apache.camel.RecipientList;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-message latency through the WUP Container for the standard layout (StandardWUPContainerRoute - nine routes
+ * joined by direct: endpoints) versus the fused layout (FusedWUPContainerRoute - a processor chain either side of
+ * the WUP). Both layouts are built with the same topology as the real archetypes, the same RouteElementNames and
+ * the same BaseRouteBuilder exception handling, but with pass-through stand-ins for the building-block beans (which
+ * need a full CDI container), so the result isolates the cost of the hops themselves.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WUPContainerRouteLayoutBenchmark {
+
+    @Param({"standard", "fused"})
+    public String layout;
+
+    @Param({"256", "16384"})
+    public int payloadSize;
+
+    private CamelContext camelContext;
+    private ProducerTemplate template;
+    private RouteElementNames nameSet;
+    private WorkUnitTransportPacket packet;
+
+    @Setup
+    public void setup() throws Exception {
+        nameSet = new RouteElementNames(PetasosCoreTestFixtures.newWUPNodeFDN("benchmark-wup").getToken(), true);
+        WUPIdentifier wupIdentifier = PetasosCoreTestFixtures.newWUPIdentifier("benchmark-wup");
+        ActivityID activityID = PetasosCoreTestFixtures.newActivityID(wupIdentifier, PetasosCoreTestFixtures.newWUPFunctionToken("benchmark-wup"));
+        UoW uow = PetasosCoreTestFixtures.newUoW(
+                PetasosCoreTestFixtures.newManifest("Communication"),
+                PetasosCoreTestFixtures.newPayloadContent(payloadSize),
+                0);
+        PetasosCoreTestFixtures.newResilienceParcel(activityID, uow, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+        packet = PetasosCoreTestFixtures.newTransportPacket(activityID, uow);
+
+        camelContext = new DefaultCamelContext();
+        camelContext.addRoutes(new ContainerLayoutRoute(camelContext, nameSet, "fused".equals(layout)));
+        camelContext.addRoutes(new WUPAndInterchangeRoute(camelContext, nameSet));
+        camelContext.start();
+        template = camelContext.createProducerTemplate();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        template.stop();
+        camelContext.stop();
+    }
+
+    @Benchmark
+    public Object processMessage(){
+        return(template.requestBody(nameSet.getEndPointWUPContainerIngresProcessorIngres(), packet));
+    }
+
+    //
+    // Route Layouts
+    //
+
+    /**
+     * The WUP Container, as either the standard (StandardWUPContainerRoute) or fused (FusedWUPContainerRoute) layout.
+     */
+    public static class ContainerLayoutRoute extends BaseRouteBuilder {
+        private RouteElementNames nameSet;
+        private boolean fused;
+
+        public ContainerLayoutRoute(CamelContext camelCTX, RouteElementNames nameSet, boolean fused){
+            super(camelCTX);
+            this.nameSet = nameSet;
+            this.fused = fused;
+        }
+
+        @Override
+        public void configure() {
+            NodeDetailInjectorStandIn nodeDetailInjector = new NodeDetailInjectorStandIn();
+            StageStandIn stage = new StageStandIn();
+            IngresGatekeeperStandIn ingresGatekeeper = new IngresGatekeeperStandIn(nameSet);
+            EgressGatekeeperStandIn egressGatekeeper = new EgressGatekeeperStandIn(nameSet);
+            if(fused){
+                fromWithStandardExceptionHandling(nameSet.getEndPointWUPContainerIngresProcessorIngres())
+                        .routeId(nameSet.getRouteWUPContainerIngressProcessor())
+                        .process(nodeDetailInjector)
+                        .bean(stage, "process(*, Exchange)")
+                        .filter(method(ingresGatekeeper, "isToBeForwarded(*)")).id(nameSet.getRouteWUPContainerIngresGateway())
+                            .bean(stage, "process(*, Exchange)").id(nameSet.getRouteIngresConduitIngres2WUPIngres())
+                            .to(nameSet.getEndPointWUPIngres())
+                        .end();
+
+                fromWithStandardExceptionHandling(nameSet.getEndPointWUPEgress())
+                        .routeId(nameSet.getRouteWUPEgress2WUPEgressConduitEgress())
+                        .process(nodeDetailInjector)
+                        .bean(stage, "process(*, Exchange)")
+                        .bean(stage, "process(*, Exchange)").id(nameSet.getRouteWUPContainerEgressProcessor())
+                        .bean(egressGatekeeper, "egressGatekeeper(*, Exchange)").id(nameSet.getRouteWUPContainerEgressGateway());
+                return;
+            }
+            fromWithStandardExceptionHandling(nameSet.getEndPointWUPContainerIngresProcessorIngres())
+                    .routeId(nameSet.getRouteWUPContainerIngressProcessor())
+                    .process(nodeDetailInjector)
+                    .bean(stage, "process(*, Exchange)")
+                    .to(nameSet.getEndPointWUPContainerIngresProcessorEgress());
+
+            fromWithStandardExceptionHandling(nameSet.getEndPointWUPContainerIngresProcessorEgress())
+                    .routeId(nameSet.getRouteIngresProcessorEgress2IngresGatekeeperIngres())
+                    .to(nameSet.getEndPointWUPContainerIngresGatekeeperIngres());
+
+            fromWithStandardExceptionHandling(nameSet.getEndPointWUPContainerIngresGatekeeperIngres())
+                    .routeId(nameSet.getRouteWUPContainerIngresGateway())
+                    .process(nodeDetailInjector)
+                    .bean(ingresGatekeeper, "ingresGatekeeper(*, Exchange)");
+
+            fromWithStandardExceptionHandling(nameSet.getEndPointWUPIngresConduitIngres())
+                    .routeId(nameSet.getRouteIngresConduitIngres2WUPIngres())
+                    .process(nodeDetailInjector)
+                    .bean(stage, "process(*, Exchange)")
+                    .to(nameSet.getEndPointWUPIngres());
+
+            fromWithStandardExceptionHandling(nameSet.getEndPointWUPEgress())
+                    .routeId(nameSet.getRouteWUPEgress2WUPEgressConduitEgress())
+                    .process(nodeDetailInjector)
+                    .bean(stage, "process(*, Exchange)")
+                    .to(nameSet.getEndPointWUPEgressConduitEgress());
+
+            fromWithStandardExceptionHandling(nameSet.getEndPointWUPEgressConduitEgress())
+                    .routeId(nameSet.getRouteWUPEgressConduitEgress2WUPEgressProcessorIngres())
+                    .to(nameSet.getEndPointWUPContainerEgressProcessorIngres());
+
+            fromWithStandardExceptionHandling(nameSet.getEndPointWUPContainerEgressProcessorIngres())
+                    .routeId(nameSet.getRouteWUPContainerEgressProcessor())
+                    .process(nodeDetailInjector)
+                    .bean(stage, "process(*, Exchange)")
+                    .to(nameSet.getEndPointWUPContainerEgressProcessorEgress());
+
+            fromWithStandardExceptionHandling(nameSet.getEndPointWUPContainerEgressProcessorEgress())
+                    .routeId(nameSet.getRouteWUPEgressProcessorEgress2WUPEgressGatekeeperIngres())
+                    .to(nameSet.getEndPointWUPContainerEgressGatekeeperIngres());
+
+            fromWithStandardExceptionHandling(nameSet.getEndPointWUPContainerEgressGatekeeperIngres())
+                    .routeId(nameSet.getRouteWUPContainerEgressGateway())
+                    .process(nodeDetailInjector)
+                    .bean(egressGatekeeper, "egressGatekeeper(*, Exchange)");
+        }
+    }
+
+    /**
+     * The WUP (business logic) itself and the entry to the Interchange, common to both layouts.
+     */
+    public static class WUPAndInterchangeRoute extends BaseRouteBuilder {
+        private RouteElementNames nameSet;
+
+        public WUPAndInterchangeRoute(CamelContext camelCTX, RouteElementNames nameSet){
+            super(camelCTX);
+            this.nameSet = nameSet;
+        }
+
+        @Override
+        public void configure() {
+            from(nameSet.getEndPointWUPIngres())
+                    .routeId(nameSet.getRouteCoreWUP())
+                    .to(nameSet.getEndPointWUPEgress());
+
+            from(nameSet.getEndPointInterchangePayloadTransformerIngres())
+                    .routeId(nameSet.getRouteInterchangePayloadTransformer())
+                    .log(LoggingLevel.TRACE, "${body}");
+        }
+    }
+
+    //
+    // Building-Block Stand-Ins
+    //
+
+    public static class NodeDetailInjectorStandIn implements Processor {
+        @Override
+        public void process(Exchange exchange) throws Exception {
+            if(exchange.getProperty(PetasosPropertyConstants.WUP_TOPOLOGY_NODE_EXCHANGE_PROPERTY_NAME) == null){
+                exchange.setProperty(PetasosPropertyConstants.WUP_TOPOLOGY_NODE_EXCHANGE_PROPERTY_NAME, this);
+            }
+        }
+    }
+
+    public static class StageStandIn {
+        public WorkUnitTransportPacket process(WorkUnitTransportPacket transportPacket, Exchange camelExchange){
+            return(transportPacket);
+        }
+    }
+
+    public static class IngresGatekeeperStandIn {
+        private RouteElementNames nameSet;
+
+        public IngresGatekeeperStandIn(RouteElementNames nameSet){
+            this.nameSet = nameSet;
+        }
+
+        public boolean isToBeForwarded(WorkUnitTransportPacket ingresPacket){
+            return(!ingresPacket.getCurrentJobCard().getIsToBeDiscarded());
+        }
+
+        @RecipientList
+        public List<String> ingresGatekeeper(WorkUnitTransportPacket ingresPacket, Exchange camelExchange){
+            if(!isToBeForwarded(ingresPacket)){
+                return(null);
+            }
+            List<String> targetList = new ArrayList<>();
+            targetList.add(nameSet.getEndPointWUPIngresConduitIngres());
+            return(targetList);
+        }
+    }
+
+    public static class EgressGatekeeperStandIn {
+        private RouteElementNames nameSet;
+
+        public EgressGatekeeperStandIn(RouteElementNames nameSet){
+            this.nameSet = nameSet;
+        }
+
+        @RecipientList
+        public List<String> egressGatekeeper(WorkUnitTransportPacket transportPacket, Exchange camelExchange){
+            List<String> targetList = new ArrayList<>();
+            if(!transportPacket.getCurrentJobCard().getIsToBeDiscarded()){
+                targetList.add(nameSet.getEndPointInterchangePayloadTransformerIngres());
+            }
+            return(targetList);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import net.fhirfactory.pegacorn.petasos.core.PetasosCoreTestFixtures;
+import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
+import net.fhirfactory.pegacorn.petasos.model.pathway.WorkUnitTransportPacket;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
+import org.apache.commons.lang3.SerializationUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * WorkUnitTransportPacket.deepClone() - invoked once per subscriber by the InterchangeTargetWUPTypeRouter -
+ * against a (Java Serialization based) SerializationUtils.clone() baseline. Run with "-prof gc" to
+ * compare the per-fan-out allocation rates.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkUnitTransportPacketCloneBenchmark {
+
+    @Param({"256", "16384", "262144"})
+    public int payloadSize;
+
+    @Param({"1", "8"})
+    public int fanOut;
+
+    private WorkUnitTransportPacket packet;
+
+    @Setup
+    public void setup(){
+        WUPIdentifier wupIdentifier = PetasosCoreTestFixtures.newWUPIdentifier("benchmark-wup");
+        ActivityID activityID = PetasosCoreTestFixtures.newActivityID(wupIdentifier, PetasosCoreTestFixtures.newWUPFunctionToken("benchmark-wup"));
+        UoW uow = PetasosCoreTestFixtures.newUoW(
+                PetasosCoreTestFixtures.newManifest("Communication"),
+                PetasosCoreTestFixtures.newPayloadContent(payloadSize),
+                0);
+        PetasosCoreTestFixtures.newResilienceParcel(activityID, uow, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+        packet = PetasosCoreTestFixtures.newTransportPacket(activityID, uow);
+    }
+
+    @Benchmark
+    public void deepClone(Blackhole blackhole){
+        for(int counter = 0; counter < fanOut; counter++){
+            blackhole.consume(packet.deepClone());
+        }
+    }
+
+    @Benchmark
+    public void serializationClone(Blackhole blackhole){
+        for(int counter = 0; counter < fanOut; counter++){
+            blackhole.consume(SerializationUtils.clone(packet));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.common.resilience.processingplant.cache;
+
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Evicts the heaviest (largest payload) finalised Parcels first - releasing the budget with the fewest evictions.
+ * Already spilled Parcels (whose cache entry is little more than the overhead) are only selected once all the
+ * unspilled candidates have been.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public class LargestFinalisedFirstEvictionPolicy implements ParcelCacheEvictionPolicyInterface {
+    public static final String POLICY_NAME = "largest-finalised-first";
+
+    @Override
+    public List<ResilienceParcelIdentifier> selectForEviction(Collection<ParcelCacheEvictionCandidate> candidates, long weightToRelease) {
+        List<ResilienceParcelIdentifier> selectedList = new ArrayList<>();
+        if((candidates == null) || (weightToRelease <= 0)){
+            return(selectedList);
+        }
+        List<ParcelCacheEvictionCandidate> orderedCandidates = new ArrayList<>(candidates);
+        orderedCandidates.sort(Comparator.comparing(ParcelCacheEvictionCandidate::isSpilled).thenComparing(Comparator.comparingLong(ParcelCacheEvictionCandidate::getWeight).reversed()));
+        long selectedWeight = 0;
+        for(ParcelCacheEvictionCandidate currentCandidate: orderedCandidates){
+            if(selectedWeight >= weightToRelease){
+                break;
+            }
+            selectedList.add(currentCandidate.getParcelIdentifier());
+            selectedWeight += currentCandidate.getWeight();
+        }
+        return(selectedList);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.common.resilience.processingplant.cache;
+
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
+
+/**
+ * An (immutable) snapshot of a finalised Parcel within the ProcessingPlantParcelCacheDM, as offered to the
+ * ParcelCacheEvictionPolicyInterface.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public class ParcelCacheEvictionCandidate {
+    private final ResilienceParcelIdentifier parcelIdentifier;
+    private final long weight;
+    private final long finalisationTimeMillis;
+    private final boolean spilled;
+
+    public ParcelCacheEvictionCandidate(ResilienceParcelIdentifier parcelIdentifier, long weight, long finalisationTimeMillis, boolean spilled){
+        if(parcelIdentifier == null){
+            throw(new IllegalArgumentException(".ParcelCacheEvictionCandidate(): parcelIdentifier is null"));
+        }
+        this.parcelIdentifier = parcelIdentifier;
+        this.weight = weight;
+        this.finalisationTimeMillis = finalisationTimeMillis;
+        this.spilled = spilled;
+    }
+
+    public ResilienceParcelIdentifier getParcelIdentifier() {
+        return(parcelIdentifier);
+    }
+
+    /**
+     * @return The (estimated) in-heap bytes of the Parcel's cache entry
+     */
+    public long getWeight() {
+        return(weight);
+    }
+
+    /**
+     * @return The finalisation date of the Parcel (in epoch milliseconds), or 0 if it has no finalisation date
+     */
+    public long getFinalisationTimeMillis() {
+        return(finalisationTimeMillis);
+    }
+
+    /**
+     * @return True if the Parcel's payloads have already been spilled to the overflow file
+     */
+    public boolean isSpilled() {
+        return(spilled);
+    }
+
+    @Override
+    public String toString() {
+        return("ParcelCacheEvictionCandidate{parcelIdentifier=" + parcelIdentifier + ", weight=" + weight + ", finalisationTimeMillis=" + finalisationTimeMillis + ", spilled=" + spilled + "}");
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.common.resilience.processingplant.cache;
+
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The (pluggable) eviction policy of the ProcessingPlantParcelCacheDM. When the cache's weight exceeds its budget, the
+ * policy is offered the finalised Parcels (only ever the finalised Parcels - the ProcessingPlantParcelCacheDM never
+ * offers, nor evicts, a Parcel that is still in flight) and chooses which are to be evicted (or spilled), in order.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public interface ParcelCacheEvictionPolicyInterface {
+
+    /**
+     * Select the Parcels to be evicted (or spilled) from the ProcessingPlantParcelCacheDM.
+     *
+     * @param candidates The (finalised) Parcels that may be evicted
+     * @param weightToRelease The weight (estimated bytes) that the cache needs to release to get back under its low water mark
+     * @return The ResilienceParcelIdentifiers of the Parcels to be evicted, in the order they are to be evicted
+     */
+    public List<ResilienceParcelIdentifier> selectForEviction(Collection<ParcelCacheEvictionCandidate> candidates, long weightToRelease);
+
+    /**
+     * The ProcessingPlantParcelCacheDM offers the candidates in the order they were finalised (oldest first). A policy
+     * that only ever selects (unspilled) candidates in that order need only be offered enough of them to cover the
+     * weightToRelease, rather than every finalised Parcel in the cache.
+     *
+     * @return True if the policy selects the (unspilled) candidates in the order they were finalised
+     */
+    default boolean selectsInFinalisationOrder() {
+        return (false);
+    }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.common.resilience.processingplant.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A local overflow store for the (UoW) payloads of finalised Parcels that the ProcessingPlantParcelCacheDM has spilled
+ * out of the heap. Each record is a payload count followed by that many length-prefixed (UTF-8) payloads (a length of
+ * -1 denoting a null payload), and is addressed by the SpillRecord returned from append().
+ * <p>
+ * Records are appended to the current segment file, a new segment being started once it reaches the segment size.
+ * Once a record is no longer referenced it is release()'d: a (full) segment is deleted once all of its records have
+ * been released, and compact() copies the still live records of a mostly released segment into the current segment
+ * (updating their SpillRecords) so that the segment can be deleted - so the space on disk tracks the live records,
+ * rather than everything ever spilled.
+ * <p>
+ * The segment files are private to the (running) ProcessingPlant - they are created afresh and deleted on close.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public class ParcelPayloadSpillFile {
+    private static final Logger LOG = LoggerFactory.getLogger(ParcelPayloadSpillFile.class);
+
+    private static final int NULL_PAYLOAD_LENGTH = -1;
+
+    private Path overflowDirectory;
+    private long segmentSize;
+    private int compactionLivePercent;
+    private List<SpillSegment> sealedSegments;
+    private SpillSegment currentSegment;
+    private long compactedRecordCount;
+
+    public ParcelPayloadSpillFile(Path overflowDirectory, long segmentSize, int compactionLivePercent) throws IOException {
+        if(overflowDirectory == null){
+            throw(new IllegalArgumentException(".ParcelPayloadSpillFile(): overflowDirectory is null"));
+        }
+        if((segmentSize <= 0) || (compactionLivePercent < 0) || (compactionLivePercent > 100)){
+            throw(new IllegalArgumentException(".ParcelPayloadSpillFile(): invalid segmentSize or compactionLivePercent, segmentSize->" + segmentSize + ", compactionLivePercent->" + compactionLivePercent));
+        }
+        Files.createDirectories(overflowDirectory);
+        this.overflowDirectory = overflowDirectory;
+        this.segmentSize = segmentSize;
+        this.compactionLivePercent = compactionLivePercent;
+        this.sealedSegments = new ArrayList<>();
+        this.currentSegment = new SpillSegment(overflowDirectory);
+        this.compactedRecordCount = 0;
+    }
+
+    /**
+     * Append a record (the set of payloads of a single Parcel) to the current segment.
+     *
+     * @param payloads The payloads to be spilled (entries may be null)
+     * @return The SpillRecord addressing the record
+     * @throws IOException If the record could not be written
+     */
+    public synchronized SpillRecord append(List<String> payloads) throws IOException {
+        if(payloads == null){
+            throw(new IllegalArgumentException(".append(): payloads is null"));
+        }
+        List<byte[]> encodedPayloads = new ArrayList<>(payloads.size());
+        int recordLength = Integer.BYTES;
+        for(String currentPayload: payloads){
+            byte[] encodedPayload = null;
+            if(currentPayload != null){
+                encodedPayload = currentPayload.getBytes(StandardCharsets.UTF_8);
+                recordLength += encodedPayload.length;
+            }
+            encodedPayloads.add(encodedPayload);
+            recordLength += Integer.BYTES;
+        }
+        ByteBuffer recordBuffer = ByteBuffer.allocate(recordLength);
+        recordBuffer.putInt(encodedPayloads.size());
+        for(byte[] encodedPayload: encodedPayloads){
+            if(encodedPayload == null){
+                recordBuffer.putInt(NULL_PAYLOAD_LENGTH);
+            } else {
+                recordBuffer.putInt(encodedPayload.length);
+                recordBuffer.put(encodedPayload);
+            }
+        }
+        recordBuffer.flip();
+        SpillRecord spillRecord = new SpillRecord();
+        writeRecord(spillRecord, recordBuffer);
+        return(spillRecord);
+    }
+
+    private void writeRecord(SpillRecord spillRecord, ByteBuffer recordBuffer) throws IOException {
+        rollSegmentIfFull();
+        int recordLength = recordBuffer.remaining();
+        long recordOffset = currentSegment.write(recordBuffer);
+        spillRecord.segment = currentSegment;
+        spillRecord.recordOffset = recordOffset;
+        spillRecord.recordLength = recordLength;
+        currentSegment.liveRecords.add(spillRecord);
+        currentSegment.liveBytes += recordLength;
+    }
+
+    private void rollSegmentIfFull() throws IOException {
+        if(currentSegment.length < segmentSize){
+            return;
+        }
+        SpillSegment newSegment = new SpillSegment(overflowDirectory);
+        SpillSegment fullSegment = currentSegment;
+        currentSegment = newSegment;
+        if(fullSegment.liveRecords.isEmpty()){
+            fullSegment.delete();
+        } else {
+            sealedSegments.add(fullSegment);
+        }
+    }
+
+    /**
+     * Read a (previously appended, and not yet released) record back.
+     *
+     * @param spillRecord The SpillRecord returned by append()
+     * @return The payloads of the record, in the order they were appended
+     * @throws IOException If the record could not be read (or has been released)
+     */
+    public synchronized List<String> read(SpillRecord spillRecord) throws IOException {
+        if(spillRecord == null){
+            throw(new IllegalArgumentException(".read(): spillRecord is null"));
+        }
+        if(spillRecord.segment == null){
+            throw(new IOException(".read(): spillRecord has been released"));
+        }
+        ByteBuffer recordBuffer = spillRecord.segment.read(spillRecord.recordOffset, spillRecord.recordLength);
+        int payloadCount = recordBuffer.getInt();
+        if(payloadCount < 0){
+            throw(new IOException(".read(): Corrupt spill record, recordOffset->" + spillRecord.recordOffset));
+        }
+        List<String> payloads = new ArrayList<>(payloadCount);
+        for(int counter = 0; counter < payloadCount; counter++){
+            if(recordBuffer.remaining() < Integer.BYTES){
+                throw(new IOException(".read(): Corrupt spill record, recordOffset->" + spillRecord.recordOffset));
+            }
+            int payloadLength = recordBuffer.getInt();
+            if(payloadLength == NULL_PAYLOAD_LENGTH){
+                payloads.add(null);
+                continue;
+            }
+            if((payloadLength < 0) || (payloadLength > recordBuffer.remaining())){
+                throw(new IOException(".read(): Corrupt spill record, recordOffset->" + spillRecord.recordOffset));
+            }
+            payloads.add(new String(recordBuffer.array(), recordBuffer.position(), payloadLength, StandardCharsets.UTF_8));
+            recordBuffer.position(recordBuffer.position() + payloadLength);
+        }
+        return(payloads);
+    }
+
+    /**
+     * Release a record that is no longer referenced. A full segment is deleted once all its records are released.
+     *
+     * @param spillRecord The SpillRecord returned by append()
+     */
+    public synchronized void release(SpillRecord spillRecord) {
+        if((spillRecord == null) || (spillRecord.segment == null)){
+            return;
+        }
+        SpillSegment segment = spillRecord.segment;
+        spillRecord.segment = null;
+        segment.liveRecords.remove(spillRecord);
+        segment.liveBytes -= spillRecord.recordLength;
+        if((segment != currentSegment) && segment.liveRecords.isEmpty()){
+            sealedSegments.remove(segment);
+            segment.delete();
+        }
+    }
+
+    /**
+     * Copy the live records of each full segment of which less than the compaction percentage is still live into
+     * the current segment, and delete it.
+     *
+     * @return The number of segments deleted
+     * @throws IOException If a record could not be copied (the segment being compacted is then kept)
+     */
+    public synchronized int compact() throws IOException {
+        int compactedSegmentCount = 0;
+        for(SpillSegment segment: new ArrayList<>(sealedSegments)){
+            if((segment.liveBytes * 100) >= (segment.length * compactionLivePercent)){
+                continue;
+            }
+            for(SpillRecord liveRecord: new ArrayList<>(segment.liveRecords)){
+                ByteBuffer recordBuffer = segment.read(liveRecord.recordOffset, liveRecord.recordLength);
+                writeRecord(liveRecord, recordBuffer);
+                segment.liveRecords.remove(liveRecord);
+                segment.liveBytes -= liveRecord.recordLength;
+                compactedRecordCount += 1;
+            }
+            sealedSegments.remove(segment);
+            segment.delete();
+            compactedSegmentCount += 1;
+        }
+        if(compactedSegmentCount > 0){
+            LOG.debug(".compact(): Compacted {} spill segments", compactedSegmentCount);
+        }
+        return(compactedSegmentCount);
+    }
+
+    /**
+     * @return The total length (in bytes) of all the segment files
+     */
+    public synchronized long getSpillFileLength() {
+        long totalLength = currentSegment.length;
+        for(SpillSegment segment: sealedSegments){
+            totalLength += segment.length;
+        }
+        return(totalLength);
+    }
+
+    /**
+     * @return The total length (in bytes) of the records not yet released
+     */
+    public synchronized long getLiveRecordLength() {
+        long liveLength = currentSegment.liveBytes;
+        for(SpillSegment segment: sealedSegments){
+            liveLength += segment.liveBytes;
+        }
+        return(liveLength);
+    }
+
+    public synchronized int getSegmentCount() {
+        return(sealedSegments.size() + 1);
+    }
+
+    public synchronized long getCompactedRecordCount() {
+        return(compactedRecordCount);
+    }
+
+    public Path getOverflowDirectory() {
+        return(overflowDirectory);
+    }
+
+    public synchronized void close() {
+        for(SpillSegment segment: sealedSegments){
+            segment.delete();
+        }
+        sealedSegments.clear();
+        currentSegment.delete();
+    }
+
+    /**
+     * The address of a spilled record. It is updated in place if compact() moves the record, so it must only be
+     * used via the ParcelPayloadSpillFile that created it.
+     */
+    public static final class SpillRecord {
+        private SpillSegment segment;
+        private long recordOffset;
+        private int recordLength;
+
+        private SpillRecord() {
+        }
+    }
+
+    private static final class SpillSegment {
+        private final Path segmentPath;
+        private final FileChannel segmentChannel;
+        private long length;
+        private long liveBytes;
+        // (insertion ordered, so compaction keeps the records in the order they were spilled)
+        private final Set<SpillRecord> liveRecords;
+
+        private SpillSegment(Path overflowDirectory) throws IOException {
+            this.segmentPath = Files.createTempFile(overflowDirectory, "petasos-parcel-cache-", ".spill");
+            this.segmentChannel = FileChannel.open(segmentPath, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            this.length = 0;
+            this.liveBytes = 0;
+            this.liveRecords = new LinkedHashSet<>();
+            LOG.debug(".SpillSegment(): Opened Parcel payload spill segment, segmentPath->{}", segmentPath);
+        }
+
+        private long write(ByteBuffer recordBuffer) throws IOException {
+            long recordOffset = length;
+            long writePosition = recordOffset;
+            while(recordBuffer.hasRemaining()){
+                writePosition += segmentChannel.write(recordBuffer, writePosition);
+            }
+            length = writePosition;
+            return(recordOffset);
+        }
+
+        private ByteBuffer read(long recordOffset, int recordLength) throws IOException {
+            if((recordOffset < 0) || ((recordOffset + recordLength) > length)){
+                throw(new IOException(".read(): Record is outside of the spill segment, recordOffset->" + recordOffset + ", segmentLength->" + length));
+            }
+            ByteBuffer recordBuffer = ByteBuffer.allocate(recordLength);
+            long readPosition = recordOffset;
+            while(recordBuffer.hasRemaining()){
+                int bytesRead = segmentChannel.read(recordBuffer, readPosition);
+                if(bytesRead < 0){
+                    throw(new IOException(".read(): Unexpected end of spill segment, position->" + readPosition));
+                }
+                readPosition += bytesRead;
+            }
+            recordBuffer.flip();
+            return(recordBuffer);
+        }
+
+        private void delete() {
+            try {
+                segmentChannel.close();
+            } catch(IOException ex){
+                LOG.warn(".delete(): Could not close the Parcel payload spill segment, segmentPath->{}, error->{}", segmentPath, ex.getMessage());
+            }
+        }
+    }
+}
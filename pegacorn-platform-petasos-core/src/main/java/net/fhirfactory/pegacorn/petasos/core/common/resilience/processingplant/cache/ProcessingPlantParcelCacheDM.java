@@ -22,19 +22,44 @@
 package net.fhirfactory.pegacorn.petasos.core.common.resilience.processingplant.cache;
 
 import net.fhirfactory.pegacorn.common.model.generalid.FDNToken;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelFinalisationStatusEnum;
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoWPayload;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoWPayloadBufferArena;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
+import net.fhirfactory.pegacorn.util.PegacornEnvironmentProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
 import javax.transaction.Transactional;
-import java.util.Iterator;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * This class acts as the Data Manager for the Parcel Cache within the local
@@ -43,6 +68,33 @@ import java.util.concurrent.ConcurrentHashMap;
  * with the surrounding activity associated with each Parcel beyond provision
  * of helper methods associated with search-set and status-set collection
  * methods.
+ * <p>
+ * To keep those search-set methods from scanning the whole cache, it maintains
+ * three secondary indexes alongside the primary (ResilienceParcelIdentifier keyed) map:
+ * - WUPIdentifier + UoW InstanceID --> ResilienceParcelIdentifier
+ * - PetasosEpisodeIdentifier --> Set<ResilienceParcelIdentifier>
+ * - ResilienceParcelProcessingStatusEnum --> Set<ResilienceParcelIdentifier>
+ * These are kept consistent by addParcel(), updateParcel(), removeParcel() and
+ * setParcelProcessingStatus() - so status transitions should be made via the latter
+ * rather than directly on the ResilienceParcel.
+ * <p>
+ * The cache is also bounded by weight - the (estimated) in-heap bytes of each Parcel's UoW
+ * payloads plus a fixed per-entry overhead (see PARCEL_CACHE_SIZE_IN_BYTES). Once the budget is
+ * exceeded, the ParcelCacheEvictionPolicyInterface selects finalised Parcels to be evicted until
+ * the cache is back under its low water mark. The finalised Parcels are kept in an eviction queue,
+ * ordered by their finalisation time and maintained as Parcels are indexed and transitioned, so
+ * enforcing the budget does not need to scan (or sort) the whole cache. Parcels that are not finalised are never evicted,
+ * so the budget is a target rather than a hard limit. If spilling is enabled, a selected Parcel
+ * is first kept (with its payloads written to a ParcelPayloadSpillFile and stripped from its UoW) and only evicted if
+ * it is selected again once already spilled. The accessors restore a spilled Parcel's payloads before returning it, so
+ * a reader never sees a stripped UoW. With spilling enabled, the budget is enforced (and the spill file released and
+ * compacted) on the cache's own spill worker thread, so the spill I/O is kept off the callers' (route) threads.
+ * <p>
+ * Large payloads (see UOW_PAYLOAD_OFF_HEAP_THRESHOLD) are moved off-heap, into the cache's
+ * UoWPayloadBufferArena, as Parcels are added or transitioned - so they do not count towards the
+ * (heap) weight - and their buffers are released back to the arena once no UoW holds them. The off-heap
+ * bytes have a budget of their own (see UOW_PAYLOAD_OFF_HEAP_MAXIMUM_BYTES): once the arena's buffers in use
+ * reach it, payloads are left on-heap, where they count towards the weight.
  *
  * @author Mark A. Hunter
  * @since 2020-06-01
@@ -52,9 +104,154 @@ public class ProcessingPlantParcelCacheDM {
     private static final Logger LOG = LoggerFactory.getLogger(ProcessingPlantParcelCacheDM.class);
 
     private ConcurrentHashMap<ResilienceParcelIdentifier, ResilienceParcel> petasosParcelCache;
+    private ConcurrentHashMap<WUPUoWKey, ResilienceParcelIdentifier> wupUoWIndex;
+    private ConcurrentHashMap<String, Set<ResilienceParcelIdentifier>> episodeIndex;
+    private ConcurrentHashMap<ResilienceParcelProcessingStatusEnum, Set<ResilienceParcelIdentifier>> statusIndex;
+    private ConcurrentHashMap<ResilienceParcelIdentifier, ParcelIndexKeys> parcelIndexKeysMap;
+    private TreeSet<EvictionQueueEntry> evictionQueue;
+    private long evictionQueueSequence;
+    private Object indexLock;
+    private AtomicLong totalWeight;
+    private volatile long maximumWeight;
+    private volatile ParcelCacheEvictionPolicyInterface evictionPolicy;
+    private volatile ParcelPayloadSpillFile spillFile;
+    private AtomicBoolean evictionInProgress;
+    private volatile ExecutorService spillWorker;
+    private AtomicBoolean spillWorkScheduled;
+    private ConcurrentLinkedQueue<ParcelPayloadSpillFile.SpillRecord> releasedSpillRecords;
+    private volatile long spillSegmentSize;
+    private volatile int spillCompactionLivePercent;
+    private LongAdder evictedParcelCount;
+    private LongAdder spilledParcelCount;
+    private LongAdder restoredParcelCount;
+    private volatile UoWPayloadBufferArena payloadArena;
+    private volatile int offHeapPayloadThreshold;
+    private volatile long maximumOffHeapBytes;
+    private LongAdder offHeapPayloadCount;
+    private LongAdder offHeapBudgetExceededCount;
+
+    private static final long SPILL_WORKER_SHUTDOWN_WAIT_MILLISECONDS = 5000;
+
+    private static final ResilienceParcelProcessingStatusEnum[] EVICTABLE_PROCESSING_STATUSES = {
+            ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED,
+            ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED_ELSEWHERE,
+            ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_CANCELLED};
+
+    @Inject
+    private PegacornEnvironmentProperties environmentProperties;
 
     public ProcessingPlantParcelCacheDM() {
         petasosParcelCache = new ConcurrentHashMap<ResilienceParcelIdentifier, ResilienceParcel>();
+        wupUoWIndex = new ConcurrentHashMap<WUPUoWKey, ResilienceParcelIdentifier>();
+        episodeIndex = new ConcurrentHashMap<String, Set<ResilienceParcelIdentifier>>();
+        statusIndex = new ConcurrentHashMap<ResilienceParcelProcessingStatusEnum, Set<ResilienceParcelIdentifier>>();
+        parcelIndexKeysMap = new ConcurrentHashMap<ResilienceParcelIdentifier, ParcelIndexKeys>();
+        evictionQueue = new TreeSet<EvictionQueueEntry>();
+        evictionQueueSequence = 0;
+        indexLock = new Object();
+        totalWeight = new AtomicLong(0);
+        maximumWeight = PetasosPropertyConstants.CACHE_SIZE_IN_BYTES;
+        evictionPolicy = new OldestFinalisedFirstEvictionPolicy();
+        spillFile = null;
+        evictionInProgress = new AtomicBoolean(false);
+        spillWorker = null;
+        spillWorkScheduled = new AtomicBoolean(false);
+        releasedSpillRecords = new ConcurrentLinkedQueue<ParcelPayloadSpillFile.SpillRecord>();
+        spillSegmentSize = PetasosPropertyConstants.PARCEL_CACHE_SPILL_SEGMENT_SIZE_IN_BYTES;
+        spillCompactionLivePercent = PetasosPropertyConstants.PARCEL_CACHE_SPILL_COMPACTION_LIVE_PERCENT;
+        evictedParcelCount = new LongAdder();
+        spilledParcelCount = new LongAdder();
+        restoredParcelCount = new LongAdder();
+        payloadArena = new UoWPayloadBufferArena(PetasosPropertyConstants.UOW_PAYLOAD_ARENA_MAXIMUM_POOLED_BYTES);
+        offHeapPayloadThreshold = PetasosPropertyConstants.UOW_PAYLOAD_OFF_HEAP_THRESHOLD;
+        maximumOffHeapBytes = PetasosPropertyConstants.UOW_PAYLOAD_OFF_HEAP_MAXIMUM_BYTES;
+        offHeapPayloadCount = new LongAdder();
+        offHeapBudgetExceededCount = new LongAdder();
+    }
+
+    @PostConstruct
+    protected void initialise() {
+        LOG.debug(".initialise(): Entry");
+        if (environmentProperties == null) {
+            LOG.debug(".initialise(): Exit, no environmentProperties, using the defaults");
+            return;
+        }
+        try {
+            String maximumWeightValue = environmentProperties.getProperty(PetasosPropertyConstants.PARCEL_CACHE_SIZE_IN_BYTES_PROPERTY_NAME, Long.toString(PetasosPropertyConstants.CACHE_SIZE_IN_BYTES));
+            setMaximumWeight(Long.parseLong(maximumWeightValue.trim()));
+        } catch (IllegalArgumentException ex) {
+            LOG.warn(".initialise(): Invalid parcel cache size, using the default, error->{}", ex.getMessage());
+            maximumWeight = PetasosPropertyConstants.CACHE_SIZE_IN_BYTES;
+        }
+        try {
+            offHeapPayloadThreshold = Math.max(0, environmentProperties.getIntegerProperty(PetasosPropertyConstants.UOW_PAYLOAD_OFF_HEAP_THRESHOLD_PROPERTY_NAME, PetasosPropertyConstants.UOW_PAYLOAD_OFF_HEAP_THRESHOLD));
+            String maximumPooledBytesValue = environmentProperties.getProperty(PetasosPropertyConstants.UOW_PAYLOAD_ARENA_MAXIMUM_POOLED_BYTES_PROPERTY_NAME, Long.toString(PetasosPropertyConstants.UOW_PAYLOAD_ARENA_MAXIMUM_POOLED_BYTES));
+            payloadArena = new UoWPayloadBufferArena(Long.parseLong(maximumPooledBytesValue.trim()));
+            String maximumOffHeapBytesValue = environmentProperties.getProperty(PetasosPropertyConstants.UOW_PAYLOAD_OFF_HEAP_MAXIMUM_BYTES_PROPERTY_NAME, Long.toString(PetasosPropertyConstants.UOW_PAYLOAD_OFF_HEAP_MAXIMUM_BYTES));
+            setMaximumOffHeapBytes(Long.parseLong(maximumOffHeapBytesValue.trim()));
+        } catch (IllegalArgumentException ex) {
+            LOG.warn(".initialise(): Invalid off-heap payload configuration, using the defaults, error->{}", ex.getMessage());
+            offHeapPayloadThreshold = PetasosPropertyConstants.UOW_PAYLOAD_OFF_HEAP_THRESHOLD;
+            payloadArena = new UoWPayloadBufferArena(PetasosPropertyConstants.UOW_PAYLOAD_ARENA_MAXIMUM_POOLED_BYTES);
+            maximumOffHeapBytes = PetasosPropertyConstants.UOW_PAYLOAD_OFF_HEAP_MAXIMUM_BYTES;
+        }
+        String evictionPolicyName = environmentProperties.getProperty(PetasosPropertyConstants.PARCEL_CACHE_EVICTION_POLICY_PROPERTY_NAME, OldestFinalisedFirstEvictionPolicy.POLICY_NAME);
+        setEvictionPolicy(resolveEvictionPolicy(evictionPolicyName));
+        try {
+            String spillSegmentSizeValue = environmentProperties.getProperty(PetasosPropertyConstants.PARCEL_CACHE_SPILL_SEGMENT_SIZE_IN_BYTES_PROPERTY_NAME, Long.toString(PetasosPropertyConstants.PARCEL_CACHE_SPILL_SEGMENT_SIZE_IN_BYTES));
+            setSpillSegmentation(Long.parseLong(spillSegmentSizeValue.trim()), environmentProperties.getIntegerProperty(PetasosPropertyConstants.PARCEL_CACHE_SPILL_COMPACTION_LIVE_PERCENT_PROPERTY_NAME, PetasosPropertyConstants.PARCEL_CACHE_SPILL_COMPACTION_LIVE_PERCENT));
+        } catch (IllegalArgumentException ex) {
+            LOG.warn(".initialise(): Invalid spill segmentation configuration, using the defaults, error->{}", ex.getMessage());
+            spillSegmentSize = PetasosPropertyConstants.PARCEL_CACHE_SPILL_SEGMENT_SIZE_IN_BYTES;
+            spillCompactionLivePercent = PetasosPropertyConstants.PARCEL_CACHE_SPILL_COMPACTION_LIVE_PERCENT;
+        }
+        if (environmentProperties.getBooleanProperty(PetasosPropertyConstants.PARCEL_CACHE_SPILL_ENABLED_PROPERTY_NAME, false)) {
+            String overflowDirectory = environmentProperties.getProperty(PetasosPropertyConstants.PARCEL_CACHE_OVERFLOW_DIRECTORY_PROPERTY_NAME, PetasosPropertyConstants.CACHE_OVERFLOW_DIRECTORY);
+            enableSpill(Paths.get(overflowDirectory));
+        }
+        LOG.debug(".initialise(): Exit, maximumWeight->{}, evictionPolicy->{}, spillEnabled->{}, offHeapPayloadThreshold->{}", maximumWeight, evictionPolicy.getClass().getSimpleName(), isSpillEnabled(), offHeapPayloadThreshold);
+    }
+
+    @PreDestroy
+    protected void shutdown() {
+        LOG.debug(".shutdown(): Entry");
+        ExecutorService currentSpillWorker = spillWorker;
+        if (currentSpillWorker != null) {
+            currentSpillWorker.shutdown();
+            try {
+                if (!currentSpillWorker.awaitTermination(SPILL_WORKER_SHUTDOWN_WAIT_MILLISECONDS, TimeUnit.MILLISECONDS)) {
+                    currentSpillWorker.shutdownNow();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ParcelPayloadSpillFile currentSpillFile = spillFile;
+        spillFile = null;
+        if (currentSpillFile != null) {
+            currentSpillFile.close();
+        }
+        LOG.debug(".shutdown(): Exit");
+    }
+
+    private ParcelCacheEvictionPolicyInterface resolveEvictionPolicy(String evictionPolicyName) {
+        if ((evictionPolicyName == null) || evictionPolicyName.trim().isEmpty()) {
+            return (new OldestFinalisedFirstEvictionPolicy());
+        }
+        String policyName = evictionPolicyName.trim();
+        if (OldestFinalisedFirstEvictionPolicy.POLICY_NAME.equalsIgnoreCase(policyName)) {
+            return (new OldestFinalisedFirstEvictionPolicy());
+        }
+        if (LargestFinalisedFirstEvictionPolicy.POLICY_NAME.equalsIgnoreCase(policyName)) {
+            return (new LargestFinalisedFirstEvictionPolicy());
+        }
+        try {
+            Class<?> policyClass = Class.forName(policyName, true, ProcessingPlantParcelCacheDM.class.getClassLoader());
+            return ((ParcelCacheEvictionPolicyInterface) policyClass.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException | ClassCastException ex) {
+            LOG.warn(".resolveEvictionPolicy(): Invalid parcel cache eviction policy, using {}, evictionPolicyName->{}, error->{}", OldestFinalisedFirstEvictionPolicy.POLICY_NAME, policyName, ex.getMessage());
+            return (new OldestFinalisedFirstEvictionPolicy());
+        }
     }
 
     /**
@@ -72,23 +269,41 @@ public class ProcessingPlantParcelCacheDM {
             return;
         }
         ResilienceParcelIdentifier parcelInstanceID = parcel.getIdentifier();
-        if(petasosParcelCache.containsKey(parcelInstanceID)){
-            petasosParcelCache.remove(parcelInstanceID);
+        offloadParcelPayloads(parcel);
+        synchronized (indexLock) {
+            unindexParcel(parcelInstanceID);
+            petasosParcelCache.put(parcelInstanceID, parcel);
+            indexParcel(parcel);
         }
-        petasosParcelCache.put(parcelInstanceID, parcel);
+        enforceWeightBudget();
     }
 
     /**
-     * This function returns the ResilienceParcel for the given Resilience Parcel ID.
+     * This function returns the ResilienceParcel for the given Resilience Parcel ID (with its payloads restored,
+     * if they had been spilled).
      * @param parcelInstanceID The FDNToken of the ResilienceParcel requested
      * @return The ResilienceParcel instance associated with the provided ParcelInstanceID (FDNToken)
      */
     public ResilienceParcel getParcelInstance(FDNToken parcelInstanceID) {
         LOG.debug(".getParcelInstance(): Entry, parcelInstanceID --> {}", parcelInstanceID);
-        if (petasosParcelCache.containsKey(parcelInstanceID)) {
-            return (petasosParcelCache.get(parcelInstanceID));
+        if (parcelInstanceID == null) {
+            return (null);
+        }
+        return (restoreIfSpilled(petasosParcelCache.get(parcelInstanceID)));
+    }
+
+    /**
+     * This function returns the ResilienceParcel for the given Resilience Parcel ID as it is held in the cache - so
+     * without restoring its payloads, if they had been spilled. It is for housekeeping (e.g. status and date) checks
+     * that do not need the UoW payloads.
+     * @param parcelInstanceID The FDNToken of the ResilienceParcel requested
+     * @return The ResilienceParcel instance (or null if it is not in the cache)
+     */
+    public ResilienceParcel peekParcelInstance(FDNToken parcelInstanceID) {
+        if (parcelInstanceID == null) {
+            return (null);
         }
-        return (null);
+        return (petasosParcelCache.get(parcelInstanceID));
     }
 
     /**
@@ -104,9 +319,7 @@ public class ProcessingPlantParcelCacheDM {
         if (!parcel.hasInstanceIdentifier()) {
             return;
         }
-        if(petasosParcelCache.containsKey(parcel.getIdentifier())) {
-            petasosParcelCache.remove(parcel.getIdentifier());
-        }
+        removeParcel(parcel.getIdentifier());
     }
 
     /**
@@ -119,9 +332,12 @@ public class ProcessingPlantParcelCacheDM {
         if (parcelInstanceID == null) {
             return;
         }
-        if(petasosParcelCache.containsKey(parcelInstanceID)) {
-            petasosParcelCache.remove(parcelInstanceID);
+        ResilienceParcel removedParcel;
+        synchronized (indexLock) {
+            unindexParcel(parcelInstanceID);
+            removedParcel = petasosParcelCache.remove(parcelInstanceID);
         }
+        LOG.trace(".removeParcel(): Exit, removedParcel --> {}", removedParcel);
     }
 
     /**
@@ -135,10 +351,90 @@ public class ProcessingPlantParcelCacheDM {
         if (newParcel == null) {
             throw (new IllegalArgumentException("newParcel is null"));
         }
-        if (petasosParcelCache.containsKey(newParcel.getIdentifier())) {
-            petasosParcelCache.remove(newParcel.getIdentifier());
+        offloadParcelPayloads(newParcel);
+        synchronized (indexLock) {
+            unindexParcel(newParcel.getIdentifier());
+            petasosParcelCache.put(newParcel.getIdentifier(), newParcel);
+            indexParcel(newParcel);
+        }
+        enforceWeightBudget();
+    }
+
+    /**
+     * This function sets the ProcessingStatus of the ResilienceParcel and moves it to the
+     * appropriate entry within the status index.
+     * @param parcel The ResilienceParcel whose status is changing
+     * @param newStatus The new ResilienceParcelProcessingStatusEnum for the Parcel
+     */
+    public void setParcelProcessingStatus(ResilienceParcel parcel, ResilienceParcelProcessingStatusEnum newStatus) {
+        LOG.debug(".setParcelProcessingStatus(): Entry, parcel --> {}, newStatus --> {}", parcel, newStatus);
+        if ((parcel == null) || (newStatus == null)) {
+            throw (new IllegalArgumentException(".setParcelProcessingStatus(): parcel or newStatus is null"));
+        }
+        offloadParcelPayloads(parcel);
+        synchronized (indexLock) {
+            parcel.setProcessingStatus(newStatus);
+            reindexParcelProcessingStatus(parcel, newStatus);
         }
-        petasosParcelCache.put(newParcel.getIdentifier(), newParcel);
+        enforceWeightBudget();
+    }
+
+    /**
+     * This function (atomically) transitions the ProcessingStatus of the ResilienceParcel - along with its
+     * FinalisationStatus and the date matching the new status (see ResilienceParcel.updateProcessingStatus()) -
+     * and moves it to the appropriate entry within the status index.
+     * @param parcel The ResilienceParcel whose status is changing
+     * @param newStatus The new ResilienceParcelProcessingStatusEnum for the Parcel
+     * @param newFinalisationStatus The new ResilienceParcelFinalisationStatusEnum for the Parcel (or null to leave it unchanged)
+     * @param transitionDate The date of the status transition
+     */
+    public void setParcelProcessingStatus(ResilienceParcel parcel, ResilienceParcelProcessingStatusEnum newStatus, ResilienceParcelFinalisationStatusEnum newFinalisationStatus, Date transitionDate) {
+        LOG.debug(".setParcelProcessingStatus(): Entry, parcel --> {}, newStatus --> {}, newFinalisationStatus --> {}", parcel, newStatus, newFinalisationStatus);
+        if ((parcel == null) || (newStatus == null)) {
+            throw (new IllegalArgumentException(".setParcelProcessingStatus(): parcel or newStatus is null"));
+        }
+        offloadParcelPayloads(parcel);
+        synchronized (indexLock) {
+            parcel.updateProcessingStatus(newStatus, newFinalisationStatus, transitionDate);
+            reindexParcelProcessingStatus(parcel, newStatus);
+        }
+        enforceWeightBudget();
+    }
+
+    /**
+     * This function returns an (already cached) ResilienceParcel to a freshly registered state (see
+     * ResilienceParcel.resetProcessingStatus()) and moves it to the appropriate entry within the status index - which
+     * also takes it off the eviction queue.
+     * @param parcel The ResilienceParcel being re-registered
+     * @param registrationDate The date of the re-registration
+     */
+    public void resetParcelProcessingStatus(ResilienceParcel parcel, Date registrationDate) {
+        LOG.debug(".resetParcelProcessingStatus(): Entry, parcel --> {}", parcel);
+        if (parcel == null) {
+            throw (new IllegalArgumentException(".resetParcelProcessingStatus(): parcel is null"));
+        }
+        synchronized (indexLock) {
+            parcel.resetProcessingStatus(registrationDate);
+            reindexParcelProcessingStatus(parcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
+        }
+        enforceWeightBudget();
+    }
+
+    private void reindexParcelProcessingStatus(ResilienceParcel parcel, ResilienceParcelProcessingStatusEnum newStatus) {
+        if (!parcel.hasInstanceIdentifier()) {
+            return;
+        }
+        ParcelIndexKeys indexKeys = parcelIndexKeysMap.get(parcel.getIdentifier());
+        if (indexKeys == null) {
+            LOG.trace(".setParcelProcessingStatus(): Parcel is not (yet) in the cache, nothing to re-index");
+            return;
+        }
+        removeFromIndexSet(statusIndex, indexKeys.status, parcel.getIdentifier());
+        indexKeys.status = newStatus;
+        addToIndexSet(statusIndex, newStatus, parcel.getIdentifier());
+        // The UoW (egress) content is typically updated in place just before a status transition, so re-weigh the Parcel
+        reweighParcel(parcel, indexKeys);
+        requeueParcelForEviction(parcel, indexKeys);
     }
 
     /**
@@ -148,22 +444,17 @@ public class ProcessingPlantParcelCacheDM {
     public List<ResilienceParcel> getParcelSet() {
         LOG.debug(".getParcelSet(): Entry");
         List<ResilienceParcel> parcelList = new LinkedList<ResilienceParcel>();
-        petasosParcelCache.entrySet().forEach(entry -> parcelList.add(entry.getValue()));
+        petasosParcelCache.entrySet().forEach(entry -> parcelList.add(restoreIfSpilled(entry.getValue())));
         return (parcelList);
     }
 
     public List<ResilienceParcel> getParcelSetByState(ResilienceParcelProcessingStatusEnum status) {
         LOG.debug(".getParcelSet(): Entry, status --> {}", status);
         List<ResilienceParcel> parcelList = new LinkedList<ResilienceParcel>();
-        Iterator<ResilienceParcel> parcelListIterator = getParcelSet().iterator();
-        while (parcelListIterator.hasNext()) {
-            ResilienceParcel currentParcel = parcelListIterator.next();
-            if (currentParcel.hasProcessingStatus()) {
-                if (currentParcel.getProcessingStatus() == status) {
-                    parcelList.add(currentParcel);
-                }
-            }
+        if (status == null) {
+            return (parcelList);
         }
+        resolveIndexSet(statusIndex.get(status), parcelList);
         return (parcelList);
     }
 
@@ -192,39 +483,789 @@ public class ProcessingPlantParcelCacheDM {
     }
 
     public List<ResilienceParcel> getParcelByEpisodeID(FDNToken parcelTypeID) {
-        LOG.debug(".getInProgressParcelSet(): Entry, parcelTypeID --> {}" + parcelTypeID);
+        LOG.debug(".getParcelByEpisodeID(): Entry, parcelTypeID --> {}", parcelTypeID);
         List<ResilienceParcel> parcelList = new LinkedList<ResilienceParcel>();
-        Iterator<ResilienceParcel> parcelListIterator = getParcelSet().iterator();
-        while (parcelListIterator.hasNext()) {
-            ResilienceParcel currentParcel = parcelListIterator.next();
-            if (currentParcel.hasEpisodeIdentifier()) {
-                if (currentParcel.getEpisodeIdentifier().equals(parcelTypeID)) {
-                    parcelList.add(currentParcel);
+        if (parcelTypeID == null) {
+            return (parcelList);
+        }
+        resolveIndexSet(episodeIndex.get(parcelTypeID.getContent()), parcelList);
+        return (parcelList);
+    }
+
+    public ResilienceParcel getCurrentParcelForWUP(WUPIdentifier wupInstanceID, FDNToken uowInstanceID) {
+        LOG.debug(".getCurrentParcel(): Entry, wupInstanceID --> {}", wupInstanceID);
+        if ((wupInstanceID == null) || (uowInstanceID == null)) {
+            return (null);
+        }
+        ResilienceParcelIdentifier parcelInstanceID = wupUoWIndex.get(new WUPUoWKey(wupInstanceID, uowInstanceID));
+        if (parcelInstanceID == null) {
+            return (null);
+        }
+        return (restoreIfSpilled(petasosParcelCache.get(parcelInstanceID)));
+    }
+
+    public int getParcelCount() {
+        return (petasosParcelCache.size());
+    }
+
+    /**
+     * If the Parcel's payloads have been spilled, read them back and (unless the Parcel has moved on in the
+     * meantime) replace its stripped UoW with a restored copy - after which the Parcel is no longer spilled, and
+     * is re-weighed (and may be spilled again, if it is again selected). The read happens outside of the indexLock.
+     * @return The Parcel (restored, unless its payloads could not be read back)
+     */
+    private ResilienceParcel restoreIfSpilled(ResilienceParcel parcel) {
+        if ((parcel == null) || !parcel.hasInstanceIdentifier()) {
+            return (parcel);
+        }
+        ResilienceParcelIdentifier parcelInstanceID = parcel.getIdentifier();
+        ParcelSpillRecord spillRecord;
+        UoW strippedUoW;
+        synchronized (indexLock) {
+            ParcelIndexKeys indexKeys = parcelIndexKeysMap.get(parcelInstanceID);
+            if ((indexKeys == null) || (indexKeys.spillRecord == null) || (petasosParcelCache.get(parcelInstanceID) != parcel)) {
+                return (parcel);
+            }
+            spillRecord = indexKeys.spillRecord;
+            strippedUoW = parcel.getActualUoW();
+        }
+        UoW restoredUoW = readSpilledUoW(parcelInstanceID, strippedUoW, spillRecord);
+        if (restoredUoW == null) {
+            return (parcel);
+        }
+        boolean restored = false;
+        synchronized (indexLock) {
+            ParcelIndexKeys indexKeys = parcelIndexKeysMap.get(parcelInstanceID);
+            if ((indexKeys != null) && (indexKeys.spillRecord == spillRecord) && (parcel.getActualUoW() == strippedUoW)) {
+                parcel.setActualUoW(restoredUoW);
+                indexKeys.spillRecord = null;
+                releasedSpillRecords.add(spillRecord.spillRecord);
+                reweighParcel(parcel, indexKeys);
+                restored = true;
+            }
+        }
+        if (restored) {
+            restoredParcelCount.increment();
+            LOG.debug(".restoreIfSpilled(): Restored the spilled payloads, parcelInstanceID --> {}", parcelInstanceID);
+            // (release the record, and re-enforce the budget the restored payloads now count towards)
+            scheduleSpillWork();
+        }
+        return (parcel);
+    }
+
+    private UoW readSpilledUoW(ResilienceParcelIdentifier parcelInstanceID, UoW strippedUoW, ParcelSpillRecord spillRecord) {
+        ParcelPayloadSpillFile currentSpillFile = spillFile;
+        if (currentSpillFile == null) {
+            LOG.error(".readSpilledUoW(): Spilling has been shut down, the Parcel payloads cannot be restored, parcelInstanceID->{}", parcelInstanceID);
+            return (null);
+        }
+        List<String> payloads;
+        try {
+            payloads = currentSpillFile.read(spillRecord.spillRecord);
+        } catch (IOException ex) {
+            LOG.error(".readSpilledUoW(): Could not read the spilled payloads, parcelInstanceID->{}, error->{}", parcelInstanceID, ex.getMessage());
+            return (null);
+        }
+        if (payloads.size() != (spillRecord.egressTemplates.size() + 1)) {
+            LOG.error(".readSpilledUoW(): Spilled payloads do not match the Parcel's UoW, parcelInstanceID->{}", parcelInstanceID);
+            return (null);
+        }
+        UoW restoredUoW = new UoW(strippedUoW);
+        if (restoredUoW.hasIngresContent()) {
+            restoredUoW.getIngresContent().setPayload(payloads.get(0));
+        }
+        restoredUoW.getEgressContent().getPayloadElements().clear();
+        for (int counter = 0; counter < spillRecord.egressTemplates.size(); counter++) {
+            UoWPayload restoredPayload = new UoWPayload(spillRecord.egressTemplates.get(counter));
+            restoredPayload.setPayload(payloads.get(counter + 1));
+            restoredUoW.getEgressContent().addPayloadElement(restoredPayload);
+        }
+        return (restoredUoW);
+    }
+
+    /**
+     * This function sets the ParcelCacheEvictionPolicyInterface used to select finalised Parcels for eviction
+     * once the cache exceeds its budget.
+     * @param evictionPolicy The eviction policy
+     */
+    public void setEvictionPolicy(ParcelCacheEvictionPolicyInterface evictionPolicy) {
+        if (evictionPolicy == null) {
+            throw (new IllegalArgumentException(".setEvictionPolicy(): evictionPolicy is null"));
+        }
+        this.evictionPolicy = evictionPolicy;
+    }
+
+    public ParcelCacheEvictionPolicyInterface getEvictionPolicy() {
+        return (evictionPolicy);
+    }
+
+    /**
+     * This function sets the weight budget (in estimated bytes) of the cache.
+     * @param maximumWeight The weight budget, must be greater than zero
+     */
+    public void setMaximumWeight(long maximumWeight) {
+        if (maximumWeight <= 0) {
+            throw (new IllegalArgumentException(".setMaximumWeight(): maximumWeight must be greater than zero, maximumWeight->" + maximumWeight));
+        }
+        this.maximumWeight = maximumWeight;
+        enforceWeightBudget();
+    }
+
+    public long getMaximumWeight() {
+        return (maximumWeight);
+    }
+
+    /**
+     * This function sets how the spill file is segmented - it takes effect when spilling is (next) enabled.
+     * @param segmentSize The size (in bytes) at which a new spill segment is started, must be greater than zero
+     * @param compactionLivePercent The percentage of a full segment that must still be live for it not to be compacted
+     */
+    public void setSpillSegmentation(long segmentSize, int compactionLivePercent) {
+        if ((segmentSize <= 0) || (compactionLivePercent < 0) || (compactionLivePercent > 100)) {
+            throw (new IllegalArgumentException(".setSpillSegmentation(): invalid segmentSize or compactionLivePercent, segmentSize->" + segmentSize + ", compactionLivePercent->" + compactionLivePercent));
+        }
+        this.spillSegmentSize = segmentSize;
+        this.spillCompactionLivePercent = compactionLivePercent;
+    }
+
+    /**
+     * This function enables the spilling of finalised Parcel payloads to a (segmented) overflow file
+     * within the given directory, rather than evicting those Parcels outright.
+     * @param overflowDirectory The directory in which to create the overflow file
+     * @return True if spilling is enabled, false if the overflow file could not be created (in which case
+     * the cache continues to evict)
+     */
+    public boolean enableSpill(Path overflowDirectory) {
+        LOG.debug(".enableSpill(): Entry, overflowDirectory --> {}", overflowDirectory);
+        if (overflowDirectory == null) {
+            throw (new IllegalArgumentException(".enableSpill(): overflowDirectory is null"));
+        }
+        if (spillFile != null) {
+            LOG.debug(".enableSpill(): Exit, spilling is already enabled");
+            return (true);
+        }
+        try {
+            spillFile = new ParcelPayloadSpillFile(overflowDirectory, spillSegmentSize, spillCompactionLivePercent);
+            spillWorker = Executors.newSingleThreadExecutor(runnable -> {
+                Thread spillThread = new Thread(runnable, "ProcessingPlantParcelCacheDM-Spill");
+                spillThread.setDaemon(true);
+                return (spillThread);
+            });
+        } catch (IOException ex) {
+            LOG.warn(".enableSpill(): Could not create the Parcel payload spill file, evicting instead, overflowDirectory->{}, error->{}", overflowDirectory, ex.getMessage());
+            return (false);
+        }
+        LOG.debug(".enableSpill(): Exit, spilling enabled");
+        return (true);
+    }
+
+    public boolean isSpillEnabled() {
+        return (spillFile != null);
+    }
+
+    public long getTotalWeight() {
+        return (totalWeight.get());
+    }
+
+    public long getEvictedParcelCount() {
+        return (evictedParcelCount.sum());
+    }
+
+    public long getSpilledParcelCount() {
+        return (spilledParcelCount.sum());
+    }
+
+    public long getRestoredParcelCount() {
+        return (restoredParcelCount.sum());
+    }
+
+    public ParcelPayloadSpillFile getSpillFile() {
+        return (spillFile);
+    }
+
+    public long getOffHeapPayloadCount() {
+        return (offHeapPayloadCount.sum());
+    }
+
+    /**
+     * This function sets the budget (in bytes) of the off-heap payloads - once the arena's buffers in use reach it,
+     * further payloads are left on-heap.
+     * @param maximumOffHeapBytes The off-heap budget, 0 stops any further payloads being moved off-heap
+     */
+    public void setMaximumOffHeapBytes(long maximumOffHeapBytes) {
+        if (maximumOffHeapBytes < 0) {
+            throw (new IllegalArgumentException(".setMaximumOffHeapBytes(): maximumOffHeapBytes is negative, maximumOffHeapBytes->" + maximumOffHeapBytes));
+        }
+        this.maximumOffHeapBytes = maximumOffHeapBytes;
+    }
+
+    public long getMaximumOffHeapBytes() {
+        return (maximumOffHeapBytes);
+    }
+
+    public long getOffHeapBytes() {
+        return (payloadArena.getInUseBytes());
+    }
+
+    /**
+     * @return The number of payloads left on-heap because the off-heap budget had been reached
+     */
+    public long getOffHeapBudgetExceededCount() {
+        return (offHeapBudgetExceededCount.sum());
+    }
+
+    public UoWPayloadBufferArena getPayloadArena() {
+        return (payloadArena);
+    }
+
+    //
+    // Off-heap payloads
+    //
+
+    /**
+     * Move the Parcel's (large) UoW payloads off-heap. The Parcel's UoW may still be in use by the WUP (and its
+     * transport packets), so the payloads are never moved in place: a copy of the UoW is taken, its payloads moved
+     * off-heap before it is published, and the Parcel then adopts the copy as-is (compareAndSetActualUoW(), so it is
+     * not copied a second time) - unless its UoW has been replaced in the meantime, in which case the copy's payloads
+     * are moved back on-heap, giving up its off-heap content straight away. Once adopted, the Parcel's payloads are
+     * off-heap, so later adds and transitions of the Parcel find nothing to move and make no copy.
+     * <p>
+     * The off-heap content is released by its holders (see UoWPayloadContent.HolderReference), so a Parcel leaving
+     * the cache does not need to release anything - and readers still holding its UoW keep their payloads.
+     */
+    private void offloadParcelPayloads(ResilienceParcel parcel) {
+        int currentThreshold = offHeapPayloadThreshold;
+        if (currentThreshold <= 0) {
+            return;
+        }
+        UoW parcelUoW = parcel.getActualUoW();
+        if ((parcelUoW == null) || !hasOffloadablePayload(parcelUoW, currentThreshold)) {
+            return;
+        }
+        if (!hasOffHeapBudget(0)) {
+            LOG.trace(".offloadParcelPayloads(): The off-heap budget has been reached, leaving the Parcel UoW on-heap");
+            offHeapBudgetExceededCount.increment();
+            return;
+        }
+        UoW ownedUoW = new UoW(parcelUoW);
+        List<UoWPayload> offloadedPayloads = new ArrayList<UoWPayload>();
+        if (offloadPayload(ownedUoW.getIngresContent(), currentThreshold)) {
+            offloadedPayloads.add(ownedUoW.getIngresContent());
+        }
+        for (UoWPayload currentPayload : ownedUoW.getEgressContent().getPayloadElements()) {
+            if (offloadPayload(currentPayload, currentThreshold)) {
+                offloadedPayloads.add(currentPayload);
+            }
+        }
+        if (offloadedPayloads.isEmpty()) {
+            return;
+        }
+        if (!parcel.compareAndSetActualUoW(parcelUoW, ownedUoW)) {
+            LOG.trace(".offloadParcelPayloads(): Parcel UoW was replaced whilst being copied, releasing the copy's off-heap content");
+            for (UoWPayload offloadedPayload : offloadedPayloads) {
+                offloadedPayload.moveToHeap();
+            }
+            return;
+        }
+        offHeapPayloadCount.add(offloadedPayloads.size());
+    }
+
+    private boolean hasOffloadablePayload(UoW uow, int threshold) {
+        if (isOffloadable(uow.getIngresContent(), threshold)) {
+            return (true);
+        }
+        if (uow.getEgressContent() != null) {
+            for (UoWPayload currentPayload : uow.getEgressContent().getPayloadElements()) {
+                if (isOffloadable(currentPayload, threshold)) {
+                    return (true);
                 }
             }
         }
-        return (parcelList);
+        return (false);
     }
 
+    private boolean isOffloadable(UoWPayload payload, int threshold) {
+        if ((payload == null) || payload.hasOffHeapPayload()) {
+            return (false);
+        }
+        String payloadContent = payload.getPayload();
+        return ((payloadContent != null) && (payloadContent.length() >= threshold));
+    }
 
+    private boolean offloadPayload(UoWPayload payload, int threshold) {
+        if (!isOffloadable(payload, threshold)) {
+            return (false);
+        }
+        // (the UTF-8 length is at least the String length, so this is the least the payload will take)
+        if (!hasOffHeapBudget(payload.getPayload().length())) {
+            offHeapBudgetExceededCount.increment();
+            return (false);
+        }
+        return (payload.moveToOffHeap(payloadArena));
+    }
 
-    public ResilienceParcel getCurrentParcelForWUP(WUPIdentifier wupInstanceID, FDNToken uowInstanceID) {
-        LOG.debug(".getCurrentParcel(): Entry, wupInstanceID --> {}" + wupInstanceID);
-        List<ResilienceParcel> parcelList = new LinkedList<ResilienceParcel>();
-        Iterator<ResilienceParcel> parcelListIterator = getParcelSet().iterator();
-        while (parcelListIterator.hasNext()) {
-            ResilienceParcel currentParcel = parcelListIterator.next();
-            if (currentParcel.hasAssociatedWUPIdentifier()) {
-                if (currentParcel.getAssociatedWUPIdentifier().equals(wupInstanceID)) {
-                    if (currentParcel.hasActualUoW()) {
-                        if (currentParcel.getActualUoW().getInstanceID().equals(uowInstanceID)) {
-                            return (currentParcel);
-                        }
-                    }
+    /**
+     * The budget is checked before (not as) the buffer is allocated, so concurrent offloads may overshoot it by a
+     * payload each - it is a target rather than a hard limit. Content no longer held by any (reachable) UoW is
+     * reclaimed before the budget is deemed to be exhausted.
+     */
+    private boolean hasOffHeapBudget(long byteLength) {
+        long currentMaximum = maximumOffHeapBytes;
+        if ((payloadArena.getInUseBytes() + byteLength) <= currentMaximum) {
+            return (true);
+        }
+        payloadArena.reclaimUnreachableHolders();
+        return ((payloadArena.getInUseBytes() + byteLength) <= currentMaximum);
+    }
+
+    //
+    // Weight budget enforcement
+    //
+
+    private void enforceWeightBudget() {
+        if (totalWeight.get() <= maximumWeight) {
+            return;
+        }
+        if (spillFile != null) {
+            // spilling writes to the overflow file, so leave it to the spill worker rather than the caller's thread
+            scheduleSpillWork();
+            return;
+        }
+        runWeightBudgetEnforcement();
+    }
+
+    private void runWeightBudgetEnforcement() {
+        if (totalWeight.get() <= maximumWeight) {
+            return;
+        }
+        if (!evictionInProgress.compareAndSet(false, true)) {
+            // another thread is already bringing the cache back under budget
+            return;
+        }
+        try {
+            LOG.debug(".runWeightBudgetEnforcement(): Entry, totalWeight --> {}, maximumWeight --> {}", totalWeight.get(), maximumWeight);
+            long lowWaterMark = (maximumWeight / 100) * PetasosPropertyConstants.PARCEL_CACHE_LOW_WATER_MARK_PERCENT;
+            long weightToRelease = totalWeight.get() - lowWaterMark;
+            ParcelCacheEvictionPolicyInterface currentPolicy = evictionPolicy;
+            List<ParcelCacheEvictionCandidate> candidates = collectEvictionCandidates(weightToRelease, currentPolicy.selectsInFinalisationOrder());
+            List<ResilienceParcelIdentifier> selectedList = currentPolicy.selectForEviction(candidates, weightToRelease);
+            for (ResilienceParcelIdentifier currentParcelID : selectedList) {
+                if (totalWeight.get() <= lowWaterMark) {
+                    break;
+                }
+                if (!spillParcel(currentParcelID)) {
+                    evictParcel(currentParcelID);
+                }
+            }
+            releaseUnreachablePayloads();
+            LOG.debug(".runWeightBudgetEnforcement(): Exit, totalWeight --> {}, candidates --> {}, selected --> {}", totalWeight.get(), candidates.size(), selectedList.size());
+        } finally {
+            evictionInProgress.set(false);
+        }
+    }
+
+    //
+    // Spill worker
+    //
+
+    private void scheduleSpillWork() {
+        ExecutorService currentSpillWorker = spillWorker;
+        if ((currentSpillWorker == null) || !spillWorkScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            currentSpillWorker.execute(this::runSpillWork);
+        } catch (RejectedExecutionException ex) {
+            // the cache is shutting down
+            spillWorkScheduled.set(false);
+        }
+    }
+
+    /**
+     * The spill worker: release the records no longer referenced by the cache, bring the cache back under budget
+     * (spilling, or evicting, finalised Parcels) and compact the sparse segments of the spill file.
+     */
+    private void runSpillWork() {
+        // cleared first, so that anything requested from here on schedules another run
+        spillWorkScheduled.set(false);
+        try {
+            ParcelPayloadSpillFile currentSpillFile = spillFile;
+            if (currentSpillFile == null) {
+                releasedSpillRecords.clear();
+                return;
+            }
+            releaseSpillRecords(currentSpillFile);
+            runWeightBudgetEnforcement();
+            releaseSpillRecords(currentSpillFile);
+            currentSpillFile.compact();
+        } catch (IOException ex) {
+            LOG.warn(".runSpillWork(): Could not compact the Parcel payload spill file, error->{}", ex.getMessage());
+        } catch (RuntimeException ex) {
+            // an exception would otherwise leave the budget unenforced until the next request
+            LOG.warn(".runSpillWork(): Spill work failed, error->{}", ex.getMessage());
+        }
+    }
+
+    private void releaseSpillRecords(ParcelPayloadSpillFile currentSpillFile) {
+        ParcelPayloadSpillFile.SpillRecord releasedRecord;
+        while ((releasedRecord = releasedSpillRecords.poll()) != null) {
+            currentSpillFile.release(releasedRecord);
+        }
+    }
+
+    /**
+     * Wait for the spill worker to finish the work scheduled so far (and anything that work scheduled in turn).
+     */
+    void awaitSpillWork() throws InterruptedException, ExecutionException {
+        ExecutorService currentSpillWorker = spillWorker;
+        if (currentSpillWorker == null) {
+            return;
+        }
+        do {
+            currentSpillWorker.submit(() -> { }).get();
+        } while (spillWorkScheduled.get());
+    }
+
+    /**
+     * Collect the candidates from the eviction queue, oldest finalised first. If the policy selects in that order,
+     * only as many (unspilled) candidates as are needed to cover the weightToRelease are collected.
+     */
+    private List<ParcelCacheEvictionCandidate> collectEvictionCandidates(long weightToRelease, boolean finalisationOrdered) {
+        List<ParcelCacheEvictionCandidate> candidates = new ArrayList<ParcelCacheEvictionCandidate>();
+        long unspilledWeight = 0;
+        synchronized (indexLock) {
+            for (EvictionQueueEntry currentEntry : evictionQueue) {
+                if (finalisationOrdered && (unspilledWeight >= weightToRelease)) {
+                    break;
+                }
+                ResilienceParcel currentParcel = petasosParcelCache.get(currentEntry.parcelInstanceID);
+                ParcelIndexKeys indexKeys = parcelIndexKeysMap.get(currentEntry.parcelInstanceID);
+                if ((currentParcel == null) || (indexKeys == null) || !isFinalised(currentParcel)) {
+                    continue;
                 }
+                boolean spilled = (indexKeys.spillRecord != null);
+                if (!spilled) {
+                    unspilledWeight += indexKeys.weight;
+                }
+                candidates.add(new ParcelCacheEvictionCandidate(currentEntry.parcelInstanceID, indexKeys.weight, currentEntry.finalisationTimeMillis, spilled));
+            }
+        }
+        return (candidates);
+    }
+
+    /**
+     * Spill the payloads of the (finalised) Parcel to the overflow file, replacing its UoW with a copy whose
+     * payloads are stripped - a new UoW rather than mutating the current one, as that may still be referenced
+     * (e.g. by a WUP reading the Parcel). The file write happens outside of the indexLock.
+     * <p>
+     * The original UoW's off-heap payloads are released once nothing references it any more: the cache drops its
+     * reference with the swap, and the arena then reclaims the buffers of its (unreachable) UoWPayloads - see
+     * releaseUnreachablePayloads(). This is invoked (only) on the spill worker.
+     * @return False if the Parcel was not spilled and may be evicted instead
+     */
+    private boolean spillParcel(ResilienceParcelIdentifier parcelInstanceID) {
+        ParcelPayloadSpillFile currentSpillFile = spillFile;
+        if (currentSpillFile == null) {
+            return (false);
+        }
+        ResilienceParcel parcel;
+        UoW originalUoW;
+        synchronized (indexLock) {
+            parcel = petasosParcelCache.get(parcelInstanceID);
+            ParcelIndexKeys indexKeys = parcelIndexKeysMap.get(parcelInstanceID);
+            if ((parcel == null) || (indexKeys == null) || (indexKeys.spillRecord != null) || !isFinalised(parcel) || !parcel.hasActualUoW()) {
+                return (false);
+            }
+            originalUoW = parcel.getActualUoW();
+        }
+        List<String> payloads = new ArrayList<String>();
+        List<UoWPayload> egressTemplates = new ArrayList<UoWPayload>();
+        UoW strippedUoW = new UoW(originalUoW);
+        if (strippedUoW.hasIngresContent()) {
+            payloads.add(strippedUoW.getIngresContent().getPayload());
+            strippedUoW.getIngresContent().setPayload(null);
+        } else {
+            payloads.add(null);
+        }
+        for (UoWPayload currentPayload : strippedUoW.getEgressContent().getPayloadElements()) {
+            payloads.add(currentPayload.getPayload());
+            egressTemplates.add(currentPayload);
+        }
+        // (the UoWPayload hash includes the payload, so only strip them once they are out of the egress set)
+        strippedUoW.getEgressContent().getPayloadElements().clear();
+        for (UoWPayload egressTemplate : egressTemplates) {
+            egressTemplate.setPayload(null);
+        }
+        ParcelPayloadSpillFile.SpillRecord spillRecord;
+        try {
+            spillRecord = currentSpillFile.append(payloads);
+        } catch (IOException ex) {
+            LOG.warn(".spillParcel(): Could not spill the Parcel payloads, evicting instead, parcelInstanceID->{}, error->{}", parcelInstanceID, ex.getMessage());
+            return (false);
+        }
+        synchronized (indexLock) {
+            ParcelIndexKeys indexKeys = parcelIndexKeysMap.get(parcelInstanceID);
+            boolean parcelUnchanged = (petasosParcelCache.get(parcelInstanceID) == parcel) && (parcel.getActualUoW() == originalUoW);
+            if (!parcelUnchanged || (indexKeys == null) || (indexKeys.spillRecord != null) || !isFinalised(parcel)) {
+                // the Parcel moved on whilst its payloads were being written, leave it be (and drop the record)
+                releasedSpillRecords.add(spillRecord);
+                return (true);
+            }
+            parcel.setActualUoW(strippedUoW);
+            indexKeys.spillRecord = new ParcelSpillRecord(spillRecord, egressTemplates);
+            reweighParcel(parcel, indexKeys);
+        }
+        spilledParcelCount.increment();
+        return (true);
+    }
+
+    /**
+     * Return the off-heap buffers of the UoWs that the cache has let go of (spilled or evicted) - and which are
+     * no longer referenced elsewhere - to the arena.
+     */
+    private void releaseUnreachablePayloads() {
+        int releasedPayloadCount = payloadArena.reclaimUnreachableHolders();
+        if (releasedPayloadCount > 0) {
+            LOG.trace(".releaseUnreachablePayloads(): Released the off-heap content of {} payloads", releasedPayloadCount);
+        }
+    }
+
+    private void evictParcel(ResilienceParcelIdentifier parcelInstanceID) {
+        ResilienceParcel parcel;
+        synchronized (indexLock) {
+            parcel = petasosParcelCache.get(parcelInstanceID);
+            if ((parcel == null) || !isFinalised(parcel)) {
+                return;
+            }
+            unindexParcel(parcelInstanceID);
+            petasosParcelCache.remove(parcelInstanceID);
+        }
+        evictedParcelCount.increment();
+    }
+
+    private static boolean isFinalised(ResilienceParcel parcel) {
+        return (parcel.getFinalisationStatus() == ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED);
+    }
+
+    /**
+     * The weight of a Parcel is the (estimated) in-heap size of its (on-heap) UoW payloads - two bytes per (UTF-16) char,
+     * an over-estimate where compact (Latin-1) strings are in use - plus a fixed per-entry overhead for the
+     * Parcel, its UoW and its index entries.
+     */
+    private static long estimateParcelWeight(ResilienceParcel parcel) {
+        long weight = PetasosPropertyConstants.PARCEL_CACHE_ENTRY_OVERHEAD_BYTES;
+        UoW parcelUoW = parcel.getActualUoW();
+        if (parcelUoW == null) {
+            return (weight);
+        }
+        weight += estimatePayloadWeight(parcelUoW.getIngresContent());
+        if (parcelUoW.getEgressContent() != null) {
+            for (UoWPayload currentPayload : parcelUoW.getEgressContent().getPayloadElements()) {
+                weight += estimatePayloadWeight(currentPayload);
+            }
+        }
+        return (weight);
+    }
+
+    private static long estimatePayloadWeight(UoWPayload payload) {
+        if ((payload == null) || payload.hasOffHeapPayload()) {
+            return (0);
+        }
+        String payloadContent = payload.getPayload();
+        if (payloadContent == null) {
+            return (0);
+        }
+        return (2L * payloadContent.length());
+    }
+
+    //
+    // Index maintenance (all invoked whilst holding the indexLock)
+    //
+
+    private void indexParcel(ResilienceParcel parcel) {
+        ParcelIndexKeys indexKeys = new ParcelIndexKeys();
+        ResilienceParcelIdentifier parcelInstanceID = parcel.getIdentifier();
+        if (parcel.hasAssociatedWUPIdentifier() && parcel.hasActualUoW() && parcel.getActualUoW().hasInstanceID()) {
+            indexKeys.wupUoWKey = new WUPUoWKey(parcel.getAssociatedWUPIdentifier(), parcel.getActualUoW().getInstanceID());
+            wupUoWIndex.put(indexKeys.wupUoWKey, parcelInstanceID);
+        }
+        if (parcel.hasEpisodeIdentifier()) {
+            indexKeys.episodeKey = parcel.getEpisodeIdentifier().getContent();
+            addToIndexSet(episodeIndex, indexKeys.episodeKey, parcelInstanceID);
+        }
+        if (parcel.hasProcessingStatus()) {
+            indexKeys.status = parcel.getProcessingStatus();
+            addToIndexSet(statusIndex, indexKeys.status, parcelInstanceID);
+        }
+        indexKeys.weight = estimateParcelWeight(parcel);
+        totalWeight.addAndGet(indexKeys.weight);
+        parcelIndexKeysMap.put(parcelInstanceID, indexKeys);
+        requeueParcelForEviction(parcel, indexKeys);
+    }
+
+    /**
+     * (Re)position the Parcel within the eviction queue - it is queued (by finalisation time) whilst it is finalised
+     * and in an evictable processing status, and is otherwise removed from it.
+     */
+    private void requeueParcelForEviction(ResilienceParcel parcel, ParcelIndexKeys indexKeys) {
+        boolean evictable = isFinalised(parcel) && isEvictableProcessingStatus(indexKeys.status);
+        long finalisationTimeMillis = 0;
+        if (parcel.getFinalisationDate() != null) {
+            finalisationTimeMillis = parcel.getFinalisationDate().getTime();
+        }
+        EvictionQueueEntry currentEntry = indexKeys.evictionQueueEntry;
+        if (currentEntry != null) {
+            if (evictable && (currentEntry.finalisationTimeMillis == finalisationTimeMillis)) {
+                return;
+            }
+            evictionQueue.remove(currentEntry);
+            indexKeys.evictionQueueEntry = null;
+        }
+        if (evictable) {
+            evictionQueueSequence += 1;
+            indexKeys.evictionQueueEntry = new EvictionQueueEntry(finalisationTimeMillis, evictionQueueSequence, parcel.getIdentifier());
+            evictionQueue.add(indexKeys.evictionQueueEntry);
+        }
+    }
+
+    private static boolean isEvictableProcessingStatus(ResilienceParcelProcessingStatusEnum status) {
+        for (ResilienceParcelProcessingStatusEnum currentStatus : EVICTABLE_PROCESSING_STATUSES) {
+            if (currentStatus == status) {
+                return (true);
+            }
+        }
+        return (false);
+    }
+
+    private void reweighParcel(ResilienceParcel parcel, ParcelIndexKeys indexKeys) {
+        long newWeight = estimateParcelWeight(parcel);
+        totalWeight.addAndGet(newWeight - indexKeys.weight);
+        indexKeys.weight = newWeight;
+    }
+
+    private void unindexParcel(ResilienceParcelIdentifier parcelInstanceID) {
+        if (parcelInstanceID == null) {
+            return;
+        }
+        ParcelIndexKeys indexKeys = parcelIndexKeysMap.remove(parcelInstanceID);
+        if (indexKeys == null) {
+            return;
+        }
+        if (indexKeys.wupUoWKey != null) {
+            wupUoWIndex.remove(indexKeys.wupUoWKey, parcelInstanceID);
+        }
+        removeFromIndexSet(episodeIndex, indexKeys.episodeKey, parcelInstanceID);
+        removeFromIndexSet(statusIndex, indexKeys.status, parcelInstanceID);
+        totalWeight.addAndGet(-indexKeys.weight);
+        if (indexKeys.evictionQueueEntry != null) {
+            evictionQueue.remove(indexKeys.evictionQueueEntry);
+        }
+        if (indexKeys.spillRecord != null) {
+            // (released by the spill worker, keeping the spill file I/O off the caller's thread)
+            releasedSpillRecords.add(indexKeys.spillRecord.spillRecord);
+            scheduleSpillWork();
+        }
+    }
+
+    private <K> void addToIndexSet(ConcurrentHashMap<K, Set<ResilienceParcelIdentifier>> index, K key, ResilienceParcelIdentifier parcelInstanceID) {
+        if (key == null) {
+            return;
+        }
+        index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(parcelInstanceID);
+    }
+
+    private <K> void removeFromIndexSet(ConcurrentHashMap<K, Set<ResilienceParcelIdentifier>> index, K key, ResilienceParcelIdentifier parcelInstanceID) {
+        if (key == null) {
+            return;
+        }
+        Set<ResilienceParcelIdentifier> indexSet = index.get(key);
+        if (indexSet == null) {
+            return;
+        }
+        indexSet.remove(parcelInstanceID);
+        if (indexSet.isEmpty()) {
+            index.remove(key, indexSet);
+        }
+    }
+
+    private void resolveIndexSet(Set<ResilienceParcelIdentifier> indexSet, List<ResilienceParcel> parcelList) {
+        if (indexSet == null) {
+            return;
+        }
+        for (ResilienceParcelIdentifier currentParcelID : indexSet) {
+            ResilienceParcel currentParcel = petasosParcelCache.get(currentParcelID);
+            if (currentParcel != null) {
+                parcelList.add(restoreIfSpilled(currentParcel));
             }
         }
-        return (null);
     }
 
+    private static class ParcelIndexKeys {
+        private WUPUoWKey wupUoWKey;
+        private String episodeKey;
+        private ResilienceParcelProcessingStatusEnum status;
+        private long weight;
+        private ParcelSpillRecord spillRecord;
+        private EvictionQueueEntry evictionQueueEntry;
+    }
+
+    private static class EvictionQueueEntry implements Comparable<EvictionQueueEntry> {
+        private final long finalisationTimeMillis;
+        // (orders Parcels finalised within the same millisecond by when they were queued)
+        private final long sequence;
+        private final ResilienceParcelIdentifier parcelInstanceID;
+
+        private EvictionQueueEntry(long finalisationTimeMillis, long sequence, ResilienceParcelIdentifier parcelInstanceID) {
+            this.finalisationTimeMillis = finalisationTimeMillis;
+            this.sequence = sequence;
+            this.parcelInstanceID = parcelInstanceID;
+        }
+
+        @Override
+        public int compareTo(EvictionQueueEntry other) {
+            int timeComparison = Long.compare(this.finalisationTimeMillis, other.finalisationTimeMillis);
+            if (timeComparison != 0) {
+                return (timeComparison);
+            }
+            return (Long.compare(this.sequence, other.sequence));
+        }
+    }
+
+    /**
+     * The WUP Instance / UoW Instance pair a Parcel is indexed by. Both values are captured when the key is built,
+     * as neither the WUPIdentifier nor the FDNToken is immutable.
+     */
+    private static final class WUPUoWKey {
+        private final String wupInstanceValue;
+        private final String uowInstanceValue;
+
+        private WUPUoWKey(WUPIdentifier wupInstanceID, FDNToken uowInstanceID) {
+            this.wupInstanceValue = wupInstanceID.getTokenValue();
+            this.uowInstanceValue = uowInstanceID.getContent();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            WUPUoWKey other = (WUPUoWKey) o;
+            return (Objects.equals(wupInstanceValue, other.wupInstanceValue) && Objects.equals(uowInstanceValue, other.uowInstanceValue));
+        }
+
+        @Override
+        public int hashCode() {
+            return (Objects.hash(wupInstanceValue, uowInstanceValue));
+        }
+    }
+
+    private static class ParcelSpillRecord {
+        private final ParcelPayloadSpillFile.SpillRecord spillRecord;
+        // the (payload-less) egress UoWPayloads, in the order their payloads were written to the record
+        private final List<UoWPayload> egressTemplates;
+
+        private ParcelSpillRecord(ParcelPayloadSpillFile.SpillRecord spillRecord, List<UoWPayload> egressTemplates) {
+            this.spillRecord = spillRecord;
+            this.egressTemplates = egressTemplates;
+        }
+    }
 }
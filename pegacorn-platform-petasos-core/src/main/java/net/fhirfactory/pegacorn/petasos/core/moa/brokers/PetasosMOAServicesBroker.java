@@ -32,6 +32,7 @@ import net.fhirfactory.pegacorn.petasos.core.moa.pathway.interchange.manager.Pat
 import net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.manager.WorkUnitProcessorFrameworkManager;
 import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.manager.ProcessingPlantResilienceActivityServicesController;
 import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.manager.ProcessingPlantResilienceParcelServicesIM;
+import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.worker.ResilienceWatchDog;
 import net.fhirfactory.pegacorn.petasos.datasets.manager.DataParcelSubscriptionMapIM;
 import net.fhirfactory.pegacorn.petasos.model.audit.PetasosParcelAuditTrailEntry;
 import net.fhirfactory.pegacorn.petasos.model.resilience.activitymatrix.moa.ParcelStatusElement;
@@ -41,6 +42,7 @@ import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
 import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPActivityStatusEnum;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPArchetypeEnum;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPFunctionToken;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
@@ -53,6 +55,7 @@ import javax.inject.Inject;
 import java.time.Instant;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @ApplicationScoped
 public class PetasosMOAServicesBroker {
@@ -76,6 +79,9 @@ public class PetasosMOAServicesBroker {
     @Inject
     MOAServicesAuditBroker auditWriter;
 
+    @Inject
+    ResilienceWatchDog resilienceWatchDog;
+
     /**
      *
      * @param jobCard
@@ -142,6 +148,7 @@ public class PetasosMOAServicesBroker {
         ResilienceParcel finishedParcel = parcelServicesIM
                 .notifyParcelProcessingFinish(jobCard.getActivityID().getPresentParcelIdentifier(), finishedUoW);
         rasController.synchroniseJobCard(jobCard);
+        rasController.notifyEpisodeActivityChange(jobCard.getActivityID().getPresentEpisodeIdentifier());
     }
 
     /**
@@ -155,6 +162,7 @@ public class PetasosMOAServicesBroker {
         ResilienceParcel finishedParcel = parcelServicesIM
                 .notifyParcelProcessingFinalisation(jobCard.getActivityID().getPresentParcelIdentifier());
         rasController.synchroniseJobCard(jobCard);
+        resilienceWatchDog.registerFinalisedParcel(jobCard.getActivityID().getPresentParcelIdentifier());
     }
 
     /**
@@ -167,8 +175,10 @@ public class PetasosMOAServicesBroker {
             throw (new IllegalArgumentException(".notifyFailureOfWorkUnitActivity(): jobCard or finishedUoW are null"));
         }
         ResilienceParcel failedParcel = parcelServicesIM
-                .notifyParcelProcessingFinish(jobCard.getActivityID().getPresentParcelIdentifier(), failedUoW);
+                .notifyParcelProcessingFailure(jobCard.getActivityID().getPresentParcelIdentifier(), failedUoW);
         rasController.synchroniseJobCard(jobCard);
+        resilienceWatchDog.registerFinalisedParcel(jobCard.getActivityID().getPresentParcelIdentifier());
+        rasController.notifyEpisodeActivityChange(jobCard.getActivityID().getPresentEpisodeIdentifier());
     }
 
     /**
@@ -182,6 +192,9 @@ public class PetasosMOAServicesBroker {
         }
         ResilienceParcel failedParcel = parcelServicesIM
                 .notifyParcelProcessingCancellation(jobCard.getActivityID().getPresentParcelIdentifier());
+        rasController.cancelExecutionGrantRequest(jobCard);
+        resilienceWatchDog.registerFinalisedParcel(jobCard.getActivityID().getPresentParcelIdentifier());
+        rasController.notifyEpisodeActivityChange(jobCard.getActivityID().getPresentEpisodeIdentifier());
     }
 
     /**
@@ -209,6 +222,30 @@ public class PetasosMOAServicesBroker {
         rasController.synchroniseJobCard(existingJobCard);
     }
 
+    /**
+     * Requests WUP_ACTIVITY_STATUS_EXECUTING for the WorkUnitActivity described by the JobCard. The JobCard is
+     * synchronised as part of the request, and the returned CompletableFuture is completed whenever the grant
+     * state may have changed (so the caller can wait on it rather than sleep/poll).
+     *
+     * @param jobCard The JobCard of the WorkUnitActivity requesting execution
+     * @return A CompletableFuture signalling a (potential) change in the grant state
+     */
+    public CompletableFuture<WUPActivityStatusEnum> requestExecutionGrant(WUPJobCard jobCard) {
+        if (jobCard == null) {
+            throw (new IllegalArgumentException(".requestExecutionGrant(): jobCard is null"));
+        }
+        return (rasController.requestExecutionGrant(jobCard));
+    }
+
+    /**
+     * Withdraws any outstanding execution grant request for the WorkUnitActivity described by the JobCard.
+     *
+     * @param jobCard The JobCard of the WorkUnitActivity that is no longer waiting
+     */
+    public void cancelExecutionGrantRequest(WUPJobCard jobCard) {
+        rasController.cancelExecutionGrantRequest(jobCard);
+    }
+
     public ParcelStatusElement getCurrentParcelStatusElement(ResilienceParcelIdentifier parcelInstanceID) {
         ParcelStatusElement statusElement = rasController.getStatusElement(parcelInstanceID);
         return (statusElement);
@@ -0,0 +1,434 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.moa.pathway.interchange.manager;
+
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
+import net.fhirfactory.pegacorn.petasos.model.pathway.WorkUnitTransportPacket;
+import net.fhirfactory.pegacorn.util.PegacornEnvironmentProperties;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.ProducerTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends the (per subscriber) WorkUnitTransportPackets of the Interchange to the subscribers' WUP Container ingres
+ * endpoints, and records how long each dispatch takes.
+ * <p>
+ * In the (default) sequential mode the packet is sent on the caller's (Interchange route) thread, as before. In the
+ * parallel mode each subscriber endpoint has its own FIFO dispatch queue, drained (a batch at a time, so that busy
+ * subscribers share the pool fairly) by a bounded pool of threads - so the Interchange returns once the packets are
+ * queued, each subscriber still receives its packets in the order they were published, and a slow (e.g. direct:
+ * linked) subscriber no longer delays the others. A subscriber with the maximum number of packets already pending
+ * makes the Interchange wait, rather than queueing without bound - unless the Interchange is itself running on a
+ * dispatch thread (a direct: linked subscriber publishing onwards), where waiting could exhaust the pool (or wait on
+ * itself). In that case the packet is queued beyond the bound (behind the packets already queued for that subscriber,
+ * so the order is kept) and counted as an overflow.
+ * <p>
+ * A packet that cannot be sent is reported to the DispatchFailureListener given with it - on the caller's thread (in
+ * sequential mode, before the failure is re-thrown) or on the dispatch thread (in parallel mode, where there is no
+ * caller left to throw to).
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@ApplicationScoped
+public class InterchangeFanOutDispatcher {
+    private static final Logger LOG = LoggerFactory.getLogger(InterchangeFanOutDispatcher.class);
+
+    private static final int DISPATCH_BATCH_SIZE = 64;
+    private static final long SHUTDOWN_WAIT_MILLISECONDS = 5000;
+    private static final ThreadLocal<Boolean> ON_DISPATCH_THREAD = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private ConcurrentHashMap<String, SubscriberDispatchQueue> dispatchQueueMap;
+    private InterchangeFanOutModeEnum fanOutMode;
+    private int poolSize;
+    private int maximumPendingPerSubscriber;
+    private ThreadPoolExecutor dispatchPool;
+
+    @Inject
+    private PegacornEnvironmentProperties environmentProperties;
+
+    public InterchangeFanOutDispatcher(){
+        this.dispatchQueueMap = new ConcurrentHashMap<>();
+        this.fanOutMode = InterchangeFanOutModeEnum.INTERCHANGE_FANOUT_MODE_SEQUENTIAL;
+        this.poolSize = PetasosPropertyConstants.INTERCHANGE_FANOUT_POOL_SIZE;
+        this.maximumPendingPerSubscriber = PetasosPropertyConstants.INTERCHANGE_FANOUT_MAXIMUM_PENDING_PER_SUBSCRIBER;
+        this.dispatchPool = null;
+    }
+
+    @PostConstruct
+    protected void initialise(){
+        LOG.debug(".initialise(): Entry");
+        if(environmentProperties == null){
+            LOG.debug(".initialise(): Exit, no environmentProperties, using sequential fan-out");
+            return;
+        }
+        try {
+            configure(InterchangeFanOutModeEnum.fromFanOutMode(environmentProperties.getProperty(PetasosPropertyConstants.INTERCHANGE_FANOUT_MODE_PROPERTY_NAME, InterchangeFanOutModeEnum.INTERCHANGE_FANOUT_MODE_SEQUENTIAL.getFanOutMode())),
+                    environmentProperties.getIntegerProperty(PetasosPropertyConstants.INTERCHANGE_FANOUT_POOL_SIZE_PROPERTY_NAME, PetasosPropertyConstants.INTERCHANGE_FANOUT_POOL_SIZE),
+                    environmentProperties.getIntegerProperty(PetasosPropertyConstants.INTERCHANGE_FANOUT_MAXIMUM_PENDING_PER_SUBSCRIBER_PROPERTY_NAME, PetasosPropertyConstants.INTERCHANGE_FANOUT_MAXIMUM_PENDING_PER_SUBSCRIBER));
+        } catch(IllegalArgumentException ex){
+            LOG.warn(".initialise(): Invalid interchange fan-out property, using sequential fan-out, error->{}", ex.getMessage());
+            configure(InterchangeFanOutModeEnum.INTERCHANGE_FANOUT_MODE_SEQUENTIAL, PetasosPropertyConstants.INTERCHANGE_FANOUT_POOL_SIZE, PetasosPropertyConstants.INTERCHANGE_FANOUT_MAXIMUM_PENDING_PER_SUBSCRIBER);
+        }
+        LOG.debug(".initialise(): Exit, fanOutMode->{}, poolSize->{}, maximumPendingPerSubscriber->{}", fanOutMode, poolSize, maximumPendingPerSubscriber);
+    }
+
+    void configure(InterchangeFanOutModeEnum newFanOutMode, int newPoolSize, int newMaximumPendingPerSubscriber){
+        if(newFanOutMode == null){
+            throw(new IllegalArgumentException(".configure(): newFanOutMode is null"));
+        }
+        fanOutMode = newFanOutMode;
+        poolSize = Math.max(1, newPoolSize);
+        maximumPendingPerSubscriber = Math.max(1, newMaximumPendingPerSubscriber);
+        if((fanOutMode == InterchangeFanOutModeEnum.INTERCHANGE_FANOUT_MODE_PARALLEL) && (dispatchPool == null)){
+            AtomicInteger threadCounter = new AtomicInteger(0);
+            // at most one drain task per subscriber is ever queued, so the task queue is bounded by the subscriber count
+            dispatchPool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    runnable -> {
+                        Thread dispatchThread = new Thread(runnable, "InterchangeFanOutDispatcher-" + threadCounter.getAndIncrement());
+                        dispatchThread.setDaemon(true);
+                        return(dispatchThread);
+                    });
+        }
+    }
+
+    @PreDestroy
+    protected void shutdown(){
+        LOG.debug(".shutdown(): Entry");
+        ThreadPoolExecutor currentPool = dispatchPool;
+        if(currentPool == null){
+            return;
+        }
+        currentPool.shutdown();
+        try {
+            if(!currentPool.awaitTermination(SHUTDOWN_WAIT_MILLISECONDS, TimeUnit.MILLISECONDS)){
+                LOG.warn(".shutdown(): The dispatch pool did not finish draining");
+                currentPool.shutdownNow();
+            }
+        } catch(InterruptedException ex){
+            Thread.currentThread().interrupt();
+        }
+        LOG.debug(".shutdown(): Exit");
+    }
+
+    public boolean isParallel(){
+        return((fanOutMode == InterchangeFanOutModeEnum.INTERCHANGE_FANOUT_MODE_PARALLEL) && (dispatchPool != null));
+    }
+
+    public InterchangeFanOutModeEnum getFanOutMode(){
+        return(fanOutMode);
+    }
+
+    /**
+     * Send the packet to the (subscriber's) endpoint - immediately (sequential mode) or via the endpoint's dispatch
+     * queue (parallel mode). The packet's senderSendDate is set as it is sent.
+     *
+     * @param template The ProducerTemplate with which to send the packet
+     * @param endpointURI The WUP Container ingres endpoint of the subscriber
+     * @param packet The (subscriber's own copy of the) WorkUnitTransportPacket
+     */
+    public void dispatch(ProducerTemplate template, String endpointURI, WorkUnitTransportPacket packet){
+        dispatch(template, endpointURI, packet, null);
+    }
+
+    /**
+     * Send the packet to the (subscriber's) endpoint - immediately (sequential mode) or via the endpoint's dispatch
+     * queue (parallel mode). The packet's senderSendDate is set as it is sent.
+     *
+     * @param template The ProducerTemplate with which to send the packet
+     * @param endpointURI The WUP Container ingres endpoint of the subscriber
+     * @param packet The (subscriber's own copy of the) WorkUnitTransportPacket
+     * @param failureListener Informed if the packet cannot be sent (may be null)
+     */
+    public void dispatch(ProducerTemplate template, String endpointURI, WorkUnitTransportPacket packet, DispatchFailureListener failureListener){
+        LOG.debug(".dispatch(): Entry, endpointURI->{}", endpointURI);
+        if((template == null) || (endpointURI == null) || (packet == null)){
+            throw(new IllegalArgumentException(".dispatch(): template, endpointURI or packet is null"));
+        }
+        SubscriberDispatchQueue dispatchQueue = dispatchQueueMap.get(endpointURI);
+        if(dispatchQueue == null){
+            dispatchQueue = dispatchQueueMap.computeIfAbsent(endpointURI, key -> new SubscriberDispatchQueue(key, maximumPendingPerSubscriber));
+        }
+        PendingDispatch pendingDispatch = new PendingDispatch(template, packet, failureListener);
+        if(!isParallel()){
+            try {
+                dispatchQueue.send(pendingDispatch);
+            } catch(RuntimeException ex){
+                dispatchQueue.notifyFailure(pendingDispatch, ex);
+                throw(ex);
+            }
+            LOG.debug(".dispatch(): Exit, sent");
+            return;
+        }
+        dispatchQueue.enqueue(pendingDispatch);
+        LOG.debug(".dispatch(): Exit, queued");
+    }
+
+    //
+    // Metrics
+    //
+
+    public long getDispatchCount(String endpointURI){
+        SubscriberDispatchQueue dispatchQueue = dispatchQueueMap.get(endpointURI);
+        if(dispatchQueue == null){
+            return(0L);
+        }
+        return(dispatchQueue.dispatchCount.sum());
+    }
+
+    public long getDispatchFailureCount(String endpointURI){
+        SubscriberDispatchQueue dispatchQueue = dispatchQueueMap.get(endpointURI);
+        if(dispatchQueue == null){
+            return(0L);
+        }
+        return(dispatchQueue.failureCount.sum());
+    }
+
+    /**
+     * @param endpointURI The WUP Container ingres endpoint of the subscriber
+     * @return The number of packets queued beyond the bound because the subscriber's dispatch queue was full when the
+     * Interchange was running on a dispatch thread
+     */
+    public long getOverflowCount(String endpointURI){
+        SubscriberDispatchQueue dispatchQueue = dispatchQueueMap.get(endpointURI);
+        if(dispatchQueue == null){
+            return(0L);
+        }
+        return(dispatchQueue.overflowCount.sum());
+    }
+
+    public int getPendingCount(String endpointURI){
+        SubscriberDispatchQueue dispatchQueue = dispatchQueueMap.get(endpointURI);
+        if(dispatchQueue == null){
+            return(0);
+        }
+        return(dispatchQueue.pendingCount.get());
+    }
+
+    /**
+     * @param endpointURI The WUP Container ingres endpoint of the subscriber
+     * @return The average time (in milliseconds) packets wait in the subscriber's dispatch queue (always 0 in sequential mode)
+     */
+    public double getAverageQueueWaitMillis(String endpointURI){
+        SubscriberDispatchQueue dispatchQueue = dispatchQueueMap.get(endpointURI);
+        if(dispatchQueue == null){
+            return(0.0);
+        }
+        return(average(dispatchQueue.totalQueueWaitMillis.sum(), dispatchQueue.dispatchCount.sum()));
+    }
+
+    /**
+     * @param endpointURI The WUP Container ingres endpoint of the subscriber
+     * @return The average time (in milliseconds) taken to send a packet to the subscriber's endpoint (which, for a
+     * direct: endpoint, includes the downstream processing)
+     */
+    public double getAverageDispatchMillis(String endpointURI){
+        SubscriberDispatchQueue dispatchQueue = dispatchQueueMap.get(endpointURI);
+        if(dispatchQueue == null){
+            return(0.0);
+        }
+        return(average(dispatchQueue.totalDispatchMillis.sum(), dispatchQueue.dispatchCount.sum()));
+    }
+
+    public long getMaxDispatchMillis(String endpointURI){
+        SubscriberDispatchQueue dispatchQueue = dispatchQueueMap.get(endpointURI);
+        if(dispatchQueue == null){
+            return(0L);
+        }
+        return(dispatchQueue.maxDispatchMillis.get());
+    }
+
+    private static double average(long total, long count){
+        if(count == 0){
+            return(0.0);
+        }
+        return((double)total / (double)count);
+    }
+
+    //
+    // Failure notification
+    //
+
+    /**
+     * Informed when a dispatched packet cannot be sent to its subscriber, so that whatever was registered against the
+     * delivery (e.g. the downstream interest in the Episode) can be withdrawn.
+     */
+    public interface DispatchFailureListener {
+        void onDispatchFailure(String endpointURI, WorkUnitTransportPacket packet, RuntimeException failure);
+    }
+
+    //
+    // Per subscriber dispatch queues
+    //
+
+    private static class PendingDispatch {
+        private final ProducerTemplate template;
+        private final WorkUnitTransportPacket packet;
+        private final DispatchFailureListener failureListener;
+        private final long queuedTimeMillis;
+        private boolean holdsCapacity;
+
+        private PendingDispatch(ProducerTemplate template, WorkUnitTransportPacket packet, DispatchFailureListener failureListener){
+            this.template = template;
+            this.packet = packet;
+            this.failureListener = failureListener;
+            this.queuedTimeMillis = System.currentTimeMillis();
+            this.holdsCapacity = false;
+        }
+    }
+
+    private class SubscriberDispatchQueue {
+        private final String endpointURI;
+        private final ConcurrentLinkedQueue<PendingDispatch> pendingQueue;
+        private final Semaphore capacity;
+        private final AtomicBoolean draining;
+        private final AtomicInteger pendingCount;
+        private final LongAdder dispatchCount;
+        private final LongAdder failureCount;
+        private final LongAdder overflowCount;
+        private final LongAdder totalQueueWaitMillis;
+        private final LongAdder totalDispatchMillis;
+        private final AtomicLong maxDispatchMillis;
+
+        private SubscriberDispatchQueue(String endpointURI, int maximumPending){
+            this.endpointURI = endpointURI;
+            this.pendingQueue = new ConcurrentLinkedQueue<>();
+            this.capacity = new Semaphore(maximumPending);
+            this.draining = new AtomicBoolean(false);
+            this.pendingCount = new AtomicInteger(0);
+            this.dispatchCount = new LongAdder();
+            this.failureCount = new LongAdder();
+            this.overflowCount = new LongAdder();
+            this.totalQueueWaitMillis = new LongAdder();
+            this.totalDispatchMillis = new LongAdder();
+            this.maxDispatchMillis = new AtomicLong(0L);
+        }
+
+        private void enqueue(PendingDispatch pendingDispatch){
+            if(capacity.tryAcquire()){
+                pendingDispatch.holdsCapacity = true;
+            } else if(ON_DISPATCH_THREAD.get()){
+                // waiting here could exhaust the pool (or wait on this very queue), so queue beyond the bound - still
+                // behind the packets already queued, so the subscriber receives them in order
+                overflowCount.increment();
+                LOG.debug(".enqueue(): Dispatch queue full on a dispatch thread, queueing beyond the bound, endpointURI->{}", endpointURI);
+            } else {
+                capacity.acquireUninterruptibly();
+                pendingDispatch.holdsCapacity = true;
+            }
+            pendingCount.incrementAndGet();
+            pendingQueue.offer(pendingDispatch);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain(){
+            if(!draining.compareAndSet(false, true)){
+                return;
+            }
+            try {
+                dispatchPool.execute(this::drain);
+            } catch(RejectedExecutionException ex){
+                // the pool is shutting down, so drain on the caller's thread instead
+                drain();
+            }
+        }
+
+        private void drain(){
+            boolean wasOnDispatchThread = ON_DISPATCH_THREAD.get();
+            ON_DISPATCH_THREAD.set(Boolean.TRUE);
+            try {
+                int dispatchedInBatch = 0;
+                PendingDispatch pendingDispatch;
+                while((dispatchedInBatch < DISPATCH_BATCH_SIZE) && ((pendingDispatch = pendingQueue.poll()) != null)){
+                    try {
+                        send(pendingDispatch);
+                    } catch(RuntimeException ex){
+                        notifyFailure(pendingDispatch, ex);
+                    } finally {
+                        pendingCount.decrementAndGet();
+                        if(pendingDispatch.holdsCapacity){
+                            capacity.release();
+                        }
+                    }
+                    dispatchedInBatch += 1;
+                }
+            } finally {
+                ON_DISPATCH_THREAD.set(wasOnDispatchThread);
+                draining.set(false);
+            }
+            // re-check, as a packet may have been queued after the last poll() but before draining was cleared
+            if(!pendingQueue.isEmpty()){
+                scheduleDrain();
+            }
+        }
+
+        private void notifyFailure(PendingDispatch pendingDispatch, RuntimeException failure){
+            LOG.error(".notifyFailure(): Could not dispatch packet, endpointURI->{}, packetID->{}, error->{}", endpointURI, pendingDispatch.packet.getPacketID(), failure.getMessage());
+            if(pendingDispatch.failureListener == null){
+                return;
+            }
+            try {
+                pendingDispatch.failureListener.onDispatchFailure(endpointURI, pendingDispatch.packet, failure);
+            } catch(RuntimeException ex){
+                LOG.error(".notifyFailure(): Failure listener failed, endpointURI->{}, packetID->{}, error->{}", endpointURI, pendingDispatch.packet.getPacketID(), ex.getMessage());
+            }
+        }
+
+        private void send(PendingDispatch pendingDispatch){
+            long dispatchStartMillis = System.currentTimeMillis();
+            totalQueueWaitMillis.add(Math.max(0L, dispatchStartMillis - pendingDispatch.queuedTimeMillis));
+            // The senderSendDate is the time the packet enters the WUP Container ingres queue (see WUPIngresQueueMonitor)
+            pendingDispatch.packet.setSenderSendDate(Date.from(Instant.now()));
+            try {
+                pendingDispatch.template.sendBody(endpointURI, ExchangePattern.InOnly, pendingDispatch.packet);
+            } catch(RuntimeException ex){
+                failureCount.increment();
+                throw(ex);
+            } finally {
+                long dispatchMillis = Math.max(0L, System.currentTimeMillis() - dispatchStartMillis);
+                dispatchCount.increment();
+                totalDispatchMillis.add(dispatchMillis);
+                maxDispatchMillis.accumulateAndGet(dispatchMillis, Math::max);
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.moa.pathway.interchange.manager;
+
+/**
+ * How the Interchange fans a WorkUnitTransportPacket out to its subscribers: either one subscriber after the other on
+ * the Interchange route's thread, or concurrently via the InterchangeFanOutDispatcher's (per subscriber ordered)
+ * dispatch queues.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public enum InterchangeFanOutModeEnum {
+    INTERCHANGE_FANOUT_MODE_SEQUENTIAL("sequential"),
+    INTERCHANGE_FANOUT_MODE_PARALLEL("parallel");
+
+    private String fanOutMode;
+
+    private InterchangeFanOutModeEnum(String fanOutMode){
+        this.fanOutMode = fanOutMode;
+    }
+
+    public String getFanOutMode(){
+        return(this.fanOutMode);
+    }
+
+    public static InterchangeFanOutModeEnum fromFanOutMode(String fanOutMode){
+        if(fanOutMode == null){
+            throw(new IllegalArgumentException(".fromFanOutMode(): fanOutMode is null"));
+        }
+        for(InterchangeFanOutModeEnum mode: values()){
+            if(mode.getFanOutMode().equalsIgnoreCase(fanOutMode.trim())){
+                return(mode);
+            }
+        }
+        throw(new IllegalArgumentException(".fromFanOutMode(): unknown fanOutMode->" + fanOutMode));
+    }
+}
@@ -24,11 +24,14 @@ package net.fhirfactory.pegacorn.petasos.core.moa.pathway.interchange.manager;
 
 import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
 import net.fhirfactory.pegacorn.petasos.core.moa.pathway.interchange.worker.InterchangeExtractAndRouteTemplate;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPArchetypeEnum;
+import net.fhirfactory.pegacorn.util.PegacornEnvironmentProperties;
 import org.apache.camel.CamelContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
@@ -39,6 +42,25 @@ public class PathwayInterchangeManager {
     @Inject
     CamelContext camelctx;
 
+    @Inject
+    PegacornEnvironmentProperties environmentProperties;
+
+    private boolean parallelSplit;
+
+    public PathwayInterchangeManager(){
+        this.parallelSplit = false;
+    }
+
+    @PostConstruct
+    protected void initialise(){
+        LOG.debug(".initialise(): Entry");
+        if(environmentProperties == null){
+            LOG.debug(".initialise(): Exit, no environmentProperties, using the defaults");
+            return;
+        }
+        parallelSplit = environmentProperties.getBooleanProperty(PetasosPropertyConstants.INTERCHANGE_SPLITTER_PARALLEL_PROPERTY_NAME, false);
+        LOG.debug(".initialise(): Exit, parallelSplit->{}", parallelSplit);
+    }
 
     /**
      * We have to establish a set of Routes for handling the egress traffic from a
@@ -70,7 +92,7 @@ public class PathwayInterchangeManager {
             default: {
                 LOG.trace(".buildWUPInterchangeRoutes(): This WUP requires an Interchange service");
                 try {
-                    InterchangeExtractAndRouteTemplate newRoute = new InterchangeExtractAndRouteTemplate(camelctx, nodeElement);
+                    InterchangeExtractAndRouteTemplate newRoute = new InterchangeExtractAndRouteTemplate(camelctx, nodeElement, parallelSplit);
                     LOG.trace(".buildWUPInterchangeRoutes(): Attempting to install new Route");
                     camelctx.addRoutes(newRoute);
                     LOG.trace(".buildWUPInterchangeRoutes(): Route installation successful");
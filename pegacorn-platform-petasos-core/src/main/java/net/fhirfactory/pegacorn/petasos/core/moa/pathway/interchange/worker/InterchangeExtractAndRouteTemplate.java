@@ -28,6 +28,7 @@ import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConst
 import org.apache.camel.CamelContext;
 import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
+import org.apache.camel.model.SplitDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,11 +41,22 @@ public class InterchangeExtractAndRouteTemplate extends BaseRouteBuilder {
 
     private WorkUnitProcessorTopologyNode wupTopologyNode;
     private RouteElementNames nameSet;
+    private boolean parallelSplit;
 
     public InterchangeExtractAndRouteTemplate(CamelContext context, WorkUnitProcessorTopologyNode nodeElement) {
+        this(context, nodeElement, false);
+    }
+
+    /**
+     * @param context The CamelContext
+     * @param nodeElement The WorkUnitProcessorTopologyNode of the WUP whose egress is being routed
+     * @param parallelSplit Whether the (streaming) splitter routes the egress UoWs concurrently, rather than one after the other
+     */
+    public InterchangeExtractAndRouteTemplate(CamelContext context, WorkUnitProcessorTopologyNode nodeElement, boolean parallelSplit) {
         super(context);
-        getLogger().debug(".InterchangeExtractAndRouteTemplate(): Entry, context --> ###, nodeElement --> {}", nodeElement);
+        getLogger().debug(".InterchangeExtractAndRouteTemplate(): Entry, context --> ###, nodeElement --> {}, parallelSplit --> {}", nodeElement, parallelSplit);
         this.wupTopologyNode = nodeElement;
+        this.parallelSplit = parallelSplit;
         nameSet = new RouteElementNames(wupTopologyNode.getNodeFDN().getToken());
     }
 
@@ -56,11 +68,17 @@ public class InterchangeExtractAndRouteTemplate extends BaseRouteBuilder {
 
         NodeDetailInjector nodeDetailInjector = new NodeDetailInjector();
 
-        fromWithStandardExceptionHandling(nameSet.getEndPointInterchangePayloadTransformerIngres())
+        // The egress UoWs are created lazily (see extractUoWPayloadAndCreateNewUoWIterator()) and the splitter streams
+        // them, so each is routed as it is created rather than all being created up front
+        SplitDefinition egressSplitter = fromWithStandardExceptionHandling(nameSet.getEndPointInterchangePayloadTransformerIngres())
                 .routeId(nameSet.getRouteInterchangePayloadTransformer())
                 .process(nodeDetailInjector)
-                .split().method(InterchangeUoWPayload2NewUoWProcessor.class, "extractUoWPayloadAndCreateNewUoWSet(*, Exchange)")
-                .to(nameSet.getEndPointInterchangePayloadTransformerEgress());
+                .split().method(InterchangeUoWPayload2NewUoWProcessor.class, "extractUoWPayloadAndCreateNewUoWIterator(*, Exchange)")
+                .streaming();
+        if(parallelSplit) {
+            egressSplitter.parallelProcessing();
+        }
+        egressSplitter.to(nameSet.getEndPointInterchangePayloadTransformerEgress());
 
         fromWithStandardExceptionHandling(nameSet.getEndPointInterchangePayloadTransformerEgress())
                 .routeId(nameSet.getRouteInterchangePayloadTransformerEgress2InterchangePayloadRouterIngres())
@@ -21,16 +21,18 @@
  */
 package net.fhirfactory.pegacorn.petasos.core.moa.pathway.interchange.worker;
 
-import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDNToken;
 import net.fhirfactory.pegacorn.common.model.generalid.FDNToken;
 import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
 import net.fhirfactory.pegacorn.deployment.topology.manager.TopologyIM;
 import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.interchange.manager.InterchangeFanOutDispatcher;
 import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNames;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNamesRegistry;
 import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.manager.ProcessingPlantResilienceActivityServicesController;
 import net.fhirfactory.pegacorn.petasos.datasets.manager.DataParcelSubscriptionMapIM;
 import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
 import net.fhirfactory.pegacorn.petasos.model.pathway.WorkUnitTransportPacket;
+import net.fhirfactory.pegacorn.petasos.model.resilience.episode.PetasosEpisodeIdentifier;
 import net.fhirfactory.pegacorn.petasos.model.pubsub.IntraSubsystemPubSubParticipantIdentifier;
 import net.fhirfactory.pegacorn.petasos.model.pubsub.PubSubParticipant;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPFunctionToken;
@@ -64,12 +66,18 @@ public class InterchangeTargetWUPTypeRouter {
     @Inject
     TopologyIM topologyProxy;
 
+    @Inject
+    RouteElementNamesRegistry routeElementNamesRegistry;
+
     @Produce
     private ProducerTemplate template;
 
     @Inject
     ProcessingPlantResilienceActivityServicesController activityServicesController;
 
+    @Inject
+    InterchangeFanOutDispatcher fanOutDispatcher;
+
     /**
      * Essentially, we get the set of WUPs subscribing to a particular UoW type,
      * create a property within the CamelExchange and then we use that Property
@@ -190,9 +198,7 @@ public class InterchangeTargetWUPTypeRouter {
         getLogger().trace(".forwardUoW2WUPs(): The (LocalSubscriber aspect) Identifier->{}", localSubscriberIdentifier);
         WorkUnitProcessorTopologyNode currentNodeElement = (WorkUnitProcessorTopologyNode)topologyProxy.getNode(localSubscriberIdentifier);
         getLogger().trace(".forwardUoW2WUPs(): The TopologyNode for the target subscriber->{}", currentNodeElement);
-        TopologyNodeFDNToken currentNodeToken = currentNodeElement.getNodeFDN().getToken();
-        getLogger().trace(".forwardUoW2WUPs(): The WUPToken for the target subscriber->{}", currentNodeElement);
-        RouteElementNames routeName = new RouteElementNames(currentNodeToken);
+        RouteElementNames routeName = routeElementNamesRegistry.getRouteElementNames(currentNodeElement);
         // Clone and Inject Message into Target Route
         WorkUnitTransportPacket clonedPacket = packet.deepClone();
         // Now check if the Subscriber is actually a remote one! If so, ensure it has a proper "IntendedTarget" entry
@@ -211,11 +217,14 @@ public class InterchangeTargetWUPTypeRouter {
                 getLogger().trace(".forwardPacket(): Setting the intendedTargetSystem->{}", subscriber.getInterSubsystemParticipant().getEndpointServiceName());
             }
         }
-        template.sendBody(routeName.getEndPointWUPContainerIngresProcessorIngres(), ExchangePattern.InOnly, clonedPacket);
-        // targetSubscriberSet.add(routeName.getEndPointWUPContainerIngresProcessorIngres());
-        // Now add the downstream WUPFunction to the Parcel Finalisation Registry
         WUPFunctionToken functionToken = new WUPFunctionToken(currentNodeElement.getNodeFunctionFDN().getFunctionToken());
-        activityServicesController.registerWUAEpisodeDownstreamWUPInterest(packet.getPacketID().getPresentEpisodeIdentifier(), functionToken);
+        // Add the downstream WUPFunction to the Parcel Finalisation Registry before the packet is sent, as (in the
+        // parallel fan-out mode) it may be processed on a dispatch thread before dispatch() returns - and withdraw it
+        // again if the packet cannot be delivered
+        PetasosEpisodeIdentifier upstreamEpisodeID = packet.getPacketID().getPresentEpisodeIdentifier();
+        activityServicesController.registerWUAEpisodeDownstreamWUPInterest(upstreamEpisodeID, functionToken);
+        fanOutDispatcher.dispatch(template, routeName.getEndPointWUPContainerIngresProcessorIngres(), clonedPacket,
+                (endpointURI, failedPacket, failure) -> activityServicesController.deregisterWUAEpisodeDownstreamWUPInterest(upstreamEpisodeID, functionToken));
     }
 
     private void tracePrintSubscribedWUPSet(Set<WorkUnitProcessorTopologyNode> wupSet) {
@@ -38,7 +38,9 @@ import javax.inject.Inject;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 @Dependent
@@ -68,8 +70,29 @@ public class InterchangeUoWPayload2NewUoWProcessor {
 
     public List<WorkUnitTransportPacket> extractUoWPayloadAndCreateNewUoWSet(WorkUnitTransportPacket ingresPacket, Exchange camelExchange) {
         getLogger().debug(".extractUoWPayloadAndCreateNewUoWSet(): Entry, ingresPacket (WorkUnitTransportPacket)->{}", ingresPacket);
+        ArrayList<WorkUnitTransportPacket> newEgressTransportPacketSet = new ArrayList<WorkUnitTransportPacket>();
+        Iterator<WorkUnitTransportPacket> newEgressTransportPacketIterator = extractUoWPayloadAndCreateNewUoWIterator(ingresPacket, camelExchange);
+        while(newEgressTransportPacketIterator.hasNext()) {
+            newEgressTransportPacketSet.add(newEgressTransportPacketIterator.next());
+        }
+        getLogger().debug(".extractUoWPayloadAndCreateNewUoWSet(): Exit, new WorkUnitTransportPackets created, number --> {} ", newEgressTransportPacketSet.size());
+        return (newEgressTransportPacketSet);
+    }
+
+    /**
+     * The streaming equivalent of extractUoWPayloadAndCreateNewUoWSet(): the new UoW (and WorkUnitTransportPacket) for
+     * each egress UoWPayload is only created as the Iterator is advanced - so, when consumed by a streaming splitter,
+     * each new UoW can be routed (and released) before the next is created. The egress UoWPayloads themselves remain
+     * referenced by the incoming UoW (which is still held by the resilience parcel) until it is finalised.
+     *
+     * @param ingresPacket The WorkUnitTransportPacket carrying the (processed) UoW
+     * @param camelExchange The Apache Camel Exchange instance associated with this route
+     * @return An Iterator over the new WorkUnitTransportPackets - one for each egress UoWPayload element within the incoming UoW.
+     */
+    public Iterator<WorkUnitTransportPacket> extractUoWPayloadAndCreateNewUoWIterator(WorkUnitTransportPacket ingresPacket, Exchange camelExchange) {
+        getLogger().debug(".extractUoWPayloadAndCreateNewUoWIterator(): Entry, ingresPacket (WorkUnitTransportPacket)->{}", ingresPacket);
         // Get my Petasos Context
-        getLogger().trace(".extractUoWPayloadAndCreateNewUoWSet(): Retrieving the WUPTopologyNode from the camelExchange (Exchange) passed in");
+        getLogger().trace(".extractUoWPayloadAndCreateNewUoWIterator(): Retrieving the WUPTopologyNode from the camelExchange (Exchange) passed in");
         WorkUnitProcessorTopologyNode node = camelExchange.getProperty(PetasosPropertyConstants.WUP_TOPOLOGY_NODE_EXCHANGE_PROPERTY_NAME, WorkUnitProcessorTopologyNode.class);
         UoW incomingUoW = ingresPacket.getPayload();
         UoWPayloadSet egressContent = incomingUoW.getEgressContent();
@@ -77,20 +100,43 @@ public class InterchangeUoWPayload2NewUoWProcessor {
         if (getLogger().isDebugEnabled()) {
             int counter = 0;
             for(UoWPayload currentPayload: egressPayloadList){
-                getLogger().debug(".extractUoWPayloadAndCreateNewUoWSet(): payload (UoWPayload).PayloadTopic --> [{}] {}", counter, currentPayload.getPayloadManifest());
-                getLogger().debug(".extractUoWPayloadAndCreateNewUoWSet(): payload (UoWPayload).Payload --> [{}] {}", counter, currentPayload.getPayload());
+                getLogger().debug(".extractUoWPayloadAndCreateNewUoWIterator(): payload (UoWPayload).PayloadTopic --> [{}] {}", counter, currentPayload.getPayloadManifest());
+                getLogger().debug(".extractUoWPayloadAndCreateNewUoWIterator(): payload (UoWPayload).Payload --> [{}] {}", counter, currentPayload.getPayload());
                 counter++;
             }
         }
-        ArrayList<WorkUnitTransportPacket> newEgressTransportPacketSet = new ArrayList<WorkUnitTransportPacket>();
-        for(UoWPayload currentPayload: egressPayloadList) {
-            UoW newUoW = new UoW(currentPayload);
-            getLogger().trace(".extractUoWPayloadAndCreateNewUoWSet(): newUoW->{}", newUoW);
-            WorkUnitTransportPacket transportPacket = new WorkUnitTransportPacket(ingresPacket.getPacketID(), Date.from(Instant.now()), newUoW);
-            newEgressTransportPacketSet.add(transportPacket);
+        // Snapshot (just) the references to the egress UoWPayloads, so the set can't change underneath the iteration
+        UoWPayload[] egressPayloads = egressPayloadList.toArray(new UoWPayload[0]);
+        getLogger().debug(".extractUoWPayloadAndCreateNewUoWIterator(): Exit, number of egress payloads --> {} ", egressPayloads.length);
+        return (new EgressTransportPacketIterator(ingresPacket, egressPayloads));
+    }
+
+    private class EgressTransportPacketIterator implements Iterator<WorkUnitTransportPacket> {
+        private final WorkUnitTransportPacket ingresPacket;
+        private final UoWPayload[] egressPayloads;
+        private int nextIndex;
+
+        private EgressTransportPacketIterator(WorkUnitTransportPacket ingresPacket, UoWPayload[] egressPayloads) {
+            this.ingresPacket = ingresPacket;
+            this.egressPayloads = egressPayloads;
+            this.nextIndex = 0;
         }
-        getLogger().debug(".extractUoWPayloadAndCreateNewUoWSet(): Exit, new WorkUnitTransportPackets created, number --> {} ", newEgressTransportPacketSet.size());
 
-        return (newEgressTransportPacketSet);
+        @Override
+        public boolean hasNext() {
+            return (nextIndex < egressPayloads.length);
+        }
+
+        @Override
+        public WorkUnitTransportPacket next() {
+            if (!hasNext()) {
+                throw (new NoSuchElementException(".next(): No more egress payloads"));
+            }
+            UoWPayload currentPayload = egressPayloads[nextIndex];
+            nextIndex += 1;
+            UoW newUoW = new UoW(currentPayload);
+            getLogger().trace(".next(): newUoW->{}", newUoW);
+            return (new WorkUnitTransportPacket(ingresPacket.getPacketID(), Date.from(Instant.now()), newUoW));
+        }
     }
 }
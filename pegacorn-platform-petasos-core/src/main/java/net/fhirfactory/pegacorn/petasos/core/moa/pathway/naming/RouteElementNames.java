@@ -28,7 +28,10 @@ import org.slf4j.LoggerFactory;
 
 
 /**
- * 
+ * The (Camel) endpoint URIs and route IDs of the WUP Container, WUP and Interchange elements for a single WUP.
+ * All of the names are built once, in the constructor, so an instance is immutable and the getters do not
+ * allocate - instances for the registered WUPs are held by the RouteElementNamesRegistry.
+ *
  * @author Mark A. Hunter
  * @since 2020-06-01
  */
@@ -38,26 +41,105 @@ public class RouteElementNames {
         return(LOG);
     }
 
-    private TopologyNodeFDNToken nodeFDNToken;
-    private boolean mustBeDirect;
-    private String wupTypeName;
-    private String wupVersion;
+    private final TopologyNodeFDNToken nodeFDNToken;
+    private final boolean mustBeDirect;
+    private final WUPIngresQueueConfiguration ingresQueueConfiguration;
+    private final String wupTypeName;
     private static final String INTRA_FUNCTION_DIRECT_TYPE = "direct:";
     private static final String DIRECT_INTER_FUNCTION_DIRECT_TYPE = "direct:";
     private static final String SEDA_INTER_FUNCTION_DIRECT_TYPE = "seda:";
 
-    public RouteElementNames(TopologyNodeFDNToken functionToken, boolean mustBeDirect){
-        getLogger().debug(".RouteElementNames(): Entry, functionToken->{}, mustBeDirect->{}", functionToken, mustBeDirect);
+    private final String routeCoreWUP;
+    private final String endPointWUPContainerIngresProcessorIngres;
+    private final String endPointWUPContainerIngresProcessorEgress;
+    private final String endPointWUPContainerIngresGatekeeperIngres;
+    private final String endPointWUPIngresConduitIngres;
+    private final String endPointWUPIngres;
+    private final String endPointWUPEgress;
+    private final String endPointWUPEgressConduitEgress;
+    private final String endPointWUPContainerEgressGatekeeperIngres;
+    private final String endPointWUPContainerEgressProcessorIngres;
+    private final String endPointWUPContainerEgressProcessorEgress;
+    private final String endPointInterchangePayloadTransformerIngres;
+    private final String endPointInterchangePayloadTransformerEgress;
+    private final String endPointInterchangeRouterIngres;
+    private final String endPointInterchangeRouterEgress;
+    private final String routeIngresProcessorEgress2IngresGatekeeperIngres;
+    private final String routeIngresConduitIngres2WUPIngres;
+    private final String routeWUPEgress2WUPEgressConduitEgress;
+    private final String routeWUPEgressConduitEgress2WUPEgressProcessorIngres;
+    private final String routeWUPEgressProcessorEgress2WUPEgressGatekeeperIngres;
+    private final String routeInterchangePayloadTransformerEgress2InterchangePayloadRouterIngres;
+    private final String routeWUPContainerIngressProcessor;
+    private final String routeWUPContainerIngresGateway;
+    private final String routeWUPContainerEgressGateway;
+    private final String routeWUPContainerEgressProcessor;
+    private final String routeInterchangePayloadTransformer;
+    private final String routeInterchangeRouter;
+
+    /**
+     * @param functionToken The TopologyNodeFDNToken of the WUP
+     * @param mustBeDirect True if the WUPContainer IngresProcessor ingres is a direct: (rather than seda:) endpoint
+     * @param ingresQueueConfiguration The SEDA options for the WUPContainer IngresProcessor ingres (ignored if
+     *                                 mustBeDirect is true), may be null
+     */
+    public RouteElementNames(TopologyNodeFDNToken functionToken, boolean mustBeDirect, WUPIngresQueueConfiguration ingresQueueConfiguration){
+        getLogger().debug(".RouteElementNames(): Entry, functionToken->{}, mustBeDirect->{}, ingresQueueConfiguration->{}", functionToken, mustBeDirect, ingresQueueConfiguration);
+        if(functionToken == null){
+            throw(new IllegalArgumentException(".RouteElementNames(): functionToken is null"));
+        }
         this.nodeFDNToken = functionToken;
-        this.wupTypeName = simplifyName();
         this.mustBeDirect = mustBeDirect;
+        if(mustBeDirect || ingresQueueConfiguration == null){
+            this.ingresQueueConfiguration = null;
+        } else {
+            this.ingresQueueConfiguration = new WUPIngresQueueConfiguration(ingresQueueConfiguration);
+        }
+        this.wupTypeName = simplifyName();
+        this.routeCoreWUP = wupTypeName + ".WUP.Core";
+        if(mustBeDirect){
+            this.endPointWUPContainerIngresProcessorIngres = DIRECT_INTER_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.IngresProcessor.Ingres";
+        } else {
+            String queueOptions = "";
+            if(this.ingresQueueConfiguration != null){
+                queueOptions = this.ingresQueueConfiguration.toEndpointOptions();
+            }
+            this.endPointWUPContainerIngresProcessorIngres = SEDA_INTER_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.IngresProcessor.Ingres" + queueOptions;
+        }
+        this.endPointWUPContainerIngresProcessorEgress = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.IngresProcessor.Egress";
+        this.endPointWUPContainerIngresGatekeeperIngres = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.IngresGatekeeper.Ingres";
+        this.endPointWUPIngresConduitIngres = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUP.IngresConduit.Ingres";
+        this.endPointWUPIngres = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUP.Ingres";
+        this.endPointWUPEgress = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUP.Egress";
+        this.endPointWUPEgressConduitEgress = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUP.EgressConduit.Egress";
+        this.endPointWUPContainerEgressGatekeeperIngres = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.EgressGatekeeper.Ingres";
+        this.endPointWUPContainerEgressProcessorIngres = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.EgressProcessor.Ingres";
+        this.endPointWUPContainerEgressProcessorEgress = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.EgressProcessor.Egress";
+        this.endPointInterchangePayloadTransformerIngres = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".Interchange.PayloadTransformer.Ingres";
+        this.endPointInterchangePayloadTransformerEgress = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".Interchange.PayloadTransformer.Egress";
+        this.endPointInterchangeRouterIngres = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".Interchange.Router.Ingres";
+        this.endPointInterchangeRouterEgress = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".Interchange.Router.Egress";
+        this.routeIngresProcessorEgress2IngresGatekeeperIngres = "FROM-" + wupTypeName + ".WUPC.IP.E-To-" + wupTypeName +".WUPC.IG.I";
+        this.routeIngresConduitIngres2WUPIngres = "FROM-" + wupTypeName + ".WUP.IC.I-To-" + wupTypeName +".WUP.I";
+        this.routeWUPEgress2WUPEgressConduitEgress = "FROM-" + wupTypeName + ".WUP.E-To-" + wupTypeName +".WUP.EC.E";
+        this.routeWUPEgressConduitEgress2WUPEgressProcessorIngres = "FROM-" + wupTypeName + ".WUP.EC.E-To-" + wupTypeName +".WUPC.EP.I";
+        this.routeWUPEgressProcessorEgress2WUPEgressGatekeeperIngres = "FROM-" + wupTypeName + ".WUP.EP.E-To-" + wupTypeName +".WUPC.EG.I";
+        this.routeInterchangePayloadTransformerEgress2InterchangePayloadRouterIngres = "FROM-" + wupTypeName + ".IC.PT.E-To-" + wupTypeName +".IC.R.I";
+        this.routeWUPContainerIngressProcessor = "FROM-" + wupTypeName + ".WUPC.IP.I-To-" + wupTypeName +".WUPC.IP.E";
+        this.routeWUPContainerIngresGateway = "FROM-" + wupTypeName + ".WUPC.IG.I-To-" + wupTypeName +".WUPC.IG.E";
+        this.routeWUPContainerEgressGateway = "FROM-" + wupTypeName + ".WUPC.EG.I-To-" + wupTypeName +".WUPC.EG.E";
+        this.routeWUPContainerEgressProcessor = "FROM-" + wupTypeName + ".WUPC.EP.I-To-" + wupTypeName +".WUPC.EP.E";
+        this.routeInterchangePayloadTransformer = "FROM-" + wupTypeName + ".IC.PT.I-To-" + wupTypeName +".IC.PT.E";
+        this.routeInterchangeRouter = "FROM-" + wupTypeName + ".IC.R.I-To-" + wupTypeName +".IC.R.E";
+        getLogger().debug(".RouteElementNames(): Exit, wupTypeName->{}", this.wupTypeName);
+    }
+
+    public RouteElementNames(TopologyNodeFDNToken functionToken, boolean mustBeDirect){
+        this(functionToken, mustBeDirect, null);
     }
 
     public RouteElementNames(TopologyNodeFDNToken functionToken){
-        getLogger().debug(".RouteElementNames(): Entry, functionToken->{}", functionToken);
-        this.nodeFDNToken = functionToken;
-        this.wupTypeName = simplifyName();
-        this.mustBeDirect = false;
+        this(functionToken, false, null);
     }
 
     public String simplifyName(){
@@ -77,172 +159,130 @@ public class RouteElementNames {
         return(wupName);
     }
 
+    public boolean isMustBeDirect(){
+        return(this.mustBeDirect);
+    }
+
+    public boolean hasIngresQueueConfiguration(){
+        return(this.ingresQueueConfiguration != null);
+    }
+
+    public WUPIngresQueueConfiguration getIngresQueueConfiguration(){
+        if(this.ingresQueueConfiguration == null){
+            return(null);
+        }
+        return(new WUPIngresQueueConfiguration(this.ingresQueueConfiguration));
+    }
+
     public String getWupTypeName(){
         return(this.wupTypeName);
     }
-    
-    public String getRouteCoreWUP(){
-        return(this.wupTypeName+".WUP.Core");
+
+    public String getRouteCoreWUP() {
+        return(this.routeCoreWUP);
     }
 
     public String getEndPointWUPContainerIngresProcessorIngres() {
-        getLogger().debug(".getEndPointWUPContainerIngresProcessorIngres(): Entry");
-        String endpointName;
-        if(this.mustBeDirect){
-            endpointName = DIRECT_INTER_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.IngresProcessor.Ingres";
-        } else {
-            endpointName = SEDA_INTER_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.IngresProcessor.Ingres";
-        }
-        return(endpointName);
+        return(this.endPointWUPContainerIngresProcessorIngres);
     }
 
     public String getEndPointWUPContainerIngresProcessorEgress() {
-        getLogger().debug(".getEndPointWUPContainerIngresProcessorEgress(): Entry");
-        String endpointName = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.IngresProcessor.Egress";
-        return(endpointName);
+        return(this.endPointWUPContainerIngresProcessorEgress);
     }
 
     public String getEndPointWUPContainerIngresGatekeeperIngres() {
-        getLogger().debug(".getEndPointWUPContainerIngresGatekeeperIngres(): Entry");
-        String endpointName = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.IngresGatekeeper.Ingres";
-        return(endpointName);
+        return(this.endPointWUPContainerIngresGatekeeperIngres);
     }
 
     public String getEndPointWUPIngresConduitIngres() {
-        getLogger().debug(".getEndPointWUPIngresConduitIngres(): Entry");
-        String endpointName = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUP.IngresConduit.Ingres";
-        return(endpointName);
+        return(this.endPointWUPIngresConduitIngres);
     }
 
     public String getEndPointWUPIngres() {
-        getLogger().debug(".getEndPointWUPIngres(): Entry");
-        String endpointName = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUP.Ingres";
-        return(endpointName);
+        return(this.endPointWUPIngres);
     }
 
     public String getEndPointWUPEgress() {
-        getLogger().debug(".getEndPointWUPEgress(): Entry");
-        String endpointName = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUP.Egress";
-        return(endpointName);
+        return(this.endPointWUPEgress);
     }
 
     public String getEndPointWUPEgressConduitEgress() {
-        getLogger().debug(".getEndPointWUPEgressConduitEgress(): Entry");
-        String endpointName = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUP.EgressConduit.Egress";
-        return(endpointName);
+        return(this.endPointWUPEgressConduitEgress);
     }
 
     public String getEndPointWUPContainerEgressGatekeeperIngres() {
-        getLogger().debug(".getEndPointWUPContainerEgressGatekeeperIngres(): Entry");
-        String endpointName = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.EgressGatekeeper.Ingres";
-        return(endpointName);
+        return(this.endPointWUPContainerEgressGatekeeperIngres);
     }
 
     public String getEndPointWUPContainerEgressProcessorIngres() {
-        getLogger().debug(".getEndPointWUPContainerEgressProcessorIngres(): Entry");
-        String endpointName = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.EgressProcessor.Ingres";
-        return(endpointName);
+        return(this.endPointWUPContainerEgressProcessorIngres);
     }
 
     public String getEndPointWUPContainerEgressProcessorEgress() {
-        getLogger().debug(".getEndPointWUPContainerEgressProcessorEgress(): Entry");
-        String endpointName = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".WUPContainer.EgressProcessor.Egress";
-        return(endpointName);
+        return(this.endPointWUPContainerEgressProcessorEgress);
     }
 
     public String getEndPointInterchangePayloadTransformerIngres() {
-        getLogger().debug(".getEndPointInterchangePayloadTransformerIngres(): Entry");
-        String endpointName = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".Interchange.PayloadTransformer.Ingres";
-        return(endpointName);
+        return(this.endPointInterchangePayloadTransformerIngres);
     }
 
     public String getEndPointInterchangePayloadTransformerEgress() {
-        getLogger().debug(".getEndPointInterchangePayloadTransformerEgress(): Entry");
-        String endpointName = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".Interchange.PayloadTransformer.Egress";
-        return(endpointName);
+        return(this.endPointInterchangePayloadTransformerEgress);
     }
 
     public String getEndPointInterchangeRouterIngres() {
-        getLogger().debug(".getEndPointInterchangeRouterIngres(): Entry");
-        String endpointName = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".Interchange.Router.Ingres";
-        return(endpointName);
+        return(this.endPointInterchangeRouterIngres);
     }
 
     public String getEndPointInterchangeRouterEgress() {
-        getLogger().debug(".getEndPointInterchangeRouterEgress(): Entry");
-        String endpointName = INTRA_FUNCTION_DIRECT_TYPE + wupTypeName + ".Interchange.Router.Egress";
-        return(endpointName);
+        return(this.endPointInterchangeRouterEgress);
     }
 
     public String getRouteIngresProcessorEgress2IngresGatekeeperIngres() {
-        getLogger().debug(".getRouteIngresProcessorEgress2IngresGatekeeperIngres(): Entry");
-        String endpointName = "FROM-" + wupTypeName + ".WUPC.IP.E-To-" + wupTypeName +".WUPC.IG.I" ;
-        return(endpointName);
+        return(this.routeIngresProcessorEgress2IngresGatekeeperIngres);
     }
 
     public String getRouteIngresConduitIngres2WUPIngres() {
-        getLogger().debug(".getRouteIngresConduitIngres2WUPIngres(): Entry");
-        String endpointName = "FROM-" + wupTypeName + ".WUP.IC.I-To-" + wupTypeName +".WUP.I" ;
-        return(endpointName);
+        return(this.routeIngresConduitIngres2WUPIngres);
     }
 
     public String getRouteWUPEgress2WUPEgressConduitEgress() {
-        getLogger().debug(".getRouteWUPEgress2WUPEgressConduitEgress(): Entry");
-        String endpointName = "FROM-" + wupTypeName + ".WUP.E-To-" + wupTypeName +".WUP.EC.E" ;
-        return(endpointName);
+        return(this.routeWUPEgress2WUPEgressConduitEgress);
     }
 
     public String getRouteWUPEgressConduitEgress2WUPEgressProcessorIngres() {
-        getLogger().debug(".getRouteWUPEgressConduitEgress2WUPEgressProcessorIngres(): Entry");
-        String endpointName = "FROM-" + wupTypeName + ".WUP.EC.E-To-" + wupTypeName +".WUPC.EP.I" ;
-        return(endpointName);
+        return(this.routeWUPEgressConduitEgress2WUPEgressProcessorIngres);
     }
 
     public String getRouteWUPEgressProcessorEgress2WUPEgressGatekeeperIngres() {
-        getLogger().debug(".getRouteWUPEgressProcessorEgress2WUPEgressGatekeeperIngres(): Entry");
-        String endpointName = "FROM-" + wupTypeName + ".WUP.EP.E-To-" + wupTypeName +".WUPC.EG.I" ;
-        return(endpointName);
+        return(this.routeWUPEgressProcessorEgress2WUPEgressGatekeeperIngres);
     }
 
     public String getRouteInterchangePayloadTransformerEgress2InterchangePayloadRouterIngres() {
-        getLogger().debug(".getRouteInterchangePayloadTransformerEgress2InterchangePayloadRouterIngres(): Entry");
-        String endpointName = "FROM-" + wupTypeName + ".IC.PT.E-To-" + wupTypeName +".IC.R.I" ;
-        return(endpointName);
+        return(this.routeInterchangePayloadTransformerEgress2InterchangePayloadRouterIngres);
     }
 
     public String getRouteWUPContainerIngressProcessor() {
-        getLogger().debug(".getRouteWUPContainerIngressProcessor(): Entry");
-        String endpointName = "FROM-" + wupTypeName + ".WUPC.IP.I-To-" + wupTypeName +".WUPC.IP.E" ;
-        return(endpointName);
+        return(this.routeWUPContainerIngressProcessor);
     }
 
     public String getRouteWUPContainerIngresGateway() {
-        getLogger().debug(".getRouteWUPContainerIngresGateway(): Entry");
-        String endpointName = "FROM-" + wupTypeName + ".WUPC.IG.I-To-" + wupTypeName +".WUPC.IG.E" ;
-        return(endpointName);
+        return(this.routeWUPContainerIngresGateway);
     }
 
     public String getRouteWUPContainerEgressGateway() {
-        getLogger().debug(".getRouteWUPContainerEgressGateway(): Entry");
-        String endpointName = "FROM-" + wupTypeName + ".WUPC.EG.I-To-" + wupTypeName +".WUPC.EG.E" ;
-        return(endpointName);
+        return(this.routeWUPContainerEgressGateway);
     }
 
     public String getRouteWUPContainerEgressProcessor() {
-        getLogger().debug(".getRouteWUPContainerEgressProcessor(): Entry");
-        String endpointName = "FROM-" + wupTypeName + ".WUPC.EP.I-To-" + wupTypeName +".WUPC.EP.E" ;
-        return(endpointName);
+        return(this.routeWUPContainerEgressProcessor);
     }
 
-    public String getRouteInterchangePayloadTransformer(){
-        getLogger().debug(".getRouteInterchangePayloadTransformer(): Entry");
-        String endpointName = "FROM-" + wupTypeName + ".IC.PT.I-To-" + wupTypeName +".IC.PT.E" ;
-        return(endpointName);
+    public String getRouteInterchangePayloadTransformer() {
+        return(this.routeInterchangePayloadTransformer);
     }
 
-    public String getRouteInterchangeRouter(){
-        getLogger().debug(".getRouteInterchangeRouter(): Entry");
-        String endpointName = "FROM-" + wupTypeName + ".IC.R.I-To-" + wupTypeName +".IC.R.E" ;
-        return(endpointName);
+    public String getRouteInterchangeRouter() {
+        return(this.routeInterchangeRouter);
     }
 }
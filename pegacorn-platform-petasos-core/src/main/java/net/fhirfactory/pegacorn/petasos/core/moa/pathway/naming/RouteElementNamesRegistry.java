@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming;
+
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDN;
+import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
+import net.fhirfactory.pegacorn.util.PegacornEnvironmentProperties;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the (immutable) RouteElementNames of each WUP, built once when the WUP framework is constructed by the
+ * WorkUnitProcessorFrameworkManager, so that the per-exchange WUP Container and Interchange processors can resolve
+ * their next endpoint with a single map lookup.
+ *
+ * The map is keyed on (a copy of) the WUP's TopologyNodeFDN rather than its TopologyNodeFDNToken, as creating the
+ * token is itself a (JSON) serialisation.
+ *
+ * The SEDA options of each WUP's ingres queue are resolved at registration: the processing plant wide defaults (see
+ * the PetasosPropertyConstants.WUP_INGRES_QUEUE_* properties) overridden by any per-WUP WUPIngresQueueConfiguration.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@ApplicationScoped
+public class RouteElementNamesRegistry {
+    private static final Logger LOG = LoggerFactory.getLogger(RouteElementNamesRegistry.class);
+
+    private ConcurrentHashMap<TopologyNodeFDN, RouteElementNames> routeElementNamesMap;
+    private WUPIngresQueueConfiguration defaultIngresQueueConfiguration;
+
+    @Inject
+    private PegacornEnvironmentProperties environmentProperties;
+
+    public RouteElementNamesRegistry(){
+        this.routeElementNamesMap = new ConcurrentHashMap<>();
+        this.defaultIngresQueueConfiguration = new WUPIngresQueueConfiguration();
+    }
+
+    @PostConstruct
+    public void initialise(){
+        LOG.debug(".initialise(): Entry");
+        if(environmentProperties == null){
+            LOG.debug(".initialise(): Exit, no environmentProperties, using the Camel defaults for the ingres queues");
+            return;
+        }
+        WUPIngresQueueConfiguration configuration = new WUPIngresQueueConfiguration();
+        String concurrentConsumers = environmentProperties.getProperty(PetasosPropertyConstants.WUP_INGRES_QUEUE_CONCURRENT_CONSUMERS_PROPERTY_NAME, "");
+        String size = environmentProperties.getProperty(PetasosPropertyConstants.WUP_INGRES_QUEUE_SIZE_PROPERTY_NAME, "");
+        String blockWhenFull = environmentProperties.getProperty(PetasosPropertyConstants.WUP_INGRES_QUEUE_BLOCK_WHEN_FULL_PROPERTY_NAME, "");
+        String offerTimeout = environmentProperties.getProperty(PetasosPropertyConstants.WUP_INGRES_QUEUE_OFFER_TIMEOUT_MILLISECONDS_PROPERTY_NAME, "");
+        String multipleConsumers = environmentProperties.getProperty(PetasosPropertyConstants.WUP_INGRES_QUEUE_MULTIPLE_CONSUMERS_PROPERTY_NAME, "");
+        try {
+            if (StringUtils.isNotBlank(concurrentConsumers)) {
+                configuration.setConcurrentConsumers(Integer.valueOf(concurrentConsumers));
+            }
+            if (StringUtils.isNotBlank(size)) {
+                configuration.setSize(Integer.valueOf(size));
+            }
+            if (StringUtils.isNotBlank(blockWhenFull)) {
+                configuration.setBlockWhenFull(Boolean.valueOf(blockWhenFull));
+            }
+            if (StringUtils.isNotBlank(offerTimeout)) {
+                configuration.setOfferTimeout(Long.valueOf(offerTimeout));
+            }
+            if (StringUtils.isNotBlank(multipleConsumers)) {
+                configuration.setMultipleConsumers(Boolean.valueOf(multipleConsumers));
+            }
+        } catch(IllegalArgumentException ex){
+            LOG.warn(".initialise(): Invalid ingres queue property, using the Camel defaults for the ingres queues, error->{}", ex.getMessage());
+            configuration = new WUPIngresQueueConfiguration();
+        }
+        this.defaultIngresQueueConfiguration = configuration;
+        LOG.debug(".initialise(): Exit, defaultIngresQueueConfiguration->{}", defaultIngresQueueConfiguration);
+    }
+
+    /**
+     * Build (if not already present) and register the RouteElementNames for the WUP.
+     *
+     * @param wupNode The WorkUnitProcessorTopologyNode of the WUP
+     * @return The RouteElementNames of the WUP
+     */
+    public RouteElementNames registerWUP(WorkUnitProcessorTopologyNode wupNode){
+        return(registerWUP(wupNode, null));
+    }
+
+    /**
+     * Build (if not already present) and register the RouteElementNames for the WUP, with the given (per-WUP)
+     * ingres queue options taking precedence over the defaults. The first registration of a WUP wins.
+     *
+     * @param wupNode The WorkUnitProcessorTopologyNode of the WUP
+     * @param ingresQueueConfiguration The per-WUP SEDA options for the WUP Container ingres queue, may be null
+     * @return The RouteElementNames of the WUP
+     */
+    public RouteElementNames registerWUP(WorkUnitProcessorTopologyNode wupNode, WUPIngresQueueConfiguration ingresQueueConfiguration){
+        LOG.debug(".registerWUP(): Entry, wupNode->{}, ingresQueueConfiguration->{}", wupNode, ingresQueueConfiguration);
+        if(wupNode == null){
+            throw(new IllegalArgumentException(".registerWUP(): wupNode is null"));
+        }
+        if(wupNode.getNodeFDN() == null){
+            throw(new IllegalArgumentException(".registerWUP(): wupNode.getNodeFDN() is null"));
+        }
+        TopologyNodeFDN wupNodeFDN = new TopologyNodeFDN(wupNode.getNodeFDN());
+        RouteElementNames elementNames = routeElementNamesMap.computeIfAbsent(wupNodeFDN, key -> new RouteElementNames(wupNode.getNodeFDN().getToken(), false, defaultIngresQueueConfiguration.mergeWith(ingresQueueConfiguration)));
+        LOG.debug(".registerWUP(): Exit, wupTypeName->{}", elementNames.getWupTypeName());
+        return(elementNames);
+    }
+
+    /**
+     * Get the RouteElementNames for the WUP. A WUP that was not registered via the WorkUnitProcessorFrameworkManager
+     * is registered on first use.
+     *
+     * @param wupNode The WorkUnitProcessorTopologyNode of the WUP
+     * @return The RouteElementNames of the WUP
+     */
+    public RouteElementNames getRouteElementNames(WorkUnitProcessorTopologyNode wupNode){
+        if(wupNode == null){
+            throw(new IllegalArgumentException(".getRouteElementNames(): wupNode is null"));
+        }
+        RouteElementNames elementNames = routeElementNamesMap.get(wupNode.getNodeFDN());
+        if(elementNames == null){
+            LOG.debug(".getRouteElementNames(): wupNode was not registered, registering it now, wupNode->{}", wupNode);
+            elementNames = registerWUP(wupNode);
+        }
+        return(elementNames);
+    }
+
+    public boolean hasRouteElementNames(WorkUnitProcessorTopologyNode wupNode){
+        if(wupNode == null || wupNode.getNodeFDN() == null){
+            return(false);
+        }
+        return(routeElementNamesMap.containsKey(wupNode.getNodeFDN()));
+    }
+
+    public void unregisterWUP(WorkUnitProcessorTopologyNode wupNode){
+        LOG.debug(".unregisterWUP(): Entry, wupNode->{}", wupNode);
+        if(wupNode == null || wupNode.getNodeFDN() == null){
+            return;
+        }
+        routeElementNamesMap.remove(wupNode.getNodeFDN());
+        LOG.debug(".unregisterWUP(): Exit");
+    }
+
+    public WUPIngresQueueConfiguration getDefaultIngresQueueConfiguration(){
+        return(new WUPIngresQueueConfiguration(defaultIngresQueueConfiguration));
+    }
+
+    public int getRegisteredWUPCount(){
+        return(routeElementNamesMap.size());
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming;
+
+import java.util.Objects;
+
+/**
+ * The (Camel) SEDA options for the ingres queue of a WUP Container, i.e. the queue between the Interchange and the
+ * WUPContainer IngresProcessor. Any attribute that is not set is left to the Camel default (and is not included in
+ * the endpoint URI).
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public class WUPIngresQueueConfiguration {
+    private Integer concurrentConsumers;
+    private Integer size;
+    private Boolean blockWhenFull;
+    private Long offerTimeout;
+    private Boolean multipleConsumers;
+
+    public WUPIngresQueueConfiguration(){
+        this.concurrentConsumers = null;
+        this.size = null;
+        this.blockWhenFull = null;
+        this.offerTimeout = null;
+        this.multipleConsumers = null;
+    }
+
+    public WUPIngresQueueConfiguration(WUPIngresQueueConfiguration original){
+        this.concurrentConsumers = original.getConcurrentConsumers();
+        this.size = original.getSize();
+        this.blockWhenFull = original.getBlockWhenFull();
+        this.offerTimeout = original.getOfferTimeout();
+        this.multipleConsumers = original.getMultipleConsumers();
+    }
+
+    /**
+     * Create a new configuration where each attribute set in the override replaces that of this configuration.
+     *
+     * @param override The (more specific, e.g. per-WUP) configuration, may be null
+     * @return The merged configuration
+     */
+    public WUPIngresQueueConfiguration mergeWith(WUPIngresQueueConfiguration override){
+        WUPIngresQueueConfiguration merged = new WUPIngresQueueConfiguration(this);
+        if(override == null){
+            return(merged);
+        }
+        if(override.hasConcurrentConsumers()){
+            merged.setConcurrentConsumers(override.getConcurrentConsumers());
+        }
+        if(override.hasSize()){
+            merged.setSize(override.getSize());
+        }
+        if(override.hasBlockWhenFull()){
+            merged.setBlockWhenFull(override.getBlockWhenFull());
+        }
+        if(override.hasOfferTimeout()){
+            merged.setOfferTimeout(override.getOfferTimeout());
+        }
+        if(override.hasMultipleConsumers()){
+            merged.setMultipleConsumers(override.getMultipleConsumers());
+        }
+        return(merged);
+    }
+
+    /**
+     * @return The URI options (e.g. "?concurrentConsumers=4&size=1000") for the SEDA endpoint, or an empty String
+     * if nothing is set.
+     */
+    public String toEndpointOptions(){
+        StringBuilder options = new StringBuilder();
+        if(hasConcurrentConsumers()){
+            appendOption(options, "concurrentConsumers", concurrentConsumers.toString());
+        }
+        if(hasSize()){
+            appendOption(options, "size", size.toString());
+        }
+        if(hasBlockWhenFull()){
+            appendOption(options, "blockWhenFull", blockWhenFull.toString());
+        }
+        if(hasOfferTimeout()){
+            appendOption(options, "offerTimeout", offerTimeout.toString());
+        }
+        if(hasMultipleConsumers()){
+            appendOption(options, "multipleConsumers", multipleConsumers.toString());
+        }
+        return(options.toString());
+    }
+
+    private static void appendOption(StringBuilder options, String name, String value){
+        if(options.length() == 0){
+            options.append("?");
+        } else {
+            options.append("&");
+        }
+        options.append(name).append("=").append(value);
+    }
+
+    //
+    // Getters and Setters
+    //
+
+    public boolean hasConcurrentConsumers(){
+        return(this.concurrentConsumers != null);
+    }
+
+    public Integer getConcurrentConsumers() {
+        return concurrentConsumers;
+    }
+
+    public void setConcurrentConsumers(Integer concurrentConsumers) {
+        if(concurrentConsumers != null && concurrentConsumers < 1){
+            throw(new IllegalArgumentException(".setConcurrentConsumers(): concurrentConsumers must be at least 1"));
+        }
+        this.concurrentConsumers = concurrentConsumers;
+    }
+
+    public boolean hasSize(){
+        return(this.size != null);
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        if(size != null && size < 1){
+            throw(new IllegalArgumentException(".setSize(): size must be at least 1"));
+        }
+        this.size = size;
+    }
+
+    public boolean hasBlockWhenFull(){
+        return(this.blockWhenFull != null);
+    }
+
+    public Boolean getBlockWhenFull() {
+        return blockWhenFull;
+    }
+
+    public void setBlockWhenFull(Boolean blockWhenFull) {
+        this.blockWhenFull = blockWhenFull;
+    }
+
+    public boolean hasOfferTimeout(){
+        return(this.offerTimeout != null);
+    }
+
+    public Long getOfferTimeout() {
+        return offerTimeout;
+    }
+
+    public void setOfferTimeout(Long offerTimeout) {
+        if(offerTimeout != null && offerTimeout < 0){
+            throw(new IllegalArgumentException(".setOfferTimeout(): offerTimeout must not be negative"));
+        }
+        this.offerTimeout = offerTimeout;
+    }
+
+    public boolean hasMultipleConsumers(){
+        return(this.multipleConsumers != null);
+    }
+
+    public Boolean getMultipleConsumers() {
+        return multipleConsumers;
+    }
+
+    public void setMultipleConsumers(Boolean multipleConsumers) {
+        this.multipleConsumers = multipleConsumers;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof WUPIngresQueueConfiguration)) {
+            return false;
+        }
+        WUPIngresQueueConfiguration that = (WUPIngresQueueConfiguration) o;
+        return Objects.equals(getConcurrentConsumers(), that.getConcurrentConsumers())
+                && Objects.equals(getSize(), that.getSize())
+                && Objects.equals(getBlockWhenFull(), that.getBlockWhenFull())
+                && Objects.equals(getOfferTimeout(), that.getOfferTimeout())
+                && Objects.equals(getMultipleConsumers(), that.getMultipleConsumers());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(getConcurrentConsumers(), getSize(), getBlockWhenFull(), getOfferTimeout(), getMultipleConsumers());
+    }
+
+    @Override
+    public String toString() {
+        return "WUPIngresQueueConfiguration{" +
+                "concurrentConsumers=" + concurrentConsumers +
+                ", size=" + size +
+                ", blockWhenFull=" + blockWhenFull +
+                ", offerTimeout=" + offerTimeout +
+                ", multipleConsumers=" + multipleConsumers +
+                '}';
+    }
+}
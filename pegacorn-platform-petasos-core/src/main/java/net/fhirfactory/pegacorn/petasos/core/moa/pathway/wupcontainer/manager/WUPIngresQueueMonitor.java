@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.manager;
+
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDN;
+import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNames;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNamesRegistry;
+import org.apache.camel.CamelContext;
+import org.apache.camel.Endpoint;
+import org.apache.camel.component.seda.SedaEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Gauges for the WUP Container ingres (SEDA) queues: the current queue depth (read from the Camel SedaEndpoint) and
+ * the time packets wait between being sent by the Interchange (WorkUnitTransportPacket.senderSendDate) and being
+ * picked up by the WUPContainer IngresProcessor - so the concurrentConsumers/size of each queue can be sized to
+ * its throughput.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@ApplicationScoped
+public class WUPIngresQueueMonitor {
+    private static final Logger LOG = LoggerFactory.getLogger(WUPIngresQueueMonitor.class);
+
+    private ConcurrentHashMap<TopologyNodeFDN, QueueWaitStatistics> waitStatisticsMap;
+
+    @Inject
+    private CamelContext camelctx;
+
+    @Inject
+    private RouteElementNamesRegistry routeElementNamesRegistry;
+
+    public WUPIngresQueueMonitor(){
+        this.waitStatisticsMap = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Record the time a packet spent in the WUP's ingres queue.
+     *
+     * @param wupNode The WorkUnitProcessorTopologyNode of the (consuming) WUP
+     * @param senderSendDate The time the packet was sent to the WUP Container
+     */
+    public void recordQueueWait(WorkUnitProcessorTopologyNode wupNode, Date senderSendDate){
+        if(wupNode == null || wupNode.getNodeFDN() == null || senderSendDate == null){
+            return;
+        }
+        long waitMillis = Math.max(0L, Instant.now().toEpochMilli() - senderSendDate.getTime());
+        QueueWaitStatistics statistics = waitStatisticsMap.get(wupNode.getNodeFDN());
+        if(statistics == null){
+            statistics = waitStatisticsMap.computeIfAbsent(new TopologyNodeFDN(wupNode.getNodeFDN()), key -> new QueueWaitStatistics());
+        }
+        statistics.record(waitMillis);
+        LOG.trace(".recordQueueWait(): wupNode->{}, waitMillis->{}", wupNode.getNodeFDN(), waitMillis);
+    }
+
+    /**
+     * @param wupNode The WorkUnitProcessorTopologyNode of the WUP
+     * @return The number of packets currently in the WUP's ingres queue (0 if the WUP Container is not fed via SEDA)
+     */
+    public int getQueueDepth(WorkUnitProcessorTopologyNode wupNode){
+        SedaEndpoint sedaEndpoint = resolveSedaEndpoint(wupNode);
+        if(sedaEndpoint == null){
+            return(0);
+        }
+        return(sedaEndpoint.getCurrentQueueSize());
+    }
+
+    /**
+     * @param wupNode The WorkUnitProcessorTopologyNode of the WUP
+     * @return The configured size (capacity) of the WUP's ingres queue, or -1 if the WUP Container is not fed via SEDA
+     */
+    public int getQueueCapacity(WorkUnitProcessorTopologyNode wupNode){
+        SedaEndpoint sedaEndpoint = resolveSedaEndpoint(wupNode);
+        if(sedaEndpoint == null){
+            return(-1);
+        }
+        return(sedaEndpoint.getSize());
+    }
+
+    public long getQueueWaitCount(WorkUnitProcessorTopologyNode wupNode){
+        QueueWaitStatistics statistics = getStatistics(wupNode);
+        if(statistics == null){
+            return(0L);
+        }
+        return(statistics.count.sum());
+    }
+
+    public double getAverageQueueWaitMillis(WorkUnitProcessorTopologyNode wupNode){
+        QueueWaitStatistics statistics = getStatistics(wupNode);
+        if(statistics == null){
+            return(0.0);
+        }
+        long count = statistics.count.sum();
+        if(count == 0){
+            return(0.0);
+        }
+        return((double)statistics.totalWaitMillis.sum() / (double)count);
+    }
+
+    public long getMaxQueueWaitMillis(WorkUnitProcessorTopologyNode wupNode){
+        QueueWaitStatistics statistics = getStatistics(wupNode);
+        if(statistics == null){
+            return(0L);
+        }
+        return(statistics.maxWaitMillis.get());
+    }
+
+    public void resetQueueWaitStatistics(WorkUnitProcessorTopologyNode wupNode){
+        if(wupNode == null || wupNode.getNodeFDN() == null){
+            return;
+        }
+        waitStatisticsMap.remove(wupNode.getNodeFDN());
+    }
+
+    //
+    // Helpers
+    //
+
+    private QueueWaitStatistics getStatistics(WorkUnitProcessorTopologyNode wupNode){
+        if(wupNode == null || wupNode.getNodeFDN() == null){
+            return(null);
+        }
+        return(waitStatisticsMap.get(wupNode.getNodeFDN()));
+    }
+
+    private SedaEndpoint resolveSedaEndpoint(WorkUnitProcessorTopologyNode wupNode){
+        if(wupNode == null || camelctx == null){
+            return(null);
+        }
+        RouteElementNames nameSet = routeElementNamesRegistry.getRouteElementNames(wupNode);
+        Endpoint endpoint = camelctx.hasEndpoint(nameSet.getEndPointWUPContainerIngresProcessorIngres());
+        if(endpoint instanceof SedaEndpoint){
+            return((SedaEndpoint)endpoint);
+        }
+        return(null);
+    }
+
+    private static class QueueWaitStatistics {
+        private final LongAdder count;
+        private final LongAdder totalWaitMillis;
+        private final AtomicLong maxWaitMillis;
+
+        private QueueWaitStatistics(){
+            this.count = new LongAdder();
+            this.totalWaitMillis = new LongAdder();
+            this.maxWaitMillis = new AtomicLong(0L);
+        }
+
+        private void record(long waitMillis){
+            count.increment();
+            totalWaitMillis.add(waitMillis);
+            maxWaitMillis.accumulateAndGet(waitMillis, Math::max);
+        }
+    }
+}
@@ -24,21 +24,30 @@ package net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.manager;
 import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
 import net.fhirfactory.pegacorn.components.interfaces.topology.ProcessingPlantInterface;
 import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNames;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNamesRegistry;
 import net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.worker.archetypes.ExternalEgressWUPContainerRoute;
 import net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.worker.archetypes.ExternalIngresWUPContainerRoute;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.worker.archetypes.FusedWUPContainerRoute;
 import net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.worker.archetypes.StandardWUPContainerRoute;
 import net.fhirfactory.pegacorn.petasos.datasets.manager.DataParcelSubscriptionMapIM;
 import net.fhirfactory.pegacorn.petasos.model.pubsub.IntraSubsystemPubSubParticipant;
 import net.fhirfactory.pegacorn.petasos.model.pubsub.IntraSubsystemPubSubParticipantIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
 import net.fhirfactory.pegacorn.petasos.model.pubsub.PubSubParticipant;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPArchetypeEnum;
+import net.fhirfactory.pegacorn.util.PegacornEnvironmentProperties;
 import org.apache.camel.CamelContext;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Mark A. Hunter
@@ -57,14 +66,74 @@ public class WorkUnitProcessorFrameworkManager {
     @Inject
     private ProcessingPlantInterface processingPlant;
 
+    @Inject
+    private RouteElementNamesRegistry routeElementNamesRegistry;
+
+    @Inject
+    private PegacornEnvironmentProperties environmentProperties;
+
+    private Set<WUPArchetypeEnum> fusedContainerArchetypes;
+
+    public WorkUnitProcessorFrameworkManager(){
+        this.fusedContainerArchetypes = ConcurrentHashMap.newKeySet();
+    }
+
+    @PostConstruct
+    public void initialise(){
+        LOG.debug(".initialise(): Entry");
+        String fusedArchetypeList = environmentProperties.getProperty(PetasosPropertyConstants.WUP_CONTAINER_FUSED_ARCHETYPES_PROPERTY_NAME, "");
+        if(StringUtils.isNotBlank(fusedArchetypeList)){
+            for(String archetypeName: fusedArchetypeList.split(",")){
+                if(StringUtils.isBlank(archetypeName)){
+                    continue;
+                }
+                try {
+                    enableFusedContainerRoute(WUPArchetypeEnum.valueOf(archetypeName.trim()));
+                } catch(IllegalArgumentException ex){
+                    LOG.warn(".initialise(): Unknown WUPArchetypeEnum in {}, ignoring it, archetypeName->{}", PetasosPropertyConstants.WUP_CONTAINER_FUSED_ARCHETYPES_PROPERTY_NAME, archetypeName);
+                }
+            }
+        }
+        LOG.debug(".initialise(): Exit, fusedContainerArchetypes->{}", fusedContainerArchetypes);
+    }
+
+    /**
+     * Build the WUP Container of (subsequently registered) WUPs of the given archetype as a single (fused) route -
+     * see FusedWUPContainerRoute. Only the archetypes that use the StandardWUPContainerRoute are affected.
+     *
+     * @param wupArchetype The WUPArchetypeEnum to use the fused WUP Container for
+     */
+    public void enableFusedContainerRoute(WUPArchetypeEnum wupArchetype){
+        if(wupArchetype == null){
+            throw(new IllegalArgumentException(".enableFusedContainerRoute(): wupArchetype is null"));
+        }
+        fusedContainerArchetypes.add(wupArchetype);
+    }
+
+    public void disableFusedContainerRoute(WUPArchetypeEnum wupArchetype){
+        if(wupArchetype == null){
+            return;
+        }
+        fusedContainerArchetypes.remove(wupArchetype);
+    }
+
+    public boolean hasFusedContainerRoute(WUPArchetypeEnum wupArchetype){
+        if(wupArchetype == null){
+            return(false);
+        }
+        return(fusedContainerArchetypes.contains(wupArchetype));
+    }
+
     public void buildWUPFramework(WorkUnitProcessorTopologyNode wupNode, List<DataParcelManifest> subscribedTopics, WUPArchetypeEnum wupArchetype) {
         LOG.debug(".buildWUPFramework(): Entry, wupNode --> {}, subscribedTopics --> {}, wupArchetype --> {}", wupNode, subscribedTopics, wupArchetype);
         try {
+            LOG.trace(".buildWUPFramework(): Registering the (precomputed) RouteElementNames for the WUP");
+            routeElementNamesRegistry.registerWUP(wupNode);
             switch (wupArchetype) {
 
                 case WUP_NATURE_STIMULI_TRIGGERED_WORKFLOW: {
                     LOG.trace(".buildWUPFramework(): Building a WUP_NATURE_STIMULI_TRIGGERED_BEHAVIOUR route");
-                    StandardWUPContainerRoute standardWUPRoute = new StandardWUPContainerRoute(camelctx, wupNode, true);
+                    StandardWUPContainerRoute standardWUPRoute = newStandardWUPContainerRoute(wupNode, wupArchetype, true);
                     LOG.trace(".buildWUPFramework(): Route created, now adding it to he CamelContext!");
                     camelctx.addRoutes(standardWUPRoute);
                     LOG.trace(".buildWUPFramework(): Now subscribing this WUP/Route to UoW Content Topics");
@@ -82,7 +151,7 @@ public class WorkUnitProcessorFrameworkManager {
                 case WUP_NATURE_LADON_BEHAVIOUR_WRAPPER:
                 case WUP_NATURE_LADON_STANDARD_MOA: {
                     LOG.trace(".buildWUPFramework(): Building a WUP_NATURE_LADON_STANDARD_MOA route");
-                    StandardWUPContainerRoute standardWUPRoute = new StandardWUPContainerRoute(camelctx, wupNode, true);
+                    StandardWUPContainerRoute standardWUPRoute = newStandardWUPContainerRoute(wupNode, wupArchetype, true);
                     LOG.trace(".buildWUPFramework(): Route created, now adding it to he CamelContext!");
                     camelctx.addRoutes(standardWUPRoute);
                     LOG.trace(".buildWUPFramework(): Now subscribing this WUP/Route to UoW Content Topics");
@@ -92,7 +161,7 @@ public class WorkUnitProcessorFrameworkManager {
                 }
                 case WUP_NATURE_MESSAGE_WORKER: {
                     LOG.trace(".buildWUPFramework(): Building a WUP_NATURE_MESSAGE_WORKER route");
-                    StandardWUPContainerRoute standardWUPRoute = new StandardWUPContainerRoute(camelctx, wupNode);
+                    StandardWUPContainerRoute standardWUPRoute = newStandardWUPContainerRoute(wupNode, wupArchetype, false);
                     LOG.trace(".buildWUPFramework(): Route created, now adding it to he CamelContext!");
                     camelctx.addRoutes(standardWUPRoute);
                     LOG.trace(".buildWUPFramework(): Now subscribing this WUP/Route to UoW Content Topics");
@@ -114,7 +183,7 @@ public class WorkUnitProcessorFrameworkManager {
                 case WUP_NATURE_MESSAGE_EXTERNAL_EGRESS_POINT:
                 case WUP_NATURE_API_CLIENT:
                     LOG.trace(".buildWUPFramework(): Building a WUP_NATURE_MESSAGE_EXTERNAL_EGRESS_POINT route");
-                    ExternalEgressWUPContainerRoute egressRoute = new ExternalEgressWUPContainerRoute(camelctx, wupNode);
+                    ExternalEgressWUPContainerRoute egressRoute = newExternalEgressWUPContainerRoute(wupNode);
                     camelctx.addRoutes(egressRoute);
                     LOG.trace(".buildWUPFramework(): Now subscribing this WUP/Route to UoW Content Topics");
                     uowTopicSubscribe(subscribedTopics, wupNode);
@@ -134,6 +203,31 @@ public class WorkUnitProcessorFrameworkManager {
         }
     }
 
+    private StandardWUPContainerRoute newStandardWUPContainerRoute(WorkUnitProcessorTopologyNode wupNode, WUPArchetypeEnum wupArchetype, boolean requiresDirect){
+        RouteElementNames nameSet;
+        if(requiresDirect){
+            nameSet = new RouteElementNames(wupNode.getNodeFDN().getToken(), true);
+        } else {
+            // The (SEDA) ingres queue options are resolved by the registry, so the consumer and the producers
+            // (see InterchangeTargetWUPTypeRouter) use the same endpoint URI
+            nameSet = routeElementNamesRegistry.getRouteElementNames(wupNode);
+        }
+        if(hasFusedContainerRoute(wupArchetype)){
+            LOG.trace(".newStandardWUPContainerRoute(): Using the fused WUP Container route, wupArchetype->{}", wupArchetype);
+            return(new FusedWUPContainerRoute(camelctx, wupNode, nameSet));
+        }
+        return(new StandardWUPContainerRoute(camelctx, wupNode, nameSet));
+    }
+
+    /**
+     * The egress WUP Container consumes from the (SEDA) ingres queue the InterchangeTargetWUPTypeRouter produces to,
+     * so it takes its RouteElementNames (and so the queue options in the endpoint URI) from the registry too.
+     */
+    ExternalEgressWUPContainerRoute newExternalEgressWUPContainerRoute(WorkUnitProcessorTopologyNode wupNode){
+        RouteElementNames nameSet = routeElementNamesRegistry.getRouteElementNames(wupNode);
+        return(new ExternalEgressWUPContainerRoute(camelctx, wupNode, nameSet));
+    }
+
     public void uowTopicSubscribe(List<DataParcelManifest> subscribedTopics, WorkUnitProcessorTopologyNode wupNode) {
         LOG.debug(".uowTopicSubscribe(): Entry, subscribedTopics --> {}, wupNode --> {}", subscribedTopics, wupNode);
         if (subscribedTopics.isEmpty()) {
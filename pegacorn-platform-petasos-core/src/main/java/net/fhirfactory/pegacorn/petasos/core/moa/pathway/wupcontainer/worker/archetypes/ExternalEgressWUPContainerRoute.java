@@ -56,6 +56,16 @@ public class ExternalEgressWUPContainerRoute extends BaseRouteBuilder {
 		nameSet = new RouteElementNames(wupNode.getNodeFDN().getToken());
 	}
 
+	public ExternalEgressWUPContainerRoute(CamelContext camelCTX, WorkUnitProcessorTopologyNode wupNode, RouteElementNames nameSet) {
+		super(camelCTX);
+		getLogger().debug(".ExternalEgressWUPContainerRoute(): Entry, context --> ###, wupNode --> {}", wupNode);
+		if(nameSet == null){
+			throw(new IllegalArgumentException(".ExternalEgressWUPContainerRoute(): nameSet is null"));
+		}
+		this.wupTopologyNode = wupNode;
+		this.nameSet = nameSet;
+	}
+
 	@Override
 	public void configure() {
 		getLogger().debug(".configure(): Entry!, for wupNode --> {}", this.wupTopologyNode);
@@ -110,4 +120,8 @@ public class ExternalEgressWUPContainerRoute extends BaseRouteBuilder {
 	public WorkUnitProcessorTopologyNode getWupTopologyNode() {
 		return wupTopologyNode;
 	}
+
+	public RouteElementNames getNameSet() {
+		return nameSet;
+	}
 }
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.worker.archetypes;
+
+import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNames;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.worker.buildingblocks.*;
+import org.apache.camel.CamelContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A "fused" alternative to the StandardWUPContainerRoute: the same WUP Container building-block beans are executed,
+ * in the same order, but as a processor chain within two routes (one either side of the WUP itself) rather than as
+ * nine routes joined by direct: endpoints. The per-stage route IDs of the standard layout are retained as the node
+ * IDs of the corresponding steps, so the stages are still identifiable when tracing.
+ *
+ * The IngresGatekeeper's "discard" decision is applied as a filter (rather than a recipient list to the WUP Ingres
+ * Conduit) and the EgressGatekeeper remains a recipient list, as it is the exit to the Interchange.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public class FusedWUPContainerRoute extends StandardWUPContainerRoute {
+	private static final Logger LOG = LoggerFactory.getLogger(FusedWUPContainerRoute.class);
+	@Override
+	protected Logger getLogger(){
+		return(LOG);
+	}
+
+	public FusedWUPContainerRoute(CamelContext camelCTX, WorkUnitProcessorTopologyNode wupTopologyNode) {
+		super(camelCTX, wupTopologyNode);
+	}
+
+	public FusedWUPContainerRoute(CamelContext camelCTX, WorkUnitProcessorTopologyNode wupTopologyNode, boolean requiresDirect) {
+		super(camelCTX, wupTopologyNode, requiresDirect);
+	}
+
+	public FusedWUPContainerRoute(CamelContext camelCTX, WorkUnitProcessorTopologyNode wupTopologyNode, RouteElementNames nameSet) {
+		super(camelCTX, wupTopologyNode, nameSet);
+	}
+
+	@Override
+	public void configure() {
+		getLogger().debug(".configure(): Entry!, for wupNode --> {}", getWupTopologyNode());
+		RouteElementNames nameSet = getNameSet();
+		getLogger().debug("FusedWUPContainerRoute :: EndPointWUPContainerIngresProcessorIngres --> {}", nameSet.getEndPointWUPContainerIngresProcessorIngres());
+		getLogger().debug("FusedWUPContainerRoute :: EndPointWUPIngres --> {}", nameSet.getEndPointWUPIngres());
+		getLogger().debug("FusedWUPContainerRoute :: EndPointWUPEgress --> {}", nameSet.getEndPointWUPEgress());
+
+		NodeDetailInjector nodeDetailInjector = new NodeDetailInjector();
+
+		fromWithStandardExceptionHandling(nameSet.getEndPointWUPContainerIngresProcessorIngres())
+				.routeId(nameSet.getRouteWUPContainerIngressProcessor())
+				.process(nodeDetailInjector)
+				.bean(WUPContainerIngresProcessor.class, "ingresContentProcessor(*, Exchange)")
+				.filter(method(WUPContainerIngresGatekeeper.class, "isToBeForwarded(*)")).id(nameSet.getRouteWUPContainerIngresGateway())
+					.bean(WUPIngresConduit.class, "forwardIntoWUP(*, Exchange)").id(nameSet.getRouteIngresConduitIngres2WUPIngres())
+					.to(nameSet.getEndPointWUPIngres())
+				.end();
+
+		fromWithStandardExceptionHandling(nameSet.getEndPointWUPEgress())
+				.routeId(nameSet.getRouteWUPEgress2WUPEgressConduitEgress())
+				.process(nodeDetailInjector)
+				.bean(WUPEgressConduit.class, "receiveFromWUP(*, Exchange)")
+				.bean(WUPContainerEgressProcessor.class, "egressContentProcessor(*, Exchange)").id(nameSet.getRouteWUPContainerEgressProcessor())
+				.bean(WUPContainerEgressGatekeeper.class, "egressGatekeeper(*, Exchange)").id(nameSet.getRouteWUPContainerEgressGateway());
+	}
+}
@@ -61,6 +61,16 @@ public class StandardWUPContainerRoute extends BaseRouteBuilder {
 		nameSet = new RouteElementNames(wupTopologyNode.getNodeFDN().getToken(), requiresDirect);
 	}
 
+	public StandardWUPContainerRoute(CamelContext camelCTX, WorkUnitProcessorTopologyNode wupTopologyNode, RouteElementNames nameSet) {
+		super(camelCTX);
+		getLogger().debug(".StandardWUPContainerRoute(): Entry, context --> ###, wupNode --> {}", wupTopologyNode);
+		if(nameSet == null){
+			throw(new IllegalArgumentException(".StandardWUPContainerRoute(): nameSet is null"));
+		}
+		this.wupTopologyNode = wupTopologyNode;
+		this.nameSet = nameSet;
+	}
+
 	@Override
 	public void configure() {
 		getLogger().debug(".configure(): Entry!, for wupNode --> {}", this.wupTopologyNode);
@@ -145,4 +155,8 @@ public class StandardWUPContainerRoute extends BaseRouteBuilder {
 	public WorkUnitProcessorTopologyNode getWupTopologyNode() {
 		return wupTopologyNode;
 	}
+
+	protected RouteElementNames getNameSet() {
+		return nameSet;
+	}
 }
@@ -22,13 +22,13 @@
 
 package net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.worker.buildingblocks;
 
-import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDNToken;
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFunctionFDNToken;
 import net.fhirfactory.pegacorn.common.model.generalid.FDN;
 import net.fhirfactory.pegacorn.common.model.generalid.FDNToken;
 import net.fhirfactory.pegacorn.deployment.topology.manager.TopologyIM;
 import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
 import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNames;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNamesRegistry;
 import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
 import net.fhirfactory.pegacorn.petasos.model.pathway.WorkUnitTransportPacket;
 import org.apache.camel.Exchange;
@@ -56,6 +56,9 @@ public class WUPContainerEgressGatekeeper {
     @Inject
     TopologyIM topologyProxy;
 
+    @Inject
+    RouteElementNamesRegistry routeElementNamesRegistry;
+
     private String getGatekeeperProperty(FDNToken wupIdentifier) {
         FDN workingFDN = new FDN(wupIdentifier);
         String workingInstanceID = workingFDN.getUnqualifiedRDN().getValue();
@@ -80,11 +83,9 @@ public class WUPContainerEgressGatekeeper {
         getLogger().trace(".egressGatekeeper(): Retrieving the WUPTopologyNode from the camelExchange (Exchange) passed in");
         WorkUnitProcessorTopologyNode node = camelExchange.getProperty(PetasosPropertyConstants.WUP_TOPOLOGY_NODE_EXCHANGE_PROPERTY_NAME, WorkUnitProcessorTopologyNode.class);
         getLogger().trace(".egressGatekeeper(): Node Element retrieved --> {}", node);
-        TopologyNodeFDNToken wupFunctionToken = node.getNodeFDN().getToken();
-        getLogger().trace(".egressGatekeeper(): wupFunctionToken (NodeElementFunctionToken) for this activity --> {}", wupFunctionToken);
         // Now, continue with business logic
-        RouteElementNames nameSet = new RouteElementNames( wupFunctionToken);
-        getLogger().trace(".egressGatekeeper(): Created the nameSet (RouteElementNames) for the activity --> {}", nameSet);
+        RouteElementNames nameSet = routeElementNamesRegistry.getRouteElementNames(node);
+        getLogger().trace(".egressGatekeeper(): Retrieved the nameSet (RouteElementNames) for the activity --> {}", nameSet);
         ArrayList<String> targetList = new ArrayList<String>();
         if(!transportPacket.hasCurrentJobCard()) {
             getLogger().warn(".egressGatekeeper(): CurrentJobCard is null!");
@@ -22,11 +22,11 @@
 
 package net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.worker.buildingblocks;
 
-import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDNToken;
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFunctionFDNToken;
 import net.fhirfactory.pegacorn.deployment.topology.manager.TopologyIM;
 import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
 import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNames;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNamesRegistry;
 import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
 import net.fhirfactory.pegacorn.petasos.model.pathway.WorkUnitTransportPacket;
 import org.apache.camel.Exchange;
@@ -54,6 +54,9 @@ public class WUPContainerIngresGatekeeper {
     @Inject
     TopologyIM topologyProxy;
 
+    @Inject
+    RouteElementNamesRegistry routeElementNamesRegistry;
+
     /**
      * This class/method checks the status of the WUPJobCard for the parcel, and ascertains if it is to be
      * discarded (because of some processing error or due to the fact that the processing has occurred already
@@ -71,13 +74,11 @@ public class WUPContainerIngresGatekeeper {
         getLogger().trace(".ingresGatekeeper(): Retrieving the WUPTopologyNode from the camelExchange (Exchange) passed in");
         WorkUnitProcessorTopologyNode node = camelExchange.getProperty(PetasosPropertyConstants.WUP_TOPOLOGY_NODE_EXCHANGE_PROPERTY_NAME, WorkUnitProcessorTopologyNode.class);
         getLogger().trace(".ingresGatekeeper(): Node Element retrieved --> {}", node);
-        TopologyNodeFDNToken wupToken = node.getNodeFDN().getToken();
-        getLogger().trace(".ingresGatekeeper(): wupFunctionToken (NodeElementFunctionToken) for this activity --> {}", wupToken);
         // Now, continue with business logic
-        RouteElementNames nameSet = new RouteElementNames(wupToken);
+        RouteElementNames nameSet = routeElementNamesRegistry.getRouteElementNames(node);
         ArrayList<String> targetList = new ArrayList<String>();
         getLogger().trace(".ingresGatekeeper(): So, we will now determine if the Packet should be forwarded or discarded");
-        if (ingresPacket.getCurrentJobCard().getIsToBeDiscarded()) {
+        if (!isToBeForwarded(ingresPacket)) {
             getLogger().debug(".ingresGatekeeper(): Returning null, as message is to be discarded (isToBeDiscarded == true)");
             return (null);
         } else {
@@ -88,4 +89,21 @@ public class WUPContainerIngresGatekeeper {
             return (targetList);
         }
     }
+
+    /**
+     * The forward/discard decision of the ingresGatekeeper(), for use as a (filter) predicate when the WUP
+     * Container is built as a single (fused) route - see FusedWUPContainerRoute.
+     *
+     * @param ingresPacket The WorkUnitTransportPacket that is to be forwarded to the WUP Ingres Conduit (if all is OK)
+     * @return True if the packet is to be forwarded, false if it is to be discarded
+     */
+    public boolean isToBeForwarded(WorkUnitTransportPacket ingresPacket) {
+        if (ingresPacket == null || !ingresPacket.hasCurrentJobCard()) {
+            getLogger().warn(".isToBeForwarded(): ingresPacket or its CurrentJobCard is null, discarding!");
+            return (false);
+        }
+        boolean toBeForwarded = !ingresPacket.getCurrentJobCard().getIsToBeDiscarded();
+        getLogger().debug(".isToBeForwarded(): Exit, toBeForwarded->{}", toBeForwarded);
+        return (toBeForwarded);
+    }
 }
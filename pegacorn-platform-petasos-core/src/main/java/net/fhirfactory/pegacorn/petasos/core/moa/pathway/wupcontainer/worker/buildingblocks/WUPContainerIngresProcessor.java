@@ -29,7 +29,7 @@ import net.fhirfactory.pegacorn.deployment.topology.model.mode.ConcurrencyModeEn
 import net.fhirfactory.pegacorn.deployment.topology.model.mode.ResilienceModeEnum;
 import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
 import net.fhirfactory.pegacorn.petasos.core.moa.brokers.PetasosMOAServicesBroker;
-import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNames;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.manager.WUPIngresQueueMonitor;
 import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
 import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
 import net.fhirfactory.pegacorn.petasos.model.pathway.WorkUnitTransportPacket;
@@ -50,6 +50,11 @@ import javax.enterprise.context.Dependent;
 import javax.inject.Inject;
 import java.time.Instant;
 import java.util.Date;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * @author Mark A. Hunter
@@ -62,13 +67,14 @@ public class WUPContainerIngresProcessor {
         return(LOG);
     }
 
-    private RouteElementNames elementNames;
-
     @Inject
     PetasosMOAServicesBroker petasosMOAServicesBroker;
 
     @Inject
     TopologyIM topologyProxy;
+
+    @Inject
+    WUPIngresQueueMonitor ingresQueueMonitor;
     
     /**
      * This class/method is used as the injection point into the WUP Processing Framework for the specific WUP Type/Instance in question.
@@ -86,8 +92,10 @@ public class WUPContainerIngresProcessor {
      * assign a "failed" status to both the WUPJobCard and ParcelStatusElement, and trigger a discard of this Parcel (for a retry) via setting the
      * WUPJobCard.isToBeDiscarded attribute to true.
      *
-     * Finally, if all is going OK, but this WUP-Thread does not have the Cluster Focus (or SystemWide Focus), it waits in a sleep/loop until a condition
-     * changes.
+     * Finally, if all is going OK, but this WUP-Thread does not have the Cluster Focus (or SystemWide Focus), it registers an execution grant request
+     * and waits on the returned CompletableFuture - which is signalled by the ProcessingPlantResilienceActivityServicesController when the grant state
+     * for the Parcel (or its Episode) changes. The wait is bounded (WUP_EXECUTION_GRANT_WAIT_TIMEOUT_MILLISECONDS) so that the JobCard is still
+     * periodically re-synchronised should a signal be missed.
      *
      * @param transportPacket The WorkUnitTransportPacket that is to be forwarded to the Intersection (if all is OK)
      * @param camelExchange The Apache Camel Exchange object, used to store a Semaphors and Attributes
@@ -98,10 +106,10 @@ public class WUPContainerIngresProcessor {
         // Get my Petasos Context
         getLogger().trace(".ingresContentProcessor(): Retrieving the WUPTopologyNode from the camelExchange (Exchange) passed in");
         WorkUnitProcessorTopologyNode node = camelExchange.getProperty(PetasosPropertyConstants.WUP_TOPOLOGY_NODE_EXCHANGE_PROPERTY_NAME, WorkUnitProcessorTopologyNode.class);
+        ingresQueueMonitor.recordQueueWait(node, transportPacket.getSenderSendDate());
         TopologyNodeFunctionFDNToken wupFunctionToken = node.getNodeFunctionFDN().getFunctionToken();
         getLogger().trace(".ingresContentProcessor(): wupFunctionToken (NodeElementFunctionToken) for this activity --> {}", wupFunctionToken);
         // Now, continue with business logic
-        elementNames = new RouteElementNames(node.getNodeFDN().getToken());
         getLogger().trace(".ingresContentProcessor(): Now, check if this the 1st time the associated UoW has been (attempted to be) processed");
         WorkUnitTransportPacket newTransportPacket;
         if (transportPacket.getIsARetry()) {
@@ -111,7 +119,7 @@ public class WUPContainerIngresProcessor {
             getLogger().trace(".ingresContentProcessor(): This is the 1st time this UoW is being processed, so send to .standardIngresContentProcessor()");
             newTransportPacket = standardIngresContentProcessor(transportPacket, camelExchange, wupFunctionToken, node.getNodeFDN().getToken());
         }
-        long waitTime = PetasosPropertyConstants.WUP_SLEEP_INTERVAL_MILLISECONDS;
+        long waitTime = PetasosPropertyConstants.WUP_EXECUTION_GRANT_WAIT_TIMEOUT_MILLISECONDS;
         boolean waitState = true;
         WUPJobCard jobCard = newTransportPacket.getCurrentJobCard();
         ParcelStatusElement statusElement = newTransportPacket.getCurrentParcelStatus();
@@ -120,7 +128,7 @@ public class WUPContainerIngresProcessor {
                 case WUP_ACTIVITY_STATUS_WAITING:
                     getLogger().trace(".ingresContentProcessor(): jobCard.getCurrentStatus --> {}",WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_WAITING );
                     jobCard.setRequestedStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_EXECUTING);
-                    petasosMOAServicesBroker.synchroniseJobCard(jobCard);
+                    CompletableFuture<WUPActivityStatusEnum> grantFuture = petasosMOAServicesBroker.requestExecutionGrant(jobCard);
                     if (jobCard.getGrantedStatus() == WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_EXECUTING) {
                         jobCard.setCurrentStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_EXECUTING);
                         petasosMOAServicesBroker.notifyStartOfWorkUnitActivity(jobCard);
@@ -128,6 +136,22 @@ public class WUPContainerIngresProcessor {
                         waitState = false;
                         break;
                     }
+                    try {
+                        getLogger().trace(".ingresContentProcessor(): Waiting (at most {} ms) for a change in our execution grant", waitTime);
+                        grantFuture.get(waitTime, TimeUnit.MILLISECONDS);
+                    } catch (TimeoutException e) {
+                        getLogger().trace(".ingresContentProcessor(): No grant signal received, re-synchronising the JobCard anyway");
+                    } catch (CancellationException | ExecutionException e) {
+                        getLogger().trace(".ingresContentProcessor(): Grant request was withdrawn, re-synchronising the JobCard, reason --> {}", e.getMessage());
+                    } catch (InterruptedException e) {
+                        getLogger().debug(".ingresContentProcessor(): Interrupted while waiting for an execution grant, discarding! reason --> {}", e.getMessage());
+                        Thread.currentThread().interrupt();
+                        petasosMOAServicesBroker.cancelExecutionGrantRequest(jobCard);
+                        jobCard.setIsToBeDiscarded(true);
+                        waitState = false;
+                        jobCard.setCurrentStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_CANCELED);
+                        jobCard.setRequestedStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_CANCELED);
+                    }
                     break;
                 case WUP_ACTIVITY_STATUS_EXECUTING:
                 case WUP_ACTIVITY_STATUS_FINISHED:
@@ -140,13 +164,6 @@ public class WUPContainerIngresProcessor {
                     jobCard.setCurrentStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_CANCELED);
                     jobCard.setRequestedStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_CANCELED);
             }
-            if (waitState) {
-                try {
-                    Thread.sleep(waitTime);
-                } catch (InterruptedException e) {
-                    getLogger().trace(".ingresContentProcessor(): Something interrupted my nap! reason --> {}", e.getMessage());
-                }
-            }
         }
         if (jobCard.getIsToBeDiscarded()) {
             ParcelStatusElement currentParcelStatus = newTransportPacket.getCurrentParcelStatus();
@@ -23,11 +23,9 @@
 package net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.worker.buildingblocks;
 
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDNToken;
-import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFunctionFDNToken;
 import net.fhirfactory.pegacorn.deployment.topology.manager.TopologyIM;
 import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
 import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.PetasosPathwayExchangePropertyNames;
-import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNames;
 import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
 import net.fhirfactory.pegacorn.petasos.model.pathway.WorkUnitTransportPacket;
 import net.fhirfactory.pegacorn.petasos.model.resilience.activitymatrix.moa.ParcelStatusElement;
@@ -77,10 +75,6 @@ public class WUPEgressConduit {
         }
         WorkUnitProcessorTopologyNode node = camelExchange.getProperty(PetasosPropertyConstants.WUP_TOPOLOGY_NODE_EXCHANGE_PROPERTY_NAME, WorkUnitProcessorTopologyNode.class);
         getLogger().trace(".receiveFromWUP(): Node Element retrieved --> {}", node);
-        TopologyNodeFunctionFDNToken wupFunctionToken = node.getNodeFunctionFDN().getFunctionToken();
-        getLogger().trace(".receiveFromWUP(): wupFunctionToken (NodeElementFunctionToken) for this activity --> {}", wupFunctionToken); 
-        // Now, continue with business logic
-        RouteElementNames elementNames = new RouteElementNames(node.getNodeFDN().getToken());
         // Retrieve the information from the CamelExchange
         WUPJobCard jobCard = camelExchange.getProperty(PetasosPropertyConstants.WUP_JOB_CARD_EXCHANGE_PROPERTY_NAME, WUPJobCard.class);
         ParcelStatusElement statusElement = camelExchange.getProperty(PetasosPropertyConstants.WUP_PETASOS_PARCEL_STATUS_EXCHANGE_PROPERTY_NAME, ParcelStatusElement.class);
@@ -91,28 +85,22 @@ public class WUPEgressConduit {
         switch (incomingUoW.getProcessingOutcome()) {
             case UOW_OUTCOME_SUCCESS:
                 getLogger().trace(".receiveFromWUP(): UoW was processed successfully - updating JobCard/StatusElement to FINISHED!");
-                jobCard.setCurrentStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_FINISHED);
-                jobCard.setRequestedStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_FINISHED);
-                statusElement.setParcelStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
-                statusElement.setEntryDate(Date.from(Instant.now()));
+                jobCard.updateStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_FINISHED, WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_FINISHED, Date.from(Instant.now()));
+                statusElement.updateParcelStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED, Date.from(Instant.now()));
                 break;
             case UOW_OUTCOME_NO_PROCESSING_REQUIRED:
                 getLogger().trace(".receiveFromWUP(): UoW was processed with no actions required - updating JobCard/StatusElement to FINISHED!");
-                jobCard.setCurrentStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_FINISHED);
-                jobCard.setRequestedStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_FINISHED);
+                jobCard.updateStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_FINISHED, WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_FINISHED, Date.from(Instant.now()));
                 jobCard.setIsToBeDiscarded(true);
-                statusElement.setParcelStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
-                statusElement.setEntryDate(Date.from(Instant.now()));
+                statusElement.updateParcelStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED, Date.from(Instant.now()));
                 break;
             case UOW_OUTCOME_NOTSTARTED:
             case UOW_OUTCOME_INCOMPLETE:
             case UOW_OUTCOME_FAILED:
             default:
                 getLogger().trace(".receiveFromWUP(): UoW was not processed or processing failed - updating JobCard/StatusElement to FAILED!");
-                jobCard.setCurrentStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_FAILED);
-                jobCard.setRequestedStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_FAILED);
-                statusElement.setParcelStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED);
-                statusElement.setEntryDate(Date.from(Instant.now()));
+                jobCard.updateStatus(WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_FAILED, WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_FAILED, Date.from(Instant.now()));
+                statusElement.updateParcelStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED, Date.from(Instant.now()));
                 break;
         }
         transportPacket.setCurrentJobCard(jobCard);
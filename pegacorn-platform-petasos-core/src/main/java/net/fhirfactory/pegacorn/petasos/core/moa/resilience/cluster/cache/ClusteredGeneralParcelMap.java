@@ -22,19 +22,23 @@
 
 package net.fhirfactory.pegacorn.petasos.core.moa.resilience.cluster.cache;
 
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.annotation.PostConstruct;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 
+import net.fhirfactory.pegacorn.petasos.model.resilience.episode.PetasosEpisodeIdentifier;
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
 import org.apache.camel.CamelContext;
 import org.infinispan.Cache;
+import org.infinispan.context.Flag;
 import org.infinispan.manager.DefaultCacheManager;
+import org.infinispan.util.function.SerializablePredicate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -102,28 +106,66 @@ public class ClusteredGeneralParcelMap {
     	petasosParcelCache.remove(parcelInstanceID);
     }
     
+    /**
+     * Note: this ships every parcel in the clustered cache to this node, use one of the (filtered) queries
+     * below wherever possible.
+     *
+     * @return All the parcels in the clustered cache
+     */
     public List<ResilienceParcel> getParcelSet(){
     	LOG.debug(".getParcelSet(): Entry");
-    	List<ResilienceParcel> parcelList = new LinkedList<ResilienceParcel>();
-    	petasosParcelCache.entrySet().forEach(entry -> parcelList.add(entry.getValue()));
+    	List<ResilienceParcel> parcelList = queryParcelSet(parcel -> true, false);
+    	LOG.debug(".getParcelSet(): Exit, parcelList.size()->{}", parcelList.size());
     	return(parcelList);
     }
-    
+
     public List<ResilienceParcel> getParcelSetByState(ResilienceParcelProcessingStatusEnum status){
-    	LOG.debug(".getParcelSet(): Entry, status --> {}", status);
-    	List<ResilienceParcel> parcelList = new LinkedList<ResilienceParcel>();
-    	Iterator<ResilienceParcel> parcelListIterator = parcelList.iterator();
-    	while(parcelListIterator.hasNext()) {
-    		ResilienceParcel currentParcel = parcelListIterator.next();
-    		if(currentParcel.hasProcessingStatus()) {
-    			if(currentParcel.getProcessingStatus()==status) {
-    				parcelList.add(currentParcel);
-    			}
-    		}
+    	LOG.debug(".getParcelSetByState(): Entry, status --> {}", status);
+    	if(status == null){
+    		throw(new IllegalArgumentException(".getParcelSetByState(): status is null"));
     	}
+    	List<ResilienceParcel> parcelList = queryParcelSet(statusFilter(EnumSet.of(status)), false);
+    	LOG.debug(".getParcelSetByState(): Exit, parcelList.size()->{}", parcelList.size());
     	return(parcelList);
-    }    
-    
+    }
+
+    /**
+     * The same as getParcelSetByState(), but only considers the parcels held by this node (i.e. there is no
+     * cluster-wide query).
+     *
+     * @param status The processing status of interest
+     * @return The (local) parcels with the given processing status
+     */
+    public List<ResilienceParcel> getLocalParcelSetByState(ResilienceParcelProcessingStatusEnum status){
+    	LOG.debug(".getLocalParcelSetByState(): Entry, status --> {}", status);
+    	if(status == null){
+    		throw(new IllegalArgumentException(".getLocalParcelSetByState(): status is null"));
+    	}
+    	List<ResilienceParcel> parcelList = queryParcelSet(statusFilter(EnumSet.of(status)), true);
+    	LOG.debug(".getLocalParcelSetByState(): Exit, parcelList.size()->{}", parcelList.size());
+    	return(parcelList);
+    }
+
+    public List<ResilienceParcel> getParcelSetByEpisode(PetasosEpisodeIdentifier episodeIdentifier){
+    	LOG.debug(".getParcelSetByEpisode(): Entry, episodeIdentifier --> {}", episodeIdentifier);
+    	if(episodeIdentifier == null){
+    		throw(new IllegalArgumentException(".getParcelSetByEpisode(): episodeIdentifier is null"));
+    	}
+    	List<ResilienceParcel> parcelList = queryParcelSet(episodeFilter(episodeIdentifier), false);
+    	LOG.debug(".getParcelSetByEpisode(): Exit, parcelList.size()->{}", parcelList.size());
+    	return(parcelList);
+    }
+
+    public List<ResilienceParcel> getParcelSetByWUP(WUPIdentifier wupIdentifier){
+    	LOG.debug(".getParcelSetByWUP(): Entry, wupIdentifier --> {}", wupIdentifier);
+    	if(wupIdentifier == null){
+    		throw(new IllegalArgumentException(".getParcelSetByWUP(): wupIdentifier is null"));
+    	}
+    	List<ResilienceParcel> parcelList = queryParcelSet(wupFilter(wupIdentifier), false);
+    	LOG.debug(".getParcelSetByWUP(): Exit, parcelList.size()->{}", parcelList.size());
+    	return(parcelList);
+    }
+
     public List<ResilienceParcel> getActiveParcelSet(){
     	List<ResilienceParcel> parcelList = getParcelSetByState(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
     	return(parcelList);
@@ -141,10 +183,46 @@ public class ClusteredGeneralParcelMap {
     
     public List<ResilienceParcel> getInProgressParcelSet(){
     	LOG.debug(".getInProgressParcelSet(): Entry");
-    	List<ResilienceParcel> parcelList = new LinkedList<ResilienceParcel>();
-    	parcelList.addAll(getParcelSetByState(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE));
-    	parcelList.addAll(getParcelSetByState(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_INITIATED));
-    	parcelList.addAll(getParcelSetByState(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED));
+    	EnumSet<ResilienceParcelProcessingStatusEnum> inProgressStatusSet = EnumSet.of(
+    			ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE,
+    			ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_INITIATED,
+    			ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
+    	List<ResilienceParcel> parcelList = queryParcelSet(statusFilter(inProgressStatusSet), false);
+    	LOG.debug(".getInProgressParcelSet(): Exit, parcelList.size()->{}", parcelList.size());
+    	return(parcelList);
+    }
+
+    //
+    // Query Helpers
+    //
+
+    /**
+     * Run the parcelFilter as an Infinispan distributed stream: each node filters the parcels it owns and only
+     * the matching parcels are returned (over the wire) to this node. If localOnly is set, only the parcels held
+     * by this node are considered.
+     */
+    private List<ResilienceParcel> queryParcelSet(SerializablePredicate<ResilienceParcel> parcelFilter, boolean localOnly){
+    	Cache<FDNToken, ResilienceParcel> queriedCache = petasosParcelCache;
+    	if(localOnly){
+    		queriedCache = petasosParcelCache.getAdvancedCache().withFlags(Flag.CACHE_MODE_LOCAL);
+    	}
+    	List<ResilienceParcel> parcelList = queriedCache.values().stream()
+    			.filter(parcelFilter)
+    			.collect(() -> Collectors.toList());
     	return(parcelList);
     }
+
+    // The filters are built in static methods so that they only capture their (Serializable) parameters
+
+    private static SerializablePredicate<ResilienceParcel> statusFilter(EnumSet<ResilienceParcelProcessingStatusEnum> statusSet){
+    	return(parcel -> parcel.hasProcessingStatus() && statusSet.contains(parcel.getProcessingStatus()));
+    }
+
+    private static SerializablePredicate<ResilienceParcel> episodeFilter(PetasosEpisodeIdentifier episodeIdentifier){
+    	return(parcel -> parcel.hasEpisodeIdentifier() && episodeIdentifier.equals(parcel.getEpisodeIdentifier()));
+    }
+
+    private static SerializablePredicate<ResilienceParcel> wupFilter(WUPIdentifier wupIdentifier){
+    	return(parcel -> parcel.hasAssociatedWUPIdentifier() && wupIdentifier.equals(parcel.getAssociatedWUPIdentifier()));
+    }
 }
@@ -36,7 +36,7 @@ import javax.inject.Inject;
 import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * This is the re-factored Resilience framework ActivityMatrix for
@@ -44,6 +44,13 @@ import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConst
  * Parcel activity within the ServiceModule - and has hooks for supporting
  * updates from Clustered and Multi-Site equivalents.
  *
+ * The (System Wide and Cluster) focus for each WUA Episode is held in an atomic
+ * per-Episode reference (see WUAEpisodeFocus), so handing the focus from one
+ * ResilienceParcel to another is a single atomic exchange - there can never be
+ * two focus holders - and finding the focus holder doesn't need to scan the
+ * Episode's ParcelStatusElements. The focus flags on the ParcelStatusElements
+ * themselves are kept in step with the reference.
+ *
  * @author Mark A. Hunter
  * @since 2020-06-01
  */
@@ -53,7 +60,9 @@ public class ProcessingPlantWUAEpisodeActivityMatrixDM {
     private static final Logger LOG = LoggerFactory.getLogger(ProcessingPlantWUAEpisodeActivityMatrixDM.class);
 
     private ConcurrentHashMap<ResilienceParcelIdentifier, ParcelStatusElement> parcelStatusElementCache;
-    private ConcurrentHashMap<PetasosEpisodeIdentifier, HashSet<ResilienceParcelIdentifier>> wuaEpisode2ParcelInstanceMap;
+    private ConcurrentHashMap<PetasosEpisodeIdentifier, Set<ResilienceParcelIdentifier>> wuaEpisode2ParcelInstanceMap;
+    private ConcurrentHashMap<ResilienceParcelIdentifier, PetasosEpisodeIdentifier> parcelInstance2WUAEpisodeMap;
+    private ConcurrentHashMap<PetasosEpisodeIdentifier, WUAEpisodeFocus> wuaEpisodeFocusMap;
 
     @Inject
     ProcessingPlantParcelCacheDM parcelCacheDM;
@@ -63,7 +72,9 @@ public class ProcessingPlantWUAEpisodeActivityMatrixDM {
 
     public ProcessingPlantWUAEpisodeActivityMatrixDM() {
         parcelStatusElementCache = new ConcurrentHashMap<ResilienceParcelIdentifier, ParcelStatusElement>();
-        wuaEpisode2ParcelInstanceMap = new ConcurrentHashMap<PetasosEpisodeIdentifier, HashSet<ResilienceParcelIdentifier>>();
+        wuaEpisode2ParcelInstanceMap = new ConcurrentHashMap<PetasosEpisodeIdentifier, Set<ResilienceParcelIdentifier>>();
+        parcelInstance2WUAEpisodeMap = new ConcurrentHashMap<ResilienceParcelIdentifier, PetasosEpisodeIdentifier>();
+        wuaEpisodeFocusMap = new ConcurrentHashMap<PetasosEpisodeIdentifier, WUAEpisodeFocus>();
     }
     
     /**
@@ -73,8 +84,11 @@ public class ProcessingPlantWUAEpisodeActivityMatrixDM {
      * enhanced to support cluster-based behaviours.
      *
      * It then registers (adds) the ParcelIdentifier to the WUAEpisode2ParcelMap
-     * (ConcurrentHashMap<EpisodeIdentifier,HashSet<ResilienceParcelIdentifier>>) to track that
-     * the specific Parcel is part of a processing Episode.
+     * (ConcurrentHashMap<EpisodeIdentifier,Set<ResilienceParcelIdentifier>>) to track that
+     * the specific Parcel is part of a processing Episode, along with the reverse
+     * ParcelInstance2WUAEpisodeMap (ConcurrentHashMap<ResilienceParcelIdentifier,EpisodeIdentifier>).
+     * The per-Episode sets are concurrent (ConcurrentHashMap.newKeySet()) so they can be safely
+     * modified by multiple WUP threads.
      *
      * @param activityID The WUP/Parcel ActivityID
      * @param initialProcessingStatus The initial (provided) Processing Status of the ResilienceParcel
@@ -100,70 +114,55 @@ public class ProcessingPlantWUAEpisodeActivityMatrixDM {
         }
         // First we are going to update the ParcelCache
         LOG.trace(".addWUA(): Adding/Updating the ParcelStatusElementCache with a new ParcelStatusElement");
-        ParcelStatusElement newStatusElement = null;
-        if(parcelStatusElementCache.containsKey(activityID.getPresentParcelIdentifier()))
-        {
-            LOG.trace(".addWUA(): ParcelIdentifier already registered in the ParcelStatusElementCache, let's make sure it's the same though!");
-            ParcelStatusElement existingStatusElement = parcelStatusElementCache.get(activityID.getPresentParcelIdentifier());
-            boolean sameInstanceID = existingStatusElement.getParcelInstanceID().equals(activityID.getPresentParcelIdentifier());
-            boolean sameEpisodeID = existingStatusElement.getActivityID().getPresentEpisodeIdentifier().equals(activityID.getPresentEpisodeIdentifier());
-            boolean sameWUPInstanceID = existingStatusElement.getActivityID().getPresentWUPIdentifier().equals(activityID.getPresentWUPIdentifier());
-            boolean sameWUPTypeID = existingStatusElement.getActivityID().getPresentWUPFunctionToken().equals(activityID.getPresentWUPFunctionToken());
-            boolean sameUpstreamEpisodeID = existingStatusElement.getActivityID().getPreviousEpisodeIdentifier().equals(activityID.getPreviousEpisodeIdentifier());
-            if( sameInstanceID && sameEpisodeID && sameWUPInstanceID && sameWUPTypeID && sameUpstreamEpisodeID ){
-                LOG.trace(".addWUA(): New ActivityID and existing (registered) ID the same, so update the status (maybe) and then exit");
-                existingStatusElement.setParcelStatus(initialProcessingStatus);
-                LOG.trace(".addWUA(): Set the to-be-returned ParcelStatusElement to the existingStatusElement");
-                newStatusElement = existingStatusElement;
-            } else {
-                LOG.trace(".addWUA(): New ActivityID and existing (registered) ID are different, so delete the existing one from the ParcelStatusElementCache!");
-                parcelStatusElementCache.remove(activityID.getPresentParcelIdentifier());
-                LOG.trace(".addWUA(): Now create a new ParcelStatusElement, set its initial status and add it to the ParcelStatusElementCache!");
-                newStatusElement = new ParcelStatusElement(activityID);
-                newStatusElement.setParcelStatus(initialProcessingStatus);
-                LOG.trace(".addWUA(): New ParcelStatusElement created, newStatusElement --> {}", newStatusElement);
-                parcelStatusElementCache.put(activityID.getPresentParcelIdentifier(), newStatusElement);
+        // compute() is atomic per ResilienceParcelIdentifier, so concurrent registrations of the same Parcel can't replace each other's element
+        ParcelStatusElement newStatusElement = parcelStatusElementCache.compute(activityID.getPresentParcelIdentifier(), (key, existingStatusElement) -> {
+            if(existingStatusElement != null) {
+                LOG.trace(".addWUA(): ParcelIdentifier already registered in the ParcelStatusElementCache, let's make sure it's the same though!");
+                boolean sameInstanceID = existingStatusElement.getParcelInstanceID().equals(activityID.getPresentParcelIdentifier());
+                boolean sameEpisodeID = existingStatusElement.getActivityID().getPresentEpisodeIdentifier().equals(activityID.getPresentEpisodeIdentifier());
+                boolean sameWUPInstanceID = existingStatusElement.getActivityID().getPresentWUPIdentifier().equals(activityID.getPresentWUPIdentifier());
+                boolean sameWUPTypeID = existingStatusElement.getActivityID().getPresentWUPFunctionToken().equals(activityID.getPresentWUPFunctionToken());
+                boolean sameUpstreamEpisodeID = existingStatusElement.getActivityID().getPreviousEpisodeIdentifier().equals(activityID.getPreviousEpisodeIdentifier());
+                if( sameInstanceID && sameEpisodeID && sameWUPInstanceID && sameWUPTypeID && sameUpstreamEpisodeID ){
+                    LOG.trace(".addWUA(): New ActivityID and existing (registered) ID the same, so update the status (maybe) and keep the existingStatusElement");
+                    existingStatusElement.setParcelStatus(initialProcessingStatus);
+                    return(existingStatusElement);
+                }
+                LOG.trace(".addWUA(): New ActivityID and existing (registered) ID are different, so replace the existing one in the ParcelStatusElementCache!");
             }
-        } else {
             LOG.trace(".addWUA(): Create a new ParcelStatusElement, set its initial status and add it to the ParcelStatusElementCache!");
-            newStatusElement = new ParcelStatusElement(activityID);
-            newStatusElement.setParcelStatus(initialProcessingStatus);
-            LOG.trace(".addWUA(): New ParcelStatusElement created, newStatusElement --> {}", newStatusElement);
-            parcelStatusElementCache.put(activityID.getPresentParcelIdentifier(), newStatusElement);
-        }
+            ParcelStatusElement createdStatusElement = new ParcelStatusElement(activityID);
+            createdStatusElement.setParcelStatus(initialProcessingStatus);
+            LOG.trace(".addWUA(): New ParcelStatusElement created, createdStatusElement --> {}", createdStatusElement);
+            return(createdStatusElement);
+        });
         // Now let's update the WUAEpisode2ParcelMap for the Episode/ResilienceParcel combination
         if(LOG.isTraceEnabled()) {
             LOG.trace(".addWUA(): Adding the ReslienceParcelIdentifier to the WUAEpisode2ParcelMap");
             LOG.trace(".addWUA(): EpisodeIdentifier --> {}", activityID.getPresentEpisodeIdentifier() );
             LOG.trace(".addWUA(): ResilienceParcelIdentifier --> {}", activityID.getPresentParcelIdentifier());
         }
-        if(!wuaEpisode2ParcelInstanceMap.containsKey(activityID.getPresentEpisodeIdentifier()) ){
-        	LOG.trace(".addWUA(): No WUAEpisode2ParcelMap Entry for this Episode, creating!");
-        	HashSet<ResilienceParcelIdentifier> wuaEpisodeParcelSet = new HashSet<ResilienceParcelIdentifier>();
-        	LOG.trace(".addWUA(): Add the ResilienceParcelIdentifier to the HashSet<ResilienceParcelIdentifier> set of Parcels associated to this Episode");
-            wuaEpisodeParcelSet.add(activityID.getPresentParcelIdentifier());
-            LOG.trace(".addWUA(): Add the EpisodeIdentifier/HashSet<ResilienceParcelIdentifier> combination to the WUAEpisode2ParcelMap");
-        	wuaEpisode2ParcelInstanceMap.put(activityID.getPresentEpisodeIdentifier(),wuaEpisodeParcelSet );
-        } else {
-        	LOG.trace(".addWUA(): WUAEpisode2ParcelMap Entry exists for this Episode, so retrieve the HashSet<ResilienceParcelIdentifier> set of Parcels associated to this Episode!");
-            Set<ResilienceParcelIdentifier> wuaEpisodeParcelSet = wuaEpisode2ParcelInstanceMap.get(activityID.getPresentEpisodeIdentifier());
-            LOG.trace(".addWUA(): Now check to see if the ResilienceParcelIdentifier is already in the HashSet<ResilienceParcelIdentifier> set of Parcels associated to this Episode?");
-            Iterator<ResilienceParcelIdentifier> setIterator = wuaEpisodeParcelSet.iterator();
-            boolean foundParcelIdentifierInSet = false;
-            while(setIterator.hasNext()){
-                ResilienceParcelIdentifier currentParcelIdentifier = setIterator.next();
-                if(currentParcelIdentifier.equals(activityID.getPresentParcelIdentifier())){
-                    foundParcelIdentifierInSet = true;
-                    break;
-                }
+        ResilienceParcelIdentifier parcelInstanceID = activityID.getPresentParcelIdentifier();
+        PetasosEpisodeIdentifier episodeID = activityID.getPresentEpisodeIdentifier();
+        PetasosEpisodeIdentifier previousEpisodeID = parcelInstance2WUAEpisodeMap.put(parcelInstanceID, episodeID);
+        if((previousEpisodeID != null) && !previousEpisodeID.equals(episodeID)){
+            LOG.trace(".addWUA(): The ResilienceParcelIdentifier was previously associated with another Episode, so remove it from that Episode's set");
+            removeParcelFromEpisodeSet(previousEpisodeID, parcelInstanceID);
+        }
+        // compute() is atomic per Episode, so this cannot race with removeParcelFromEpisodeSet() discarding an emptied set
+        wuaEpisode2ParcelInstanceMap.compute(episodeID, (key, wuaEpisodeParcelSet) -> {
+            if(wuaEpisodeParcelSet == null){
+                LOG.trace(".addWUA(): No WUAEpisode2ParcelMap Entry for this Episode, creating!");
+                wuaEpisodeParcelSet = ConcurrentHashMap.newKeySet();
             }
-            if(!foundParcelIdentifierInSet) {
-                LOG.trace(".addWUA(): The ResilienceParcelIdentifier is not already in the HashSet<ResilienceParcelIdentifier> set, so add it!");
-                wuaEpisodeParcelSet.add(activityID.getPresentParcelIdentifier());
+            if(!wuaEpisodeParcelSet.contains(parcelInstanceID)) {
+                LOG.trace(".addWUA(): The ResilienceParcelIdentifier is not already in the Set<ResilienceParcelIdentifier> set, so add it!");
+                wuaEpisodeParcelSet.add(parcelInstanceID);
             } else {
-                LOG.trace(".addWUA(): The ResilienceParcelIdentifier is already in the HashSet<ResilienceParcelIdentifier> set, so do nothing!");
+                LOG.trace(".addWUA(): The ResilienceParcelIdentifier is already in the Set<ResilienceParcelIdentifier> set, so do nothing!");
             }
-        }
+            return(wuaEpisodeParcelSet);
+        });
         LOG.debug(".addWUA(): Exit, newStatusElement --> {}", newStatusElement);
         return(newStatusElement);
     }
@@ -171,7 +170,9 @@ public class ProcessingPlantWUAEpisodeActivityMatrixDM {
     /**
      * Update the Status of the WUA Element to reflect the requested change. The system is operating in
      * Standalone/Standalone Resilience/Concurrency mode - so there is no need to check for SystemWide/Cluster
-     * Focus or support any form of concurrent processing.
+     * Focus. The status change itself is a compare-and-set of the ParcelStatusElement's status (along with its
+     * entry date) from the status it was seen in, so the entry date only moves when the status actually changes,
+     * and a missing element is (atomically) created via addWUA().
      *
      * @param activityID The unique Identifier that distinctly represents this work/resilience activity function
      * @param status     The new status to be applied to the WUA Element
@@ -183,12 +184,17 @@ public class ProcessingPlantWUAEpisodeActivityMatrixDM {
         }
         LOG.trace(".updateWUA(): Get the current ParcelStatusElement");
         ResilienceParcelIdentifier parcelInstanceID = activityID.getPresentParcelIdentifier();
-        ParcelStatusElement currentStatusElement;
-        if(parcelStatusElementCache.containsKey(parcelInstanceID)) {
-            LOG.trace(".updateWUA(): ParcelStatusElement exists -> get it!");
-            currentStatusElement = parcelStatusElementCache.get(parcelInstanceID);
+        ParcelStatusElement currentStatusElement = parcelStatusElementCache.get(parcelInstanceID);
+        if(currentStatusElement != null) {
             LOG.trace(".updateWUA(): Updating status of the ParcelStatusElement!");
-            currentStatusElement.setParcelStatus(status);
+            ResilienceParcelProcessingStatusEnum previousStatus;
+            do {
+                previousStatus = currentStatusElement.getParcelStatus();
+                if(previousStatus == status){
+                    LOG.trace(".updateWUA(): The ParcelStatusElement already has the status, nothing to do");
+                    break;
+                }
+            } while(!currentStatusElement.compareAndSetParcelStatus(previousStatus, status, Date.from(Instant.now())));
         } else {
             LOG.trace(".updateWUA(): ParcelStatusElement does not exist -> create it!");
             currentStatusElement = this.addWUA(activityID, status);
@@ -198,8 +204,11 @@ public class ProcessingPlantWUAEpisodeActivityMatrixDM {
 
     public ParcelStatusElement getParcelStatusElement(ResilienceParcelIdentifier parcelInstanceID) {
         LOG.debug(".getCurrentParcelStatusElement(): Entry, parcelInstanceID --> {}", parcelInstanceID);
-        if(parcelStatusElementCache.containsKey(parcelInstanceID)) {
-	        ParcelStatusElement requestedElement = parcelStatusElementCache.get(parcelInstanceID);
+        if(parcelInstanceID == null) {
+            return (null);
+        }
+        ParcelStatusElement requestedElement = parcelStatusElementCache.get(parcelInstanceID);
+        if(requestedElement != null) {
 	        LOG.debug(".getCurrentParcelStatusElement(): Exit, returning requestedElement --> {}", requestedElement);
 	        return (requestedElement);
         }
@@ -209,30 +218,69 @@ public class ProcessingPlantWUAEpisodeActivityMatrixDM {
         }
     }
 
+    /**
+     * This function removes the ParcelStatusElement for the given ResilienceParcel from the ActivityMatrix,
+     * along with its entry in the WUAEpisode2ParcelMap and ParcelInstance2WUAEpisodeMap.
+     *
+     * @param parcelInstanceID The ResilienceParcelIdentifier of the Parcel to be removed
+     * @return The EpisodeIdentifier the Parcel belonged to, or null if it wasn't registered
+     */
+    public PetasosEpisodeIdentifier removeWUA(ResilienceParcelIdentifier parcelInstanceID) {
+        LOG.debug(".removeWUA(): Entry, parcelInstanceID --> {}", parcelInstanceID);
+        if(parcelInstanceID == null){
+            return(null);
+        }
+        parcelStatusElementCache.remove(parcelInstanceID);
+        PetasosEpisodeIdentifier episodeID = parcelInstance2WUAEpisodeMap.remove(parcelInstanceID);
+        if(episodeID != null){
+            WUAEpisodeFocus episodeFocus = wuaEpisodeFocusMap.get(episodeID);
+            if(episodeFocus != null){
+                episodeFocus.systemWideFocus.compareAndSet(parcelInstanceID, null);
+                episodeFocus.clusterFocus.compareAndSet(parcelInstanceID, null);
+            }
+            removeParcelFromEpisodeSet(episodeID, parcelInstanceID);
+        }
+        LOG.debug(".removeWUA(): Exit, episodeID --> {}", episodeID);
+        return(episodeID);
+    }
+
+    public boolean hasEpisode(PetasosEpisodeIdentifier episodeID) {
+        if(episodeID == null){
+            return(false);
+        }
+        return(wuaEpisode2ParcelInstanceMap.containsKey(episodeID));
+    }
+
+    public int getParcelStatusElementCount() {
+        return(parcelStatusElementCache.size());
+    }
+
+    public int getEpisodeCount() {
+        return(wuaEpisode2ParcelInstanceMap.size());
+    }
+
     private PetasosEpisodeIdentifier findEpisodeIdentifierForParcelInstance(ResilienceParcelIdentifier parcelInstanceID) {
-        Enumeration<PetasosEpisodeIdentifier> wuaEpisodeEnumeration = wuaEpisode2ParcelInstanceMap.keys();
-        while (wuaEpisodeEnumeration.hasMoreElements()) {
-            PetasosEpisodeIdentifier presentWUAEpisode = wuaEpisodeEnumeration.nextElement();
-            Set<ResilienceParcelIdentifier> tokenSet = wuaEpisode2ParcelInstanceMap.get(presentWUAEpisode);
-            if(tokenSet == null){
+        if(parcelInstanceID == null){
+            return(null);
+        }
+        return (parcelInstance2WUAEpisodeMap.get(parcelInstanceID));
+    }
+
+    private void removeParcelFromEpisodeSet(PetasosEpisodeIdentifier episodeID, ResilienceParcelIdentifier parcelInstanceID) {
+        wuaEpisode2ParcelInstanceMap.computeIfPresent(episodeID, (key, episodeParcelSet) -> {
+            episodeParcelSet.remove(parcelInstanceID);
+            if(episodeParcelSet.isEmpty()){
+                // Discarded along with the (emptied) Episode set, so it can't race with a (re-)registration of the Episode in addWUA()
+                wuaEpisodeFocusMap.remove(key);
                 return(null);
             }
-            Iterator<ResilienceParcelIdentifier> tokenSetIterator = tokenSet.iterator();
-            while(tokenSetIterator.hasNext()) {
-                ResilienceParcelIdentifier currentIdentifier = tokenSetIterator.next();
-                if (currentIdentifier.equals(parcelInstanceID)) {
-                    return (presentWUAEpisode);
-                }
-            }
-        }
-        return (null);
+            return(episodeParcelSet);
+        });
     }
 
     /**
-     * This method extracts the list of Parcel ID's associated with a WUA
-     * Episode and iterates through each - using them to get their associated
-     * ParcelStatusElement - which is then checked to see if it has the System
-     * Wide Focus for the WUA Episode.
+     * This method returns the Parcel that currently holds the System Wide Focus
+     * for the WUA Episode (as held in the Episode's atomic focus reference).
      *
      * @param wuaEpisodeID The Work Unit Activity Episode ID we are attempting
      *                     to determine which Parcel has System Wide Focus for.
@@ -241,40 +289,22 @@ public class ProcessingPlantWUAEpisodeActivityMatrixDM {
      */
     public ResilienceParcelIdentifier getSiteWideFocusElement(PetasosEpisodeIdentifier wuaEpisodeID) {
         LOG.debug(".getSiteWideFocusElement(): Entry, wuaEpisodeID --> {}", wuaEpisodeID);
-        LOG.trace(".getSiteWideFocusElement(): Retrieve the ResilienceParcels for the Episode");
-        if(!wuaEpisode2ParcelInstanceMap.containsKey(wuaEpisodeID)) {
-            LOG.debug(".getSiteWideFocusElement(): Exit, No parcel was found with System Wide Focus, returning -null-");
+        if(wuaEpisodeID == null) {
             return (null);
         }
-        Set<ResilienceParcelIdentifier> wuaEpisodeParcelIDSet = wuaEpisode2ParcelInstanceMap.get(wuaEpisodeID);
-        LOG.trace(".getSiteWideFocusElement(): Extracted the set of ResilienceParcel IDs for the Episode (wuaEpisode), wuaEpisodeParcelIDSet (FDNTokenSet) --> {}", wuaEpisodeParcelIDSet);
-        LOG.trace(".getSiteWideFocusElement(): Iterator through the Parcel IDs, extract each actual ParcelStatusElement and check to see if it has SystemWide focus");
-        Iterator<ResilienceParcelIdentifier> wuaEpisodeParcelIDIterator = wuaEpisodeParcelIDSet.iterator();
-        if(LOG.isTraceEnabled()) {
-        	Enumeration<ResilienceParcelIdentifier> statusElementKeys = parcelStatusElementCache.keys();
-        	while(statusElementKeys.hasMoreElements()) {
-        		LOG.trace(".getSiteWideFocusElement(): ParcelStatusElementCache, Key --> {}", statusElementKeys.nextElement());
-        	}
-        }
-        while (wuaEpisodeParcelIDIterator.hasNext()) {
-            ResilienceParcelIdentifier currentParcelID = wuaEpisodeParcelIDIterator.next();
-            LOG.trace(".getSiteWideFocusElement(): Checking ParcelStatusElement for ResilienceParcel ID --> {}", currentParcelID);
-            ParcelStatusElement currentStatusElement = parcelStatusElementCache.get(currentParcelID);
-            LOG.trace(".getSiteWideFocusElement(): Extracted ParcelStatusElement --> {}", currentStatusElement);
-            if (currentStatusElement.getHasSystemWideFocus()) {
-                LOG.debug(".getSiteWideFocusElement(): Exit, Parcel has been found that has System Wide Focus, returning parcelInstanceID --> {}", currentParcelID);
-                return (currentParcelID);
-            }
+        WUAEpisodeFocus episodeFocus = wuaEpisodeFocusMap.get(wuaEpisodeID);
+        if(episodeFocus == null) {
+            LOG.debug(".getSiteWideFocusElement(): Exit, No parcel was found with System Wide Focus, returning -null-");
+            return (null);
         }
-        LOG.debug(".getSiteWideFocusElement(): Exit, No parcel was found with System Wide Focus, returning -null-");
-        return (null);
+        ResilienceParcelIdentifier focusParcelID = episodeFocus.systemWideFocus.get();
+        LOG.debug(".getSiteWideFocusElement(): Exit, returning parcelInstanceID --> {}", focusParcelID);
+        return (focusParcelID);
     }
 
     /**
-     * This method extracts the list of Parcel ID's associated with a WUA
-     * Episode and iterates through each - using them to get their associated
-     * ParcelStatusElement - which is then checked to see if it has the Cluster
-     * Focus for the WUA Episode.
+     * This method returns the Parcel that currently holds the Cluster Focus
+     * for the WUA Episode (as held in the Episode's atomic focus reference).
      *
      * @param wuaEpisodeID The Work Unit Activity Episode ID we are attempting
      *                     to determine which Parcel has Cluster Focus for.
@@ -283,64 +313,17 @@ public class ProcessingPlantWUAEpisodeActivityMatrixDM {
      */
     public ResilienceParcelIdentifier getClusterFocusElement(PetasosEpisodeIdentifier wuaEpisodeID) {
         LOG.debug(".getClusterFocusElement(): Entry, wuaEpisodeID --> {}", wuaEpisodeID);
-        Set<ResilienceParcelIdentifier> wuaEpisodeParcelIDSet = wuaEpisode2ParcelInstanceMap.get(wuaEpisodeID);
-        Iterator<ResilienceParcelIdentifier> wuaEpisodeParcelIDIterator = wuaEpisodeParcelIDSet.iterator();
-        while (wuaEpisodeParcelIDIterator.hasNext()) {
-            ResilienceParcelIdentifier currentParcelID = wuaEpisodeParcelIDIterator.next();
-            ParcelStatusElement currentStatusElement = parcelStatusElementCache.get(currentParcelID);
-            if (currentStatusElement.getHasClusterFocus()) {
-                LOG.debug(".getClusterFocusElement(): Exit, Parcel has been found that has Cluster Focus, returning parcelInstanceID --> {}", currentParcelID);
-                return (currentParcelID);
-            }
+        if(wuaEpisodeID == null) {
+            return (null);
         }
-        LOG.debug(".getClusterFocusElement(): Exit, No parcel was found with Cluster Focus, returning -null-");
-        return (null);
-    }
-
-    /**
-     * Clear any aged content from the Cache systems
-     */
-    public List<ResilienceParcelIdentifier> getAgedContentFromUpActivityMatrix() {
-        LOG.debug(".getAgedContentFromUpActivityMatrix(): Entry");
-        ArrayList<ResilienceParcelIdentifier> agedContent = new ArrayList<ResilienceParcelIdentifier>();
-        Enumeration<PetasosEpisodeIdentifier> parcelEpisodeIDIterator = wuaEpisode2ParcelInstanceMap.keys();
-        LOG.trace(".getAgedContentFromUpActivityMatrix(): Iterating through each EpisodeID");
-        Date currentDate = Date.from(Instant.now());
-        Long cutOffAge = currentDate.getTime() - (PetasosPropertyConstants.CACHE_ENTRY_RETENTION_PERIOD_SECONDS);
-        Long timeOutAge = currentDate.getTime() - (PetasosPropertyConstants.WUP_ACTIVITY_DURATION_SECONDS);
-        while (parcelEpisodeIDIterator.hasMoreElements()) {
-            PetasosEpisodeIdentifier parcelEpisodeID = parcelEpisodeIDIterator.nextElement();
-            Set<ResilienceParcelIdentifier> statusSet = wuaEpisode2ParcelInstanceMap.get(parcelEpisodeID);
-            LOG.trace(".clearAgedContentFromUpActivityMatrix(): Iterating through ALL ParcelStatusElements to see if one is FINISHED, ParcelEpisodeID --> {}, ", parcelEpisodeID);
-            Iterator<ResilienceParcelIdentifier> initialSearchStatusIterator = statusSet.iterator();
-            boolean foundFinished = false;
-            ResilienceParcelIdentifier finishedParcelID = null;
-            while (initialSearchStatusIterator.hasNext()) {
-                ResilienceParcelIdentifier currentParcelInstanceID = initialSearchStatusIterator.next();
-                ParcelStatusElement currentElement = parcelStatusElementCache.get(currentParcelInstanceID);
-                switch (currentElement.getParcelStatus()) {
-                    case PARCEL_STATUS_FINALISED:
-                    case PARCEL_STATUS_FINALISED_ELSEWHERE:
-                        if (currentElement.getEntryDate().getTime() > cutOffAge) {
-                            agedContent.add(currentParcelInstanceID);
-                        }
-                        break;
-                    case PARCEL_STATUS_REGISTERED:
-                    case PARCEL_STATUS_INITIATED:
-                    case PARCEL_STATUS_ACTIVE:
-                    case PARCEL_STATUS_FINISHED:
-                    case PARCEL_STATUS_FINISHED_ELSEWHERE:
-                        if (currentElement.getEntryDate().getTime() < timeOutAge) {
-                            break;
-                        }
-                    case PARCEL_STATUS_FAILED:
-                    default:
-                        agedContent.add(currentParcelInstanceID);
-                        break;
-                }
-            }
+        WUAEpisodeFocus episodeFocus = wuaEpisodeFocusMap.get(wuaEpisodeID);
+        if(episodeFocus == null) {
+            LOG.debug(".getClusterFocusElement(): Exit, No parcel was found with Cluster Focus, returning -null-");
+            return (null);
         }
-        return(agedContent);
+        ResilienceParcelIdentifier focusParcelID = episodeFocus.clusterFocus.get();
+        LOG.debug(".getClusterFocusElement(): Exit, returning parcelInstanceID --> {}", focusParcelID);
+        return (focusParcelID);
     }
 
     public List<ParcelStatusElement> getEpisodeElementSet(PetasosEpisodeIdentifier episodeID){
@@ -378,25 +361,11 @@ public class ProcessingPlantWUAEpisodeActivityMatrixDM {
             LOG.debug(".setSiteWideFocusElement(): episode (EpisodeIdentifier) --> {}", episode);
             LOG.debug(".setSiteWideFocusElement(): parcelIdentifier (ResilienceParcelIdentifier) --> {}", parcelIdentifier);
         }
-        // First, let's see if someone already has it!
-        ResilienceParcelIdentifier currentSiteWideFocusParcel = this.getSiteWideFocusElement(episode);
-        boolean alreadyHasFocus = false;
-        if(currentSiteWideFocusParcel != null){
-            if(currentSiteWideFocusParcel.equals(parcelIdentifier)){
-                LOG.trace(".setSiteWideFocusElement(): Nothing to do, the ResilienceParcel already has the focus");
-                alreadyHasFocus = true;
-            } else {
-                LOG.trace(".setSiteWideFocusElement(): Another ResilienceParcel has the focus, so we need to revoke it");
-                ParcelStatusElement associateStatusElement = this.getParcelStatusElement(currentSiteWideFocusParcel);
-                associateStatusElement.setHasSystemWideFocus(false);
-                alreadyHasFocus = false;
-            }
-        }
-        if(!alreadyHasFocus){
-            LOG.trace(".setSiteWideFocusElement(): Assigning the SiteWide Focus to the provided ResilienceParcelIdentifier");
-            ParcelStatusElement statusElement = this.getParcelStatusElement(parcelIdentifier);
-            statusElement.setHasSystemWideFocus(true);
+        if((episode == null) || (parcelIdentifier == null)){
+            throw (new IllegalArgumentException(".setSiteWideFocusElement(): episode or parcelIdentifier is null"));
         }
+        WUAEpisodeFocus episodeFocus = wuaEpisodeFocusMap.computeIfAbsent(episode, key -> new WUAEpisodeFocus());
+        assignFocus(episodeFocus.systemWideFocus, parcelIdentifier, true);
         LOG.debug(".setSiteWideFocusElement(): Exit");
     }
 
@@ -415,25 +384,69 @@ public class ProcessingPlantWUAEpisodeActivityMatrixDM {
             LOG.debug(".setClusterWideFocusElement(): episode (EpisodeIdentifier) --> {}", episode);
             LOG.debug(".setClusterWideFocusElement(): parcelIdentifier (ResilienceParcelIdentifier) --> {}", parcelIdentifier);
         }
-        // First, let's see if someone already has it!
-        ResilienceParcelIdentifier currentClusterWideFocusParcel = this.getClusterFocusElement(episode);
-        boolean alreadyHasFocus = false;
-        if(currentClusterWideFocusParcel != null){
-            if(currentClusterWideFocusParcel.equals(parcelIdentifier)){
-                LOG.trace(".setClusterWideFocusElement(): Nothing to do, the ResilienceParcel already has the focus");
-                alreadyHasFocus = true;
+        if((episode == null) || (parcelIdentifier == null)){
+            throw (new IllegalArgumentException(".setClusterWideFocusElement(): episode or parcelIdentifier is null"));
+        }
+        WUAEpisodeFocus episodeFocus = wuaEpisodeFocusMap.computeIfAbsent(episode, key -> new WUAEpisodeFocus());
+        assignFocus(episodeFocus.clusterFocus, parcelIdentifier, false);
+        LOG.debug(".setClusterWideFocusElement(): Exit");
+    }
+
+    /**
+     * Hand the focus (held in focusReference) to the parcelIdentifier. The exchange of the reference is the single
+     * atomic decision point - whoever exchanges last holds the focus - and the focus flags of the previous and the new
+     * holder's ParcelStatusElements are then reconciled with it (see reconcileFocusFlag()).
+     */
+    private void assignFocus(AtomicReference<ResilienceParcelIdentifier> focusReference, ResilienceParcelIdentifier parcelIdentifier, boolean systemWide){
+        ResilienceParcelIdentifier previousFocusParcel = focusReference.getAndSet(parcelIdentifier);
+        if(parcelIdentifier.equals(previousFocusParcel)){
+            LOG.trace(".assignFocus(): Nothing to do, the ResilienceParcel already has the focus");
+            return;
+        }
+        if(previousFocusParcel != null){
+            LOG.trace(".assignFocus(): Another ResilienceParcel had the focus, so revoke it");
+            reconcileFocusFlag(focusReference, previousFocusParcel, systemWide);
+        }
+        LOG.trace(".assignFocus(): Assigning the Focus to the provided ResilienceParcelIdentifier");
+        reconcileFocusFlag(focusReference, parcelIdentifier, systemWide);
+    }
+
+    /**
+     * Bring the focus flag of the parcelIdentifier's ParcelStatusElement in line with the focus reference. The flag is
+     * compare-and-set from the value it should not have to the value it should have (as per the reference read just
+     * before), and the reference is then re-read: if it has moved on in the meantime, the flag may have been set from
+     * a stale reading, so it is reconciled again. The last reconciliation of an element is therefore always made
+     * against the current focus holder - however the reconciliations of concurrent assignments interleave - and so
+     * a stale revoke can never clear the flag of the (re-assigned) current holder.
+     */
+    private void reconcileFocusFlag(AtomicReference<ResilienceParcelIdentifier> focusReference, ResilienceParcelIdentifier parcelIdentifier, boolean systemWide){
+        ParcelStatusElement statusElement = this.getParcelStatusElement(parcelIdentifier);
+        if(statusElement == null){
+            LOG.trace(".reconcileFocusFlag(): No ParcelStatusElement registered for the ResilienceParcelIdentifier, only the Episode focus is set");
+            return;
+        }
+        ResilienceParcelIdentifier focusParcel;
+        do {
+            focusParcel = focusReference.get();
+            boolean hasFocus = parcelIdentifier.equals(focusParcel);
+            if(systemWide){
+                statusElement.compareAndSetHasSystemWideFocus(!hasFocus, hasFocus);
             } else {
-                LOG.trace(".setClusterWideFocusElement(): Another ResilienceParcel has the focus, so we need to revoke it");
-                ParcelStatusElement associateStatusElement = this.getParcelStatusElement(currentClusterWideFocusParcel);
-                associateStatusElement.setHasClusterFocus(false);
-                alreadyHasFocus = false;
+                statusElement.compareAndSetHasClusterFocus(!hasFocus, hasFocus);
             }
+        } while(focusReference.get() != focusParcel);
+    }
+
+    /**
+     * The (atomic) System Wide and Cluster focus holders for a single WUA Episode.
+     */
+    private static class WUAEpisodeFocus {
+        private final AtomicReference<ResilienceParcelIdentifier> systemWideFocus;
+        private final AtomicReference<ResilienceParcelIdentifier> clusterFocus;
+
+        private WUAEpisodeFocus(){
+            this.systemWideFocus = new AtomicReference<>();
+            this.clusterFocus = new AtomicReference<>();
         }
-        if(!alreadyHasFocus){
-            LOG.trace(".setClusterWideFocusElement(): Assigning the SiteWide Focus to the provided ResilienceParcelIdentifier");
-            ParcelStatusElement statusElement = this.getParcelStatusElement(parcelIdentifier);
-            statusElement.setHasClusterFocus(true);
-        }
-        LOG.debug(".setClusterWideFocusElement(): Exit");
     }
 }
@@ -109,6 +109,27 @@ public class ProcessingPlantWUAEpisodeFinalisationCacheDM {
         }
     }
 
+    /**
+     * This function withdraws the interest of a downstream WUP Function in the UoW from the given EpisodeID - used when
+     * the UoW could not be delivered to that WUP, so no successor Episode will ever be registered for it (and the
+     * "upstream" Episode would otherwise never be considered Finalised).
+     *
+     * @param wuaEpisodeID            The WUA Episode ID (that generates the output UoW which we are tracking the finalisation of the associated parcel of)
+     * @param downstreamWUPFunctionId The WUP Function that will no longer be consuming the UoW
+     */
+    public void deregisterDownstreamWUPInterest(PetasosEpisodeIdentifier wuaEpisodeID, WUPFunctionToken downstreamWUPFunctionId) {
+        LOG.debug(".deregisterDownstreamWUPInterest(): Entry, wuaEpisodeID --> {}, downstreamWUPFunctionId --> {}", wuaEpisodeID, downstreamWUPFunctionId);
+        if ((wuaEpisodeID == null) || (downstreamWUPFunctionId == null)) {
+            throw (new IllegalArgumentException(".deregisterDownstreamWUPInterest(): wuaEpisodeID or downstreamWUPFunctionId are null"));
+        }
+        synchronized (wupRegistrationSetLock) {
+            WUPFunctionTokenSet downstreamEpisode2WUPSet = downstreamWUPRegistrationMap.get(wuaEpisodeID);
+            if (downstreamEpisode2WUPSet != null) {
+                downstreamEpisode2WUPSet.removeElement(downstreamWUPFunctionId);
+            }
+        }
+    }
+
     /**
      * This function allows for the Registration of a "downstream" EpisodeID as a consumer of the UoW from the given EpisodeID.
      * <p>
@@ -165,4 +186,42 @@ public class ProcessingPlantWUAEpisodeFinalisationCacheDM {
         LOG.debug(".checkForEpisodeFinalisation(): It seems that ALL dowstream WUPs have registered successor WUA Episode IDs - returning -true-");
         return(true);
     }
+
+    /**
+     * This function removes all finalisation tracking for the given WUA Episode ID. It is used once all the
+     * Parcels of the Episode have been purged from the ActivityMatrix.
+     *
+     * @param wuaEpisodeID The Episode ID whose finalisation tracking is no longer required
+     */
+    public void removeEpisode(PetasosEpisodeIdentifier wuaEpisodeID) {
+        LOG.debug(".removeEpisode(): Entry, wuaEpisodeID --> {}", wuaEpisodeID);
+        if (wuaEpisodeID == null) {
+            return;
+        }
+        synchronized (wupRegistrationSetLock) {
+            downstreamRegistrationStatusSet.remove(wuaEpisodeID);
+            downstreamWUPRegistrationMap.remove(wuaEpisodeID);
+        }
+    }
+
+    /**
+     * @param wuaEpisodeID The WUA Episode ID
+     * @return A copy of the set of downstream WUP Functions registered as consumers of the UoW of the Episode (empty if none)
+     */
+    public WUPFunctionTokenSet getDownstreamWUPSet(PetasosEpisodeIdentifier wuaEpisodeID) {
+        if (wuaEpisodeID == null) {
+            return (new WUPFunctionTokenSet());
+        }
+        synchronized (wupRegistrationSetLock) {
+            WUPFunctionTokenSet downstreamEpisode2WUPSet = downstreamWUPRegistrationMap.get(wuaEpisodeID);
+            if (downstreamEpisode2WUPSet == null) {
+                return (new WUPFunctionTokenSet());
+            }
+            return (new WUPFunctionTokenSet(downstreamEpisode2WUPSet));
+        }
+    }
+
+    public int getEpisodeCount() {
+        return (downstreamWUPRegistrationMap.size());
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.cache;
+
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPActivityStatusEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is the Cache Data Manager (CacheDM) for the outstanding Execution Grant requests of the
+ * WorkUnitActivities within the ProcessingPlant. A WUP Container thread that has not (yet) been granted
+ * WUP_ACTIVITY_STATUS_EXECUTING for its ResilienceParcel registers an interest here and then waits on the
+ * returned CompletableFuture - rather than sleeping and re-polling the ActivityMatrix.
+ * <p>
+ * It uses a ConcurrentHashMap to store the pending grants:
+ * ConcurrentHashMap<ResilienceParcelIdentifier, CompletableFuture<WUPActivityStatusEnum>> pendingGrantMap
+ * where the ResilienceParcelIdentifier is the Parcel awaiting the grant and the CompletableFuture is completed
+ * (with the granted status) whenever the grant state of that Parcel may have changed.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@ApplicationScoped
+public class ProcessingPlantWUAExecutionGrantDM {
+    private static final Logger LOG = LoggerFactory.getLogger(ProcessingPlantWUAExecutionGrantDM.class);
+
+    private ConcurrentHashMap<ResilienceParcelIdentifier, CompletableFuture<WUPActivityStatusEnum>> pendingGrantMap;
+
+    public ProcessingPlantWUAExecutionGrantDM(){
+        pendingGrantMap = new ConcurrentHashMap<ResilienceParcelIdentifier, CompletableFuture<WUPActivityStatusEnum>>();
+    }
+
+    /**
+     * This function registers an interest in the Execution Grant for the given ResilienceParcel. If an interest
+     * is already registered (e.g. from a previous wait that timed out), the same CompletableFuture is returned.
+     *
+     * @param parcelInstanceID The ResilienceParcelIdentifier of the Parcel awaiting an Execution Grant
+     * @return A CompletableFuture that is completed when the grant state of the Parcel changes
+     */
+    public CompletableFuture<WUPActivityStatusEnum> registerGrantInterest(ResilienceParcelIdentifier parcelInstanceID){
+        LOG.debug(".registerGrantInterest(): Entry, parcelInstanceID --> {}", parcelInstanceID);
+        if(parcelInstanceID == null){
+            throw(new IllegalArgumentException(".registerGrantInterest(): parcelInstanceID is null"));
+        }
+        CompletableFuture<WUPActivityStatusEnum> grantFuture = pendingGrantMap.computeIfAbsent(parcelInstanceID, key -> new CompletableFuture<WUPActivityStatusEnum>());
+        LOG.debug(".registerGrantInterest(): Exit, pendingGrantCount --> {}", pendingGrantMap.size());
+        return(grantFuture);
+    }
+
+    /**
+     * This function signals (and removes) any registered interest for the given ResilienceParcel, waking up
+     * the associated waiting thread(s).
+     *
+     * @param parcelInstanceID The ResilienceParcelIdentifier of the Parcel whose grant state has changed
+     * @param grantedStatus The current granted status of the Parcel's WorkUnitActivity
+     * @return True if a waiting interest was signalled, false if there was none
+     */
+    public boolean signalGrant(ResilienceParcelIdentifier parcelInstanceID, WUPActivityStatusEnum grantedStatus){
+        LOG.debug(".signalGrant(): Entry, parcelInstanceID --> {}, grantedStatus --> {}", parcelInstanceID, grantedStatus);
+        if(parcelInstanceID == null){
+            return(false);
+        }
+        CompletableFuture<WUPActivityStatusEnum> grantFuture = pendingGrantMap.remove(parcelInstanceID);
+        if(grantFuture == null){
+            LOG.debug(".signalGrant(): Exit, no pending grant interest");
+            return(false);
+        }
+        grantFuture.complete(grantedStatus);
+        LOG.debug(".signalGrant(): Exit, pending grant interest signalled");
+        return(true);
+    }
+
+    /**
+     * This function removes (and cancels) any registered interest for the given ResilienceParcel. It is
+     * used when the waiting WorkUnitActivity is being discarded.
+     *
+     * @param parcelInstanceID The ResilienceParcelIdentifier of the Parcel no longer awaiting a grant
+     */
+    public void cancelGrantInterest(ResilienceParcelIdentifier parcelInstanceID){
+        LOG.debug(".cancelGrantInterest(): Entry, parcelInstanceID --> {}", parcelInstanceID);
+        if(parcelInstanceID == null){
+            return;
+        }
+        CompletableFuture<WUPActivityStatusEnum> grantFuture = pendingGrantMap.remove(parcelInstanceID);
+        if(grantFuture != null){
+            grantFuture.cancel(false);
+        }
+        LOG.debug(".cancelGrantInterest(): Exit");
+    }
+
+    public boolean hasPendingGrantInterest(ResilienceParcelIdentifier parcelInstanceID){
+        if(parcelInstanceID == null){
+            return(false);
+        }
+        return(pendingGrantMap.containsKey(parcelInstanceID));
+    }
+
+    public int getPendingGrantCount(){
+        return(pendingGrantMap.size());
+    }
+}
@@ -24,11 +24,13 @@ package net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.man
 
 import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.cache.ProcessingPlantWUAEpisodeActivityMatrixDM;
 import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.cache.ProcessingPlantWUAEpisodeFinalisationCacheDM;
+import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.cache.ProcessingPlantWUAExecutionGrantDM;
 import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.manager.tasks.RegisterNewMOAWorkUnitActivityTask;
 import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.manager.tasks.SynchroniseMOAWorkUnitActivityJobCardTask;
 import net.fhirfactory.pegacorn.petasos.model.resilience.episode.PetasosEpisodeIdentifier;
 import net.fhirfactory.pegacorn.petasos.model.resilience.activitymatrix.moa.ParcelStatusElement;
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPActivityStatusEnum;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPFunctionToken;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPJobCard;
 import org.slf4j.Logger;
@@ -36,6 +38,8 @@ import org.slf4j.LoggerFactory;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  *
@@ -49,6 +53,9 @@ public class ProcessingPlantResilienceActivityServicesController {
 
     @Inject
     ProcessingPlantWUAEpisodeFinalisationCacheDM finalisationCacheDM;
+
+    @Inject
+    ProcessingPlantWUAExecutionGrantDM executionGrantDM;
     
     //task Specific Classes
 
@@ -75,6 +82,62 @@ public class ProcessingPlantResilienceActivityServicesController {
             return;
         }
         taskSynchroniseWUA.synchroniseJobCard(submittedJobCard);
+        if(submittedJobCard.getGrantedStatus() == WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_EXECUTING){
+            executionGrantDM.signalGrant(submittedJobCard.getActivityID().getPresentParcelIdentifier(), submittedJobCard.getGrantedStatus());
+        }
+    }
+
+    /**
+     * This function registers an interest in the Execution Grant for the WorkUnitActivity described by the
+     * JobCard and then synchronises the JobCard. If the synchronisation grants execution, the returned
+     * CompletableFuture is already complete - otherwise it will be completed when the grant state of the
+     * associated ResilienceParcel (or its Episode) changes.
+     *
+     * @param submittedJobCard The JobCard of the WorkUnitActivity requesting WUP_ACTIVITY_STATUS_EXECUTING
+     * @return A CompletableFuture that is completed when the JobCard should be re-synchronised
+     */
+    public CompletableFuture<WUPActivityStatusEnum> requestExecutionGrant(WUPJobCard submittedJobCard){
+        LOG.debug(".requestExecutionGrant(): Entry, submittedJobCard --> {}", submittedJobCard);
+        if(submittedJobCard == null){
+            throw(new IllegalArgumentException(".requestExecutionGrant(): submittedJobCard is null"));
+        }
+        ResilienceParcelIdentifier parcelInstanceID = submittedJobCard.getActivityID().getPresentParcelIdentifier();
+        CompletableFuture<WUPActivityStatusEnum> grantFuture = executionGrantDM.registerGrantInterest(parcelInstanceID);
+        synchroniseJobCard(submittedJobCard);
+        LOG.debug(".requestExecutionGrant(): Exit, grantedStatus --> {}", submittedJobCard.getGrantedStatus());
+        return(grantFuture);
+    }
+
+    /**
+     * This function removes any outstanding Execution Grant interest for the WorkUnitActivity described by
+     * the JobCard (e.g. when it is being discarded).
+     *
+     * @param jobCard The JobCard of the WorkUnitActivity no longer waiting on a grant
+     */
+    public void cancelExecutionGrantRequest(WUPJobCard jobCard){
+        if(jobCard == null){
+            return;
+        }
+        executionGrantDM.cancelGrantInterest(jobCard.getActivityID().getPresentParcelIdentifier());
+    }
+
+    /**
+     * This function wakes any WorkUnitActivity (within the given Episode) that is waiting on an Execution
+     * Grant, so that it can re-synchronise its JobCard. It is invoked whenever a WorkUnitActivity of the
+     * Episode changes state in such a way that the Episode's focus may move (finish, failure, cancellation).
+     *
+     * @param wuaEpisodeID The Episode whose activity has changed
+     */
+    public void notifyEpisodeActivityChange(PetasosEpisodeIdentifier wuaEpisodeID){
+        LOG.debug(".notifyEpisodeActivityChange(): Entry, wuaEpisodeID --> {}", wuaEpisodeID);
+        if((wuaEpisodeID == null) || (executionGrantDM.getPendingGrantCount() == 0)){
+            return;
+        }
+        List<ParcelStatusElement> episodeElementSet = activityMatrixDM.getEpisodeElementSet(wuaEpisodeID);
+        for(ParcelStatusElement currentElement: episodeElementSet){
+            executionGrantDM.signalGrant(currentElement.getParcelInstanceID(), WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_WAITING);
+        }
+        LOG.debug(".notifyEpisodeActivityChange(): Exit");
     }
 
 
@@ -90,5 +153,17 @@ public class ProcessingPlantResilienceActivityServicesController {
         finalisationCacheDM.registerDownstreamWUPInterest(wuaEpisodeID,downstreamWUPInstanceID);
     }
 
+    /**
+     * This function withdraws a downstream WUP's interest in the output of the given Episode (e.g. when the UoW could
+     * not be delivered to it) and wakes anything in the Episode waiting on it.
+     *
+     * @param wuaEpisodeID The Episode whose output could not be delivered
+     * @param downstreamWUPInstanceID The WUP Function the output could not be delivered to
+     */
+    public void deregisterWUAEpisodeDownstreamWUPInterest(PetasosEpisodeIdentifier wuaEpisodeID, WUPFunctionToken downstreamWUPInstanceID) {
+        finalisationCacheDM.deregisterDownstreamWUPInterest(wuaEpisodeID,downstreamWUPInstanceID);
+        notifyEpisodeActivityChange(wuaEpisodeID);
+    }
+
 
 }
@@ -32,6 +32,7 @@ import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
 import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoWPayloadSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,6 +61,11 @@ public class ProcessingPlantResilienceParcelServicesIM {
         return(registeredParcel);
     }
 
+    /**
+     * Registers the Parcel for the WUP's processing of the UoW. There is only ever one Parcel per WUP Instance / UoW
+     * Instance: if the UoW is re-delivered to the WUP, the existing Parcel is used - as it is if it is still in
+     * progress, otherwise (e.g. it FAILED or was FINALISED) it is re-registered, with its status and dates reset.
+     */
     public ResilienceParcel registerParcel(ActivityID activityID, UoW unitOfWork, String portType, String portValue, boolean synchronousWriteToAudit){
         LOG.debug(".registerParcel(): Entry"); 
         if ((unitOfWork == null) || (activityID == null)) {
@@ -94,12 +100,24 @@ public class ProcessingPlantResilienceParcelServicesIM {
         }
         // 1st, lets register the parcel
         LOG.trace(".registerParcel(): check for existing ResilienceParcel instance for this WUP/UoW combination");
-        ResilienceParcel parcelInstance =  parcelCacheDM.getCurrentParcelForWUP(activityID.getPresentWUPIdentifier(), unitOfWork.getTypeID());
+        ResilienceParcel parcelInstance =  parcelCacheDM.getCurrentParcelForWUP(activityID.getPresentWUPIdentifier(), unitOfWork.getInstanceID());
         if(parcelInstance != null){
-            LOG.trace(".registerParcel(): Well, there seems to be a Parcel already for this WUPInstanceID/UoWInstanceID. Odd, but let's use it!");
+            LOG.trace(".registerParcel(): Well, there seems to be a Parcel already for this WUPInstanceID/UoWInstanceID (i.e. the UoW has been re-delivered), so let's use it!");
+            activityID.setPresentParcelIdentifier(parcelInstance.getIdentifier());
+            if(isInProgress(parcelInstance.getProcessingStatus())){
+                LOG.trace(".registerParcel(): The existing Parcel is still in progress, so leave it as it is");
+            } else {
+                // The earlier delivery has run its course (e.g. FAILED or FINALISED), so this is a new attempt at it
+                Date registrationDate = Date.from(Instant.now());
+                LOG.trace(".registerParcel(): The existing Parcel has run its course (status --> {}), so re-register it, Registration Date --> {}", parcelInstance.getProcessingStatus(), registrationDate);
+                parcelCacheDM.resetParcelProcessingStatus(parcelInstance, registrationDate);
+                LOG.trace(".registerParcel(): Doing an Audit Write");
+                auditServicesBroker.logActivity(parcelInstance);
+            }
         } else {
             LOG.trace(".registerParcel(): Attempted to retrieve existing ResilienceParcel, and there wasn't one, so let's create it!");
-            parcelInstance = new ResilienceParcel(activityID, unitOfWork);
+            // (the Parcel owns its own copy of the UoW, as the cache may move its payloads off-heap)
+            parcelInstance = new ResilienceParcel(activityID, new UoW(unitOfWork));
             if(portType != null){
                 parcelInstance.setAnInteractWUP(true);
                 parcelInstance.setAssociatedPortType(portType);
@@ -114,7 +132,7 @@ public class ProcessingPlantResilienceParcelServicesIM {
             LOG.trace(".registerParcel(): Set the Parcel Finalisation Status --> {} ", ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
             parcelInstance.setFinalisationStatus(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
             LOG.trace(".registerParcel(): Set the Parcel Processing Status --> {}", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
-            parcelInstance.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
+            parcelCacheDM.setParcelProcessingStatus(parcelInstance, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
             LOG.trace(".registerParcel(): Doing an Audit Write");
             auditServicesBroker.logActivity(parcelInstance);
 
@@ -154,11 +172,9 @@ public class ProcessingPlantResilienceParcelServicesIM {
         ResilienceParcel currentParcel = parcelCacheDM.getParcelInstance(parcelID);
         Date startDate = Date.from(Instant.now());
         LOG.trace(".notifyParcelProcessingStart(): Set the Start Date --> {}", startDate);
-        currentParcel.setStartDate(startDate);
         LOG.trace(".notifyParcelProcessingStart(): Set the Parcel Finalisation Status --> {} ", ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
-        currentParcel.setFinalisationStatus(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
         LOG.trace(".notifyParcelProcessingStart(): Set the Parcel Processing Status --> {}", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
-        currentParcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+        parcelCacheDM.setParcelProcessingStatus(currentParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED, startDate);
         // TODO Check to see if we should do an Audit Entry when we start processing (as well as when it is registered)
         // LOG.trace(".notifyParcelProcessingStart(): Doing an Audit Write, note that it is asynchronous by design");
         // auditWriter.writeAuditEntry(currentParcel,false);
@@ -178,17 +194,15 @@ public class ProcessingPlantResilienceParcelServicesIM {
         LOG.trace(".notifyParcelProcessingFinish(): update the UoW --> but only if the UoW content comes from the Agent, not the actual WUP itself");
         if(!(unitOfWork == currentParcel.getActualUoW())) {
             LOG.trace(".notifyParcelProcessingFinish(): update the UoW (Egress Content)");
-            currentParcel.getActualUoW().setEgressContent(unitOfWork.getEgressContent());
+            currentParcel.getActualUoW().setEgressContent(new UoWPayloadSet(unitOfWork.getEgressContent()));
             LOG.trace(".notifyParcelProcessingFinish(): update the UoW Processing Outcome --> {}", unitOfWork.getProcessingOutcome());
             currentParcel.getActualUoW().setProcessingOutcome(unitOfWork.getProcessingOutcome());
         }
         Date finishDate = Date.from(Instant.now());
         LOG.trace(".notifyParcelProcessingFinish(): Set the Finish Date --> {}", finishDate);
-        currentParcel.setFinishedDate(finishDate);
         LOG.trace(".notifyParcelProcessingFinish(): Set the Parcel Finalisation Status --> {} ", ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
-        currentParcel.setFinalisationStatus(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
         LOG.trace(".notifyParcelProcessingFinish(): Set the Parcel Processing Status --> {}", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
-        currentParcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
+        parcelCacheDM.setParcelProcessingStatus(currentParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED, finishDate);
         // TODO Check to see if we should do an Audit Entry when we finish processing
         // LOG.trace(".notifyParcelProcessingFinish(): Doing an Audit Write, note that it is asynchronous by design");
         auditServicesBroker.logActivity(currentParcel);
@@ -204,17 +218,17 @@ public class ProcessingPlantResilienceParcelServicesIM {
         }
         LOG.trace(".notifyParcelProcessingFailure(): retrieve existing Parcel");
         ResilienceParcel currentParcel = parcelCacheDM.getParcelInstance(parcelID);
-        LOG.trace(".notifyParcelProcessingFailure(): update the UoW (Egress Content)");
-        currentParcel.getActualUoW().setEgressContent(unitOfWork.getEgressContent());
-        LOG.trace(".notifyParcelProcessingFailure(): update the UoW Processing Outcome --> {}", unitOfWork.getProcessingOutcome());
-        currentParcel.getActualUoW().setProcessingOutcome(unitOfWork.getProcessingOutcome());
+        if(!(unitOfWork == currentParcel.getActualUoW())) {
+            LOG.trace(".notifyParcelProcessingFailure(): update the UoW (Egress Content)");
+            currentParcel.getActualUoW().setEgressContent(new UoWPayloadSet(unitOfWork.getEgressContent()));
+            LOG.trace(".notifyParcelProcessingFailure(): update the UoW Processing Outcome --> {}", unitOfWork.getProcessingOutcome());
+            currentParcel.getActualUoW().setProcessingOutcome(unitOfWork.getProcessingOutcome());
+        }
         Date finishDate = Date.from(Instant.now());
         LOG.trace(".notifyParcelProcessingFailure(): Set the Finish Date --> {}", finishDate);
-        currentParcel.setFinishedDate(finishDate);
         LOG.trace(".notifyParcelProcessingFailure(): Set the Parcel Finalisation Status --> {} ", ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
-        currentParcel.setFinalisationStatus(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
         LOG.trace(".notifyParcelProcessingFailure(): Set the Parcel Processing Status --> {}", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED);
-        currentParcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED);
+        parcelCacheDM.setParcelProcessingStatus(currentParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED, finishDate);
         LOG.trace(".notifyParcelProcessingFailure(): Doing an Audit Write, note that it is asynchronous by desgin");
         auditServicesBroker.logActivity(currentParcel);
         LOG.debug(".notifyParcelProcessingFailure(): Exit, returning failed Parcel --> {}", currentParcel);
@@ -229,19 +243,11 @@ public class ProcessingPlantResilienceParcelServicesIM {
         }
         LOG.trace(".notifyParcelProcessingFinalisation(): retrieve existing Parcel");
         ResilienceParcel currentParcel = parcelCacheDM.getParcelInstance(parcelID);
-        LOG.trace(".notifyParcelProcessingFinalisation(): checking to see if finish date has been set and, if not, setting it");
-        if(!currentParcel.hasFinishedDate()) {
-            Date finishDate = Date.from(Instant.now());
-            LOG.trace(".notifyParcelProcessingFinalisation(): Set the Finish Date --> {}", finishDate);
-            currentParcel.setFinishedDate(finishDate);
-        }
         Date finalisationDate = Date.from(Instant.now());
-        LOG.trace(".notifyParcelProcessingFinalisation(): Set the Finalisation Date --> {}", finalisationDate);
-        currentParcel.setFinalisationDate(finalisationDate);
+        LOG.trace(".notifyParcelProcessingFinalisation(): Set the Finalisation Date (and the Finish Date, if not already set) --> {}", finalisationDate);
         LOG.trace(".notifyParcelProcessingFinalisation(): Set the Parcel Finalisation Status --> {} ", ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED);
-        currentParcel.setFinalisationStatus(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED);
         LOG.trace(".notifyParcelProcessingFinalisation(): Set the Parcel Processing Status --> {}", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
-        currentParcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
+        parcelCacheDM.setParcelProcessingStatus(currentParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED, finalisationDate);
         LOG.trace(".notifyParcelProcessingFinalisation(): Doing an Audit Write, note that it is asynchronous by design");
         auditServicesBroker.logActivity(currentParcel);
         LOG.debug(".notifyParcelProcessingFinalisation(): Exit, returning finished Parcel --> {}", currentParcel);
@@ -256,19 +262,11 @@ public class ProcessingPlantResilienceParcelServicesIM {
         }
         LOG.trace(".notifyParcelProcessingCancellation(): retrieve existing Parcel");
         ResilienceParcel currentParcel = parcelCacheDM.getParcelInstance(parcelID);
-        LOG.trace(".notifyParcelProcessingCancellation(): checking to see if finish date has been set and, if not, setting it");
-        if(!currentParcel.hasFinishedDate()) {
-            Date finishDate = Date.from(Instant.now());
-            LOG.trace(".notifyParcelProcessingCancellation(): Set the Finish Date --> {}", finishDate);
-            currentParcel.setFinishedDate(finishDate);
-        }
         Date finalisationDate = Date.from(Instant.now());
-        LOG.trace(".notifyParcelProcessingCancellation(): Set the Finalisation Date --> {}", finalisationDate);
-        currentParcel.setFinalisationDate(finalisationDate);
+        LOG.trace(".notifyParcelProcessingCancellation(): Set the Finalisation Date (and the Finish Date, if not already set) --> {}", finalisationDate);
         LOG.trace(".notifyParcelProcessingCancellation(): Set the Parcel Finalisation Status --> {} ", ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED);
-        currentParcel.setFinalisationStatus(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED);
         LOG.trace(".notifyParcelProcessingCancellation(): Set the Parcel Processing Status --> {}", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
-        currentParcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
+        parcelCacheDM.setParcelProcessingStatus(currentParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED, finalisationDate);
         LOG.trace(".notifyParcelProcessingCancellation(): Doing an Audit Write, note that it is asynchronous by design");
         auditServicesBroker.logActivity(currentParcel);
         LOG.debug(".notifyParcelProcessingCancellation(): Exit, returning finished Parcel --> {}", currentParcel);
@@ -287,4 +285,19 @@ public class ProcessingPlantResilienceParcelServicesIM {
         //        auditWriter.writeAuditEntry(currentParcel,false);
         //LOG.debug(".notifyParcelProcessingPurge(): Exit, returning finished Parcel --> {}", currentParcel);
     }
+
+    private static boolean isInProgress(ResilienceParcelProcessingStatusEnum processingStatus){
+        if(processingStatus == null){
+            return(false);
+        }
+        switch(processingStatus){
+            case PARCEL_STATUS_REGISTERED:
+            case PARCEL_STATUS_INITIATED:
+            case PARCEL_STATUS_ACTIVE:
+            case PARCEL_STATUS_ACTIVE_ELSEWHERE:
+                return(true);
+            default:
+                return(false);
+        }
+    }
 }
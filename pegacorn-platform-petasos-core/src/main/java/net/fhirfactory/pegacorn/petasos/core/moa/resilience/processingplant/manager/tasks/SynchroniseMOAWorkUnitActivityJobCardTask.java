@@ -174,11 +174,10 @@ public class SynchroniseMOAWorkUnitActivityJobCardTask {
 			throw (new IllegalArgumentException(".synchroniseJobCard(): There are no ResilienceParcels for the given ParcelEpisodeID --> something is very wrong!"));
 		}
 		LOG.trace( ".standaloneModeSynchroniseJobCard(): Now, again, for the standalone mode - there should only be a single thread per WUA Episode ID, so set it to have FOCUS");
-		statusElement.setHasSystemWideFocus(true);
-		statusElement.setHasClusterFocus(true);
+		activityMatrixDM.setSystemWideFocusElement(wuaEpisodeID, parcelInstanceID);
+		activityMatrixDM.setClusterWideFocusElement(wuaEpisodeID, parcelInstanceID);
 		LOG.trace(".standaloneModeSynchroniseJobCard(): Now, lets update the JobCard based on the ActivityMatrix");
-		actionableJobCard.setGrantedStatus(actionableJobCard.getRequestedStatus());
-		actionableJobCard.setUpdateDate(Date.from(Instant.now()));
+		actionableJobCard.grantRequestedStatus(Date.from(Instant.now()));
 		if (LOG.isDebugEnabled()) {
 			LOG.debug(".standaloneModeSynchroniseJobCard(): Exit");
         	LOG.debug(".standaloneModeSynchroniseJobCard(): actionableJobCard (WUPJobCard).cardID (ActivityID).previousParcelIdentifier -->{}", actionableJobCard.getActivityID().getPreviousParcelIdentifier());
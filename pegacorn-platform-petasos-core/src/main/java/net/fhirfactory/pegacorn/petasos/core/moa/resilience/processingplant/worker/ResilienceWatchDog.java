@@ -22,5 +22,284 @@
 
 package net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.worker;
 
+import net.fhirfactory.pegacorn.petasos.core.common.resilience.processingplant.cache.ProcessingPlantParcelCacheDM;
+import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.cache.ProcessingPlantWUAEpisodeActivityMatrixDM;
+import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.cache.ProcessingPlantWUAEpisodeFinalisationCacheDM;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
+import net.fhirfactory.pegacorn.petasos.model.resilience.episode.PetasosEpisodeIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ResilienceWatchDog purges finalised (or cancelled, or failed) content from the ProcessingPlant's resilience caches (the
+ * ProcessingPlantParcelCacheDM, the ProcessingPlantWUAEpisodeActivityMatrixDM and the
+ * ProcessingPlantWUAEpisodeFinalisationCacheDM) once it has been retained for
+ * CACHE_ENTRY_RETENTION_PERIOD_SECONDS.
+ * <p>
+ * Finalised, cancelled and failed Parcels are registered (via registerFinalisedParcel()) into a time-bucketed
+ * expiry wheel: a TreeMap<Long, List<ResilienceParcelIdentifier>> keyed on the bucket (of
+ * RESILIENCE_WATCHDOG_TICK_MILLISECONDS width) in which the Parcel expires - calculated from the time the Parcel
+ * reached that (terminal) status, e.g. its finalisation date. Each tick only removes the buckets that have expired,
+ * so the work done is proportional to the expired content rather than the size of the caches. A Parcel that is
+ * no longer in a terminal status when its bucket expires (e.g. a failed Parcel that is being retried) is
+ * rescheduled for a further retention period rather than being dropped from the wheel.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+@ApplicationScoped
 public class ResilienceWatchDog {
+    private static final Logger LOG = LoggerFactory.getLogger(ResilienceWatchDog.class);
+
+    private TreeMap<Long, List<ResilienceParcelIdentifier>> expiryWheel;
+    private ConcurrentHashMap<ResilienceParcelIdentifier, Long> scheduledBucketMap;
+    private Object expiryWheelLock;
+    private ScheduledExecutorService sweeper;
+
+    private AtomicLong evictedParcelCount;
+    private AtomicLong evictedEpisodeCount;
+    private AtomicLong skippedParcelCount;
+    private AtomicLong tickCount;
+
+    @Inject
+    ProcessingPlantParcelCacheDM parcelCacheDM;
+
+    @Inject
+    ProcessingPlantWUAEpisodeActivityMatrixDM activityMatrixDM;
+
+    @Inject
+    ProcessingPlantWUAEpisodeFinalisationCacheDM finalisationCacheDM;
+
+    public ResilienceWatchDog(){
+        expiryWheel = new TreeMap<Long, List<ResilienceParcelIdentifier>>();
+        scheduledBucketMap = new ConcurrentHashMap<ResilienceParcelIdentifier, Long>();
+        expiryWheelLock = new Object();
+        evictedParcelCount = new AtomicLong(0);
+        evictedEpisodeCount = new AtomicLong(0);
+        skippedParcelCount = new AtomicLong(0);
+        tickCount = new AtomicLong(0);
+    }
+
+    @PostConstruct
+    protected void initialise(){
+        LOG.debug(".initialise(): Entry, starting the sweeper, tick --> {} ms", PetasosPropertyConstants.RESILIENCE_WATCHDOG_TICK_MILLISECONDS);
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread sweeperThread = new Thread(runnable, "ResilienceWatchDog");
+            sweeperThread.setDaemon(true);
+            return(sweeperThread);
+        });
+        sweeper.scheduleWithFixedDelay(this::safeTick,
+                PetasosPropertyConstants.RESILIENCE_WATCHDOG_TICK_MILLISECONDS,
+                PetasosPropertyConstants.RESILIENCE_WATCHDOG_TICK_MILLISECONDS,
+                TimeUnit.MILLISECONDS);
+        LOG.debug(".initialise(): Exit");
+    }
+
+    @PreDestroy
+    protected void shutdown(){
+        LOG.debug(".shutdown(): Entry");
+        if(sweeper != null){
+            sweeper.shutdownNow();
+        }
+    }
+
+    /**
+     * This function registers a (finalised, cancelled or failed) ResilienceParcel for expiry. The expiry time is the
+     * time the Parcel reached that status (its finalisation, cancellation or finished date - or now, if the Parcel
+     * has no such date) plus CACHE_ENTRY_RETENTION_PERIOD_SECONDS. Re-registering a Parcel simply moves it to its
+     * new expiry bucket.
+     *
+     * @param parcelInstanceID The ResilienceParcelIdentifier of the finalised (or cancelled, or failed) Parcel
+     */
+    public void registerFinalisedParcel(ResilienceParcelIdentifier parcelInstanceID){
+        LOG.debug(".registerFinalisedParcel(): Entry, parcelInstanceID --> {}", parcelInstanceID);
+        if(parcelInstanceID == null){
+            throw(new IllegalArgumentException(".registerFinalisedParcel(): parcelInstanceID is null"));
+        }
+        long terminalTime = resolveTerminalTime(parcelCacheDM.peekParcelInstance(parcelInstanceID), Instant.now().toEpochMilli());
+        Long expiryBucket = scheduleParcel(parcelInstanceID, terminalTime);
+        LOG.debug(".registerFinalisedParcel(): Exit, expiryBucket --> {}", expiryBucket);
+    }
+
+    private Long scheduleParcel(ResilienceParcelIdentifier parcelInstanceID, long fromTime){
+        long expiryTime = fromTime + (PetasosPropertyConstants.CACHE_ENTRY_RETENTION_PERIOD_SECONDS * 1000);
+        Long expiryBucket = toBucket(expiryTime) + 1;
+        synchronized (expiryWheelLock){
+            scheduledBucketMap.put(parcelInstanceID, expiryBucket);
+            expiryWheel.computeIfAbsent(expiryBucket, key -> new ArrayList<ResilienceParcelIdentifier>()).add(parcelInstanceID);
+        }
+        return(expiryBucket);
+    }
+
+    /**
+     * The time at which the Parcel reached its current (terminal) status, or the defaultTime if it is not in the
+     * cache or has no date for that status.
+     */
+    private long resolveTerminalTime(ResilienceParcel parcel, long defaultTime){
+        if((parcel == null) || !parcel.hasProcessingStatus()){
+            return(defaultTime);
+        }
+        Date terminalDate;
+        switch(parcel.getProcessingStatus()){
+            case PARCEL_STATUS_FINALISED:
+            case PARCEL_STATUS_FINALISED_ELSEWHERE:
+                terminalDate = parcel.getFinalisationDate();
+                break;
+            case PARCEL_STATUS_CANCELLED:
+                terminalDate = parcel.getCancellationDate();
+                break;
+            case PARCEL_STATUS_FAILED:
+                terminalDate = parcel.getFinishedDate();
+                break;
+            default:
+                terminalDate = null;
+                break;
+        }
+        if(terminalDate == null){
+            return(defaultTime);
+        }
+        return(terminalDate.getTime());
+    }
+
+    /**
+     * This function performs a single sweep of the expiry wheel, evicting all Parcels whose bucket has expired.
+     *
+     * @return The number of Parcels evicted
+     */
+    public int tick(){
+        return(tick(Instant.now().toEpochMilli()));
+    }
+
+    int tick(long currentTime){
+        LOG.debug(".tick(): Entry");
+        tickCount.incrementAndGet();
+        long currentBucket = toBucket(currentTime);
+        List<Map.Entry<Long, List<ResilienceParcelIdentifier>>> expiredBuckets = new ArrayList<Map.Entry<Long, List<ResilienceParcelIdentifier>>>();
+        synchronized (expiryWheelLock){
+            while(!expiryWheel.isEmpty() && (expiryWheel.firstKey() <= currentBucket)){
+                expiredBuckets.add(expiryWheel.pollFirstEntry());
+            }
+        }
+        int evictedCount = 0;
+        for(Map.Entry<Long, List<ResilienceParcelIdentifier>> expiredBucket: expiredBuckets){
+            for(ResilienceParcelIdentifier parcelInstanceID: expiredBucket.getValue()){
+                if(!scheduledBucketMap.remove(parcelInstanceID, expiredBucket.getKey())){
+                    LOG.trace(".tick(): Parcel has been re-scheduled into a later bucket, parcelInstanceID --> {}", parcelInstanceID);
+                    continue;
+                }
+                if(evictParcel(parcelInstanceID)){
+                    evictedCount += 1;
+                } else {
+                    scheduleParcel(parcelInstanceID, currentTime);
+                }
+            }
+        }
+        if(evictedCount > 0) {
+            LOG.debug(".tick(): Exit, evicted --> {}, retainedParcels --> {}, retainedStatusElements --> {}, scheduled --> {}",
+                    evictedCount, getRetainedParcelCount(), getRetainedStatusElementCount(), getScheduledParcelCount());
+        }
+        return(evictedCount);
+    }
+
+    private void safeTick(){
+        try {
+            tick();
+        } catch(Exception ex){
+            // An exception would otherwise silently cancel all subsequent ticks of the sweeper
+            LOG.warn(".safeTick(): Sweep failed, reason --> {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * @return True if the Parcel was evicted, false if it is no longer in a terminal status (and is to be rescheduled)
+     */
+    private boolean evictParcel(ResilienceParcelIdentifier parcelInstanceID){
+        // (only the status is needed, so there is no need to restore a spilled Parcel's payloads)
+        ResilienceParcel parcel = parcelCacheDM.peekParcelInstance(parcelInstanceID);
+        if((parcel != null) && parcel.hasProcessingStatus() && !isTerminalProcessingStatus(parcel.getProcessingStatus())){
+            LOG.trace(".evictParcel(): Parcel is no longer finalised (or cancelled, or failed), rescheduling, parcelInstanceID --> {}", parcelInstanceID);
+            skippedParcelCount.incrementAndGet();
+            return(false);
+        }
+        parcelCacheDM.removeParcel(parcelInstanceID);
+        PetasosEpisodeIdentifier episodeID = activityMatrixDM.removeWUA(parcelInstanceID);
+        if((episodeID != null) && !activityMatrixDM.hasEpisode(episodeID)){
+            LOG.trace(".evictParcel(): Last Parcel of the Episode evicted, removing Episode finalisation content, episodeID --> {}", episodeID);
+            finalisationCacheDM.removeEpisode(episodeID);
+            evictedEpisodeCount.incrementAndGet();
+        }
+        evictedParcelCount.incrementAndGet();
+        return(true);
+    }
+
+    private static boolean isTerminalProcessingStatus(ResilienceParcelProcessingStatusEnum processingStatus){
+        switch(processingStatus){
+            case PARCEL_STATUS_FINALISED:
+            case PARCEL_STATUS_FINALISED_ELSEWHERE:
+            case PARCEL_STATUS_CANCELLED:
+            case PARCEL_STATUS_FAILED:
+                return(true);
+            default:
+                return(false);
+        }
+    }
+
+    private long toBucket(long epochMillis){
+        return(epochMillis / PetasosPropertyConstants.RESILIENCE_WATCHDOG_TICK_MILLISECONDS);
+    }
+
+    //
+    // Metrics
+    //
+
+    public long getEvictedParcelCount() {
+        return(evictedParcelCount.get());
+    }
+
+    public long getEvictedEpisodeCount() {
+        return(evictedEpisodeCount.get());
+    }
+
+    public long getSkippedParcelCount() {
+        return(skippedParcelCount.get());
+    }
+
+    public long getTickCount() {
+        return(tickCount.get());
+    }
+
+    public int getScheduledParcelCount() {
+        return(scheduledBucketMap.size());
+    }
+
+    public int getRetainedParcelCount() {
+        return(parcelCacheDM.getParcelCount());
+    }
+
+    public int getRetainedStatusElementCount() {
+        return(activityMatrixDM.getParcelStatusElementCount());
+    }
+
+    public int getRetainedEpisodeCount() {
+        return(activityMatrixDM.getEpisodeCount());
+    }
 }
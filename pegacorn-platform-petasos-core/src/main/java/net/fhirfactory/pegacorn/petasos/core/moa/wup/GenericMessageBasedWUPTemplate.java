@@ -39,8 +39,12 @@ import net.fhirfactory.pegacorn.deployment.topology.model.nodes.ProcessingPlantT
 import net.fhirfactory.pegacorn.deployment.topology.model.nodes.SolutionTopologyNode;
 import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
 import net.fhirfactory.pegacorn.internals.fhir.r4.internal.topics.FHIRElementTopicFactory;
+import net.fhirfactory.pegacorn.petasos.audit.policy.WUPAuditPolicyRegistry;
 import net.fhirfactory.pegacorn.petasos.core.moa.brokers.PetasosMOAServicesBroker;
 import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNames;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNamesRegistry;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.WUPIngresQueueConfiguration;
+import net.fhirfactory.pegacorn.petasos.model.audit.AuditPolicyEnum;
 import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPArchetypeEnum;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPJobCard;
@@ -100,6 +104,12 @@ public abstract class  GenericMessageBasedWUPTemplate extends BaseRouteBuilder {
     @Inject
     private FHIRContextUtility fhirContextUtility;
 
+    @Inject
+    private RouteElementNamesRegistry routeElementNamesRegistry;
+
+    @Inject
+    private WUPAuditPolicyRegistry auditPolicyRegistry;
+
     public GenericMessageBasedWUPTemplate() {
         super();
     }
@@ -120,7 +130,9 @@ public abstract class  GenericMessageBasedWUPTemplate extends BaseRouteBuilder {
         getLogger().trace(".initialise(): Setting up the wupTopologyElement (NodeElement) instance, which is the Topology Server's representation of this WUP ");
         this.associatedTopologyNode = buildWUPNodeElement();
         getLogger().trace(".initialise(): Setting the WUP nameSet, which is the set of Route EndPoints that the WUP Framework will use to link various enablers");
-        this.nameSet = new RouteElementNames(getAssociatedTopologyNode().getNodeFDN().getToken());
+        this.nameSet = routeElementNamesRegistry.registerWUP(getAssociatedTopologyNode(), specifyIngresQueueConfiguration());
+        getLogger().trace(".initialise(): Registering the WUP audit policy");
+        auditPolicyRegistry.registerWUP(getAssociatedTopologyNode(), specifyAuditPolicy());
         getLogger().trace(".initialise(): Setting the WUP EgressEndpoint");
         this.egressEndpoint = specifyEgressEndpoint();
         getLogger().trace(".initialise(): Setting the WUP IngresEndpoint");
@@ -183,6 +195,28 @@ public abstract class  GenericMessageBasedWUPTemplate extends BaseRouteBuilder {
         // Subclasses can optionally override
     }
 
+    /**
+     * The SEDA options (concurrentConsumers, size, blockWhenFull etc.) for this WUP's WUP Container ingres queue,
+     * overriding the processing plant defaults. Only applies to WUP Archetypes whose WUP Container is fed via SEDA.
+     *
+     * @return The per-WUP WUPIngresQueueConfiguration, or null to use the processing plant defaults
+     */
+    protected WUPIngresQueueConfiguration specifyIngresQueueConfiguration(){
+        // Subclasses can optionally override
+        return(null);
+    }
+
+    /**
+     * The audit policy for the ResilienceParcels processed by this WUP - e.g. AUDIT_POLICY_SAMPLED or AUDIT_POLICY_OFF
+     * for high-volume, low-risk WUPs - overriding the processing plant configuration (see WUPAuditPolicyRegistry).
+     *
+     * @return The per-WUP AuditPolicyEnum, or null to use the processing plant configuration
+     */
+    protected AuditPolicyEnum specifyAuditPolicy(){
+        // Subclasses can optionally override
+        return(null);
+    }
+
     protected SolutionTopologyNode getSolutionTopology(){return(processingPlantServices.getSolutionNode());}
 
     public void buildWUPFramework(CamelContext routeContext) {
@@ -37,8 +37,10 @@ import net.fhirfactory.pegacorn.deployment.topology.model.nodes.ProcessingPlantT
 import net.fhirfactory.pegacorn.deployment.topology.model.nodes.SolutionTopologyNode;
 import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
 import net.fhirfactory.pegacorn.internals.fhir.r4.internal.topics.FHIRElementTopicFactory;
+import net.fhirfactory.pegacorn.petasos.audit.policy.WUPAuditPolicyRegistry;
 import net.fhirfactory.pegacorn.petasos.core.moa.brokers.PetasosMOAServicesBroker;
 import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNames;
+import net.fhirfactory.pegacorn.petasos.model.audit.AuditPolicyEnum;
 import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPArchetypeEnum;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPJobCard;
@@ -90,6 +92,9 @@ public abstract class GenericTriggerBasedWUPTemplate extends BaseRouteBuilder {
     @Inject
     private CamelContext camelContext;
 
+    @Inject
+    private WUPAuditPolicyRegistry auditPolicyRegistry;
+
     public GenericTriggerBasedWUPTemplate() {
         super();
         this.wupInstanceName = getClass().getSimpleName();
@@ -112,6 +117,8 @@ public abstract class GenericTriggerBasedWUPTemplate extends BaseRouteBuilder {
         this.associatedTopologyNode = buildWUPNodeElement();
         getLogger().trace(".initialise(): Setting the WUP nameSet, which is the set of Route EndPoints that the WUP Framework will use to link various enablers");
         this.nameSet = new RouteElementNames(getAssociatedTopologyNode().getNodeFDN().getToken());
+        getLogger().trace(".initialise(): Registering the WUP audit policy");
+        auditPolicyRegistry.registerWUP(getAssociatedTopologyNode(), specifyAuditPolicy());
         getLogger().trace(".initialise(): Setting the WUP EgressEndpoint");
         this.egressEndpoint = specifyEgressEndpoint();
         getLogger().trace(".initialise(): Setting the WUP IngresEndpoint");
@@ -166,6 +173,17 @@ public abstract class GenericTriggerBasedWUPTemplate extends BaseRouteBuilder {
         // Subclasses can optionally override
     }
 
+    /**
+     * The audit policy for the ResilienceParcels processed by this WUP - e.g. AUDIT_POLICY_SAMPLED or AUDIT_POLICY_OFF
+     * for high-volume, low-risk WUPs - overriding the processing plant configuration (see WUPAuditPolicyRegistry).
+     *
+     * @return The per-WUP AuditPolicyEnum, or null to use the processing plant configuration
+     */
+    protected AuditPolicyEnum specifyAuditPolicy(){
+        // Subclasses can optionally override
+        return(null);
+    }
+
     protected SolutionTopologyNode getSolutionTopology(){return(processingPlantServices.getSolutionNode());}
 
     public void buildWUPFramework(CamelContext routeContext) {
@@ -55,6 +55,11 @@ public class STAResilienceParcelServicesIM {
     STAServicesAuditBroker auditWriter;
     
 
+    /**
+     * Registers the Parcel for the WUP's processing of the UoW. There is only ever one Parcel per WUP Instance / UoW
+     * Instance: if the UoW is re-delivered to the WUP, the existing Parcel is used - as it is if it is still in
+     * progress, otherwise (e.g. it FAILED or was FINALISED) it is re-registered, with its status and dates reset.
+     */
     @Transactional
     public ResilienceParcel registerSOAParcel(ActivityID activityID, UoW unitOfWork) {
         LOG.debug(".registerSOAParcel(): Entry");
@@ -90,9 +95,20 @@ public class STAResilienceParcelServicesIM {
         }
         // 1st, lets register the parcel
         LOG.trace(".registerSOAParcel(): check for existing ResilienceParcel instance for this WUP/UoW combination");
-        ResilienceParcel parcelInstance =  parcelCacheDM.getCurrentParcelForWUP(activityID.getPresentWUPIdentifier(), unitOfWork.getTypeID());
+        ResilienceParcel parcelInstance =  parcelCacheDM.getCurrentParcelForWUP(activityID.getPresentWUPIdentifier(), unitOfWork.getInstanceID());
         if(parcelInstance != null){
-            LOG.trace(".registerSOAParcel(): Well, there seems to be a Parcel already for this WUPInstanceID/UoWInstanceID. Odd, but let's use it!");
+            LOG.trace(".registerSOAParcel(): Well, there seems to be a Parcel already for this WUPInstanceID/UoWInstanceID (i.e. the UoW has been re-delivered), so let's use it!");
+            activityID.setPresentParcelIdentifier(parcelInstance.getIdentifier());
+            if(isInProgress(parcelInstance.getProcessingStatus())){
+                LOG.trace(".registerSOAParcel(): The existing Parcel is still in progress, so leave it as it is");
+            } else {
+                // The earlier delivery has run its course (e.g. FAILED or FINALISED), so this is a new attempt at it
+                Date registrationDate = Date.from(Instant.now());
+                LOG.trace(".registerSOAParcel(): The existing Parcel has run its course (status --> {}), so re-register it, Registration Date --> {}", parcelInstance.getProcessingStatus(), registrationDate);
+                parcelCacheDM.resetParcelProcessingStatus(parcelInstance, registrationDate);
+                LOG.trace(".registerSOAParcel(): Doing an Audit Write");
+//                auditWriter.logActivity(parcelInstance, true);
+            }
         } else {
             LOG.trace(".registerSOAParcel(): Attempted to retrieve existing ResilienceParcel, and there wasn't one, so let's create it!");
             parcelInstance = new ResilienceParcel(activityID, unitOfWork);
@@ -105,7 +121,7 @@ public class STAResilienceParcelServicesIM {
             LOG.trace(".registerSOAParcel(): Set the Parcel Finalisation Status --> {} ", ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
             parcelInstance.setFinalisationStatus(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
             LOG.trace(".registerSOAParcel(): Set the Parcel Processing Status --> {}", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
-            parcelInstance.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
+            parcelCacheDM.setParcelProcessingStatus(parcelInstance, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
             LOG.trace(".registerSOAParcel(): Doing an Audit Write");
 //            auditWriter.logActivity(parcelInstance, true);
         }
@@ -148,7 +164,7 @@ public class STAResilienceParcelServicesIM {
         LOG.trace(".notifyParcelProcessingStart(): Set the Parcel Finalisation Status --> {} ", ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
         currentParcel.setFinalisationStatus(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
         LOG.trace(".notifyParcelProcessingStart(): Set the Parcel Processing Status --> {}", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
-        currentParcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+        parcelCacheDM.setParcelProcessingStatus(currentParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
         // TODO Check to see if we should do an Audit Entry when we start processing (as well as when it is registered)
         // LOG.trace(".notifyParcelProcessingStart(): Doing an Audit Write, note that it is asynchronous by design");
         // auditWriter.writeAuditEntry(currentParcel,false);
@@ -220,7 +236,7 @@ public class STAResilienceParcelServicesIM {
         LOG.trace(".notifyParcelProcessingFinish(): Set the Parcel Finalisation Status --> {} ", ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED);
         currentParcel.setFinalisationStatus(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED);
         LOG.trace(".notifyParcelProcessingFinish(): Set the Parcel Processing Status --> {}", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
-        currentParcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
+        parcelCacheDM.setParcelProcessingStatus(currentParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
         LOG.trace(".notifyParcelProcessingFinish(): Doing an Audit Write, note that it is synchronous by design");
  //       auditWriter.logActivity(currentParcel, true);
         if(LOG.isDebugEnabled()) {
@@ -266,7 +282,7 @@ public class STAResilienceParcelServicesIM {
         LOG.trace(".notifyParcelProcessingFailure(): Set the Parcel Finalisation Status --> {} ", ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
         currentParcel.setFinalisationStatus(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED);
         LOG.trace(".notifyParcelProcessingFailure(): Set the Parcel Processing Status --> {}", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED);
-        currentParcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED);
+        parcelCacheDM.setParcelProcessingStatus(currentParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED);
         LOG.trace(".notifyParcelProcessingFailure(): Doing an Audit Write, note that it is asynchronous by desgin");
 //        auditWriter.logActivity(currentParcel, true);
         LOG.debug(".notifyParcelProcessingFailure(): Exit, returning failed Parcel --> {}", currentParcel);
@@ -294,7 +310,7 @@ public class STAResilienceParcelServicesIM {
         LOG.trace(".notifyParcelProcessingFinalisation(): Set the Parcel Finalisation Status --> {} ", ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED);
         currentParcel.setFinalisationStatus(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED);
         LOG.trace(".notifyParcelProcessingFinalisation(): Set the Parcel Processing Status --> {}", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
-        currentParcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
+        parcelCacheDM.setParcelProcessingStatus(currentParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
         LOG.trace(".notifyParcelProcessingFinalisation(): Doing an Audit Write, note that it is asynchronous by design");
         auditWriter.writeAuditEntry(currentParcel,true);
         LOG.debug(".notifyParcelProcessingFinalisation(): Exit, returning finished Parcel --> {}", currentParcel);
@@ -322,7 +338,7 @@ public class STAResilienceParcelServicesIM {
         LOG.trace(".notifyParcelProcessingCancellation(): Set the Parcel Finalisation Status --> {} ", ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED);
         currentParcel.setFinalisationStatus(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED);
         LOG.trace(".notifyParcelProcessingCancellation(): Set the Parcel Processing Status --> {}", ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
-        currentParcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
+        parcelCacheDM.setParcelProcessingStatus(currentParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
         LOG.trace(".notifyParcelProcessingCancellation(): Doing an Audit Write, note that it is asynchronous by design");
 //        auditWriter.logActivity(currentParcel, true);
         LOG.debug(".notifyParcelProcessingCancellation(): Exit, returning finished Parcel --> {}", currentParcel);
@@ -341,4 +357,19 @@ public class STAResilienceParcelServicesIM {
         //        auditWriter.writeAuditEntry(currentParcel,false);
         //LOG.debug(".notifyParcelProcessingPurge(): Exit, returning finished Parcel --> {}", currentParcel);
     }
+
+    private static boolean isInProgress(ResilienceParcelProcessingStatusEnum processingStatus){
+        if(processingStatus == null){
+            return(false);
+        }
+        switch(processingStatus){
+            case PARCEL_STATUS_REGISTERED:
+            case PARCEL_STATUS_INITIATED:
+            case PARCEL_STATUS_ACTIVE:
+            case PARCEL_STATUS_ACTIVE_ELSEWHERE:
+                return(true);
+            default:
+                return(false);
+        }
+    }
 }
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Date;
+
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFunctionFDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFunctionFDNToken;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeRDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeTypeEnum;
+import net.fhirfactory.pegacorn.common.model.generalid.FDN;
+import net.fhirfactory.pegacorn.common.model.generalid.RDN;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelTypeDescriptor;
+import net.fhirfactory.pegacorn.components.interfaces.topology.ProcessingPlantInterface;
+import net.fhirfactory.pegacorn.deployment.topology.model.mode.ConcurrencyModeEnum;
+import net.fhirfactory.pegacorn.deployment.topology.model.mode.ResilienceModeEnum;
+import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
+import net.fhirfactory.pegacorn.petasos.model.pathway.WorkUnitTransportPacket;
+import net.fhirfactory.pegacorn.petasos.model.resilience.activitymatrix.moa.ParcelStatusElement;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoWIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoWPayload;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPActivityStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPJobCard;
+
+/**
+ * Builders for the (otherwise container/topology supplied) Petasos objects used within the petasos-core tests
+ * and the petasos-benchmarks (which take it from the petasos-core test-jar). Both run outside of any CDI
+ * container, so this class also provides a simple field injector and a stand-in ProcessingPlantInterface.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public final class PetasosCoreTestFixtures {
+
+    public static final String TEST_SUBSYSTEM_NAME = "test-subsystem";
+    public static final String TEST_PROCESSING_PLANT_NAME = "test-processing-plant";
+    public static final String TEST_WORKSHOP_NAME = "test-workshop";
+    public static final String TEST_HOST_NAME = "test-host";
+    public static final String TEST_VERSION = "1.0.0";
+
+    private static final String UOW_INSTANCE_QUALIFIER = "UoWInstance";
+    private static final String UOW_TYPE_QUALIFIER = "UoWType";
+
+    private PetasosCoreTestFixtures(){
+    }
+
+    //
+    // Topology Identifiers
+    //
+
+    public static TopologyNodeFDN newWUPNodeFDN(String wupName){
+        TopologyNodeFDN wupFDN = new TopologyNodeFDN();
+        wupFDN.appendTopologyNodeRDN(new TopologyNodeRDN(TopologyNodeTypeEnum.SUBSYSTEM, TEST_SUBSYSTEM_NAME, TEST_VERSION));
+        wupFDN.appendTopologyNodeRDN(new TopologyNodeRDN(TopologyNodeTypeEnum.PROCESSING_PLANT, TEST_PROCESSING_PLANT_NAME, TEST_VERSION));
+        wupFDN.appendTopologyNodeRDN(new TopologyNodeRDN(TopologyNodeTypeEnum.WORKSHOP, TEST_WORKSHOP_NAME, TEST_VERSION));
+        wupFDN.appendTopologyNodeRDN(new TopologyNodeRDN(TopologyNodeTypeEnum.WUP, wupName, TEST_VERSION));
+        return(wupFDN);
+    }
+
+    public static WUPIdentifier newWUPIdentifier(String wupName){
+        return(new WUPIdentifier(newWUPNodeFDN(wupName).getToken()));
+    }
+
+    public static TopologyNodeFunctionFDNToken newWUPFunctionToken(String wupName){
+        TopologyNodeFunctionFDN functionFDN = new TopologyNodeFunctionFDN();
+        functionFDN.appendTopologyNodeRDN(new TopologyNodeRDN(TopologyNodeTypeEnum.SUBSYSTEM, TEST_SUBSYSTEM_NAME, TEST_VERSION));
+        functionFDN.appendTopologyNodeRDN(new TopologyNodeRDN(TopologyNodeTypeEnum.PROCESSING_PLANT, TEST_PROCESSING_PLANT_NAME, TEST_VERSION));
+        functionFDN.appendTopologyNodeRDN(new TopologyNodeRDN(TopologyNodeTypeEnum.WORKSHOP, TEST_WORKSHOP_NAME, TEST_VERSION));
+        functionFDN.appendTopologyNodeRDN(new TopologyNodeRDN(TopologyNodeTypeEnum.WUP, wupName, TEST_VERSION));
+        return(functionFDN.getFunctionToken());
+    }
+
+    //
+    // DataParcel Manifests
+    //
+
+    public static DataParcelTypeDescriptor newDescriptor(String definer, String category, String subCategory, String resource){
+        DataParcelTypeDescriptor descriptor = new DataParcelTypeDescriptor();
+        descriptor.setDataParcelDefiner(definer);
+        descriptor.setDataParcelCategory(category);
+        descriptor.setDataParcelSubCategory(subCategory);
+        descriptor.setDataParcelResource(resource);
+        return(descriptor);
+    }
+
+    public static DataParcelManifest newManifest(String resource){
+        return(new DataParcelManifest(newDescriptor("FHIRFactory", "Test", "Petasos", resource)));
+    }
+
+    public static String newPayloadContent(int payloadSize){
+        return(newPayloadContent('x', payloadSize));
+    }
+
+    public static String newPayloadContent(char fill, int payloadSize){
+        char[] content = new char[payloadSize];
+        Arrays.fill(content, fill);
+        return(new String(content));
+    }
+
+    //
+    // Units of Work, ActivityIDs and Parcels
+    //
+
+    public static UoW newUoW(String resource, String payloadContent){
+        return(new UoW(new UoWPayload(newManifest(resource), payloadContent)));
+    }
+
+    /**
+     * Create a UoW with a unique (sequence based) instance identifier. The default UoW instance
+     * identifier is derived from the system clock, which is not unique at benchmark rates.
+     *
+     * @param manifest The manifest of the ingres payload
+     * @param payloadContent The ingres payload content
+     * @param sequenceNumber A sequence number unique within the test (or benchmark)
+     * @return A new UoW
+     */
+    public static UoW newUoW(DataParcelManifest manifest, String payloadContent, long sequenceNumber){
+        UoW uow = new UoW(new UoWPayload(manifest, payloadContent));
+        FDN instanceFDN = new FDN();
+        instanceFDN.appendRDN(new RDN(UOW_INSTANCE_QUALIFIER, "UoW-" + sequenceNumber));
+        uow.setInstanceID(new UoWIdentifier(instanceFDN.getToken()));
+        FDN typeFDN = new FDN();
+        typeFDN.appendRDN(new RDN(UOW_TYPE_QUALIFIER, manifest.getContentDescriptor().getDataParcelResource()));
+        uow.setTypeID(typeFDN.getToken());
+        return(uow);
+    }
+
+    public static ActivityID newActivityID(String wupName){
+        return(newActivityID(newWUPIdentifier(wupName), newWUPFunctionToken(wupName)));
+    }
+
+    public static ActivityID newActivityID(WUPIdentifier wupIdentifier, TopologyNodeFunctionFDNToken wupFunctionToken){
+        ActivityID activityID = new ActivityID(null, null, null, wupIdentifier);
+        activityID.setPresentWUPFunctionToken(wupFunctionToken);
+        return(activityID);
+    }
+
+    /**
+     * Create a ResilienceParcel (and complete the ActivityID with its parcel/episode identifiers, as the
+     * Parcel registration within the Petasos framework would).
+     *
+     * @param activityID An ActivityID with the present WUP Identifier and Function Token set
+     * @param uow The UoW to be wrapped by the Parcel
+     * @param status The processing status to be given to the Parcel
+     * @return A new ResilienceParcel
+     */
+    public static ResilienceParcel newResilienceParcel(ActivityID activityID, UoW uow, ResilienceParcelProcessingStatusEnum status){
+        ResilienceParcel parcel = new ResilienceParcel(activityID, uow);
+        parcel.setProcessingStatus(status);
+        parcel.setStartDate(new Date());
+        activityID.setPresentParcelIdentifier(parcel.getIdentifier());
+        activityID.setPresentEpisodeIdentifier(parcel.getEpisodeIdentifier());
+        return(parcel);
+    }
+
+    public static WorkUnitTransportPacket newTransportPacket(ActivityID activityID, UoW uow){
+        WorkUnitTransportPacket packet = new WorkUnitTransportPacket(activityID, new Date(), uow);
+        WUPJobCard jobCard = new WUPJobCard(
+                activityID,
+                WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_EXECUTING,
+                WUPActivityStatusEnum.WUP_ACTIVITY_STATUS_EXECUTING,
+                ConcurrencyModeEnum.CONCURRENCY_MODE_STANDALONE,
+                ResilienceModeEnum.RESILIENCE_MODE_STANDALONE,
+                new Date());
+        packet.setCurrentJobCard(jobCard);
+        ParcelStatusElement statusElement = new ParcelStatusElement(activityID);
+        statusElement.setParcelStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+        packet.setCurrentParcelStatus(statusElement);
+        return(packet);
+    }
+
+    //
+    // Container Stand-Ins
+    //
+
+    /**
+     * Set a (typically @Inject annotated) field on the target bean, searching up the class hierarchy.
+     *
+     * @param target The bean to be "injected" into
+     * @param fieldName The name of the field
+     * @param value The value to be assigned
+     */
+    public static void injectField(Object target, String fieldName, Object value){
+        if((target == null) || (fieldName == null)){
+            throw(new IllegalArgumentException(".injectField(): target or fieldName is null"));
+        }
+        Class<?> currentClass = target.getClass();
+        while(currentClass != null){
+            try {
+                Field field = currentClass.getDeclaredField(fieldName);
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (NoSuchFieldException e) {
+                currentClass = currentClass.getSuperclass();
+            } catch (IllegalAccessException e) {
+                throw(new IllegalStateException(".injectField(): Cannot set field, fieldName->" + fieldName, e));
+            }
+        }
+        throw(new IllegalArgumentException(".injectField(): No such field, fieldName->" + fieldName));
+    }
+
+    /**
+     * A minimal ProcessingPlantInterface which answers the naming queries used by the audit transformers
+     * and returns default (null/false/0) values for everything else.
+     *
+     * @return A ProcessingPlantInterface stand-in
+     */
+    public static ProcessingPlantInterface newProcessingPlantStandIn(){
+        InvocationHandler handler = new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                switch(method.getName()){
+                    case "getSimpleInstanceName":
+                        return(TEST_PROCESSING_PLANT_NAME);
+                    case "getHostName":
+                        return(TEST_HOST_NAME);
+                    case "toString":
+                        return("ProcessingPlantStandIn{" + TEST_PROCESSING_PLANT_NAME + "}");
+                    case "hashCode":
+                        return(System.identityHashCode(proxy));
+                    case "equals":
+                        return(proxy == args[0]);
+                    default:
+                        return(defaultValue(method.getReturnType()));
+                }
+            }
+        };
+        return((ProcessingPlantInterface) Proxy.newProxyInstance(
+                ProcessingPlantInterface.class.getClassLoader(),
+                new Class<?>[]{ProcessingPlantInterface.class},
+                handler));
+    }
+
+    private static Object defaultValue(Class<?> returnType){
+        if(!returnType.isPrimitive() || returnType == void.class){
+            return(null);
+        }
+        if(returnType == boolean.class){
+            return(false);
+        }
+        if(returnType == char.class){
+            return('\0');
+        }
+        if(returnType == long.class){
+            return(0L);
+        }
+        if(returnType == float.class){
+            return(0.0f);
+        }
+        if(returnType == double.class){
+            return(0.0d);
+        }
+        if(returnType == byte.class){
+            return((byte) 0);
+        }
+        if(returnType == short.class){
+            return((short) 0);
+        }
+        return(0);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.common.resilience.processingplant.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+class ParcelPayloadSpillFileTest {
+	private static final Logger LOG = LoggerFactory.getLogger(ParcelPayloadSpillFileTest.class);
+
+	// a record of a single 8 character (ASCII) payload is a payload count, a payload length and the payload
+	private static final long RECORD_LENGTH = Integer.BYTES + Integer.BYTES + 8;
+
+	Path overflowDirectory;
+	ParcelPayloadSpillFile spillFile;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		LOG.debug(".setUp(): Entry...");
+		overflowDirectory = Files.createTempDirectory("parcel-spill-test");
+		// two records per segment, compacting segments that are less than 60% live
+		spillFile = new ParcelPayloadSpillFile(overflowDirectory, 2 * RECORD_LENGTH, 60);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		spillFile.close();
+		try (Stream<Path> overflowFiles = Files.walk(overflowDirectory)) {
+			overflowFiles.sorted(Comparator.reverseOrder()).forEach(currentPath -> currentPath.toFile().delete());
+		}
+	}
+
+	List<ParcelPayloadSpillFile.SpillRecord> appendRecords(int recordCount) throws IOException {
+		List<ParcelPayloadSpillFile.SpillRecord> spillRecords = new ArrayList<>();
+		for (int counter = 0; counter < recordCount; counter++) {
+			spillRecords.add(spillFile.append(Arrays.asList(String.format("payload%d", counter))));
+		}
+		return (spillRecords);
+	}
+
+	@Test
+	void testRecordRoundTrip() throws IOException {
+		LOG.info(".testRecordRoundTrip(): Entry");
+		List<String> payloads = Arrays.asList("ingres", null, "", "egress \u00e9\u4e2d");
+		ParcelPayloadSpillFile.SpillRecord spillRecord = spillFile.append(payloads);
+		assertEquals(payloads, spillFile.read(spillRecord));
+
+		spillFile.release(spillRecord);
+		assertThrows(IOException.class, () -> spillFile.read(spillRecord));
+		assertEquals(0, spillFile.getLiveRecordLength());
+		// releasing twice is harmless
+		spillFile.release(spillRecord);
+		assertEquals(0, spillFile.getLiveRecordLength());
+	}
+
+	@Test
+	void testFullSegmentIsDeletedOnceReleased() throws IOException {
+		LOG.info(".testFullSegmentIsDeletedOnceReleased(): Entry");
+		List<ParcelPayloadSpillFile.SpillRecord> spillRecords = appendRecords(3);
+		assertEquals(2, spillFile.getSegmentCount());
+		assertEquals(3 * RECORD_LENGTH, spillFile.getSpillFileLength());
+
+		spillFile.release(spillRecords.get(0));
+		assertEquals(2, spillFile.getSegmentCount());
+		spillFile.release(spillRecords.get(1));
+		assertEquals(1, spillFile.getSegmentCount());
+		assertEquals(RECORD_LENGTH, spillFile.getSpillFileLength());
+		assertEquals("payload2", spillFile.read(spillRecords.get(2)).get(0));
+	}
+
+	@Test
+	void testSparseSegmentIsCompacted() throws IOException {
+		LOG.info(".testSparseSegmentIsCompacted(): Entry");
+		List<ParcelPayloadSpillFile.SpillRecord> spillRecords = appendRecords(4);
+		spillRecords.add(spillFile.append(Arrays.asList("payload4")));
+		assertEquals(3, spillFile.getSegmentCount());
+
+		// the first segment is half live (below the 60% threshold), the second fully live
+		spillFile.release(spillRecords.get(0));
+		assertEquals(1, spillFile.compact());
+		assertEquals(1, spillFile.getCompactedRecordCount());
+		// (the moved record fills the current segment)
+		assertEquals(2, spillFile.getSegmentCount());
+		assertEquals(4 * RECORD_LENGTH, spillFile.getSpillFileLength());
+		assertEquals(spillFile.getSpillFileLength(), spillFile.getLiveRecordLength());
+
+		// the moved record is still readable through its (updated) SpillRecord, as are the others
+		for (int counter = 1; counter < spillRecords.size(); counter++) {
+			assertEquals("payload" + counter, spillFile.read(spillRecords.get(counter)).get(0));
+		}
+		assertEquals(0, spillFile.compact());
+	}
+}
@@ -0,0 +1,449 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.common.resilience.processingplant.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.fhirfactory.pegacorn.petasos.core.PetasosCoreTestFixtures;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelFinalisationStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoWPayload;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+class ProcessingPlantParcelCacheDMTest {
+	private static final Logger LOG = LoggerFactory.getLogger(ProcessingPlantParcelCacheDMTest.class);
+
+	private static final int PAYLOAD_SIZE = 4000;
+	private static final long PARCEL_WEIGHT = PetasosPropertyConstants.PARCEL_CACHE_ENTRY_OVERHEAD_BYTES + (2L * PAYLOAD_SIZE);
+	private static final long FINALISATION_BASE_TIME = 1610928000000L;
+
+	ProcessingPlantParcelCacheDM parcelCacheDM;
+	Path overflowDirectory;
+	int parcelCounter;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		LOG.debug(".setUp(): Entry...");
+		parcelCacheDM = new ProcessingPlantParcelCacheDM();
+		overflowDirectory = Files.createTempDirectory("parcel-cache-test");
+		parcelCounter = 0;
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		parcelCacheDM.shutdown();
+		try (Stream<Path> overflowFiles = Files.walk(overflowDirectory)) {
+			overflowFiles.sorted(Comparator.reverseOrder()).forEach(currentPath -> currentPath.toFile().delete());
+		}
+	}
+
+	UoW newUoW(int payloadSize) {
+		return (PetasosCoreTestFixtures.newUoW("Resource" + parcelCounter, PetasosCoreTestFixtures.newPayloadContent((char)('a' + (parcelCounter % 26)), payloadSize)));
+	}
+
+	ResilienceParcel addParcel(ResilienceParcelProcessingStatusEnum status, int payloadSize) {
+		return (addParcel(status, newUoW(payloadSize)));
+	}
+
+	ResilienceParcel addParcel(ResilienceParcelProcessingStatusEnum status, UoW uow) {
+		parcelCounter += 1;
+		ResilienceParcel parcel = PetasosCoreTestFixtures.newResilienceParcel(PetasosCoreTestFixtures.newActivityID("wup" + parcelCounter), uow, status);
+		parcelCacheDM.addParcel(parcel);
+		return (parcel);
+	}
+
+	void finalise(ResilienceParcel parcel, long finalisationOffsetMillis) {
+		parcelCacheDM.setParcelProcessingStatus(parcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED, new Date(FINALISATION_BASE_TIME + finalisationOffsetMillis));
+	}
+
+	boolean isCached(ResilienceParcel parcel) {
+		// (peekParcelInstance() does not restore a spilled Parcel)
+		return (parcelCacheDM.peekParcelInstance(parcel.getIdentifier()) != null);
+	}
+
+	void assertIndexedAs(ResilienceParcel parcel, ResilienceParcelProcessingStatusEnum status) {
+		ResilienceParcel wupParcel = parcelCacheDM.getCurrentParcelForWUP(parcel.getAssociatedWUPIdentifier(), parcel.getActualUoW().getInstanceID());
+		assertSame(parcel, wupParcel);
+		List<ResilienceParcel> episodeParcels = parcelCacheDM.getParcelByEpisodeID(parcel.getEpisodeIdentifier());
+		assertEquals(1, episodeParcels.size());
+		assertSame(parcel, episodeParcels.get(0));
+		for (ResilienceParcelProcessingStatusEnum currentStatus : ResilienceParcelProcessingStatusEnum.values()) {
+			List<ResilienceParcel> statusParcels = parcelCacheDM.getParcelSetByState(currentStatus);
+			if (currentStatus == status) {
+				assertEquals(1, statusParcels.size());
+				assertSame(parcel, statusParcels.get(0));
+			} else {
+				assertTrue(statusParcels.isEmpty(), "Parcel also indexed under " + currentStatus);
+			}
+		}
+	}
+
+	@Test
+	void testIndexesStayConsistent() {
+		LOG.info(".testIndexesStayConsistent(): Entry");
+		ResilienceParcel parcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+		assertIndexedAs(parcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+		// the wup|uow index is keyed on the UoW instance, not its type
+		assertNull(parcelCacheDM.getCurrentParcelForWUP(parcel.getAssociatedWUPIdentifier(), parcel.getActualUoW().getTypeID()));
+
+		parcelCacheDM.setParcelProcessingStatus(parcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
+		assertIndexedAs(parcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
+		parcelCacheDM.setParcelProcessingStatus(parcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED, new Date());
+		assertIndexedAs(parcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED);
+
+		ResilienceParcel updatedParcel = new ResilienceParcel(parcel);
+		updatedParcel.setProcessingStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_CANCELLED);
+		parcelCacheDM.updateParcel(updatedParcel);
+		assertSame(updatedParcel, parcelCacheDM.getParcelInstance(parcel.getIdentifier()));
+		assertIndexedAs(updatedParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_CANCELLED);
+		assertEquals(1, parcelCacheDM.getParcelCount());
+		assertEquals(PARCEL_WEIGHT, parcelCacheDM.getTotalWeight());
+
+		// re-adding the same Parcel replaces, rather than duplicates, its index entries
+		parcelCacheDM.addParcel(updatedParcel);
+		assertIndexedAs(updatedParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_CANCELLED);
+		assertEquals(PARCEL_WEIGHT, parcelCacheDM.getTotalWeight());
+
+		parcelCacheDM.removeParcel(updatedParcel);
+		assertNull(parcelCacheDM.getParcelInstance(parcel.getIdentifier()));
+		assertNull(parcelCacheDM.getCurrentParcelForWUP(parcel.getAssociatedWUPIdentifier(), parcel.getActualUoW().getInstanceID()));
+		assertTrue(parcelCacheDM.getParcelByEpisodeID(parcel.getEpisodeIdentifier()).isEmpty());
+		assertTrue(parcelCacheDM.getParcelSet().isEmpty());
+		for (ResilienceParcelProcessingStatusEnum currentStatus : ResilienceParcelProcessingStatusEnum.values()) {
+			assertTrue(parcelCacheDM.getParcelSetByState(currentStatus).isEmpty());
+		}
+		assertEquals(0, parcelCacheDM.getParcelCount());
+		assertEquals(0, parcelCacheDM.getTotalWeight());
+	}
+
+	@Test
+	void testEvictionOrderIsOldestFinalisedFirst() {
+		LOG.info(".testEvictionOrderIsOldestFinalisedFirst(): Entry");
+		List<ResilienceParcel> finalisedParcels = new ArrayList<>();
+		for (int counter = 0; counter < 4; counter++) {
+			finalisedParcels.add(addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE));
+		}
+		// finalise them out of their insertion order, the eviction order must follow the finalisation time
+		finalise(finalisedParcels.get(2), 10);
+		finalise(finalisedParcels.get(0), 20);
+		finalise(finalisedParcels.get(3), 30);
+		finalise(finalisedParcels.get(1), 40);
+		addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+		addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+		assertEquals(6 * PARCEL_WEIGHT, parcelCacheDM.getTotalWeight());
+
+		// the low water mark of a budget of 4 Parcels is 3.6 Parcels, so the 3 oldest finalised Parcels must go
+		parcelCacheDM.setMaximumWeight(4 * PARCEL_WEIGHT);
+
+		assertEquals(3, parcelCacheDM.getEvictedParcelCount());
+		assertFalse(isCached(finalisedParcels.get(2)));
+		assertFalse(isCached(finalisedParcels.get(0)));
+		assertFalse(isCached(finalisedParcels.get(3)));
+		assertTrue(isCached(finalisedParcels.get(1)));
+		assertEquals(3, parcelCacheDM.getParcelCount());
+		assertEquals(3 * PARCEL_WEIGHT, parcelCacheDM.getTotalWeight());
+	}
+
+	@Test
+	void testNonFinalisedParcelsAreNeverEvicted() {
+		LOG.info(".testNonFinalisedParcelsAreNeverEvicted(): Entry");
+		ResilienceParcel activeParcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+		ResilienceParcel finishedParcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+		parcelCacheDM.setParcelProcessingStatus(finishedParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED, new Date());
+		ResilienceParcel failedParcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+		parcelCacheDM.setParcelProcessingStatus(failedParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED, new Date());
+		ResilienceParcel finalisedParcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+		finalise(finalisedParcel, 0);
+
+		// a budget no Parcel fits within, only the finalised Parcel may be evicted
+		parcelCacheDM.setMaximumWeight(1);
+		assertFalse(isCached(finalisedParcel));
+		assertTrue(isCached(activeParcel));
+		assertTrue(isCached(finishedParcel));
+		assertTrue(isCached(failedParcel));
+
+		// nor are Parcels added (or transitioned) whilst over budget
+		ResilienceParcel lateParcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+		parcelCacheDM.setParcelProcessingStatus(activeParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED, new Date());
+		assertTrue(isCached(lateParcel));
+		assertTrue(isCached(activeParcel));
+		assertEquals(4, parcelCacheDM.getParcelCount());
+		assertEquals(1, parcelCacheDM.getEvictedParcelCount());
+
+		// ... until they are finalised
+		finalise(activeParcel, 0);
+		assertFalse(isCached(activeParcel));
+		assertEquals(3, parcelCacheDM.getParcelCount());
+	}
+
+	@Test
+	void testResetParcelIsReRegistered() {
+		LOG.info(".testResetParcelIsReRegistered(): Entry");
+		ResilienceParcel parcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+		parcelCacheDM.setParcelProcessingStatus(parcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, null, new Date(FINALISATION_BASE_TIME));
+		finalise(parcel, 10);
+		assertNotNull(parcel.getStartDate());
+		assertNotNull(parcel.getFinishedDate());
+		assertNotNull(parcel.getFinalisationDate());
+
+		// a re-delivery of the UoW finds the Parcel by its WUP/UoW instance pair, and re-registers it
+		UoW redeliveredUoW = new UoW(parcel.getActualUoW());
+		ResilienceParcel existingParcel = parcelCacheDM.getCurrentParcelForWUP(PetasosCoreTestFixtures.newWUPIdentifier("wup" + parcelCounter), redeliveredUoW.getInstanceID());
+		assertSame(parcel, existingParcel);
+		Date registrationDate = new Date(FINALISATION_BASE_TIME + 20);
+		parcelCacheDM.resetParcelProcessingStatus(existingParcel, registrationDate);
+
+		assertIndexedAs(parcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
+		assertEquals(ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED, parcel.getFinalisationStatus());
+		assertEquals(registrationDate, parcel.getRegistrationDate());
+		assertNull(parcel.getStartDate());
+		assertNull(parcel.getFinishedDate());
+		assertNull(parcel.getFinalisationDate());
+		assertNull(parcel.getCancellationDate());
+
+		// ... and it is no longer evictable
+		parcelCacheDM.setMaximumWeight(1);
+		assertTrue(isCached(parcel));
+		assertEquals(0, parcelCacheDM.getEvictedParcelCount());
+	}
+
+	@Test
+	void testSpilledParcelIsRestoredOnRead() throws Exception {
+		LOG.info(".testSpilledParcelIsRestoredOnRead(): Entry");
+		assertTrue(parcelCacheDM.enableSpill(overflowDirectory));
+		ResilienceParcel spilledParcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+		String ingresPayload = spilledParcel.getActualUoW().getIngresContent().getPayload();
+		String egressPayload1 = PetasosCoreTestFixtures.newPayloadContent('y', PAYLOAD_SIZE);
+		String egressPayload2 = PetasosCoreTestFixtures.newPayloadContent('z', PAYLOAD_SIZE / 2);
+		spilledParcel.getActualUoW().getEgressContent().addPayloadElement(new UoWPayload(PetasosCoreTestFixtures.newManifest("Egress1"), egressPayload1));
+		spilledParcel.getActualUoW().getEgressContent().addPayloadElement(new UoWPayload(PetasosCoreTestFixtures.newManifest("Egress2"), egressPayload2));
+		finalise(spilledParcel, 0);
+		UoW unspilledUoW = spilledParcel.getActualUoW();
+		ResilienceParcel activeParcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+
+		parcelCacheDM.setMaximumWeight(PARCEL_WEIGHT);
+		parcelCacheDM.awaitSpillWork();
+
+		// spilled (on the spill worker) rather than evicted, and stripped of its payloads
+		assertEquals(1, parcelCacheDM.getSpilledParcelCount());
+		assertEquals(0, parcelCacheDM.getEvictedParcelCount());
+		assertTrue(isCached(spilledParcel));
+		assertTrue(isCached(activeParcel));
+		UoW strippedUoW = spilledParcel.getActualUoW();
+		assertNotSame(unspilledUoW, strippedUoW);
+		assertNull(strippedUoW.getIngresContent().getPayload());
+		assertTrue(strippedUoW.getEgressContent().getPayloadElements().isEmpty());
+		assertEquals(2 * PetasosPropertyConstants.PARCEL_CACHE_ENTRY_OVERHEAD_BYTES + (2L * PAYLOAD_SIZE), parcelCacheDM.getTotalWeight());
+		assertTrue(parcelCacheDM.getSpillFile().getLiveRecordLength() > 0);
+		// a reader still holding the unspilled UoW keeps its payloads
+		assertEquals(ingresPayload, unspilledUoW.getIngresContent().getPayload());
+		assertEquals(2, unspilledUoW.getEgressContent().getPayloadElements().size());
+
+		// reading the Parcel restores its payloads (with room for them, so the spill worker leaves it be)
+		parcelCacheDM.setMaximumWeight(10 * PARCEL_WEIGHT);
+		assertSame(spilledParcel, parcelCacheDM.getParcelInstance(spilledParcel.getIdentifier()));
+		UoW restoredUoW = spilledParcel.getActualUoW();
+		assertEquals(unspilledUoW.getInstanceID(), restoredUoW.getInstanceID());
+		assertEquals(ingresPayload, restoredUoW.getIngresContent().getPayload());
+		List<String> restoredEgressPayloads = new ArrayList<>();
+		for (UoWPayload currentPayload : restoredUoW.getEgressContent().getPayloadElements()) {
+			restoredEgressPayloads.add(currentPayload.getPayload());
+		}
+		assertEquals(2, restoredEgressPayloads.size());
+		assertTrue(restoredEgressPayloads.contains(egressPayload1));
+		assertTrue(restoredEgressPayloads.contains(egressPayload2));
+		assertEquals(1, parcelCacheDM.getRestoredParcelCount());
+		// (the egress payloads, of 1.5 times PAYLOAD_SIZE characters, now count towards the weight too)
+		assertEquals(2 * PARCEL_WEIGHT + (3L * PAYLOAD_SIZE), parcelCacheDM.getTotalWeight());
+		// ... as do the other accessors, and the spill record is released
+		assertSame(spilledParcel, parcelCacheDM.getCurrentParcelForWUP(spilledParcel.getAssociatedWUPIdentifier(), restoredUoW.getInstanceID()));
+		assertSame(restoredUoW, spilledParcel.getActualUoW());
+		parcelCacheDM.awaitSpillWork();
+		assertEquals(0, parcelCacheDM.getSpillFile().getLiveRecordLength());
+
+		// an unspilled Parcel's UoW is returned as-is
+		UoW activeUoW = activeParcel.getActualUoW();
+		assertSame(activeParcel, parcelCacheDM.getParcelInstance(activeParcel.getIdentifier()));
+		assertSame(activeUoW, activeParcel.getActualUoW());
+		assertEquals(1, parcelCacheDM.getRestoredParcelCount());
+	}
+
+	@Test
+	void testRemovedSpilledParcelReleasesItsRecord() throws Exception {
+		LOG.info(".testRemovedSpilledParcelReleasesItsRecord(): Entry");
+		assertTrue(parcelCacheDM.enableSpill(overflowDirectory));
+		ResilienceParcel spilledParcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+		finalise(spilledParcel, 0);
+		parcelCacheDM.setMaximumWeight(1);
+		parcelCacheDM.awaitSpillWork();
+		assertEquals(1, parcelCacheDM.getSpilledParcelCount());
+		assertTrue(parcelCacheDM.getSpillFile().getLiveRecordLength() > 0);
+
+		// once selected again, the spilled Parcel is evicted (and its record released)
+		ResilienceParcel laterParcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+		finalise(laterParcel, 10);
+		parcelCacheDM.awaitSpillWork();
+		assertFalse(isCached(spilledParcel));
+		assertNull(parcelCacheDM.getParcelInstance(spilledParcel.getIdentifier()));
+		assertEquals(1, parcelCacheDM.getEvictedParcelCount());
+
+		// as is the record of a spilled Parcel that is removed
+		assertTrue(isCached(laterParcel));
+		parcelCacheDM.removeParcel(laterParcel);
+		parcelCacheDM.awaitSpillWork();
+		assertEquals(0, parcelCacheDM.getSpillFile().getLiveRecordLength());
+	}
+
+	@Test
+	void testSpillSegmentsAreReleasedAndCompacted() throws Exception {
+		LOG.info(".testSpillSegmentsAreReleasedAndCompacted(): Entry");
+		// each record (of a Parcel with only an ingres payload) is a payload count, a payload length and the payload
+		long recordLength = Integer.BYTES + Integer.BYTES + PAYLOAD_SIZE;
+		parcelCacheDM.setSpillSegmentation(2 * recordLength, 60);
+		assertTrue(parcelCacheDM.enableSpill(overflowDirectory));
+		List<ResilienceParcel> spilledParcels = new ArrayList<>();
+		for (int counter = 0; counter < 4; counter++) {
+			ResilienceParcel currentParcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PAYLOAD_SIZE);
+			finalise(currentParcel, counter);
+			spilledParcels.add(currentParcel);
+		}
+		String secondPayload = spilledParcels.get(1).getActualUoW().getIngresContent().getPayload();
+
+		// with a low water mark of 4 spilled (but not 3 spilled and 1 unspilled) Parcels, all 4 are spilled
+		parcelCacheDM.setMaximumWeight(10000);
+		parcelCacheDM.awaitSpillWork();
+		assertEquals(4, parcelCacheDM.getSpilledParcelCount());
+		assertEquals(0, parcelCacheDM.getEvictedParcelCount());
+		ParcelPayloadSpillFile spillFile = parcelCacheDM.getSpillFile();
+		assertEquals(2, spillFile.getSegmentCount());
+		assertEquals(4 * recordLength, spillFile.getSpillFileLength());
+
+		// releasing the first record leaves its (full) segment half live, below the compaction threshold, so the
+		// second record is copied into a new segment and the first segment deleted
+		parcelCacheDM.removeParcel(spilledParcels.get(0));
+		parcelCacheDM.awaitSpillWork();
+		assertEquals(1, spillFile.getCompactedRecordCount());
+		assertEquals(2, spillFile.getSegmentCount());
+		assertEquals(3 * recordLength, spillFile.getSpillFileLength());
+		assertEquals(3 * recordLength, spillFile.getLiveRecordLength());
+
+		// the compacted record still restores
+		parcelCacheDM.setMaximumWeight(10 * PARCEL_WEIGHT);
+		assertEquals(secondPayload, parcelCacheDM.getParcelInstance(spilledParcels.get(1).getIdentifier()).getActualUoW().getIngresContent().getPayload());
+
+		// and once the rest are released, only the (empty) current segment remains
+		parcelCacheDM.removeParcel(spilledParcels.get(1));
+		parcelCacheDM.removeParcel(spilledParcels.get(2));
+		parcelCacheDM.removeParcel(spilledParcels.get(3));
+		parcelCacheDM.awaitSpillWork();
+		assertEquals(0, spillFile.getLiveRecordLength());
+		assertEquals(1, spillFile.getSegmentCount());
+	}
+
+	@Test
+	void testSpilledOffHeapPayloadsAreReleased() throws Exception {
+		LOG.info(".testSpilledOffHeapPayloadsAreReleased(): Entry");
+		assertTrue(parcelCacheDM.enableSpill(overflowDirectory));
+		UoW callerUoW = newUoW(PetasosPropertyConstants.UOW_PAYLOAD_OFF_HEAP_THRESHOLD + 1);
+		ResilienceParcel spilledParcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, callerUoW);
+		finalise(spilledParcel, 0);
+
+		// the cache moves a copy of the UoW off-heap, never the caller's
+		assertEquals(1, parcelCacheDM.getOffHeapPayloadCount());
+		assertNotSame(callerUoW, spilledParcel.getActualUoW());
+		assertFalse(callerUoW.getIngresContent().hasOffHeapPayload());
+		assertTrue(spilledParcel.getActualUoW().getIngresContent().hasOffHeapPayload());
+		assertEquals(1, parcelCacheDM.getPayloadArena().getHolderCount());
+		String ingresPayload = callerUoW.getIngresContent().getPayload();
+
+		parcelCacheDM.setMaximumWeight(1);
+		parcelCacheDM.awaitSpillWork();
+		assertEquals(1, parcelCacheDM.getSpilledParcelCount());
+		parcelCacheDM.setMaximumWeight(Long.MAX_VALUE);
+		assertEquals(ingresPayload, parcelCacheDM.getParcelInstance(spilledParcel.getIdentifier()).getActualUoW().getIngresContent().getPayload());
+
+		// with the off-heap UoW replaced, its content goes back to the arena once it is collected
+		for (int counter = 0; (counter < 50) && (parcelCacheDM.getPayloadArena().getHolderCount() > 0); counter++) {
+			System.gc();
+			Thread.sleep(20);
+			parcelCacheDM.getPayloadArena().reclaimUnreachableHolders();
+		}
+		assertEquals(0, parcelCacheDM.getPayloadArena().getHolderCount());
+		assertEquals(ingresPayload, callerUoW.getIngresContent().getPayload());
+	}
+
+	@Test
+	void testOffloadedParcelIsNotCopiedAgain() {
+		LOG.info(".testOffloadedParcelIsNotCopiedAgain(): Entry");
+		ResilienceParcel parcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, PetasosPropertyConstants.UOW_PAYLOAD_OFF_HEAP_THRESHOLD + 1);
+		UoW offloadedUoW = parcel.getActualUoW();
+		assertTrue(offloadedUoW.getIngresContent().hasOffHeapPayload());
+		assertEquals(1, parcelCacheDM.getPayloadArena().getHolderCount());
+
+		// the payloads are already off-heap, so neither a transition nor a re-add copies the UoW
+		finalise(parcel, 0);
+		parcelCacheDM.updateParcel(parcel);
+		assertSame(offloadedUoW, parcel.getActualUoW());
+		assertEquals(1, parcelCacheDM.getOffHeapPayloadCount());
+		assertEquals(1, parcelCacheDM.getPayloadArena().getHolderCount());
+		assertTrue(parcelCacheDM.getOffHeapBytes() > PetasosPropertyConstants.UOW_PAYLOAD_OFF_HEAP_THRESHOLD);
+	}
+
+	@Test
+	void testOffHeapBudgetLeavesPayloadsOnHeap() {
+		LOG.info(".testOffHeapBudgetLeavesPayloadsOnHeap(): Entry");
+		int payloadSize = PetasosPropertyConstants.UOW_PAYLOAD_OFF_HEAP_THRESHOLD + 1;
+		parcelCacheDM.setMaximumOffHeapBytes(payloadSize);
+		ResilienceParcel offloadedParcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, payloadSize);
+		assertTrue(offloadedParcel.getActualUoW().getIngresContent().hasOffHeapPayload());
+		long offHeapBytes = parcelCacheDM.getOffHeapBytes();
+		long weightWithOffloadedParcel = parcelCacheDM.getTotalWeight();
+
+		// the first payload's buffer has used up the budget, so the next one stays on-heap - and is weighed
+		ResilienceParcel onHeapParcel = addParcel(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, payloadSize);
+		assertFalse(onHeapParcel.getActualUoW().getIngresContent().hasOffHeapPayload());
+		assertEquals(1, parcelCacheDM.getOffHeapPayloadCount());
+		assertEquals(1, parcelCacheDM.getOffHeapBudgetExceededCount());
+		assertEquals(offHeapBytes, parcelCacheDM.getOffHeapBytes());
+		assertEquals(weightWithOffloadedParcel + PetasosPropertyConstants.PARCEL_CACHE_ENTRY_OVERHEAD_BYTES + (2L * payloadSize), parcelCacheDM.getTotalWeight());
+	}
+}
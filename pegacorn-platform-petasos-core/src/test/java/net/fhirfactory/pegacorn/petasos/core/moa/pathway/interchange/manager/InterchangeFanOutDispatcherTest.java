@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.moa.pathway.interchange.manager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.fhirfactory.pegacorn.petasos.core.PetasosCoreTestFixtures;
+import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.cache.ProcessingPlantWUAEpisodeFinalisationCacheDM;
+import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
+import net.fhirfactory.pegacorn.petasos.model.pathway.WorkUnitTransportPacket;
+import net.fhirfactory.pegacorn.petasos.model.resilience.episode.PetasosEpisodeIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
+import net.fhirfactory.pegacorn.petasos.model.wup.WUPFunctionToken;
+import org.apache.camel.ExchangePattern;
+import org.apache.camel.ProducerTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+class InterchangeFanOutDispatcherTest {
+	private static final Logger LOG = LoggerFactory.getLogger(InterchangeFanOutDispatcherTest.class);
+
+	private static final String SUBSCRIBER_ENDPOINT = "direct:subscriber";
+	private static final String LINKED_SUBSCRIBER_ENDPOINT = "direct:linked-subscriber";
+	private static final long WAIT_SECONDS = 10;
+
+	InterchangeFanOutDispatcher dispatcher;
+	int packetCounter;
+
+	@BeforeEach
+	void setUp() {
+		LOG.debug(".setUp(): Entry...");
+		dispatcher = new InterchangeFanOutDispatcher();
+		packetCounter = 0;
+	}
+
+	@AfterEach
+	void tearDown() {
+		dispatcher.shutdown();
+	}
+
+	WorkUnitTransportPacket newPacket() {
+		packetCounter += 1;
+		ActivityID activityID = PetasosCoreTestFixtures.newActivityID("wup" + packetCounter);
+		UoW uow = PetasosCoreTestFixtures.newUoW("Resource" + packetCounter, "payload" + packetCounter);
+		PetasosCoreTestFixtures.newResilienceParcel(activityID, uow, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINISHED);
+		return (PetasosCoreTestFixtures.newTransportPacket(activityID, uow));
+	}
+
+	/**
+	 * A ProducerTemplate whose sendBody(endpointURI, pattern, body) hands the endpoint and (packet) body to the consumer.
+	 */
+	ProducerTemplate newTemplate(BiConsumer<String, WorkUnitTransportPacket> consumer) {
+		return ((ProducerTemplate) Proxy.newProxyInstance(
+				ProducerTemplate.class.getClassLoader(),
+				new Class<?>[]{ProducerTemplate.class},
+				(proxy, method, args) -> {
+					if (method.getName().equals("sendBody") && (args != null) && (args.length == 3) && (args[1] instanceof ExchangePattern)) {
+						consumer.accept((String) args[0], (WorkUnitTransportPacket) args[2]);
+						return (null);
+					}
+					throw (new UnsupportedOperationException(method.getName()));
+				}));
+	}
+
+	@Test
+	void testSequentialFailureIsReportedAndRethrown() {
+		LOG.info(".testSequentialFailureIsReportedAndRethrown(): Entry");
+		ProducerTemplate failingTemplate = newTemplate((endpointURI, packet) -> {
+			throw (new IllegalStateException("no consumer"));
+		});
+		WorkUnitTransportPacket packet = newPacket();
+		List<WorkUnitTransportPacket> failedPackets = new ArrayList<>();
+		assertThrows(IllegalStateException.class, () -> dispatcher.dispatch(failingTemplate, SUBSCRIBER_ENDPOINT, packet,
+				(endpointURI, failedPacket, failure) -> failedPackets.add(failedPacket)));
+		assertEquals(1, failedPackets.size());
+		assertSame(packet, failedPackets.get(0));
+		assertEquals(1L, dispatcher.getDispatchFailureCount(SUBSCRIBER_ENDPOINT));
+	}
+
+	@Test
+	void testParallelFailureWithdrawsTheDownstreamInterest() throws Exception {
+		LOG.info(".testParallelFailureWithdrawsTheDownstreamInterest(): Entry");
+		dispatcher.configure(InterchangeFanOutModeEnum.INTERCHANGE_FANOUT_MODE_PARALLEL, 2, 4);
+		ProcessingPlantWUAEpisodeFinalisationCacheDM finalisationCacheDM = new ProcessingPlantWUAEpisodeFinalisationCacheDM();
+		WorkUnitTransportPacket packet = newPacket();
+		PetasosEpisodeIdentifier upstreamEpisodeID = packet.getPacketID().getPresentEpisodeIdentifier();
+		WUPFunctionToken downstreamFunction = new WUPFunctionToken(PetasosCoreTestFixtures.newWUPFunctionToken("downstream"));
+		finalisationCacheDM.registerDownstreamWUPInterest(upstreamEpisodeID, downstreamFunction);
+		assertTrue(finalisationCacheDM.getDownstreamWUPSet(upstreamEpisodeID).getElements().contains(downstreamFunction));
+
+		ProducerTemplate failingTemplate = newTemplate((endpointURI, sentPacket) -> {
+			throw (new IllegalStateException("no consumer"));
+		});
+		CountDownLatch failureReported = new CountDownLatch(1);
+		dispatcher.dispatch(failingTemplate, SUBSCRIBER_ENDPOINT, packet.deepClone(), (endpointURI, failedPacket, failure) -> {
+			finalisationCacheDM.deregisterDownstreamWUPInterest(upstreamEpisodeID, downstreamFunction);
+			failureReported.countDown();
+		});
+		assertTrue(failureReported.await(WAIT_SECONDS, TimeUnit.SECONDS));
+		// no successor Episode will ever be registered for the failed delivery, so it must not hold up finalisation
+		assertTrue(finalisationCacheDM.getDownstreamWUPSet(upstreamEpisodeID).isEmpty());
+		assertEquals(1L, dispatcher.getDispatchFailureCount(SUBSCRIBER_ENDPOINT));
+	}
+
+	@Test
+	void testOverflowOnADispatchThreadKeepsTheSubscriberOrder() throws Exception {
+		LOG.info(".testOverflowOnADispatchThreadKeepsTheSubscriberOrder(): Entry");
+		dispatcher.configure(InterchangeFanOutModeEnum.INTERCHANGE_FANOUT_MODE_PARALLEL, 2, 1);
+		List<WorkUnitTransportPacket> onwardPackets = new ArrayList<>();
+		for (int counter = 0; counter < 4; counter += 1) {
+			onwardPackets.add(newPacket());
+		}
+		List<WorkUnitTransportPacket> receivedPackets = Collections.synchronizedList(new ArrayList<>());
+		CountDownLatch releaseLinkedSubscriber = new CountDownLatch(1);
+		CountDownLatch allReceived = new CountDownLatch(onwardPackets.size() + 2);
+		ProducerTemplate[] template = new ProducerTemplate[1];
+		template[0] = newTemplate((endpointURI, packet) -> {
+			if (endpointURI.equals(SUBSCRIBER_ENDPOINT)) {
+				// a direct: linked subscriber publishing onwards, on the dispatch thread
+				for (WorkUnitTransportPacket onwardPacket : onwardPackets) {
+					dispatcher.dispatch(template[0], LINKED_SUBSCRIBER_ENDPOINT, onwardPacket);
+				}
+				releaseLinkedSubscriber.countDown();
+			} else {
+				try {
+					// holds the (single) slot of the linked subscriber's queue until all onward packets are dispatched
+					releaseLinkedSubscriber.await(WAIT_SECONDS, TimeUnit.SECONDS);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				receivedPackets.add(packet);
+			}
+			allReceived.countDown();
+		});
+		dispatcher.dispatch(template[0], SUBSCRIBER_ENDPOINT, newPacket());
+		// the packets queued beyond the bound must not have used up (or added to) the queue's capacity, so one more
+		// from outside the dispatch threads is queued - and received - after them
+		WorkUnitTransportPacket lastPacket = newPacket();
+		assertTrue(releaseLinkedSubscriber.await(WAIT_SECONDS, TimeUnit.SECONDS));
+		CompletableFuture.runAsync(() -> dispatcher.dispatch(template[0], LINKED_SUBSCRIBER_ENDPOINT, lastPacket)).get(WAIT_SECONDS, TimeUnit.SECONDS);
+		assertTrue(allReceived.await(WAIT_SECONDS, TimeUnit.SECONDS));
+		assertEquals(onwardPackets.size() + 1, receivedPackets.size());
+		for (int counter = 0; counter < onwardPackets.size(); counter += 1) {
+			assertSame(onwardPackets.get(counter), receivedPackets.get(counter));
+		}
+		assertSame(lastPacket, receivedPackets.get(onwardPackets.size()));
+		assertEquals(onwardPackets.size() - 1L, dispatcher.getOverflowCount(LINKED_SUBSCRIBER_ENDPOINT));
+	}
+}
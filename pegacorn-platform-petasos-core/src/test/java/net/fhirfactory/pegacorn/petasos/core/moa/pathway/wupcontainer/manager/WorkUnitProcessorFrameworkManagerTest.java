@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.manager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.fhirfactory.pegacorn.deployment.topology.model.nodes.WorkUnitProcessorTopologyNode;
+import net.fhirfactory.pegacorn.petasos.core.PetasosCoreTestFixtures;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.RouteElementNamesRegistry;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.naming.WUPIngresQueueConfiguration;
+import net.fhirfactory.pegacorn.petasos.core.moa.pathway.wupcontainer.worker.archetypes.ExternalEgressWUPContainerRoute;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+class WorkUnitProcessorFrameworkManagerTest {
+	private static final Logger LOG = LoggerFactory.getLogger(WorkUnitProcessorFrameworkManagerTest.class);
+
+	RouteElementNamesRegistry routeElementNamesRegistry;
+	WorkUnitProcessorFrameworkManager frameworkManager;
+
+	@BeforeEach
+	void setUp() {
+		LOG.debug(".setUp(): Entry...");
+		routeElementNamesRegistry = new RouteElementNamesRegistry();
+		frameworkManager = new WorkUnitProcessorFrameworkManager();
+		PetasosCoreTestFixtures.injectField(frameworkManager, "routeElementNamesRegistry", routeElementNamesRegistry);
+	}
+
+	WorkUnitProcessorTopologyNode newWUPNode(String wupName) {
+		WorkUnitProcessorTopologyNode wupNode = new WorkUnitProcessorTopologyNode();
+		wupNode.setNodeFDN(PetasosCoreTestFixtures.newWUPNodeFDN(wupName));
+		return (wupNode);
+	}
+
+	@Test
+	void testEgressRouteConsumesFromTheRouterEndpoint() {
+		LOG.info(".testEgressRouteConsumesFromTheRouterEndpoint(): Entry");
+		WorkUnitProcessorTopologyNode wupNode = newWUPNode("egress-wup");
+		WUPIngresQueueConfiguration ingresQueueConfiguration = new WUPIngresQueueConfiguration();
+		ingresQueueConfiguration.setSize(500);
+		ingresQueueConfiguration.setConcurrentConsumers(4);
+		routeElementNamesRegistry.registerWUP(wupNode, ingresQueueConfiguration);
+
+		ExternalEgressWUPContainerRoute egressRoute = frameworkManager.newExternalEgressWUPContainerRoute(wupNode);
+
+		// the InterchangeTargetWUPTypeRouter produces to the registry's endpoint, queue options and all
+		String producerURI = routeElementNamesRegistry.getRouteElementNames(wupNode).getEndPointWUPContainerIngresProcessorIngres();
+		String consumerURI = egressRoute.getNameSet().getEndPointWUPContainerIngresProcessorIngres();
+		assertEquals(producerURI, consumerURI);
+		assertTrue(consumerURI.startsWith("seda:"));
+		assertTrue(consumerURI.contains("size=500"), consumerURI);
+		assertTrue(consumerURI.contains("concurrentConsumers=4"), consumerURI);
+	}
+
+	@Test
+	void testEgressRouteOfAnUnregisteredWUPMatchesTheRouter() {
+		LOG.info(".testEgressRouteOfAnUnregisteredWUPMatchesTheRouter(): Entry");
+		WorkUnitProcessorTopologyNode wupNode = newWUPNode("unregistered-egress-wup");
+
+		ExternalEgressWUPContainerRoute egressRoute = frameworkManager.newExternalEgressWUPContainerRoute(wupNode);
+
+		assertTrue(routeElementNamesRegistry.hasRouteElementNames(wupNode));
+		assertSame(routeElementNamesRegistry.getRouteElementNames(wupNode), egressRoute.getNameSet());
+	}
+}
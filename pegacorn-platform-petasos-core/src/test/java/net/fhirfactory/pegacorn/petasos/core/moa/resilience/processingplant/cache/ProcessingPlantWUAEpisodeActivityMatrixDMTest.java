@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.fhirfactory.pegacorn.petasos.core.PetasosCoreTestFixtures;
+import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
+import net.fhirfactory.pegacorn.petasos.model.resilience.activitymatrix.moa.ParcelStatusElement;
+import net.fhirfactory.pegacorn.petasos.model.resilience.episode.PetasosEpisodeIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+class ProcessingPlantWUAEpisodeActivityMatrixDMTest {
+	private static final Logger LOG = LoggerFactory.getLogger(ProcessingPlantWUAEpisodeActivityMatrixDMTest.class);
+
+	private static final int THREAD_COUNT = 8;
+	private static final int ROUND_COUNT = 200;
+
+	ProcessingPlantWUAEpisodeActivityMatrixDM activityMatrixDM;
+	PetasosEpisodeIdentifier episodeID;
+	List<ActivityID> activityIDs;
+
+	@BeforeEach
+	void setUp() {
+		LOG.debug(".setUp(): Entry...");
+		activityMatrixDM = new ProcessingPlantWUAEpisodeActivityMatrixDM();
+		activityIDs = new ArrayList<>();
+		episodeID = null;
+		for (int counter = 0; counter < THREAD_COUNT; counter += 1) {
+			ActivityID activityID = PetasosCoreTestFixtures.newActivityID("wup" + counter);
+			PetasosCoreTestFixtures.newResilienceParcel(activityID,
+					PetasosCoreTestFixtures.newUoW("Resource" + counter, "payload" + counter),
+					ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
+			// all of the Parcels are (competing) activities of the one Episode
+			if (episodeID == null) {
+				episodeID = activityID.getPresentEpisodeIdentifier();
+			}
+			activityID.setPresentEpisodeIdentifier(episodeID);
+			activityMatrixDM.addWUA(activityID, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
+			activityIDs.add(activityID);
+		}
+	}
+
+	ResilienceParcelIdentifier parcelID(int index) {
+		return (activityIDs.get(index).getPresentParcelIdentifier());
+	}
+
+	void runConcurrently(IndexedTask task) throws Exception {
+		CyclicBarrier startBarrier = new CyclicBarrier(THREAD_COUNT);
+		List<Thread> threads = new ArrayList<>();
+		List<Throwable> failures = new ArrayList<>();
+		for (int counter = 0; counter < THREAD_COUNT; counter += 1) {
+			final int index = counter;
+			Thread thread = new Thread(() -> {
+				try {
+					startBarrier.await();
+					task.run(index);
+				} catch (Throwable ex) {
+					synchronized (failures) {
+						failures.add(ex);
+					}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertTrue(failures.isEmpty(), "Concurrent task failed: " + failures);
+	}
+
+	interface IndexedTask {
+		void run(int index) throws Exception;
+	}
+
+	@Test
+	void testContendedFocusHasExactlyOneFlaggedHolder() throws Exception {
+		LOG.info(".testContendedFocusHasExactlyOneFlaggedHolder(): Entry");
+		for (int round = 0; round < ROUND_COUNT; round += 1) {
+			// each thread hands the focus to its own Parcel and then (stale-ly) back to its neighbour's
+			runConcurrently(index -> {
+				activityMatrixDM.setSystemWideFocusElement(episodeID, parcelID(index));
+				activityMatrixDM.setClusterWideFocusElement(episodeID, parcelID(index));
+				activityMatrixDM.setSystemWideFocusElement(episodeID, parcelID((index + 1) % THREAD_COUNT));
+				activityMatrixDM.setClusterWideFocusElement(episodeID, parcelID((index + 1) % THREAD_COUNT));
+			});
+			ResilienceParcelIdentifier systemWideFocusParcel = activityMatrixDM.getSiteWideFocusElement(episodeID);
+			ResilienceParcelIdentifier clusterFocusParcel = activityMatrixDM.getClusterFocusElement(episodeID);
+			assertNotNull(systemWideFocusParcel);
+			assertNotNull(clusterFocusParcel);
+			int systemWideFlagCount = 0;
+			int clusterFlagCount = 0;
+			for (ParcelStatusElement statusElement : activityMatrixDM.getEpisodeElementSet(episodeID)) {
+				if (statusElement.getHasSystemWideFocus()) {
+					systemWideFlagCount += 1;
+					assertEquals(systemWideFocusParcel, statusElement.getParcelInstanceID());
+				}
+				if (statusElement.getHasClusterFocus()) {
+					clusterFlagCount += 1;
+					assertEquals(clusterFocusParcel, statusElement.getParcelInstanceID());
+				}
+			}
+			assertEquals(1, systemWideFlagCount, "round " + round);
+			assertEquals(1, clusterFlagCount, "round " + round);
+		}
+	}
+
+	@Test
+	void testContendedStatusTransitionHasOneWinner() throws Exception {
+		LOG.info(".testContendedStatusTransitionHasOneWinner(): Entry");
+		ParcelStatusElement statusElement = activityMatrixDM.getParcelStatusElement(parcelID(0));
+		AtomicInteger winnerCount = new AtomicInteger(0);
+		runConcurrently(index -> {
+			if (statusElement.compareAndSetParcelStatus(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, new Date())) {
+				winnerCount.incrementAndGet();
+			}
+		});
+		assertEquals(1, winnerCount.get());
+		assertEquals(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, statusElement.getParcelStatus());
+	}
+
+	@Test
+	void testUpdateOnlyMovesTheEntryDateOnAStatusChange() throws Exception {
+		LOG.info(".testUpdateOnlyMovesTheEntryDateOnAStatusChange(): Entry");
+		ParcelStatusElement statusElement = activityMatrixDM.getParcelStatusElement(parcelID(0));
+		Date registeredDate = new Date(System.currentTimeMillis() - 60000);
+		statusElement.setEntryDate(registeredDate);
+		activityMatrixDM.updateWUA(activityIDs.get(0), ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED);
+		assertEquals(registeredDate, statusElement.getEntryDate());
+		activityMatrixDM.updateWUA(activityIDs.get(0), ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+		assertEquals(ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, statusElement.getParcelStatus());
+		assertTrue(statusElement.getEntryDate().after(registeredDate));
+	}
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.worker;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.fhirfactory.pegacorn.petasos.core.PetasosCoreTestFixtures;
+import net.fhirfactory.pegacorn.petasos.core.common.resilience.processingplant.cache.ProcessingPlantParcelCacheDM;
+import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.cache.ProcessingPlantWUAEpisodeActivityMatrixDM;
+import net.fhirfactory.pegacorn.petasos.core.moa.resilience.processingplant.cache.ProcessingPlantWUAEpisodeFinalisationCacheDM;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelFinalisationStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+class ResilienceWatchDogTest {
+	private static final Logger LOG = LoggerFactory.getLogger(ResilienceWatchDogTest.class);
+
+	private static final long RETENTION_MILLIS = PetasosPropertyConstants.CACHE_ENTRY_RETENTION_PERIOD_SECONDS * 1000;
+	private static final long TICK_MILLIS = PetasosPropertyConstants.RESILIENCE_WATCHDOG_TICK_MILLISECONDS;
+
+	ResilienceWatchDog watchDog;
+	ProcessingPlantParcelCacheDM parcelCacheDM;
+	long baseTime;
+	int parcelCounter;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		LOG.debug(".setUp(): Entry...");
+		parcelCacheDM = new ProcessingPlantParcelCacheDM();
+		watchDog = new ResilienceWatchDog();
+		watchDog.parcelCacheDM = parcelCacheDM;
+		watchDog.activityMatrixDM = new ProcessingPlantWUAEpisodeActivityMatrixDM();
+		watchDog.finalisationCacheDM = new ProcessingPlantWUAEpisodeFinalisationCacheDM();
+		// well away from "now", so only the Parcel's own dates can place it on the wheel
+		baseTime = System.currentTimeMillis() + (10 * RETENTION_MILLIS);
+		parcelCounter = 0;
+	}
+
+	ResilienceParcel addParcel() {
+		parcelCounter += 1;
+		ResilienceParcel parcel = PetasosCoreTestFixtures.newResilienceParcel(
+				PetasosCoreTestFixtures.newActivityID("wup" + parcelCounter),
+				PetasosCoreTestFixtures.newUoW("Resource" + parcelCounter, "payload" + parcelCounter),
+				ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE);
+		parcelCacheDM.addParcel(parcel);
+		return (parcel);
+	}
+
+	void transition(ResilienceParcel parcel, ResilienceParcelProcessingStatusEnum status, ResilienceParcelFinalisationStatusEnum finalisationStatus, long transitionTime) {
+		parcelCacheDM.setParcelProcessingStatus(parcel, status, finalisationStatus, new Date(transitionTime));
+	}
+
+	boolean isCached(ResilienceParcel parcel) {
+		return (parcelCacheDM.getParcelInstance(parcel.getIdentifier()) != null);
+	}
+
+	@Test
+	void testExpiryIsBasedOnFinalisationTime() {
+		LOG.info(".testExpiryIsBasedOnFinalisationTime(): Entry");
+		ResilienceParcel longRunningParcel = addParcel();
+		// the Parcel finalises long after it was started (and its ParcelStatusElement entered)
+		transition(longRunningParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED, baseTime);
+		watchDog.registerFinalisedParcel(longRunningParcel.getIdentifier());
+		assertEquals(1, watchDog.getScheduledParcelCount());
+
+		assertEquals(0, watchDog.tick(baseTime));
+		assertEquals(0, watchDog.tick(baseTime + RETENTION_MILLIS - TICK_MILLIS));
+		assertTrue(isCached(longRunningParcel));
+
+		assertEquals(1, watchDog.tick(baseTime + RETENTION_MILLIS + (2 * TICK_MILLIS)));
+		assertFalse(isCached(longRunningParcel));
+		assertEquals(0, watchDog.getScheduledParcelCount());
+		assertEquals(1, watchDog.getEvictedParcelCount());
+	}
+
+	@Test
+	void testFailedAndCancelledParcelsExpire() {
+		LOG.info(".testFailedAndCancelledParcelsExpire(): Entry");
+		ResilienceParcel failedParcel = addParcel();
+		transition(failedParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED, baseTime);
+		watchDog.registerFinalisedParcel(failedParcel.getIdentifier());
+		ResilienceParcel cancelledParcel = addParcel();
+		transition(cancelledParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_CANCELLED, null, baseTime + (5 * TICK_MILLIS));
+		watchDog.registerFinalisedParcel(cancelledParcel.getIdentifier());
+		assertEquals(2, watchDog.getScheduledParcelCount());
+
+		assertEquals(1, watchDog.tick(baseTime + RETENTION_MILLIS + (2 * TICK_MILLIS)));
+		assertFalse(isCached(failedParcel));
+		assertTrue(isCached(cancelledParcel));
+
+		assertEquals(1, watchDog.tick(baseTime + RETENTION_MILLIS + (7 * TICK_MILLIS)));
+		assertFalse(isCached(cancelledParcel));
+		assertEquals(0, watchDog.getScheduledParcelCount());
+		assertEquals(0, watchDog.getSkippedParcelCount());
+	}
+
+	@Test
+	void testSkippedParcelIsRescheduled() {
+		LOG.info(".testSkippedParcelIsRescheduled(): Entry");
+		ResilienceParcel retriedParcel = addParcel();
+		transition(retriedParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FAILED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED, baseTime);
+		watchDog.registerFinalisedParcel(retriedParcel.getIdentifier());
+		// the failed Parcel is retried before it expires
+		transition(retriedParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_ACTIVE, null, baseTime + TICK_MILLIS);
+
+		long firstExpiryTime = baseTime + RETENTION_MILLIS + (2 * TICK_MILLIS);
+		assertEquals(0, watchDog.tick(firstExpiryTime));
+		assertTrue(isCached(retriedParcel));
+		assertEquals(1, watchDog.getSkippedParcelCount());
+		assertEquals(1, watchDog.getScheduledParcelCount());
+
+		// it is finalised (without being re-registered), and goes on its rescheduled expiry
+		transition(retriedParcel, ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_FINALISED, ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_FINALISED, firstExpiryTime);
+		assertEquals(0, watchDog.tick(firstExpiryTime + RETENTION_MILLIS - TICK_MILLIS));
+		assertEquals(1, watchDog.tick(firstExpiryTime + RETENTION_MILLIS + (2 * TICK_MILLIS)));
+		assertFalse(isCached(retriedParcel));
+		assertEquals(0, watchDog.getScheduledParcelCount());
+	}
+}
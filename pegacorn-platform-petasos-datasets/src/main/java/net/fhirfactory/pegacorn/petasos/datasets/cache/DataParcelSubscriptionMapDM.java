@@ -24,6 +24,7 @@ package net.fhirfactory.pegacorn.petasos.datasets.cache;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.enterprise.context.ApplicationScoped;
 
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDNToken;
@@ -32,6 +33,7 @@ import net.fhirfactory.pegacorn.components.dataparcel.DataParcelTypeDescriptor;
 import net.fhirfactory.pegacorn.components.dataparcel.valuesets.DataParcelNormalisationStatusEnum;
 import net.fhirfactory.pegacorn.components.dataparcel.valuesets.DataParcelValidationStatusEnum;
 import net.fhirfactory.pegacorn.components.dataparcel.valuesets.PolicyEnforcementPointApprovalStatusEnum;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
 import net.fhirfactory.pegacorn.petasos.model.pubsub.IntraSubsystemPubSubParticipant;
 import net.fhirfactory.pegacorn.petasos.model.pubsub.PubSubParticipant;
 import net.fhirfactory.pegacorn.petasos.model.pubsub.PubSubSubscription;
@@ -44,12 +46,30 @@ import org.slf4j.LoggerFactory;
 public class DataParcelSubscriptionMapDM {
 	private static final Logger LOG = LoggerFactory.getLogger(DataParcelSubscriptionMapDM.class);
 	
+	// The List<PubSubSubscription> values are immutable snapshots, replaced (copy-on-write) under the distributionListUpdateLock
 	private ConcurrentHashMap<DataParcelTypeDescriptor, List<PubSubSubscription>> distributionList;
+	private DataParcelTypeDescriptorMatchTree descriptorMatchTree;
 	private Object distributionListUpdateLock;
+	// An access-ordered (i.e. least recently used first) map, bounded to routingCacheMaximumEntries, guarded by the routingCacheLock
+	private LinkedHashMap<RoutingCacheKey, RoutingCacheEntry> routingCache;
+	private Object routingCacheLock;
+	private int routingCacheMaximumEntries;
+	private AtomicLong distributionListGeneration;
+	private AtomicLong routingCacheHitCount;
+	private AtomicLong routingCacheMissCount;
+	private AtomicLong routingCacheEvictionCount;
 	
     public DataParcelSubscriptionMapDM(){
         this.distributionList = new ConcurrentHashMap<DataParcelTypeDescriptor, List<PubSubSubscription>>();
+        this.descriptorMatchTree = new DataParcelTypeDescriptorMatchTree();
         this.distributionListUpdateLock = new Object();
+        this.routingCache = new LinkedHashMap<>(16, 0.75f, true);
+        this.routingCacheLock = new Object();
+        this.routingCacheMaximumEntries = PetasosPropertyConstants.SUBSCRIPTION_ROUTING_CACHE_MAX_ENTRIES;
+        this.distributionListGeneration = new AtomicLong(0);
+        this.routingCacheHitCount = new AtomicLong(0);
+        this.routingCacheMissCount = new AtomicLong(0);
+        this.routingCacheEvictionCount = new AtomicLong(0);
     }
 
     /**
@@ -57,7 +77,7 @@ public class DataParcelSubscriptionMapDM {
      * receiving the identified uowPayloadTopicID (FDNToken).
      * 
      * @param parcelDescriptor The FDNToken representing the UoW (Ingres) Payload Topic that we want to know which WUPs are interested in
-     * @return The set of WUPs wanting to receive this payload type.
+     * @return The (unmodifiable) set of WUPs wanting to receive this payload type.
      */
 
     public List<PubSubSubscription> getSubsciberList(DataParcelTypeDescriptor parcelDescriptor){
@@ -65,7 +85,7 @@ public class DataParcelSubscriptionMapDM {
 		List<PubSubSubscription> subscriptionList = this.distributionList.get(parcelDescriptor);
 		if(subscriptionList == null ) {
 			LOG.debug(".getSubsciberList(): Couldn't find any associated PubSubSubscriber elements (i.e. couldn't find any interested WUPs), returning an empty set");
-			return (new ArrayList<>());
+			return (Collections.emptyList());
 		}
 		if(LOG.isDebugEnabled()) {
 			LOG.debug(".getSubsciberList(): Exit, returning associated FDNSet of the WUPs interested:");
@@ -107,12 +127,13 @@ public class DataParcelSubscriptionMapDM {
     	if(descriptorToRegister == null){
 			throw(new IllegalArgumentException(".addSubscriber(): parcelManifest does not contain suitable contentDescriptor or containerDescriptor"));
 		}
-		List<PubSubSubscription> subscriptionList = this.distributionList.get(descriptorToRegister);
+		List<PubSubSubscription> subscriptionList = null;
     	synchronized (this.distributionListUpdateLock) {
-			if (subscriptionList != null) {
+			List<PubSubSubscription> currentSubscriptionList = this.distributionList.get(descriptorToRegister);
+			if (currentSubscriptionList != null) {
 				LOG.trace(".addSubscriber(): Topic Subscription Map: Adding subscriber to existing map for parcelManifest --> {}", parcelManifest);
 				PubSubSubscription existingSubscription = null;
-				for(PubSubSubscription currentSubscription: subscriptionList){
+				for(PubSubSubscription currentSubscription: currentSubscriptionList){
 					if(currentSubscription.getSubscriber().getIntraSubsystemParticipant().equals(subscriber.getIntraSubsystemParticipant())){
 						if(isSameRemoteEndpointSubscriber(currentSubscription.getSubscriber(), subscriber)){
 							existingSubscription = currentSubscription;
@@ -122,23 +143,27 @@ public class DataParcelSubscriptionMapDM {
 				}
 				if(existingSubscription == null) {
 					PubSubSubscription newSubscription = new PubSubSubscription(parcelManifest, subscriber);
-					subscriptionList.add(newSubscription);
-				}
-				if(subscriber.getInterSubsystemParticipant() != null) {
-					subscriber.getInterSubsystemParticipant().setUtilisationStatus(PubSubParticipantUtilisationStatusEnum.PUB_SUB_NETWORK_CONNECTION_ESTABLISHED);
+					List<PubSubSubscription> updatedSubscriptionList = new ArrayList<>(currentSubscriptionList.size() + 1);
+					updatedSubscriptionList.addAll(currentSubscriptionList);
+					updatedSubscriptionList.add(newSubscription);
+					subscriptionList = Collections.unmodifiableList(updatedSubscriptionList);
+					this.distributionList.put(descriptorToRegister, subscriptionList);
+					this.distributionListGeneration.incrementAndGet();
+				} else {
+					subscriptionList = currentSubscriptionList;
 				}
 			} else {
 				LOG.trace(".addSubscriber(): Topic Subscription Map: Created new Distribution List and Added Subscriber");
 				PubSubSubscription newSubscription = new PubSubSubscription(parcelManifest, subscriber);
-				LOG.trace(".addSubscriber(): Topic Subscription Map: Created new PubSubSubscription, adding to a newly created List");
-				subscriptionList = new ArrayList<PubSubSubscription>();
-				subscriptionList.add(newSubscription);
+				subscriptionList = Collections.singletonList(newSubscription);
 				LOG.trace(".addSubscriber(): Topic Subscription Map: PubSubSubscription List created, adding it to the distribution map");
 				this.distributionList.put(descriptorToRegister, subscriptionList);
+				this.descriptorMatchTree.addDescriptor(descriptorToRegister);
+				this.distributionListGeneration.incrementAndGet();
 				LOG.trace(".addSubscriber(): Topic Subscription Map: Added PubSubSubscription List to the distribution map");
-				if(subscriber.getInterSubsystemParticipant() != null) {
-					subscriber.getInterSubsystemParticipant().setUtilisationStatus(PubSubParticipantUtilisationStatusEnum.PUB_SUB_NETWORK_CONNECTION_ESTABLISHED);
-				}
+			}
+			if(subscriber.getInterSubsystemParticipant() != null) {
+				subscriber.getInterSubsystemParticipant().setUtilisationStatus(PubSubParticipantUtilisationStatusEnum.PUB_SUB_NETWORK_CONNECTION_ESTABLISHED);
 			}
 		}
 		if (LOG.isTraceEnabled()) {
@@ -150,7 +175,6 @@ public class DataParcelSubscriptionMapDM {
 				count++;
 			}
 		}
-		printAllSubscriptionSets();
     }
 
     private boolean isSameRemoteEndpointSubscriber(PubSubParticipant currentRegisteredParticipant, PubSubParticipant testParticipant){
@@ -228,18 +252,37 @@ public class DataParcelSubscriptionMapDM {
 		if(found) {
     		LOG.trace(".removeSubscriber(): Removing Subscriber from contentDescriptor --> {}", contentDescriptor);
     		synchronized (this.distributionListUpdateLock) {
-				List<PubSubSubscription> subscriptionList = this.distributionList.get(currentToken);
-				for(PubSubSubscription currentSubscription: subscriptionList){
+				List<PubSubSubscription> currentSubscriptionList = this.distributionList.get(currentToken);
+				if(currentSubscriptionList == null){
+					LOG.debug(".removeSubscriber(): Exit, Topic was removed from Subscriber Cache concurrently");
+					return;
+				}
+				List<PubSubSubscription> updatedSubscriptionList = new ArrayList<>(currentSubscriptionList);
+				boolean removed = false;
+				for(PubSubSubscription currentSubscription: currentSubscriptionList){
 					boolean sameSubscriber = currentSubscription.getSubscriber().equals(subscriberInstanceID);
 					boolean sameParcelManifest = currentSubscription.getParcelManifest().equals(parcelManifest);
 					if (sameParcelManifest && sameSubscriber) {
 						LOG.trace(".removeSubscriber(): Found Subscriber in Subscription List, removing");
-						subscriptionList.remove(currentSubscription);
+						updatedSubscriptionList.remove(currentSubscription);
+						removed = true;
 						LOG.debug(".removeSubscriber(): Exit, removed the subscriberInstanceID from the topic");
 						LOG.trace("Topic Subscription Map: (Remove Subscriber) Topic [{}] <-- Subscriber [{}]", currentToken, subscriberInstanceID);
 						break;
 					}
 				}
+				if(!removed){
+					LOG.debug(".removeSubscriber(): Exit, Could not find Subscriber in Subscriber Cache for Topic");
+					return;
+				}
+				if(updatedSubscriptionList.isEmpty()){
+					LOG.trace(".removeSubscriber(): Subscription List is now empty, removing Topic from the distribution map and match tree");
+					this.distributionList.remove(currentToken);
+					this.descriptorMatchTree.removeDescriptor(currentToken);
+				} else {
+					this.distributionList.put(currentToken, Collections.unmodifiableList(updatedSubscriptionList));
+				}
+				this.distributionListGeneration.incrementAndGet();
 			}
     	} else {
     		LOG.debug(".removeSubscriber(): Exit, Could not find Subscriber in Subscriber Cache for Topic");
@@ -274,72 +317,75 @@ public class DataParcelSubscriptionMapDM {
 		}
 	}
 
+	/**
+	 * Derive the set of PubSubSubscriptions whose (subscribed) DataParcelTypeDescriptor matches the
+	 * testDescriptor, using the descriptorMatchTree so that the cost of the lookup is bound by the depth
+	 * of the descriptor rather than the number of registered subscriptions.
+	 *
+	 * @param testDescriptor The DataParcelTypeDescriptor of the published parcel
+	 * @return The list of candidate PubSubSubscriptions
+	 */
 	private List<PubSubSubscription> getPossibleSubscriptionMatches(DataParcelTypeDescriptor testDescriptor){
-    	List<DataParcelTypeDescriptor> possibleList = new ArrayList<>();
-    	List<PubSubSubscription> possibleSubscriptionList = new ArrayList<>();
-    	if(this.distributionList.isEmpty()){
-    		return(possibleSubscriptionList);
-		}
-		Enumeration<DataParcelTypeDescriptor> descriptorEnumeration = this.distributionList.keys();
-    	while(descriptorEnumeration.hasMoreElements()){
-    		DataParcelTypeDescriptor subscribedDescriptor = descriptorEnumeration.nextElement();
-			boolean parcelDefinerIsEqual = StringUtils.equals(testDescriptor.getDataParcelDefiner(),subscribedDescriptor.getDataParcelDefiner());
-			boolean parcelDefinedHasWildcard = StringUtils.equals(subscribedDescriptor.getDataParcelDefiner(),DataParcelManifest.WILDCARD_CHARACTER);
-			boolean parcelDefinerIsGoodEnoughMatch = parcelDefinerIsEqual || parcelDefinedHasWildcard;
-			boolean parcelCategoryIsEqual = StringUtils.equals(testDescriptor.getDataParcelCategory(),subscribedDescriptor.getDataParcelCategory());
-			boolean parcelCategoryHasWildcard = StringUtils.equals(subscribedDescriptor.getDataParcelCategory(),DataParcelManifest.WILDCARD_CHARACTER);
-			boolean parcelCategoryIsGoodEnoughMatch = parcelCategoryIsEqual || parcelCategoryHasWildcard;
-			boolean parcelSubcategoryIsEqual = StringUtils.equals(testDescriptor.getDataParcelSubCategory(),subscribedDescriptor.getDataParcelSubCategory());
-			boolean parcelSubcategoryHasWildcard = StringUtils.equals(subscribedDescriptor.getDataParcelSubCategory(),DataParcelManifest.WILDCARD_CHARACTER);
-			boolean parcelSubcategoryIsGoodEnoughMatch = parcelSubcategoryIsEqual || parcelSubcategoryHasWildcard;
-			boolean parcelResourceIsEqual = StringUtils.equals(testDescriptor.getDataParcelResource(),subscribedDescriptor.getDataParcelResource());
-			boolean parcelResourceHasWildcard = StringUtils.equals(subscribedDescriptor.getDataParcelResource(),DataParcelManifest.WILDCARD_CHARACTER);
-			boolean parcelResourceIsGoodEnoughMatch = parcelResourceIsEqual || parcelResourceHasWildcard;
-			boolean parcelSegmentIsEqual = StringUtils.equals(testDescriptor.getDataParcelSegment(),subscribedDescriptor.getDataParcelSegment());
-			boolean parcelSegmentHasWildcard = StringUtils.equals(subscribedDescriptor.getDataParcelSegment(),DataParcelManifest.WILDCARD_CHARACTER);
-			boolean parcelSegmentIsGoodEnoughMatch = parcelSegmentIsEqual || parcelSegmentHasWildcard;
-			boolean parcelAttributeIsEqual = StringUtils.equals(testDescriptor.getDataParcelAttribute(),subscribedDescriptor.getDataParcelAttribute());
-			boolean parcelAttributeHasWildcard = StringUtils.equals(subscribedDescriptor.getDataParcelAttribute(),DataParcelManifest.WILDCARD_CHARACTER);
-			boolean parcelAttributeIsGoodEnoughMatch = parcelAttributeIsEqual || parcelAttributeHasWildcard;
-			boolean parcelDiscriminatorTypeIsEqual = StringUtils.equals(testDescriptor.getDataParcelDiscriminatorType(),subscribedDescriptor.getDataParcelDiscriminatorType());
-			boolean parcelDiscriminatorTypeHasWildcard = StringUtils.equals(subscribedDescriptor.getDataParcelDiscriminatorType(),DataParcelManifest.WILDCARD_CHARACTER);
-			boolean parcelDiscriminatorTypeIsGoodEnoughMatch = parcelDiscriminatorTypeIsEqual || parcelDiscriminatorTypeHasWildcard;
-			boolean parcelDiscriminatorValueIsEqual = StringUtils.equals(testDescriptor.getDataParcelDiscriminatorValue(),subscribedDescriptor.getDataParcelDiscriminatorValue());
-			boolean parcelDiscriminatorValueHasWildcard = StringUtils.equals(subscribedDescriptor.getDataParcelDiscriminatorValue(),DataParcelManifest.WILDCARD_CHARACTER);
-			boolean parcelDiscriminatorValueIsGoodEnoughMatch = parcelDiscriminatorValueIsEqual || parcelDiscriminatorValueHasWildcard;
-			if(		parcelDefinerIsGoodEnoughMatch
-					&& parcelCategoryIsGoodEnoughMatch
-					&& parcelSubcategoryIsGoodEnoughMatch
-					&& parcelResourceIsGoodEnoughMatch
-					&& parcelSegmentIsGoodEnoughMatch
-					&& parcelAttributeIsGoodEnoughMatch
-					&& parcelDiscriminatorTypeIsGoodEnoughMatch
-					&& parcelDiscriminatorValueIsGoodEnoughMatch){
-				possibleList.add(subscribedDescriptor);
-			}
-		}
-    	if(!possibleList.isEmpty()){ ;
-			for(DataParcelTypeDescriptor possibleDescriptor: possibleList){
-				List<PubSubSubscription> currentSubscriptionSet = this.distributionList.get(possibleDescriptor);
-				if(currentSubscriptionSet != null){
-					possibleSubscriptionList.addAll(currentSubscriptionSet);
-				}
+		List<PubSubSubscription> possibleSubscriptionList = new ArrayList<>();
+		if(this.distributionList.isEmpty()){
+			return(possibleSubscriptionList);
+		}
+		List<DataParcelTypeDescriptor> possibleList = this.descriptorMatchTree.findMatchingDescriptors(testDescriptor);
+		for(DataParcelTypeDescriptor possibleDescriptor: possibleList){
+			List<PubSubSubscription> currentSubscriptionSet = this.distributionList.get(possibleDescriptor);
+			if(currentSubscriptionSet != null){
+				possibleSubscriptionList.addAll(currentSubscriptionSet);
 			}
 		}
-    	return(possibleSubscriptionList);
+		return(possibleSubscriptionList);
 	}
 
 	//
 	// More sophisticated SubscriberList derivation
 	//
 
+	/**
+	 * Derive the list of PubSubParticipants interested in a parcel with the given DataParcelManifest. The
+	 * result is memoised against the "signature" of the manifest (i.e. all the attributes used in the
+	 * matching process) and the current generation of the distribution list, so a change to the set of
+	 * subscriptions implicitly invalidates all earlier results. Once the cache holds routingCacheMaximumEntries
+	 * results, the least recently used one is evicted to make room for a new one.
+	 *
+	 * @param parcelManifest The DataParcelManifest of the published parcel
+	 * @return An (unmodifiable) list of the PubSubParticipants that should receive the parcel
+	 */
 	public List<PubSubParticipant> deriveSubscriberList(DataParcelManifest parcelManifest){
 		LOG.debug(".deriveSubscriberList(): Entry, parcelManifest->{}", parcelManifest);
-		printAllSubscriptionSets();
+		if(parcelManifest == null){
+			throw(new IllegalArgumentException(".deriveSubscriberList(): parcelManifest is null"));
+		}
+		RoutingCacheKey manifestSignature = buildManifestSignature(parcelManifest);
+		long currentGeneration = this.distributionListGeneration.get();
+		RoutingCacheEntry cachedEntry;
+		synchronized (this.routingCacheLock) {
+			cachedEntry = this.routingCache.get(manifestSignature);
+		}
+		if(cachedEntry != null && cachedEntry.getGeneration() == currentGeneration){
+			this.routingCacheHitCount.incrementAndGet();
+			LOG.debug(".deriveSubscriberList(): Exit, routing cache hit, subscriberList.size()->{}", cachedEntry.getSubscriberList().size());
+			return(cachedEntry.getSubscriberList());
+		}
+		this.routingCacheMissCount.incrementAndGet();
+		List<PubSubParticipant> derivedSubscriberList = Collections.unmodifiableList(calculateSubscriberList(parcelManifest));
+		synchronized (this.routingCacheLock) {
+			this.routingCache.put(manifestSignature, new RoutingCacheEntry(currentGeneration, derivedSubscriberList));
+			evictLeastRecentlyUsedRoutes();
+		}
+		LOG.debug(".deriveSubscriberList(): Exit, routing cache miss, subscriberList.size()->{}", derivedSubscriberList.size());
+		return(derivedSubscriberList);
+	}
+
+	private List<PubSubParticipant> calculateSubscriberList(DataParcelManifest parcelManifest){
+		LOG.debug(".calculateSubscriberList(): Entry, parcelManifest->{}", parcelManifest);
 		if(LOG.isInfoEnabled()){
 			if(parcelManifest.hasContentDescriptor()){
 				String messageToken = parcelManifest.getContentDescriptor().toFDN().getToken().toTag();
-				LOG.trace(".deriveSubscriberList(): parcel.ContentDescriptor->{}", messageToken);
+				LOG.trace(".calculateSubscriberList(): parcel.ContentDescriptor->{}", messageToken);
 			}
 		}
 		DataParcelTypeDescriptor parcelContentDescriptor = parcelManifest.getContentDescriptor();
@@ -347,68 +393,68 @@ public class DataParcelSubscriptionMapDM {
 		List<PubSubSubscription> contentBasedSubscriberList = new ArrayList<>();
 		List<PubSubSubscription> containerBasedSubscriptionList = new ArrayList<>();
 		if(parcelContentDescriptor != null ){
-			LOG.trace(".deriveSubscriberList(): parcelContentDescriptor is not null");
+			LOG.trace(".calculateSubscriberList(): parcelContentDescriptor is not null");
 			contentBasedSubscriberList.addAll(getPossibleSubscriptionMatches(parcelContentDescriptor));
-			LOG.trace(".deriveSubscriberList(): contentBasedSubscriberList->{}", contentBasedSubscriberList);
+			LOG.trace(".calculateSubscriberList(): contentBasedSubscriberList->{}", contentBasedSubscriberList);
 		}
 		if(parcelContainerDescriptor != null){
-			LOG.trace(".deriveSubscriberList(): parcelContainerDescriptor is not null");
+			LOG.trace(".calculateSubscriberList(): parcelContainerDescriptor is not null");
 			containerBasedSubscriptionList.addAll(getPossibleSubscriptionMatches(parcelContainerDescriptor));
-			LOG.trace(".deriveSubscriberList(): containerBasedSubscriptionList->{}", containerBasedSubscriptionList);
+			LOG.trace(".calculateSubscriberList(): containerBasedSubscriptionList->{}", containerBasedSubscriptionList);
 		}
 
 		boolean contentListIsEmpty = contentBasedSubscriberList.isEmpty();
 		boolean containerListEmpty = containerBasedSubscriptionList.isEmpty();
 
 		if(contentListIsEmpty && containerListEmpty) {
-			LOG.trace(".deriveSubscriberList(): Couldn't find any associated PubSubSubscriber elements [empty lists or nulls] (i.e. couldn't find any interested WUPs), returning an empty set");
+			LOG.trace(".calculateSubscriberList(): Couldn't find any associated PubSubSubscriber elements [empty lists or nulls] (i.e. couldn't find any interested WUPs), returning an empty set");
 			return (new ArrayList<>());
 		}
 		List<PubSubSubscription> retrievedSubscriberList = new ArrayList<>();
 		if(!contentListIsEmpty){
-			LOG.trace(".deriveSubscriberList(): contentBasedSubscriberList contains something");
+			LOG.trace(".calculateSubscriberList(): contentBasedSubscriberList contains something");
 			retrievedSubscriberList.addAll(contentBasedSubscriberList);
 		}
 		if(!containerListEmpty){
-			LOG.trace(".deriveSubscriberList(): containerBasedSubscriptionList contains something");
+			LOG.trace(".calculateSubscriberList(): containerBasedSubscriptionList contains something");
 			retrievedSubscriberList.addAll(containerBasedSubscriptionList);
 		}
 		if(retrievedSubscriberList.isEmpty()){
-			LOG.trace(".deriveSubscriberList(): Couldn't find any associated PubSubSubscriber elements [empty aggregate list] (i.e. couldn't find any interested WUPs), returning an empty set");
+			LOG.trace(".calculateSubscriberList(): Couldn't find any associated PubSubSubscriber elements [empty aggregate list] (i.e. couldn't find any interested WUPs), returning an empty set");
 			return (new ArrayList<>());
 		}
 		List<PubSubParticipant> derivedSubscriberList = new ArrayList<>();
 		for(PubSubSubscription currentRegisteredSubscription: retrievedSubscriberList){
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match in subscription");
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match in subscription");
 			DataParcelManifest subscriberRequestedManifest = currentRegisteredSubscription.getParcelManifest();
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match in subscription, currentSubscriberRequestedManifest->{}, availableManifest->{}", currentRegisteredSubscription, parcelManifest);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match in subscription, currentSubscriberRequestedManifest->{}, availableManifest->{}", currentRegisteredSubscription, parcelManifest);
 //			LOG.trace(".getSubscriberList(): Checking subscriber->{}", currentRegisteredSubscription.getSubscriber());
 //			LOG.trace(".getSubscriberList(): Subscriber Manifest (container)->{}", subscriberRequestedManifest.getContainerDescriptor());
 //			LOG.trace(".getSubscriberList(): Publisher  Manifest (container)->{}", parcelManifest.getContainerDescriptor());
 //			LOG.trace(".getSubscriberList(): Subscriber Manifest (content)->{}", subscriberRequestedManifest.getContentDescriptor());
 //			LOG.trace(".getSubscriberList(): Publisher  Manifest (content)->{}", parcelManifest.getContentDescriptor());
 			boolean containerIsEqual = containerIsEqual(parcelManifest, subscriberRequestedManifest);
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match: containerIsEqual->{}",containerIsEqual);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match: containerIsEqual->{}",containerIsEqual);
 			boolean contentIsEqual = contentIsEqual(parcelManifest, subscriberRequestedManifest);
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match: contentIsEqual->{}",contentIsEqual);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match: contentIsEqual->{}",contentIsEqual);
 			boolean containerOnlyIsEqual = containerOnlyEqual(parcelManifest, subscriberRequestedManifest);
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match: containerOnlyIsEqual->{}",containerOnlyIsEqual);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match: containerOnlyIsEqual->{}",containerOnlyIsEqual);
 			boolean matchedNormalisation = normalisationMatches(parcelManifest, subscriberRequestedManifest);
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match: matchedNormalisation->{}",matchedNormalisation);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match: matchedNormalisation->{}",matchedNormalisation);
 			boolean matchedValidation = validationMatches(parcelManifest, subscriberRequestedManifest);
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match: matchedValidation->{}",matchedValidation);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match: matchedValidation->{}",matchedValidation);
 			boolean matchedManifestType = manifestTypeMatches(parcelManifest, subscriberRequestedManifest);
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match: matchedManifestType->{}",matchedManifestType);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match: matchedManifestType->{}",matchedManifestType);
 			boolean matchedSource = sourceSystemMatches(parcelManifest, subscriberRequestedManifest);
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match: matchedSource->{}",matchedSource);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match: matchedSource->{}",matchedSource);
 			boolean matchedTarget = targetSystemMatches(parcelManifest, subscriberRequestedManifest);
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match: matchedTarget->{}",matchedTarget);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match: matchedTarget->{}",matchedTarget);
 			boolean matchedPEPStatus = enforcementPointApprovalStatusMatches(parcelManifest, subscriberRequestedManifest);
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match: matchedPEPStatus->{}",matchedPEPStatus);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match: matchedPEPStatus->{}",matchedPEPStatus);
 			boolean matchedDistributionStatus = isDistributableMatches(parcelManifest, subscriberRequestedManifest);
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match: matchedDistributionStatus->{}",matchedDistributionStatus);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match: matchedDistributionStatus->{}",matchedDistributionStatus);
 			boolean matchedDirection = parcelFlowDirectionMatches(parcelManifest, subscriberRequestedManifest);
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match: matchedDirection->{}",matchedDirection);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match: matchedDirection->{}",matchedDirection);
 			boolean goodEnoughMatch = containerIsEqual
 					&& contentIsEqual
 					&& matchedNormalisation
@@ -419,7 +465,7 @@ public class DataParcelSubscriptionMapDM {
 					&& matchedPEPStatus
 					&& matchedDirection
 					&& matchedDistributionStatus;
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match: goodEnoughMatch->{}",goodEnoughMatch);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match: goodEnoughMatch->{}",goodEnoughMatch);
 			boolean containerBasedOKMatch = containerOnlyIsEqual
 					&& matchedNormalisation
 					&& matchedValidation
@@ -429,16 +475,16 @@ public class DataParcelSubscriptionMapDM {
 					&& matchedPEPStatus
 					&& matchedDirection
 					&& matchedDistributionStatus;
-			LOG.trace(".deriveSubscriberList(): Checking for equivalence/match: containerBasedOKMatch->{}",containerBasedOKMatch);
+			LOG.trace(".calculateSubscriberList(): Checking for equivalence/match: containerBasedOKMatch->{}",containerBasedOKMatch);
 			if(goodEnoughMatch || containerBasedOKMatch){
 				if(LOG.isWarnEnabled()) {
 					String subscriber = currentRegisteredSubscription.getSubscriber().getIntraSubsystemParticipant().getIdentifier().toVersionBasedFDNToken().toTag();
-					LOG.trace(".deriveSubscriberList(): subscriber->{}", subscriber);
+					LOG.trace(".calculateSubscriberList(): subscriber->{}", subscriber);
 				}
 				derivedSubscriberList.add(currentRegisteredSubscription.getSubscriber());
 			}
 		}
-		LOG.debug(".getSubscriberList(): Exit!");
+		LOG.debug(".calculateSubscriberList(): Exit!");
 		return(derivedSubscriberList);
 	}
 
@@ -685,4 +731,144 @@ public class DataParcelSubscriptionMapDM {
     	boolean directionMatches = testManifest.getDataParcelFlowDirection() == subscribedManifest.getDataParcelFlowDirection();
     	return(directionMatches);
 	}
+
+	//
+	// Routing Cache support
+	//
+
+	/**
+	 * Build the routing cache key for a manifest: the (String form of the) value of every attribute used in
+	 * the matching process, held field-by-field so that no combination of attribute values can collide with another.
+	 */
+	private RoutingCacheKey buildManifestSignature(DataParcelManifest parcelManifest){
+		String[] signatureElements = new String[RoutingCacheKey.SIGNATURE_ELEMENT_COUNT];
+		int position = 0;
+		position = addDescriptorSignature(signatureElements, position, parcelManifest.getContentDescriptor());
+		position = addDescriptorSignature(signatureElements, position, parcelManifest.getContainerDescriptor());
+		signatureElements[position++] = signatureValue(parcelManifest.getIntendedTargetSystem());
+		signatureElements[position++] = signatureValue(parcelManifest.getSourceSystem());
+		signatureElements[position++] = signatureValue(parcelManifest.getEnforcementPointApprovalStatus());
+		signatureElements[position++] = signatureValue(parcelManifest.getNormalisationStatus());
+		signatureElements[position++] = signatureValue(parcelManifest.getValidationStatus());
+		signatureElements[position++] = signatureValue(parcelManifest.getDataParcelType());
+		signatureElements[position++] = signatureValue(parcelManifest.getDataParcelFlowDirection());
+		signatureElements[position] = signatureValue(parcelManifest.isInterSubsystemDistributable());
+		return(new RoutingCacheKey(signatureElements));
+	}
+
+	private int addDescriptorSignature(String[] signatureElements, int position, DataParcelTypeDescriptor descriptor){
+		// The first element records whether the descriptor is present at all (as distinct from present but empty)
+		if(descriptor == null){
+			signatureElements[position] = null;
+			return(position + RoutingCacheKey.DESCRIPTOR_ELEMENT_COUNT);
+		}
+		signatureElements[position++] = "present";
+		signatureElements[position++] = signatureValue(descriptor.getDataParcelDefiner());
+		signatureElements[position++] = signatureValue(descriptor.getDataParcelCategory());
+		signatureElements[position++] = signatureValue(descriptor.getDataParcelSubCategory());
+		signatureElements[position++] = signatureValue(descriptor.getDataParcelResource());
+		signatureElements[position++] = signatureValue(descriptor.getDataParcelSegment());
+		signatureElements[position++] = signatureValue(descriptor.getDataParcelAttribute());
+		signatureElements[position++] = signatureValue(descriptor.getDataParcelDiscriminatorType());
+		signatureElements[position++] = signatureValue(descriptor.getDataParcelDiscriminatorValue());
+		return(position);
+	}
+
+	// (invoked whilst holding the routingCacheLock)
+	private void evictLeastRecentlyUsedRoutes(){
+		Iterator<RoutingCacheKey> leastRecentlyUsedIterator = this.routingCache.keySet().iterator();
+		while((this.routingCache.size() > this.routingCacheMaximumEntries) && leastRecentlyUsedIterator.hasNext()){
+			leastRecentlyUsedIterator.next();
+			leastRecentlyUsedIterator.remove();
+			this.routingCacheEvictionCount.incrementAndGet();
+		}
+	}
+
+	private static String signatureValue(Object value){
+		if(value == null){
+			return(null);
+		}
+		return(value.toString());
+	}
+
+	public long getRoutingCacheHitCount(){
+		return(this.routingCacheHitCount.get());
+	}
+
+	public long getRoutingCacheMissCount(){
+		return(this.routingCacheMissCount.get());
+	}
+
+	public long getRoutingCacheEvictionCount(){
+		return(this.routingCacheEvictionCount.get());
+	}
+
+	public int getRoutingCacheSize(){
+		synchronized (this.routingCacheLock) {
+			return(this.routingCache.size());
+		}
+	}
+
+	public int getRoutingCacheMaximumEntries(){
+		return(this.routingCacheMaximumEntries);
+	}
+
+	/**
+	 * Set the number of derived subscriber lists the routing cache holds, evicting the least recently used
+	 * ones if it now holds too many.
+	 *
+	 * @param maximumEntries The maximum number of routing cache entries (at least 1)
+	 */
+	public void setRoutingCacheMaximumEntries(int maximumEntries){
+		if(maximumEntries < 1){
+			throw(new IllegalArgumentException(".setRoutingCacheMaximumEntries(): maximumEntries must be at least 1"));
+		}
+		synchronized (this.routingCacheLock) {
+			this.routingCacheMaximumEntries = maximumEntries;
+			evictLeastRecentlyUsedRoutes();
+		}
+	}
+
+	private static final class RoutingCacheKey {
+		private static final int DESCRIPTOR_ELEMENT_COUNT = 9;
+		private static final int SIGNATURE_ELEMENT_COUNT = (2 * DESCRIPTOR_ELEMENT_COUNT) + 8;
+		private final String[] signatureElements;
+		private final int hashCode;
+
+		private RoutingCacheKey(String[] signatureElements){
+			this.signatureElements = signatureElements;
+			this.hashCode = Arrays.hashCode(signatureElements);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) return true;
+			if (o == null || getClass() != o.getClass()) return false;
+			RoutingCacheKey that = (RoutingCacheKey) o;
+			return (hashCode == that.hashCode && Arrays.equals(signatureElements, that.signatureElements));
+		}
+
+		@Override
+		public int hashCode() {
+			return (hashCode);
+		}
+	}
+
+	private static class RoutingCacheEntry {
+		private final long generation;
+		private final List<PubSubParticipant> subscriberList;
+
+		private RoutingCacheEntry(long generation, List<PubSubParticipant> subscriberList){
+			this.generation = generation;
+			this.subscriberList = subscriberList;
+		}
+
+		private long getGeneration(){
+			return(generation);
+		}
+
+		private List<PubSubParticipant> getSubscriberList(){
+			return(subscriberList);
+		}
+	}
 }
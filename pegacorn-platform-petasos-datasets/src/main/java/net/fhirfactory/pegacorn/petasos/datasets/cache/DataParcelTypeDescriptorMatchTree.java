@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.datasets.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelTypeDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A discrimination tree over the (subscribed) DataParcelTypeDescriptor set. Each level of the tree
+ * corresponds to one descriptor field (definer -> category -> subcategory -> resource -> segment ->
+ * attribute -> discriminatorType -> discriminatorValue) and each node carries an explicit wildcard
+ * branch, so the cost of finding all subscribed descriptors that match a published descriptor scales
+ * with the descriptor depth rather than with the number of registered subscriptions.
+ *
+ * Readers may traverse the tree concurrently, mutation (addDescriptor/removeDescriptor) is expected
+ * to be serialised by the owning cache (DataParcelSubscriptionMapDM).
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public class DataParcelTypeDescriptorMatchTree {
+	private static final Logger LOG = LoggerFactory.getLogger(DataParcelTypeDescriptorMatchTree.class);
+
+	private static final int DESCRIPTOR_DEPTH = 8;
+	private static final String NULL_FIELD_KEY = "\u0000";
+
+	private MatchTreeNode root;
+	private int descriptorCount;
+
+	public DataParcelTypeDescriptorMatchTree(){
+		this.root = new MatchTreeNode();
+		this.descriptorCount = 0;
+	}
+
+	/**
+	 * Insert a (subscribed) descriptor into the tree.
+	 *
+	 * @param descriptor The DataParcelTypeDescriptor of the subscription
+	 */
+	public void addDescriptor(DataParcelTypeDescriptor descriptor){
+		LOG.debug(".addDescriptor(): Entry, descriptor->{}", descriptor);
+		if(descriptor == null){
+			throw(new IllegalArgumentException(".addDescriptor(): descriptor is null"));
+		}
+		MatchTreeNode currentNode = root;
+		for(int level = 0; level < DESCRIPTOR_DEPTH; level++){
+			String fieldValue = getDescriptorField(descriptor, level);
+			if(isWildcard(fieldValue)){
+				if(currentNode.wildcardChild == null){
+					currentNode.wildcardChild = new MatchTreeNode();
+				}
+				currentNode = currentNode.wildcardChild;
+			} else {
+				currentNode = currentNode.children.computeIfAbsent(toFieldKey(fieldValue), key -> new MatchTreeNode());
+			}
+		}
+		if(currentNode.descriptors.add(descriptor)){
+			descriptorCount += 1;
+		}
+		LOG.debug(".addDescriptor(): Exit, descriptorCount->{}", descriptorCount);
+	}
+
+	/**
+	 * Remove a (subscribed) descriptor from the tree, pruning any branches that are left empty.
+	 *
+	 * @param descriptor The DataParcelTypeDescriptor of the subscription
+	 */
+	public void removeDescriptor(DataParcelTypeDescriptor descriptor){
+		LOG.debug(".removeDescriptor(): Entry, descriptor->{}", descriptor);
+		if(descriptor == null){
+			throw(new IllegalArgumentException(".removeDescriptor(): descriptor is null"));
+		}
+		if(removeDescriptor(root, descriptor, 0)){
+			descriptorCount -= 1;
+		}
+		LOG.debug(".removeDescriptor(): Exit, descriptorCount->{}", descriptorCount);
+	}
+
+	private boolean removeDescriptor(MatchTreeNode currentNode, DataParcelTypeDescriptor descriptor, int level){
+		if(level == DESCRIPTOR_DEPTH){
+			return(currentNode.descriptors.remove(descriptor));
+		}
+		String fieldValue = getDescriptorField(descriptor, level);
+		boolean removed = false;
+		if(isWildcard(fieldValue)){
+			MatchTreeNode wildcardNode = currentNode.wildcardChild;
+			if(wildcardNode != null){
+				removed = removeDescriptor(wildcardNode, descriptor, level + 1);
+				if(wildcardNode.isEmpty()){
+					currentNode.wildcardChild = null;
+				}
+			}
+		} else {
+			String fieldKey = toFieldKey(fieldValue);
+			MatchTreeNode childNode = currentNode.children.get(fieldKey);
+			if(childNode != null){
+				removed = removeDescriptor(childNode, descriptor, level + 1);
+				if(childNode.isEmpty()){
+					currentNode.children.remove(fieldKey);
+				}
+			}
+		}
+		return(removed);
+	}
+
+	/**
+	 * Find all the registered descriptors that match the testDescriptor, either because each field is
+	 * equal or because the registered descriptor has a wildcard in that field.
+	 *
+	 * @param testDescriptor The DataParcelTypeDescriptor of the published parcel
+	 * @return The list of matching (subscribed) descriptors, empty if there are none
+	 */
+	public List<DataParcelTypeDescriptor> findMatchingDescriptors(DataParcelTypeDescriptor testDescriptor){
+		LOG.debug(".findMatchingDescriptors(): Entry, testDescriptor->{}", testDescriptor);
+		List<DataParcelTypeDescriptor> matchingList = new ArrayList<>();
+		if(testDescriptor == null){
+			LOG.debug(".findMatchingDescriptors(): Exit, testDescriptor is null");
+			return(matchingList);
+		}
+		String[] testFields = new String[DESCRIPTOR_DEPTH];
+		for(int level = 0; level < DESCRIPTOR_DEPTH; level++){
+			testFields[level] = toFieldKey(getDescriptorField(testDescriptor, level));
+		}
+		collectMatches(root, testFields, 0, matchingList);
+		LOG.debug(".findMatchingDescriptors(): Exit, matchingList.size()->{}", matchingList.size());
+		return(matchingList);
+	}
+
+	private void collectMatches(MatchTreeNode currentNode, String[] testFields, int level, List<DataParcelTypeDescriptor> matchingList){
+		if(level == DESCRIPTOR_DEPTH){
+			matchingList.addAll(currentNode.descriptors);
+			return;
+		}
+		MatchTreeNode exactNode = currentNode.children.get(testFields[level]);
+		if(exactNode != null){
+			collectMatches(exactNode, testFields, level + 1, matchingList);
+		}
+		MatchTreeNode wildcardNode = currentNode.wildcardChild;
+		if(wildcardNode != null){
+			collectMatches(wildcardNode, testFields, level + 1, matchingList);
+		}
+	}
+
+	public int getDescriptorCount(){
+		return(descriptorCount);
+	}
+
+	public boolean isEmpty(){
+		return(root.isEmpty());
+	}
+
+	//
+	// Helpers
+	//
+
+	private static boolean isWildcard(String fieldValue){
+		return(DataParcelManifest.WILDCARD_CHARACTER.equals(fieldValue));
+	}
+
+	private static String toFieldKey(String fieldValue){
+		if(fieldValue == null){
+			return(NULL_FIELD_KEY);
+		}
+		return(fieldValue);
+	}
+
+	private static String getDescriptorField(DataParcelTypeDescriptor descriptor, int level){
+		switch(level){
+			case 0: return(descriptor.getDataParcelDefiner());
+			case 1: return(descriptor.getDataParcelCategory());
+			case 2: return(descriptor.getDataParcelSubCategory());
+			case 3: return(descriptor.getDataParcelResource());
+			case 4: return(descriptor.getDataParcelSegment());
+			case 5: return(descriptor.getDataParcelAttribute());
+			case 6: return(descriptor.getDataParcelDiscriminatorType());
+			case 7: return(descriptor.getDataParcelDiscriminatorValue());
+			default: throw(new IllegalArgumentException(".getDescriptorField(): level is out of range, level->" + level));
+		}
+	}
+
+	private static class MatchTreeNode {
+		private final ConcurrentHashMap<String, MatchTreeNode> children;
+		private volatile MatchTreeNode wildcardChild;
+		private final Set<DataParcelTypeDescriptor> descriptors;
+
+		private MatchTreeNode(){
+			this.children = new ConcurrentHashMap<>();
+			this.wildcardChild = null;
+			this.descriptors = ConcurrentHashMap.newKeySet();
+		}
+
+		private boolean isEmpty(){
+			return(children.isEmpty() && (wildcardChild == null) && descriptors.isEmpty());
+		}
+	}
+}
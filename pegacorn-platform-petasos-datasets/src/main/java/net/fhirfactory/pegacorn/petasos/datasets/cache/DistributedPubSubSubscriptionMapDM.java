@@ -30,6 +30,7 @@ import org.slf4j.LoggerFactory;
 import javax.enterprise.context.ApplicationScoped;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.List;
@@ -41,11 +42,12 @@ public class DistributedPubSubSubscriptionMapDM {
 
     // ConcurrentHashMap<publisherServiceInstanceName, publisherRegistration>
     private ConcurrentHashMap<String, InterSubsystemPubSubPublisherRegistration> publisherMap;
+    // Guards updates to both the publisherMap and the publisherServiceFulfillmentMap (reads are lock-free)
     private Object publisherMapLock;
 
     // ConcurrentHashMap<publisherServiceName, List<publisherServiceInstanceName>>
+    // The List<String> values are immutable snapshots, replaced (copy-on-write) under the publisherMapLock
     private ConcurrentHashMap<String, List<String>> publisherServiceFulfillmentMap;
-    private Object publisherServiceFulfillmentMapLock;
 
     // ConcurrentHashMap<publisherServiceName, subscriptionRegistration>
     private ConcurrentHashMap<String, InterSubsystemPubSubPublisherSubscriptionRegistration> publisherServiceSubscriptionMap;
@@ -57,7 +59,6 @@ public class DistributedPubSubSubscriptionMapDM {
         this.publisherServiceSubscriptionMap = new ConcurrentHashMap<>();
         this.publisherSubscriptionMapLock = new Object();
         this.publisherServiceFulfillmentMap = new ConcurrentHashMap<>();
-        this.publisherServiceFulfillmentMapLock = new Object();
     }
 
     //
@@ -86,24 +87,28 @@ public class DistributedPubSubSubscriptionMapDM {
             return(null);
         }
         LOG.trace(".registerPublisherInstance(): Now, check to see if publisher (instance) is already cached and, if so, do nothing!");
-        if(publisherMap.containsKey(publisher.getEndpointID().getEndpointName())){
-            registration = publisherMap.get(publisher.getEndpointID().getEndpointName());
-            LOG.debug("registerPublisherInstance(): Exit, publisher already registered, registration->{}", registration);
-            return(registration);
-        } else {
+        InterSubsystemPubSubPublisherRegistration existingRegistration = publisherMap.get(publisher.getEndpointID().getEndpointName());
+        if(existingRegistration != null){
+            LOG.debug("registerPublisherInstance(): Exit, publisher already registered, registration->{}", existingRegistration);
+            return(existingRegistration);
+        }
+        synchronized (this.publisherMapLock) {
+            existingRegistration = publisherMap.get(publisher.getEndpointID().getEndpointName());
+            if(existingRegistration != null){
+                LOG.debug("registerPublisherInstance(): Exit, publisher registered concurrently, registration->{}", existingRegistration);
+                return(existingRegistration);
+            }
             LOG.trace(".registerPublisherInstance(): Publisher is not in Map, so add it!");
             registration.setPublisher(publisher);
             registration.setRegistrationCommentary("Publisher Registered");
             registration.setRegistrationDate(Date.from(Instant.now()));
             registration.setLastActivityDate(Date.from(Instant.now()));
             registration.setPublisherStatus(InterSubsystemPubSubPublisherStatusEnum.PUBLISHER_REGISTERED);
-            synchronized (this.publisherMapLock) {
-                publisherMap.put(publisher.getEndpointID().getEndpointName(), registration);
-            }
+            publisherMap.put(publisher.getEndpointID().getEndpointName(), registration);
             addPublisherServiceProviderInstance(publisher);
-            LOG.debug(".registerPublisherInstance(): Exit, registration->{}", registration);
-            return (registration);
         }
+        LOG.debug(".registerPublisherInstance(): Exit, registration->{}", registration);
+        return (registration);
     }
 
     public void unregisterPublisherInstance(String publisherInstanceName){
@@ -118,21 +123,16 @@ public class DistributedPubSubSubscriptionMapDM {
         }
         LOG.trace(".unregisterPublisherInstance(): publisherInstanceName is not null");
         if(publisherMap.containsKey(publisherInstanceName)){
-            InterSubsystemPubSubPublisherRegistration publisherRegistration = publisherMap.get(publisherInstanceName);
+            String serviceName = null;
             synchronized (this.publisherMapLock) {
                 registration = publisherMap.remove(publisherInstanceName);
-            }
-            LOG.trace(".unregisterPublisherInstance(): have removed publisher registration, now clean up ServiceFulfillmentMap");
-            String serviceName = publisherRegistration.getPublisher().getEndpointServiceName();
-            List<String> publisherList = this.publisherServiceFulfillmentMap.get(serviceName);
-            if(publisherList != null){
-                LOG.trace(".unregisterPublisherInstance(): There was a publisherList in the ServiceFulfillmentMap, removing instance");
-                if(publisherList.contains(publisherInstanceName)){
-                    publisherList.remove(publisherInstanceName);
-                }
-                if(publisherList.isEmpty()){
-                    this.publisherServiceFulfillmentMap.remove(serviceName);
+                if(registration == null){
+                    LOG.debug(".unregisterPublisherInstance(): Exit, publisher was unregistered concurrently");
+                    return;
                 }
+                LOG.trace(".unregisterPublisherInstance(): have removed publisher registration, now clean up ServiceFulfillmentMap");
+                serviceName = registration.getPublisher().getEndpointServiceName();
+                removePublisherServiceProviderInstance(serviceName, publisherInstanceName);
             }
             LOG.debug(".unregisterPublisherInstance(): Invoking checkAProviderIsAvailable() with serviceName->{}", serviceName);
             checkAProviderIsAvailable(serviceName);
@@ -234,19 +234,20 @@ public class DistributedPubSubSubscriptionMapDM {
             LOG.debug(".addPublisherServiceProviderInstance(): Exit, publisherServiceName or publisherInstanceName is null");
             return;
         }
-        synchronized (publisherServiceFulfillmentMapLock) {
+        synchronized (publisherMapLock) {
             List<String> publisherInstanceList = publisherServiceFulfillmentMap.get(publisherServiceName);
             if (publisherInstanceList == null) {
                 LOG.trace(".addPublisherServiceProviderInstance(): No map entry exists for service ({}), so creating it", publisherServiceName);
-                publisherInstanceList = new ArrayList<>();
-                publisherInstanceList.add(publisherInstanceName);
-                publisherServiceFulfillmentMap.put(publisherServiceName, publisherInstanceList);
+                publisherServiceFulfillmentMap.put(publisherServiceName, Collections.singletonList(publisherInstanceName));
             } else {
                 LOG.trace(".addPublisherServiceProviderInstance(): No map entry for service ({}), so just adding list-entry", publisherServiceName);
                 if (publisherInstanceList.contains(publisherInstanceName)) {
                     // do nothing
                 } else {
-                    publisherInstanceList.add(publisherInstanceName);
+                    List<String> updatedPublisherInstanceList = new ArrayList<>(publisherInstanceList.size() + 1);
+                    updatedPublisherInstanceList.addAll(publisherInstanceList);
+                    updatedPublisherInstanceList.add(publisherInstanceName);
+                    publisherServiceFulfillmentMap.put(publisherServiceName, Collections.unmodifiableList(updatedPublisherInstanceList));
                 }
             }
         }
@@ -269,18 +270,27 @@ public class DistributedPubSubSubscriptionMapDM {
             LOG.debug(".removePublisherServiceProviderInstance(): Exit, publisherName or publisherInstanceName is null");
             return;
         }
-        synchronized (publisherServiceFulfillmentMapLock) {
+        removePublisherServiceProviderInstance(publisherServiceName, publisherInstanceName);
+        LOG.debug(".removePublisherServiceProviderInstance(): Exit, publisher removed added");
+    }
+
+    private void removePublisherServiceProviderInstance(String publisherServiceName, String publisherInstanceName){
+        if(publisherServiceName == null || publisherInstanceName == null){
+            return;
+        }
+        synchronized (publisherMapLock) {
             List<String> publisherInstanceList = publisherServiceFulfillmentMap.get(publisherServiceName);
-            if (publisherInstanceList != null) {
-                if (publisherInstanceList.contains(publisherInstanceName)) {
-                    publisherInstanceList.remove(publisherInstanceName);
-                }
+            if (publisherInstanceList == null || !publisherInstanceList.contains(publisherInstanceName)) {
+                return;
             }
-            if(publisherInstanceList.isEmpty()){
+            if (publisherInstanceList.size() == 1) {
                 publisherServiceFulfillmentMap.remove(publisherServiceName);
+            } else {
+                List<String> updatedPublisherInstanceList = new ArrayList<>(publisherInstanceList);
+                updatedPublisherInstanceList.remove(publisherInstanceName);
+                publisherServiceFulfillmentMap.put(publisherServiceName, Collections.unmodifiableList(updatedPublisherInstanceList));
             }
         }
-        LOG.debug(".removePublisherServiceProviderInstance(): Exit, publisher removed added");
     }
 
     public List<InterSubsystemPubSubParticipant> getPublisherServiceProviderInstances(String publisherServiceName){
@@ -485,15 +495,8 @@ public class DistributedPubSubSubscriptionMapDM {
     public List<String> getAllPublishers(){
         LOG.debug(".getAllPublishers(): Entry");
         List<String> participantList = new ArrayList<>();
-        synchronized(publisherSubscriptionMapLock) {
-            Enumeration<String> publisherServiceNames = this.publisherServiceFulfillmentMap.keys();
-            while (publisherServiceNames.hasMoreElements()) {
-                String currentPublisherServiceName = publisherServiceNames.nextElement();
-                List<String> currentPublisherInstanceNames = this.publisherServiceFulfillmentMap.get(currentPublisherServiceName);
-                if (currentPublisherInstanceNames != null) {
-                    participantList.addAll(currentPublisherInstanceNames);
-                }
-            }
+        for(List<String> currentPublisherInstanceNames: this.publisherServiceFulfillmentMap.values()) {
+            participantList.addAll(currentPublisherInstanceNames);
         }
         LOG.debug(".getAllPublishers(): Exit, participantList->{}", participantList);
         return(participantList);
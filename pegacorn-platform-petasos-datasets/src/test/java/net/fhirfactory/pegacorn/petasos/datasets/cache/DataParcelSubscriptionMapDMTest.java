@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.datasets.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDNToken;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeRDN;
+import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeTypeEnum;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelTypeDescriptor;
+import net.fhirfactory.pegacorn.petasos.model.configuration.PetasosPropertyConstants;
+import net.fhirfactory.pegacorn.petasos.model.pubsub.PubSubParticipant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+class DataParcelSubscriptionMapDMTest {
+	private static final Logger LOG = LoggerFactory.getLogger(DataParcelSubscriptionMapDMTest.class);
+
+	DataParcelSubscriptionMapDM subscriptionMapDM;
+
+	@BeforeEach
+	void setUp() {
+		LOG.debug(".setUp(): Entry...");
+		subscriptionMapDM = new DataParcelSubscriptionMapDM();
+	}
+
+	static DataParcelTypeDescriptor newDescriptor(String resource) {
+		DataParcelTypeDescriptor descriptor = new DataParcelTypeDescriptor();
+		descriptor.setDataParcelDefiner("FHIRFactory");
+		descriptor.setDataParcelCategory("Test");
+		descriptor.setDataParcelSubCategory("Petasos");
+		descriptor.setDataParcelResource(resource);
+		return (descriptor);
+	}
+
+	static TopologyNodeFDNToken newWUPToken(String wupName) {
+		TopologyNodeFDN wupFDN = new TopologyNodeFDN();
+		wupFDN.appendTopologyNodeRDN(new TopologyNodeRDN(TopologyNodeTypeEnum.WORKSHOP, "TestWorkshop", "1.0.0"));
+		wupFDN.appendTopologyNodeRDN(new TopologyNodeRDN(TopologyNodeTypeEnum.WUP, wupName, "1.0.0"));
+		return (wupFDN.getToken());
+	}
+
+	List<PubSubParticipant> deriveSubscriberList(String resource) {
+		return (subscriptionMapDM.deriveSubscriberList(new DataParcelManifest(newDescriptor(resource))));
+	}
+
+	void subscribe(String resource, String wupName) {
+		subscriptionMapDM.addSubscriber(newDescriptor(resource), newWUPToken(wupName));
+	}
+
+	@Test
+	void testRoutingCacheHitReturnsTheDerivedList() {
+		LOG.info(".testRoutingCacheHitReturnsTheDerivedList(): Entry");
+		subscribe("Communication", "wupA");
+		List<PubSubParticipant> derivedList = deriveSubscriberList("Communication");
+		assertEquals(1, derivedList.size());
+		assertEquals(0, subscriptionMapDM.getRoutingCacheHitCount());
+		assertEquals(1, subscriptionMapDM.getRoutingCacheMissCount());
+
+		assertSame(derivedList, deriveSubscriberList("Communication"));
+		assertEquals(1, subscriptionMapDM.getRoutingCacheHitCount());
+		assertEquals(1, subscriptionMapDM.getRoutingCacheMissCount());
+
+		// a manifest nobody subscribes to is cached too (as an empty list)
+		assertTrue(deriveSubscriberList("Patient").isEmpty());
+		assertTrue(deriveSubscriberList("Patient").isEmpty());
+		assertEquals(2, subscriptionMapDM.getRoutingCacheHitCount());
+		assertEquals(2, subscriptionMapDM.getRoutingCacheSize());
+	}
+
+	@Test
+	void testSubscriptionChangeInvalidatesTheRoutingCache() {
+		LOG.info(".testSubscriptionChangeInvalidatesTheRoutingCache(): Entry");
+		subscribe("Communication", "wupA");
+		assertEquals(1, deriveSubscriberList("Communication").size());
+		assertTrue(deriveSubscriberList("Patient").isEmpty());
+
+		subscribe("Patient", "wupB");
+		assertEquals(1, deriveSubscriberList("Patient").size());
+		subscribe("Communication", "wupB");
+		List<PubSubParticipant> derivedList = deriveSubscriberList("Communication");
+		assertEquals(2, derivedList.size());
+		assertEquals(0, subscriptionMapDM.getRoutingCacheHitCount());
+		assertEquals(4, subscriptionMapDM.getRoutingCacheMissCount());
+
+		// re-adding an existing subscription does not invalidate anything
+		subscribe("Communication", "wupB");
+		assertSame(derivedList, deriveSubscriberList("Communication"));
+		assertEquals(1, subscriptionMapDM.getRoutingCacheHitCount());
+		assertEquals(0, subscriptionMapDM.getRoutingCacheEvictionCount());
+	}
+
+	@Test
+	void testRoutingCacheEvictsTheLeastRecentlyUsedRoute() {
+		LOG.info(".testRoutingCacheEvictsTheLeastRecentlyUsedRoute(): Entry");
+		assertEquals(PetasosPropertyConstants.SUBSCRIPTION_ROUTING_CACHE_MAX_ENTRIES, subscriptionMapDM.getRoutingCacheMaximumEntries());
+		subscriptionMapDM.setRoutingCacheMaximumEntries(3);
+		for (int counter = 0; counter < 4; counter++) {
+			subscribe("Resource" + counter, "wup" + counter);
+		}
+		deriveSubscriberList("Resource0");
+		deriveSubscriberList("Resource1");
+		deriveSubscriberList("Resource2");
+		// touch Resource0, so that Resource1 is now the least recently used
+		deriveSubscriberList("Resource0");
+		deriveSubscriberList("Resource3");
+		assertEquals(3, subscriptionMapDM.getRoutingCacheSize());
+		assertEquals(1, subscriptionMapDM.getRoutingCacheEvictionCount());
+
+		// only the least recently used route went, the rest are still hits
+		deriveSubscriberList("Resource0");
+		deriveSubscriberList("Resource2");
+		deriveSubscriberList("Resource3");
+		assertEquals(4, subscriptionMapDM.getRoutingCacheHitCount());
+		assertEquals(4, subscriptionMapDM.getRoutingCacheMissCount());
+		deriveSubscriberList("Resource1");
+		assertEquals(5, subscriptionMapDM.getRoutingCacheMissCount());
+		assertEquals(2, subscriptionMapDM.getRoutingCacheEvictionCount());
+		assertEquals(3, subscriptionMapDM.getRoutingCacheSize());
+
+		// shrinking the cache evicts down to the new bound, keeping the most recently used route
+		subscriptionMapDM.setRoutingCacheMaximumEntries(1);
+		assertEquals(1, subscriptionMapDM.getRoutingCacheSize());
+		assertEquals(4, subscriptionMapDM.getRoutingCacheEvictionCount());
+		deriveSubscriberList("Resource1");
+		assertEquals(5, subscriptionMapDM.getRoutingCacheHitCount());
+
+		assertThrows(IllegalArgumentException.class, () -> subscriptionMapDM.setRoutingCacheMaximumEntries(0));
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.datasets.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelTypeDescriptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+class DataParcelTypeDescriptorMatchTreeTest {
+	private static final Logger LOG = LoggerFactory.getLogger(DataParcelTypeDescriptorMatchTreeTest.class);
+
+	private static final String WILDCARD = DataParcelManifest.WILDCARD_CHARACTER;
+	// (null is a field value in its own right: it only matches null, or a wildcard)
+	private static final String[] FIELD_VALUES = {"A", "B", WILDCARD, null};
+
+	DataParcelTypeDescriptorMatchTree matchTree;
+
+	@BeforeEach
+	void setUp() {
+		LOG.debug(".setUp(): Entry...");
+		matchTree = new DataParcelTypeDescriptorMatchTree();
+	}
+
+	static DataParcelTypeDescriptor newDescriptor(String... fieldValues) {
+		DataParcelTypeDescriptor descriptor = new DataParcelTypeDescriptor();
+		descriptor.setDataParcelDefiner(fieldValues[0]);
+		descriptor.setDataParcelCategory(fieldValues[1]);
+		descriptor.setDataParcelSubCategory(fieldValues[2]);
+		descriptor.setDataParcelResource(fieldValues[3]);
+		descriptor.setDataParcelSegment(fieldValues[4]);
+		descriptor.setDataParcelAttribute(fieldValues[5]);
+		descriptor.setDataParcelDiscriminatorType(fieldValues[6]);
+		descriptor.setDataParcelDiscriminatorValue(fieldValues[7]);
+		return (descriptor);
+	}
+
+	static String[] getFields(DataParcelTypeDescriptor descriptor) {
+		return (new String[]{
+				descriptor.getDataParcelDefiner(),
+				descriptor.getDataParcelCategory(),
+				descriptor.getDataParcelSubCategory(),
+				descriptor.getDataParcelResource(),
+				descriptor.getDataParcelSegment(),
+				descriptor.getDataParcelAttribute(),
+				descriptor.getDataParcelDiscriminatorType(),
+				descriptor.getDataParcelDiscriminatorValue()});
+	}
+
+	/**
+	 * The field-by-field test the tree replaces (see DataParcelSubscriptionMapDM.contentIsEqual()).
+	 */
+	static boolean linearMatch(DataParcelTypeDescriptor testDescriptor, DataParcelTypeDescriptor subscribedDescriptor) {
+		String[] testFields = getFields(testDescriptor);
+		String[] subscribedFields = getFields(subscribedDescriptor);
+		for (int level = 0; level < testFields.length; level++) {
+			boolean fieldIsEqual = (testFields[level] == null) ? (subscribedFields[level] == null) : testFields[level].equals(subscribedFields[level]);
+			if (!fieldIsEqual && !WILDCARD.equals(subscribedFields[level])) {
+				return (false);
+			}
+		}
+		return (true);
+	}
+
+	@Test
+	void testExactAndWildcardDescriptorsMatch() {
+		LOG.info(".testExactAndWildcardDescriptorsMatch(): Entry");
+		DataParcelTypeDescriptor exactDescriptor = newDescriptor("FHIRFactory", "Test", "Petasos", "Communication", null, null, null, null);
+		DataParcelTypeDescriptor resourceWildcardDescriptor = newDescriptor("FHIRFactory", "Test", "Petasos", WILDCARD, null, null, null, null);
+		DataParcelTypeDescriptor allWildcardDescriptor = newDescriptor(WILDCARD, WILDCARD, WILDCARD, WILDCARD, WILDCARD, WILDCARD, WILDCARD, WILDCARD);
+		DataParcelTypeDescriptor otherResourceDescriptor = newDescriptor("FHIRFactory", "Test", "Petasos", "Patient", null, null, null, null);
+		DataParcelTypeDescriptor segmentDescriptor = newDescriptor("FHIRFactory", "Test", "Petasos", "Communication", "Segment", null, null, null);
+		matchTree.addDescriptor(exactDescriptor);
+		matchTree.addDescriptor(resourceWildcardDescriptor);
+		matchTree.addDescriptor(allWildcardDescriptor);
+		matchTree.addDescriptor(otherResourceDescriptor);
+		matchTree.addDescriptor(segmentDescriptor);
+		assertEquals(5, matchTree.getDescriptorCount());
+
+		Set<DataParcelTypeDescriptor> matches = new HashSet<>(matchTree.findMatchingDescriptors(newDescriptor("FHIRFactory", "Test", "Petasos", "Communication", null, null, null, null)));
+		assertEquals(3, matches.size());
+		assertTrue(matches.contains(exactDescriptor));
+		assertTrue(matches.contains(resourceWildcardDescriptor));
+		assertTrue(matches.contains(allWildcardDescriptor));
+
+		// a null field is only matched by a null (or wildcard) field, not by a value
+		matches = new HashSet<>(matchTree.findMatchingDescriptors(newDescriptor("FHIRFactory", "Test", "Petasos", null, null, null, null, null)));
+		assertEquals(2, matches.size());
+		assertTrue(matches.contains(resourceWildcardDescriptor));
+		assertTrue(matches.contains(allWildcardDescriptor));
+
+		assertTrue(matchTree.findMatchingDescriptors(null).isEmpty());
+	}
+
+	@Test
+	void testRemovePrunesTheTree() {
+		LOG.info(".testRemovePrunesTheTree(): Entry");
+		DataParcelTypeDescriptor exactDescriptor = newDescriptor("FHIRFactory", "Test", "Petasos", "Communication", null, null, null, null);
+		DataParcelTypeDescriptor wildcardDescriptor = newDescriptor("FHIRFactory", WILDCARD, "Petasos", "Communication", null, null, null, null);
+		matchTree.addDescriptor(exactDescriptor);
+		// adding an (equal) descriptor twice registers it once
+		matchTree.addDescriptor(newDescriptor(getFields(exactDescriptor)));
+		matchTree.addDescriptor(wildcardDescriptor);
+		assertEquals(2, matchTree.getDescriptorCount());
+
+		matchTree.removeDescriptor(exactDescriptor);
+		assertEquals(1, matchTree.getDescriptorCount());
+		List<DataParcelTypeDescriptor> matches = matchTree.findMatchingDescriptors(exactDescriptor);
+		assertEquals(1, matches.size());
+		assertEquals(wildcardDescriptor, matches.get(0));
+
+		// removing an unknown descriptor changes nothing
+		matchTree.removeDescriptor(newDescriptor("FHIRFactory", "Other", "Petasos", "Communication", null, null, null, null));
+		assertEquals(1, matchTree.getDescriptorCount());
+
+		matchTree.removeDescriptor(wildcardDescriptor);
+		assertEquals(0, matchTree.getDescriptorCount());
+		assertTrue(matchTree.isEmpty());
+		assertTrue(matchTree.findMatchingDescriptors(exactDescriptor).isEmpty());
+	}
+
+	@Test
+	void testMatchesAgreeWithTheLinearScan() {
+		LOG.info(".testMatchesAgreeWithTheLinearScan(): Entry");
+		Random random = new Random(20210118L);
+		List<DataParcelTypeDescriptor> subscribedDescriptors = new ArrayList<>();
+		for (int counter = 0; counter < 500; counter++) {
+			DataParcelTypeDescriptor descriptor = newRandomDescriptor(random, FIELD_VALUES);
+			subscribedDescriptors.add(descriptor);
+			matchTree.addDescriptor(descriptor);
+		}
+		// published descriptors carry no wildcards
+		String[] publishedValues = {"A", "B", null};
+		for (int counter = 0; counter < 500; counter++) {
+			DataParcelTypeDescriptor testDescriptor = newRandomDescriptor(random, publishedValues);
+			Set<DataParcelTypeDescriptor> expectedMatches = new HashSet<>();
+			for (DataParcelTypeDescriptor subscribedDescriptor : subscribedDescriptors) {
+				if (linearMatch(testDescriptor, subscribedDescriptor)) {
+					expectedMatches.add(subscribedDescriptor);
+				}
+			}
+			List<DataParcelTypeDescriptor> treeMatches = matchTree.findMatchingDescriptors(testDescriptor);
+			assertEquals(expectedMatches, new HashSet<>(treeMatches), "Mismatch for " + testDescriptor);
+			assertEquals(expectedMatches.size(), treeMatches.size(), "Duplicate matches for " + testDescriptor);
+		}
+	}
+
+	static DataParcelTypeDescriptor newRandomDescriptor(Random random, String[] fieldValues) {
+		String[] descriptorFields = new String[8];
+		for (int level = 0; level < descriptorFields.length; level++) {
+			descriptorFields[level] = fieldValues[random.nextInt(fieldValues.length)];
+		}
+		return (newDescriptor(descriptorFields));
+	}
+}
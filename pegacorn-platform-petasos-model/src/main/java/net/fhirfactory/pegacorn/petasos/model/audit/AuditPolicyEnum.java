@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.model.audit;
+
+/**
+ * The (per WUP) policy for auditing the lifecycle of the ResilienceParcels:
+ * <ul>
+ *     <li>FULL - every lifecycle transition is audited</li>
+ *     <li>SUMMARY - only the end of the lifecycle (finalisation, cancellation or failure) is audited</li>
+ *     <li>SAMPLED - every lifecycle transition of 1 in N Parcels is audited, failures are always audited</li>
+ *     <li>OFF - nothing is audited</li>
+ * </ul>
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public enum AuditPolicyEnum {
+    AUDIT_POLICY_FULL("pegacorn.platform.petasos.audit_policy.full"),
+    AUDIT_POLICY_SUMMARY("pegacorn.platform.petasos.audit_policy.summary"),
+    AUDIT_POLICY_SAMPLED("pegacorn.platform.petasos.audit_policy.sampled"),
+    AUDIT_POLICY_OFF("pegacorn.platform.petasos.audit_policy.off");
+
+    private static final String AUDIT_POLICY_PREFIX = "pegacorn.platform.petasos.audit_policy.";
+
+    private String auditPolicy;
+
+    private AuditPolicyEnum(String auditPolicy){
+        this.auditPolicy = auditPolicy;
+    }
+
+    public String getAuditPolicy(){
+        return(this.auditPolicy);
+    }
+
+    /**
+     * @param auditPolicy Either the full audit policy (e.g. "pegacorn.platform.petasos.audit_policy.sampled") or just
+     *                    its last part (e.g. "sampled")
+     * @return The matching AuditPolicyEnum
+     */
+    public static AuditPolicyEnum fromAuditPolicy(String auditPolicy){
+        if(auditPolicy == null){
+            throw(new IllegalArgumentException(".fromAuditPolicy(): auditPolicy is null"));
+        }
+        String trimmedAuditPolicy = auditPolicy.trim();
+        for(AuditPolicyEnum policy: values()){
+            if(policy.getAuditPolicy().equalsIgnoreCase(trimmedAuditPolicy) || policy.getAuditPolicy().equalsIgnoreCase(AUDIT_POLICY_PREFIX + trimmedAuditPolicy)){
+                return(policy);
+            }
+        }
+        throw(new IllegalArgumentException(".fromAuditPolicy(): unknown auditPolicy->" + auditPolicy));
+    }
+}
@@ -23,7 +23,28 @@ package net.fhirfactory.pegacorn.petasos.model.audit;
 
 import org.hl7.fhir.r4.model.AuditEvent;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface PetasosAuditWriterInterface {
     public AuditEvent logAuditEventAsynchronously(AuditEvent auditEvent);
     public AuditEvent logAuditEventSynchronously(AuditEvent auditEvent);
+
+    /**
+     * Write a batch of AuditEvents (asynchronously). Writers that can submit a batch in a single call (e.g. as a
+     * FHIR transaction Bundle) should override this, the default simply writes each AuditEvent in turn.
+     *
+     * @param auditEventBatch The AuditEvents to be written
+     * @return The (written) AuditEvents
+     */
+    default public List<AuditEvent> logAuditEventBatchAsynchronously(List<AuditEvent> auditEventBatch){
+        List<AuditEvent> resultList = new ArrayList<>();
+        if(auditEventBatch == null){
+            return(resultList);
+        }
+        for(AuditEvent auditEvent: auditEventBatch){
+            resultList.add(logAuditEventAsynchronously(auditEvent));
+        }
+        return(resultList);
+    }
 }
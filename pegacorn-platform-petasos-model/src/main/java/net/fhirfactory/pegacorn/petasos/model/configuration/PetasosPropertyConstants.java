@@ -50,6 +50,40 @@ public final class PetasosPropertyConstants {
     // directory
     public final static long CACHE_SIZE_IN_BYTES = 1000000000;
     
+    // The (local) ProcessingPlantParcelCacheDM is weighted by the (estimated) in-heap bytes of each Parcel's UoW
+    // payloads plus a fixed per-entry overhead. Once CACHE_SIZE_IN_BYTES is exceeded, finalised Parcels are evicted
+    // (or, if spilling is enabled, have their payloads written to the overflow directory) until the cache is back
+    // under the low water mark (a percentage of the budget). The eviction policy is "oldest-finalised-first",
+    // "largest-finalised-first" or the class name of a ParcelCacheEvictionPolicyInterface implementation.
+    public final static long PARCEL_CACHE_ENTRY_OVERHEAD_BYTES = 1024;
+    public final static int PARCEL_CACHE_LOW_WATER_MARK_PERCENT = 90;
+
+    public final static String PARCEL_CACHE_SIZE_IN_BYTES_PROPERTY_NAME = "petasos.parcel.cache.size.in.bytes";
+    public final static String PARCEL_CACHE_EVICTION_POLICY_PROPERTY_NAME = "petasos.parcel.cache.eviction.policy";
+    public final static String PARCEL_CACHE_SPILL_ENABLED_PROPERTY_NAME = "petasos.parcel.cache.spill.enabled";
+    public final static String PARCEL_CACHE_OVERFLOW_DIRECTORY_PROPERTY_NAME = "petasos.parcel.cache.overflow.directory";
+
+    // The spilled payloads are appended to a sequence of segment files, a new segment being started once the current
+    // one reaches the segment size. A (full) segment is deleted once none of its records are referenced, and compacted
+    // (its live records copied into the current segment) once less than the given percentage of it is still live.
+    public final static long PARCEL_CACHE_SPILL_SEGMENT_SIZE_IN_BYTES = 67108864;
+    public final static int PARCEL_CACHE_SPILL_COMPACTION_LIVE_PERCENT = 50;
+
+    public final static String PARCEL_CACHE_SPILL_SEGMENT_SIZE_IN_BYTES_PROPERTY_NAME = "petasos.parcel.cache.spill.segment.size.in.bytes";
+    public final static String PARCEL_CACHE_SPILL_COMPACTION_LIVE_PERCENT_PROPERTY_NAME = "petasos.parcel.cache.spill.compaction.live.percent";
+
+    // UoW payloads (in the ProcessingPlantParcelCacheDM) of at least the threshold length (in characters) are moved
+    // off-heap as UTF-8 into a (pooled, reference counted) UoWPayloadBufferArena, a threshold of 0 disables this. The
+    // arena keeps at most the maximum pooled bytes of released buffers for reuse. Once the arena's buffers in use
+    // reach the off-heap maximum, further payloads are left on-heap (and so count towards CACHE_SIZE_IN_BYTES).
+    public final static int UOW_PAYLOAD_OFF_HEAP_THRESHOLD = 65536;
+    public final static long UOW_PAYLOAD_ARENA_MAXIMUM_POOLED_BYTES = 268435456;
+    public final static long UOW_PAYLOAD_OFF_HEAP_MAXIMUM_BYTES = 1073741824;
+
+    public final static String UOW_PAYLOAD_OFF_HEAP_THRESHOLD_PROPERTY_NAME = "petasos.uow.payload.offheap.threshold";
+    public final static String UOW_PAYLOAD_ARENA_MAXIMUM_POOLED_BYTES_PROPERTY_NAME = "petasos.uow.payload.arena.maximum.pooled.bytes";
+    public final static String UOW_PAYLOAD_OFF_HEAP_MAXIMUM_BYTES_PROPERTY_NAME = "petasos.uow.payload.offheap.maximum.bytes";
+
     // How long should completed content be kept within the caches?
     public final static long CACHE_ENTRY_RETENTION_PERIOD_SECONDS = 60;
     
@@ -59,6 +93,73 @@ public final class PetasosPropertyConstants {
     // How long should a WUP sleep between scans for activity?
     public final static long WUP_SLEEP_INTERVAL_MILLISECONDS = 250;
 
+    // How long should a WUP wait for an execution grant signal before re-synchronising its JobCard anyway?
+    public final static long WUP_EXECUTION_GRANT_WAIT_TIMEOUT_MILLISECONDS = 5000;
+
+    // How often should the ResilienceWatchDog sweep the caches for expired (finalised) content?
+    public final static long RESILIENCE_WATCHDOG_TICK_MILLISECONDS = 1000;
+
+    // How many distinct DataParcelManifest "shapes" should the subscription routing cache hold (least recently used first out)?
+    public final static int SUBSCRIPTION_ROUTING_CACHE_MAX_ENTRIES = 1024;
+
+    // Which WUP Archetypes (a comma separated list of WUPArchetypeEnum names) should have their WUP Container built
+    // as a single (fused) route rather than as the standard chain of direct: linked routes?
+    public final static String WUP_CONTAINER_FUSED_ARCHETYPES_PROPERTY_NAME = "petasos.wup.container.fused.archetypes";
+
+    // How the Interchange fans a packet out to its subscribers (see InterchangeFanOutDispatcher): "sequential" (one
+    // subscriber after the other, on the Interchange route's thread) or "parallel" (an ordered dispatch queue per
+    // subscriber, drained by a bounded pool), the pool size, and how many packets may be pending per subscriber
+    // before the Interchange waits
+    public final static int INTERCHANGE_FANOUT_POOL_SIZE = 8;
+    public final static int INTERCHANGE_FANOUT_MAXIMUM_PENDING_PER_SUBSCRIBER = 1000;
+
+    public final static String INTERCHANGE_FANOUT_MODE_PROPERTY_NAME = "petasos.interchange.fanout.mode";
+    public final static String INTERCHANGE_FANOUT_POOL_SIZE_PROPERTY_NAME = "petasos.interchange.fanout.pool.size";
+    public final static String INTERCHANGE_FANOUT_MAXIMUM_PENDING_PER_SUBSCRIBER_PROPERTY_NAME = "petasos.interchange.fanout.maximum.pending.per.subscriber";
+
+    // Whether the Interchange's (streaming) egress splitter routes the egress UoWs of a WUP concurrently
+    public final static String INTERCHANGE_SPLITTER_PARALLEL_PROPERTY_NAME = "petasos.interchange.splitter.parallel";
+
+    // The (processing plant wide) default SEDA options for the WUP Container ingres queues, each can be overridden
+    // per WUP (see GenericMessageBasedWUPTemplate.specifyIngresQueueConfiguration()). Unset options use the Camel defaults.
+    public final static String WUP_INGRES_QUEUE_CONCURRENT_CONSUMERS_PROPERTY_NAME = "petasos.wup.ingres.queue.concurrent.consumers";
+    public final static String WUP_INGRES_QUEUE_SIZE_PROPERTY_NAME = "petasos.wup.ingres.queue.size";
+    public final static String WUP_INGRES_QUEUE_BLOCK_WHEN_FULL_PROPERTY_NAME = "petasos.wup.ingres.queue.block.when.full";
+    public final static String WUP_INGRES_QUEUE_OFFER_TIMEOUT_MILLISECONDS_PROPERTY_NAME = "petasos.wup.ingres.queue.offer.timeout.milliseconds";
+    public final static String WUP_INGRES_QUEUE_MULTIPLE_CONSUMERS_PROPERTY_NAME = "petasos.wup.ingres.queue.multiple.consumers";
+
+    // The asynchronous ResilienceParcel audit pipeline (see ResilienceParcelAuditPipeline): the ring buffer capacity, the
+    // number of (transform/write) workers, the window within which lifecycle transitions of the same Parcel are
+    // coalesced into a single AuditEvent, the maximum AuditEvents per flush, and how long a "block" offer will wait
+    public final static int AUDIT_PIPELINE_RING_BUFFER_SIZE = 10000;
+    public final static int AUDIT_PIPELINE_WORKER_COUNT = 2;
+    public final static long AUDIT_PIPELINE_COALESCE_WINDOW_MILLISECONDS = 500;
+    public final static int AUDIT_PIPELINE_BATCH_SIZE = 100;
+    public final static long AUDIT_PIPELINE_OFFER_TIMEOUT_MILLISECONDS = 1000;
+
+    public final static String AUDIT_PIPELINE_ENABLED_PROPERTY_NAME = "petasos.audit.pipeline.enabled";
+    public final static String AUDIT_PIPELINE_RING_BUFFER_SIZE_PROPERTY_NAME = "petasos.audit.pipeline.ring.buffer.size";
+    public final static String AUDIT_PIPELINE_WORKER_COUNT_PROPERTY_NAME = "petasos.audit.pipeline.worker.count";
+    public final static String AUDIT_PIPELINE_COALESCE_WINDOW_MILLISECONDS_PROPERTY_NAME = "petasos.audit.pipeline.coalesce.window.milliseconds";
+    public final static String AUDIT_PIPELINE_BATCH_SIZE_PROPERTY_NAME = "petasos.audit.pipeline.batch.size";
+    public final static String AUDIT_PIPELINE_OVERFLOW_POLICY_PROPERTY_NAME = "petasos.audit.pipeline.overflow.policy";
+    public final static String AUDIT_PIPELINE_OFFER_TIMEOUT_MILLISECONDS_PROPERTY_NAME = "petasos.audit.pipeline.offer.timeout.milliseconds";
+
+    // How UoW payloads are recorded in the (Parcel and UoW) audit content: "inline" (capped at the maximum inline
+    // length, in characters) or "digest" (a SHA-256 digest and the length only)
+    public final static int AUDIT_PAYLOAD_MAXIMUM_INLINE_LENGTH = 16384;
+
+    public final static String AUDIT_PAYLOAD_MODE_PROPERTY_NAME = "petasos.audit.payload.mode";
+    public final static String AUDIT_PAYLOAD_MAXIMUM_INLINE_LENGTH_PROPERTY_NAME = "petasos.audit.payload.maximum.inline.length";
+
+    // The (per WUP) audit policy (see AuditPolicyEnum and WUPAuditPolicyRegistry): the processing plant default, the
+    // 1 in N rate for "sampled" WUPs, and a comma separated list of per-WUP overrides ("wupName=policy,...")
+    public final static int AUDIT_POLICY_SAMPLE_RATE = 100;
+
+    public final static String AUDIT_POLICY_DEFAULT_PROPERTY_NAME = "petasos.audit.policy.default";
+    public final static String AUDIT_POLICY_SAMPLE_RATE_PROPERTY_NAME = "petasos.audit.policy.sample.rate";
+    public final static String AUDIT_POLICY_WUP_OVERRIDES_PROPERTY_NAME = "petasos.audit.policy.wup.overrides";
+
     public final static String WUP_TOPOLOGY_NODE_EXCHANGE_PROPERTY_NAME = "WUPTopologyNode";
     public final static String WUP_JOB_CARD_EXCHANGE_PROPERTY_NAME = "WUPJobCard";
     public final static String WUP_PETASOS_PARCEL_STATUS_EXCHANGE_PROPERTY_NAME = "WUPPetasosParcel";
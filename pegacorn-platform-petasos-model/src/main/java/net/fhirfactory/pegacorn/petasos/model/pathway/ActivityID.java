@@ -26,37 +26,28 @@ import java.time.Instant;
 import java.util.Date;
 
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFunctionFDNToken;
-import net.fhirfactory.pegacorn.internals.SerializableObject;
 import net.fhirfactory.pegacorn.petasos.model.resilience.episode.PetasosEpisodeIdentifier;
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPIdentifier;
 
 /**
+ * Each attribute is a single volatile field, so the ActivityID (which is carried by every Parcel, JobCard and
+ * Transport Packet) needs no lock objects of its own.
  *
  * @author Mark A. Hunter
  */
 public class ActivityID implements Serializable {
 
-    private ResilienceParcelIdentifier previousParcelIdentifier;
-    private SerializableObject previousParcelIdentifierLock;
-    private PetasosEpisodeIdentifier previousEpisodeIdentifier;
-    private SerializableObject previousEpisodeIdentifierLock;
-    private ResilienceParcelIdentifier presentParcelIdentifier;
-    private SerializableObject presentParcelIdenifierLock;
-    private PetasosEpisodeIdentifier presentEpisodeIdentifier;
-    private SerializableObject presentEpisodeIdentifierLock;
-    private WUPIdentifier previousWUPIdentifier;
-    private SerializableObject previousWUPIdentifierLock;
-    private TopologyNodeFunctionFDNToken previousWUPFunctionToken;
-    private SerializableObject previousWUPFunctionTokenLock;
-    private WUPIdentifier presentWUPIdentifier;
-    private SerializableObject presentWUPIdentifierLock;
-    private TopologyNodeFunctionFDNToken presentWUPFunctionToken;
-    private SerializableObject presentWUPFunctionTokenLock;
-    private Date creationDate;
-    private SerializableObject creationDateLock;
-    private boolean resilientActivity;
-    private SerializableObject resilientActivityLock;
+    private volatile ResilienceParcelIdentifier previousParcelIdentifier;
+    private volatile PetasosEpisodeIdentifier previousEpisodeIdentifier;
+    private volatile ResilienceParcelIdentifier presentParcelIdentifier;
+    private volatile PetasosEpisodeIdentifier presentEpisodeIdentifier;
+    private volatile WUPIdentifier previousWUPIdentifier;
+    private volatile TopologyNodeFunctionFDNToken previousWUPFunctionToken;
+    private volatile WUPIdentifier presentWUPIdentifier;
+    private volatile TopologyNodeFunctionFDNToken presentWUPFunctionToken;
+    private volatile Date creationDate;
+    private volatile boolean resilientActivity;
 
     public ActivityID(ResilienceParcelIdentifier previousParcelInstanceID, ResilienceParcelIdentifier presentParcelInstanceID, WUPIdentifier previousWUPInstanceID, WUPIdentifier presentWUPInstanceID, Date creationDate) {
         // Clear the deck
@@ -70,16 +61,6 @@ public class ActivityID implements Serializable {
         this.presentWUPFunctionToken = null;
         this.creationDate = null;
 
-        this.creationDateLock = new SerializableObject();
-        this.presentParcelIdenifierLock = new SerializableObject();
-        this.presentEpisodeIdentifierLock = new SerializableObject();
-        this.presentWUPFunctionTokenLock = new SerializableObject();
-        this.presentWUPIdentifierLock = new SerializableObject();
-        this.previousParcelIdentifierLock = new SerializableObject();
-        this.previousEpisodeIdentifierLock = new SerializableObject();
-        this.previousWUPFunctionTokenLock = new SerializableObject();
-        this.previousWUPIdentifierLock = new SerializableObject();
-        this.resilientActivityLock = new SerializableObject();
         // Set Values
         this.previousParcelIdentifier = previousParcelInstanceID;
         this.presentParcelIdentifier = presentParcelInstanceID;
@@ -99,16 +80,6 @@ public class ActivityID implements Serializable {
         this.presentWUPIdentifier = null;
         this.presentWUPFunctionToken = null;
         this.creationDate = null;
-        this.creationDateLock = new SerializableObject();
-        this.presentParcelIdenifierLock = new SerializableObject();
-        this.presentEpisodeIdentifierLock = new SerializableObject();
-        this.presentWUPFunctionTokenLock = new SerializableObject();
-        this.presentWUPIdentifierLock = new SerializableObject();
-        this.previousParcelIdentifierLock = new SerializableObject();
-        this.previousEpisodeIdentifierLock = new SerializableObject();
-        this.previousWUPFunctionTokenLock = new SerializableObject();
-        this.previousWUPIdentifierLock = new SerializableObject();
-        this.resilientActivityLock = new SerializableObject();
         // Set Values
         this.previousParcelIdentifier = previousParcelInstanceID;
         this.presentParcelIdentifier = presentParcelInstanceID;
@@ -128,17 +99,7 @@ public class ActivityID implements Serializable {
         this.presentWUPIdentifier = null;
         this.presentWUPFunctionToken = null;
         this.creationDate = Date.from(Instant.now());
-        this.creationDateLock = new SerializableObject();
         this.resilientActivity = false;
-        this.presentParcelIdenifierLock = new SerializableObject();
-        this.presentEpisodeIdentifierLock = new SerializableObject();
-        this.presentWUPFunctionTokenLock = new SerializableObject();
-        this.presentWUPIdentifierLock = new SerializableObject();
-        this.previousParcelIdentifierLock = new SerializableObject();
-        this.previousEpisodeIdentifierLock = new SerializableObject();
-        this.previousWUPFunctionTokenLock = new SerializableObject();
-        this.previousWUPIdentifierLock = new SerializableObject();
-        this.resilientActivityLock = new SerializableObject();
     }
 
     public ActivityID(ActivityID originalRecord) {
@@ -151,16 +112,6 @@ public class ActivityID implements Serializable {
         this.presentWUPIdentifier = null;
         this.presentWUPFunctionToken = null;
         this.creationDate = null;
-        this.creationDateLock = new SerializableObject();
-        this.presentParcelIdenifierLock = new SerializableObject();
-        this.presentEpisodeIdentifierLock = new SerializableObject();
-        this.presentWUPFunctionTokenLock = new SerializableObject();
-        this.presentWUPIdentifierLock = new SerializableObject();
-        this.previousParcelIdentifierLock = new SerializableObject();
-        this.previousEpisodeIdentifierLock = new SerializableObject();
-        this.previousWUPFunctionTokenLock = new SerializableObject();
-        this.previousWUPIdentifierLock = new SerializableObject();
-        this.resilientActivityLock = new SerializableObject();
         // Set Values
         if (originalRecord.hasCreationDate()) {
             this.creationDate = originalRecord.getCreationDate();
@@ -184,10 +135,10 @@ public class ActivityID implements Serializable {
             this.previousEpisodeIdentifier = new PetasosEpisodeIdentifier(originalRecord.getPreviousEpisodeIdentifier());
         }
         if (originalRecord.hasPreviousWUPIdentifier()) {
-            this.previousWUPIdentifier = new WUPIdentifier(originalRecord.getPresentWUPIdentifier());
+            this.previousWUPIdentifier = new WUPIdentifier(originalRecord.getPreviousWUPIdentifier());
         }
         if (originalRecord.hasPreviousWUPFunctionToken()) {
-            this.previousWUPFunctionToken = new TopologyNodeFunctionFDNToken(originalRecord.getPresentWUPFunctionToken());
+            this.previousWUPFunctionToken = new TopologyNodeFunctionFDNToken(originalRecord.getPreviousWUPFunctionToken());
         }
         this.resilientActivity = originalRecord.isResilientActivity();
     }
@@ -205,9 +156,7 @@ public class ActivityID implements Serializable {
     }
 
     public void setPreviousParcelIdentifier(ResilienceParcelIdentifier previousParcelID) {
-        synchronized (previousParcelIdentifierLock) {
-            this.previousParcelIdentifier = previousParcelID;
-        }
+        this.previousParcelIdentifier = previousParcelID;
     }
 
     public boolean hasPresentParcelIdentifier() {
@@ -223,9 +172,7 @@ public class ActivityID implements Serializable {
     }
 
     public void setPresentParcelIdentifier(ResilienceParcelIdentifier presentParcelID) {
-        synchronized (presentParcelIdenifierLock) {
-            this.presentParcelIdentifier = presentParcelID;
-        }
+        this.presentParcelIdentifier = presentParcelID;
     }
 
     public boolean hasPreviousWUPIdentifier() {
@@ -241,9 +188,7 @@ public class ActivityID implements Serializable {
     }
 
     public void setPreviousWUPIdentifier(WUPIdentifier previousWUPID) {
-        synchronized (previousWUPIdentifierLock) {
-            this.previousWUPIdentifier = previousWUPID;
-        }
+        this.previousWUPIdentifier = previousWUPID;
     }
 
     public boolean hasPresentWUPIdentifier() {
@@ -259,9 +204,7 @@ public class ActivityID implements Serializable {
     }
 
     public void setPresentWUPIdentifier(WUPIdentifier presentWUPID) {
-        synchronized (presentWUPIdentifierLock) {
-            this.presentWUPIdentifier = presentWUPID;
-        }
+        this.presentWUPIdentifier = presentWUPID;
     }
 
     public boolean hasCreationDate() {
@@ -277,9 +220,7 @@ public class ActivityID implements Serializable {
     }
 
     public void setCreationDate(Date creationDate) {
-        synchronized (creationDateLock) {
-            this.creationDate = creationDate;
-        }
+        this.creationDate = creationDate;
     }
 
     public boolean hasPreviousEpisodeIdentifier() {
@@ -295,9 +236,7 @@ public class ActivityID implements Serializable {
     }
 
     public void setPreviousEpisodeIdentifier(PetasosEpisodeIdentifier previousWUAEpisodeID) {
-        synchronized (previousEpisodeIdentifierLock) {
-            this.previousEpisodeIdentifier = previousWUAEpisodeID;
-        }
+        this.previousEpisodeIdentifier = previousWUAEpisodeID;
     }
 
     public boolean hasPresentEpisodeIdentifier() {
@@ -313,9 +252,7 @@ public class ActivityID implements Serializable {
     }
 
     public void setPresentEpisodeIdentifier(PetasosEpisodeIdentifier presentWUAEpisodeID) {
-        synchronized (presentEpisodeIdentifierLock) {
-            this.presentEpisodeIdentifier = presentWUAEpisodeID;
-        }
+        this.presentEpisodeIdentifier = presentWUAEpisodeID;
     }
 
     public boolean hasPreviousWUPFunctionToken() {
@@ -331,9 +268,7 @@ public class ActivityID implements Serializable {
     }
 
     public void setPreviousWUPFunctionToken(TopologyNodeFunctionFDNToken previousWUPFunctionToken) {
-        synchronized (previousWUPFunctionTokenLock) {
-            this.previousWUPFunctionToken = previousWUPFunctionToken;
-        }
+        this.previousWUPFunctionToken = previousWUPFunctionToken;
     }
 
     public boolean hasPresentWUPFunctionToken() {
@@ -349,9 +284,7 @@ public class ActivityID implements Serializable {
     }
 
     public void setPresentWUPFunctionToken(TopologyNodeFunctionFDNToken presentWUPFunctionToken) {
-        synchronized (presentWUPFunctionTokenLock) {
-            this.presentWUPFunctionToken = presentWUPFunctionToken;
-        }
+        this.presentWUPFunctionToken = presentWUPFunctionToken;
     }
 
     public boolean isResilientActivity() {
@@ -23,7 +23,6 @@
 package net.fhirfactory.pegacorn.petasos.model.pathway;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import net.fhirfactory.pegacorn.internals.SerializableObject;
 import net.fhirfactory.pegacorn.petasos.model.resilience.activitymatrix.moa.ParcelStatusElement;
 import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
 
@@ -32,27 +31,23 @@ import java.util.Date;
 import java.util.Objects;
 
 import net.fhirfactory.pegacorn.petasos.model.wup.WUPJobCard;
-import org.apache.commons.lang3.SerializationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * The WorkUnitTransportPacket carries a UoW (and its JobCard and ParcelStatusElement) between the components of a
+ * WUP Container. Each attribute is a single volatile field and the String representation is built on demand (rather
+ * than on every set), so the packet carries no lock objects and no (potentially large) cached String of its own.
+ */
 public class WorkUnitTransportPacket implements Serializable {
     private static final Logger LOG = LoggerFactory.getLogger(WorkUnitTransportPacket.class);
 
-    private ActivityID packetID;
-    private SerializableObject packetIDLock;
-    private Date senderSendDate;
-    private SerializableObject senderSendDateLock;
-    private boolean isARetry;
-    private SerializableObject isARetryLock;
-    private WUPJobCard currentJobCard;
-    private SerializableObject currentJobCardLock;
-    private ParcelStatusElement currentParcelStatus;
-    private SerializableObject currentParcelStatusLock;
-    private UoW payload;
-    private SerializableObject payloadLock;
-    private String generatedString;
-    private SerializableObject generatedStringLock;
+    private volatile ActivityID packetID;
+    private volatile Date senderSendDate;
+    private volatile boolean isARetry;
+    private volatile WUPJobCard currentJobCard;
+    private volatile ParcelStatusElement currentParcelStatus;
+    private volatile UoW payload;
     
     public WorkUnitTransportPacket(ActivityID newPacketID, Date senderSendDate, UoW payload) {
         this.senderSendDate = senderSendDate;
@@ -61,15 +56,6 @@ public class WorkUnitTransportPacket implements Serializable {
         this.isARetry = false;
         this.currentJobCard = null;
         this.currentParcelStatus = null;
-        this.generatedString = null;
-        this.senderSendDateLock = new SerializableObject();
-        this.payloadLock = new SerializableObject();
-        this.isARetryLock = new SerializableObject();
-        this.currentJobCardLock = new SerializableObject();
-        this.currentParcelStatusLock = new SerializableObject();
-        this.generatedStringLock = new SerializableObject();
-        this.packetIDLock = new SerializableObject();
-        generateString();
     }
 
     public WorkUnitTransportPacket(WorkUnitTransportPacket originalPacket) {
@@ -79,14 +65,6 @@ public class WorkUnitTransportPacket implements Serializable {
         this.isARetry = false;
         this.currentJobCard = null;
         this.currentParcelStatus = null;
-        this.generatedString = null;
-        this.senderSendDateLock = new SerializableObject();
-        this.payloadLock = new SerializableObject();
-        this.isARetryLock = new SerializableObject();
-        this.currentJobCardLock = new SerializableObject();
-        this.currentParcelStatusLock = new SerializableObject();
-        this.generatedStringLock = new SerializableObject();
-        this.packetIDLock = new SerializableObject();
         // Assign values if available
         if(originalPacket.hasPacketID()) {
             this.packetID = originalPacket.getPacketID();
@@ -104,7 +82,6 @@ public class WorkUnitTransportPacket implements Serializable {
         if(originalPacket.hasPayload()) {
             this.payload = originalPacket.getPayload();
         }
-        generateString();
     }
 
     public boolean hasIsARetry(){
@@ -116,10 +93,7 @@ public class WorkUnitTransportPacket implements Serializable {
     }
 
     public void setRetryCount(boolean retry) {
-        synchronized (isARetryLock) {
-            this.isARetry = retry;
-            generateString();
-        }
+        this.isARetry = retry;
     }
     
     // CurrentJobCard helper/bean methods
@@ -137,10 +111,7 @@ public class WorkUnitTransportPacket implements Serializable {
     }
 
     public void setCurrentJobCard(WUPJobCard currentJobCard) {
-        synchronized (currentJobCardLock) {
-            this.currentJobCard = currentJobCard;
-            generateString();
-        }
+        this.currentJobCard = currentJobCard;
     }
 
     // CurrentParcelStatus helper/bean methods
@@ -158,10 +129,7 @@ public class WorkUnitTransportPacket implements Serializable {
     }
 
     public void setCurrentParcelStatus(ParcelStatusElement currentParcelStatus) {
-        synchronized (currentParcelStatusLock) {
-            this.currentParcelStatus = currentParcelStatus;
-            generateString();
-        }
+        this.currentParcelStatus = currentParcelStatus;
     }
 
     // SenderSendDate helper/bean methods
@@ -178,10 +146,7 @@ public class WorkUnitTransportPacket implements Serializable {
     }
 
     public void setSenderSendDate(Date senderSendDate) {
-        synchronized (senderSendDateLock) {
-            this.senderSendDate = senderSendDate;
-            generateString();
-        }
+        this.senderSendDate = senderSendDate;
     }
 
     // PacketID helper/bean methods
@@ -199,10 +164,7 @@ public class WorkUnitTransportPacket implements Serializable {
     }
 
     public void setPacketID(ActivityID newPacketID){
-        synchronized(packetIDLock){
-            this.packetID = newPacketID;
-            this.generateString();
-        }
+        this.packetID = newPacketID;
     }
 
     // Payload helper/bean methods
@@ -220,15 +182,13 @@ public class WorkUnitTransportPacket implements Serializable {
     }
 
     public void setPayload(UoW payload) {
-        synchronized (payloadLock) {
-            this.payload = payload;
-            generateString();
-        }
+        this.payload = payload;
     }
 
     // toString method(s)
 
-    private void generateString(){
+    @Override
+    public String toString(){
         String packetIDString;
         String currentJobCardString;
         String currentParcelStatusString;
@@ -255,24 +215,20 @@ public class WorkUnitTransportPacket implements Serializable {
         } else {
             senderSendDateString = "(senderSendDate:null)";
         }
-        if(hasCurrentParcelStatus()){
+        if(hasCurrentJobCard()){
             currentJobCardString = "(currentJobCard:" + this.currentJobCard + ")";
         } else {
             currentJobCardString = "(currentJobCard:null)";
         }
         isARetryString = "(isARetry:" + this.isARetry + ")";
-        this.generatedString = "WorkUnitTransportPacket={"
+        String generatedString = "WorkUnitTransportPacket={"
                 + packetIDString + ","
                 + senderSendDateString + ","
                 + currentJobCardString + ","
                 + currentParcelStatusString + ","
                 + payloadString + ","
                 + isARetryString + "}";
-    }
-
-    @Override
-    public String toString(){
-        return(this.generatedString);
+        return(generatedString);
     }
 
     @Override
@@ -293,9 +249,32 @@ public class WorkUnitTransportPacket implements Serializable {
         return Objects.hash(getPacketID(), getSenderSendDate(), isARetry, getCurrentJobCard(), getCurrentParcelStatus(), getPayload());
     }
 
+    /**
+     * Create a structural copy of this packet, suitable for handing to a (separate) subscriber. All the
+     * mutable elements (the ActivityID, JobCard, ParcelStatusElement and the UoW itself) are copied, whereas
+     * the immutable content (String payloads and identifier tokens) is shared with the original.
+     *
+     * @return A copy of this WorkUnitTransportPacket
+     */
     public WorkUnitTransportPacket deepClone(){
-        WorkUnitTransportPacket newPacket = (WorkUnitTransportPacket) SerializationUtils.clone(this);
-        newPacket.generateString();
+        WorkUnitTransportPacket newPacket = new WorkUnitTransportPacket();
+        if(hasPacketID()){
+            newPacket.packetID = new ActivityID(this.packetID);
+        }
+        if(hasSenderSendDate()){
+            newPacket.senderSendDate = new Date(this.senderSendDate.getTime());
+        }
+        newPacket.isARetry = this.isARetry;
+        if(hasCurrentJobCard()){
+            newPacket.currentJobCard = new WUPJobCard(this.currentJobCard);
+            newPacket.currentJobCard.setIsToBeDiscarded(this.currentJobCard.getIsToBeDiscarded());
+        }
+        if(hasCurrentParcelStatus()){
+            newPacket.currentParcelStatus = new ParcelStatusElement(this.currentParcelStatus);
+        }
+        if(hasPayload()){
+            newPacket.payload = new UoW(this.payload);
+        }
         return(newPacket);
     }
 
@@ -306,13 +285,5 @@ public class WorkUnitTransportPacket implements Serializable {
         this.isARetry = false;
         this.currentJobCard = null;
         this.currentParcelStatus = null;
-        this.generatedString = null;
-        this.senderSendDateLock = new SerializableObject();
-        this.payloadLock = new SerializableObject();
-        this.isARetryLock = new SerializableObject();
-        this.currentJobCardLock = new SerializableObject();
-        this.currentParcelStatusLock = new SerializableObject();
-        this.generatedStringLock = new SerializableObject();
-        this.packetIDLock = new SerializableObject();
     }
 }
@@ -19,12 +19,10 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
  * SOFTWARE.
  */
-
 package net.fhirfactory.pegacorn.petasos.model.resilience.activitymatrix.moa;
 
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDNToken;
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFunctionFDNToken;
-import net.fhirfactory.pegacorn.internals.SerializableObject;
 import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelIdentifier;
 import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcelProcessingStatusEnum;
@@ -32,38 +30,54 @@ import net.fhirfactory.pegacorn.petasos.model.resilience.parcel.ResilienceParcel
 import java.io.Serializable;
 import java.time.Instant;
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
 
+/**
+ * The (WUA Activity Matrix) status of a single ResilienceParcel.
+ *
+ * The parcel status, the two focus flags and the entry date are packed into a single (volatile) state word, and every
+ * change to any of them is a compare-and-set on that word. So a status transition (along with its entry date) is
+ * atomic, concurrent WUP threads can't lose each other's updates, and a copy (or a reader) always sees a consistent
+ * status/focus/date combination - all without any locking. The remaining attributes are single volatile fields.
+ *
+ * State word layout (least significant bit first):
+ * - bits 0..47: the entry date (milliseconds since the epoch)
+ * - bits 48..55: the parcel status (ResilienceParcelProcessingStatusEnum ordinal + 1, 0 is "no status")
+ * - bit 56: has cluster focus
+ * - bit 57: has system wide focus
+ * - bit 58: has an entry date
+ */
 public class ParcelStatusElement implements Serializable {
 
-    private ActivityID activityID;
-    private SerializableObject activityIDLock;
-    private ResilienceParcelProcessingStatusEnum parcelStatus;
-    private SerializableObject parcelStatusLock;
-    private Integer retryCount;
-    private SerializableObject retryCountLock;
-    private Date entryDate;
-    private SerializableObject entryDateLock;
-    private boolean hasClusterFocus;
-    private SerializableObject hasClusterFocusLock;
-    private boolean hasSystemWideFocus;
-    private SerializableObject hasSystemWideFocusLock;
-    private boolean requiresRetry;
-    private SerializableObject requiresRetryLock;
+    private static final AtomicLongFieldUpdater<ParcelStatusElement> STATE_UPDATER = AtomicLongFieldUpdater.newUpdater(ParcelStatusElement.class, "state");
+    private static final ResilienceParcelProcessingStatusEnum[] PARCEL_STATUS_VALUES = ResilienceParcelProcessingStatusEnum.values();
+
+    private static final long ENTRY_DATE_MASK = (1L << 48) - 1;
+    private static final int PARCEL_STATUS_SHIFT = 48;
+    private static final long PARCEL_STATUS_MASK = 0xFFL << PARCEL_STATUS_SHIFT;
+    private static final long CLUSTER_FOCUS_BIT = 1L << 56;
+    private static final long SYSTEM_WIDE_FOCUS_BIT = 1L << 57;
+    private static final long HAS_ENTRY_DATE_BIT = 1L << 58;
+
+    private volatile ActivityID activityID;
+    private volatile long state;
+    private volatile Integer retryCount;
+    private volatile boolean requiresRetry;
 
     public ParcelStatusElement(ActivityID newID) {
         this.activityID = new ActivityID(newID);
-        this.entryDate = Date.from(Instant.now());
-        this.hasClusterFocus = false;
-        this.hasSystemWideFocus = false;
-        this.parcelStatus = null;
+        this.state = withEntryDate(0L, Date.from(Instant.now()));
         this.requiresRetry = false;
-        this.parcelStatusLock = new SerializableObject();
-        this.activityIDLock = new SerializableObject();
-        this.requiresRetryLock = new SerializableObject();
-        this.hasClusterFocusLock = new SerializableObject();
-        this.entryDateLock = new SerializableObject();
-        this.hasSystemWideFocusLock = new SerializableObject();
-        this.requiresRetryLock = new SerializableObject();
+    }
+
+    public ParcelStatusElement(ParcelStatusElement originalElement) {
+        if(originalElement == null){
+            throw(new IllegalArgumentException("originalElement (ParcelStatusElement) is null in Copy Constructor"));
+        }
+        this.activityID = new ActivityID(originalElement.getActivityID());
+        this.state = originalElement.state;
+        this.retryCount = originalElement.getRetryCount();
+        this.requiresRetry = originalElement.isRequiresRetry();
     }
 
     public ResilienceParcelIdentifier getParcelInstanceID() {
@@ -83,49 +97,104 @@ public class ParcelStatusElement implements Serializable {
     }
 
     public void setActivityID(ActivityID activityID) {
-        synchronized (activityIDLock) {
-            this.activityID = activityID;
-        }
+        this.activityID = activityID;
     }
 
     public Date getEntryDate() {
-        return entryDate;
+        long currentState = this.state;
+        if((currentState & HAS_ENTRY_DATE_BIT) == 0){
+            return(null);
+        }
+        return(new Date(currentState & ENTRY_DATE_MASK));
     }
 
     public void setEntryDate(Date entryDate) {
-        synchronized (entryDateLock) {
-            this.entryDate = entryDate;
-        }
+        long currentState;
+        do {
+            currentState = this.state;
+        } while(!STATE_UPDATER.compareAndSet(this, currentState, withEntryDate(currentState, entryDate)));
     }
 
     public boolean getHasClusterFocus() {
-        return(this.hasClusterFocus);
+        return((this.state & CLUSTER_FOCUS_BIT) != 0);
     }
 
     public void setHasClusterFocus(boolean hasFocus) {
-        synchronized (hasClusterFocusLock) {
-            this.hasClusterFocus = hasFocus;
-        }
+        setFlag(CLUSTER_FOCUS_BIT, hasFocus);
+    }
+
+    /**
+     * Atomically change the cluster focus of the element, but only if it currently has the expected value.
+     *
+     * @param expectedFocus The expected (current) cluster focus
+     * @param newFocus The new cluster focus
+     * @return True if the focus was changed, false if the current focus was not the expected focus
+     */
+    public boolean compareAndSetHasClusterFocus(boolean expectedFocus, boolean newFocus) {
+        return(compareAndSetFlag(CLUSTER_FOCUS_BIT, expectedFocus, newFocus));
     }
 
     public boolean getHasSystemWideFocus() {
-        return this.hasSystemWideFocus;
+        return((this.state & SYSTEM_WIDE_FOCUS_BIT) != 0);
     }
 
     public void setHasSystemWideFocus(boolean systemWideFocus) {
-        synchronized(hasSystemWideFocusLock) {
-            this.hasSystemWideFocus = systemWideFocus;
-        }
+        setFlag(SYSTEM_WIDE_FOCUS_BIT, systemWideFocus);
+    }
+
+    /**
+     * Atomically change the system wide focus of the element, but only if it currently has the expected value.
+     *
+     * @param expectedFocus The expected (current) system wide focus
+     * @param newFocus The new system wide focus
+     * @return True if the focus was changed, false if the current focus was not the expected focus
+     */
+    public boolean compareAndSetHasSystemWideFocus(boolean expectedFocus, boolean newFocus) {
+        return(compareAndSetFlag(SYSTEM_WIDE_FOCUS_BIT, expectedFocus, newFocus));
     }
 
     public ResilienceParcelProcessingStatusEnum getParcelStatus() {
-        return parcelStatus;
+        return(decodeParcelStatus(this.state));
     }
 
     public void setParcelStatus(ResilienceParcelProcessingStatusEnum parcelStatus) {
-        synchronized (parcelStatusLock) {
-            this.parcelStatus = parcelStatus;
-        }
+        long currentState;
+        do {
+            currentState = this.state;
+        } while(!STATE_UPDATER.compareAndSet(this, currentState, withParcelStatus(currentState, parcelStatus)));
+    }
+
+    /**
+     * Atomically set the status (and its entry date) of the element.
+     *
+     * @param newParcelStatus The new ResilienceParcel processing status
+     * @param newEntryDate The date the element entered the new status
+     */
+    public void updateParcelStatus(ResilienceParcelProcessingStatusEnum newParcelStatus, Date newEntryDate) {
+        long currentState;
+        do {
+            currentState = this.state;
+        } while(!STATE_UPDATER.compareAndSet(this, currentState, withEntryDate(withParcelStatus(currentState, newParcelStatus), newEntryDate)));
+    }
+
+    /**
+     * Atomically set the status (and its entry date) of the element, but only if its current status is the expected
+     * status - so that, of several concurrent WUP threads attempting the same transition, exactly one succeeds.
+     *
+     * @param expectedParcelStatus The expected (current) ResilienceParcel processing status
+     * @param newParcelStatus The new ResilienceParcel processing status
+     * @param newEntryDate The date the element entered the new status
+     * @return True if the status was changed, false if the current status was not the expected status
+     */
+    public boolean compareAndSetParcelStatus(ResilienceParcelProcessingStatusEnum expectedParcelStatus, ResilienceParcelProcessingStatusEnum newParcelStatus, Date newEntryDate) {
+        long currentState;
+        do {
+            currentState = this.state;
+            if(decodeParcelStatus(currentState) != expectedParcelStatus){
+                return(false);
+            }
+        } while(!STATE_UPDATER.compareAndSet(this, currentState, withEntryDate(withParcelStatus(currentState, newParcelStatus), newEntryDate)));
+        return(true);
     }
 
     public Integer getRetryCount() {
@@ -133,9 +202,7 @@ public class ParcelStatusElement implements Serializable {
     }
 
     public void setRetryCount(Integer retryCount) {
-        synchronized (retryCountLock) {
-            this.retryCount = retryCount;
-        }
+        this.retryCount = retryCount;
     }
 
     public boolean isRequiresRetry() {
@@ -143,8 +210,57 @@ public class ParcelStatusElement implements Serializable {
     }
 
     public void setRequiresRetry(boolean requiresRetry) {
-        synchronized (requiresRetryLock) {
-            this.requiresRetry = requiresRetry;
+        this.requiresRetry = requiresRetry;
+    }
+
+    //
+    // State Word Helpers
+    //
+
+    private void setFlag(long flagBit, boolean value) {
+        long currentState;
+        long newState;
+        do {
+            currentState = this.state;
+            newState = value ? (currentState | flagBit) : (currentState & ~flagBit);
+            if(newState == currentState){
+                return;
+            }
+        } while(!STATE_UPDATER.compareAndSet(this, currentState, newState));
+    }
+
+    private boolean compareAndSetFlag(long flagBit, boolean expectedValue, boolean newValue) {
+        long currentState;
+        do {
+            currentState = this.state;
+            if(((currentState & flagBit) != 0) != expectedValue){
+                return(false);
+            }
+            if(expectedValue == newValue){
+                return(true);
+            }
+        } while(!STATE_UPDATER.compareAndSet(this, currentState, newValue ? (currentState | flagBit) : (currentState & ~flagBit)));
+        return(true);
+    }
+
+    private static ResilienceParcelProcessingStatusEnum decodeParcelStatus(long currentState) {
+        int statusCode = (int)((currentState & PARCEL_STATUS_MASK) >>> PARCEL_STATUS_SHIFT);
+        if(statusCode == 0){
+            return(null);
+        }
+        return(PARCEL_STATUS_VALUES[statusCode - 1]);
+    }
+
+    private static long withParcelStatus(long currentState, ResilienceParcelProcessingStatusEnum parcelStatus) {
+        long statusCode = (parcelStatus == null) ? 0L : (parcelStatus.ordinal() + 1L);
+        return((currentState & ~PARCEL_STATUS_MASK) | (statusCode << PARCEL_STATUS_SHIFT));
+    }
+
+    private static long withEntryDate(long currentState, Date entryDate) {
+        long clearedState = currentState & ~(ENTRY_DATE_MASK | HAS_ENTRY_DATE_BIT);
+        if(entryDate == null){
+            return(clearedState);
         }
+        return(clearedState | HAS_ENTRY_DATE_BIT | (entryDate.getTime() & ENTRY_DATE_MASK));
     }
 }
@@ -37,7 +37,7 @@ import net.fhirfactory.pegacorn.common.model.generalid.RDN;
 public class PetasosEpisodeIdentifier extends FDNToken implements Serializable {
 	
     public PetasosEpisodeIdentifier(FDNToken originalToken) {
-        this.setContent(new String(originalToken.getContent()));
+        super(originalToken);
     }
 
     public PetasosEpisodeIdentifier(){
@@ -24,7 +24,6 @@ package net.fhirfactory.pegacorn.petasos.model.resilience.parcel;
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFunctionFDN;
 import net.fhirfactory.pegacorn.common.model.generalid.FDN;
 import net.fhirfactory.pegacorn.common.model.generalid.FDNToken;
-import net.fhirfactory.pegacorn.internals.SerializableObject;
 import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
 import net.fhirfactory.pegacorn.petasos.model.resilience.episode.PetasosEpisodeIdentifier;
 import net.fhirfactory.pegacorn.petasos.model.uow.UoW;
@@ -37,49 +36,44 @@ import java.time.Instant;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
+ * The ResilienceParcel tracks the processing of a single UoW by a single WUP.
+ *
+ * Each attribute is a single volatile field, so simple gets/sets need no locking (and the Parcel carries no lock
+ * objects of its own). The processing status transitions - where the status, the finalisation status and the
+ * matching date must all change together - are made via updateProcessingStatus() while holding the Parcel's own
+ * monitor, which is also held while the Parcel is copied - so a copy never sees half of a transition.
+ *
  * @author Mark A. Hunter
  * @author Scott Yeadon
  */
 public class ResilienceParcel implements Serializable {
 
     private static final Logger LOG = LoggerFactory.getLogger(ResilienceParcel.class);
-
-    private ResilienceParcelIdentifier identifier;
-    private SerializableObject instanceIDLock;
-    private FDNToken typeID;
-    private SerializableObject typeIDLock;
-    private PetasosEpisodeIdentifier episodeIdentifier;
-    private SerializableObject episodeIdentifierLock;
-    private UoW actualUoW;
-    private SerializableObject actualUoWLock;
-    private WUPIdentifier associatedWUPIdentifier;
-    private SerializableObject associatedWUPIdentifierLock;
-    private HashSet<PetasosEpisodeIdentifier> downstreamEpisodeIdentifierSet;
-    private SerializableObject downstreamEpisodeIdentifierSetLock;
-    private PetasosEpisodeIdentifier upstreamEpisodeIdentifier;
-    private SerializableObject upstreamEpisodeIdentifierLock;
+    private static final AtomicReferenceFieldUpdater<ResilienceParcel, UoW> ACTUAL_UOW_UPDATER = AtomicReferenceFieldUpdater.newUpdater(ResilienceParcel.class, UoW.class, "actualUoW");
+
+    private volatile ResilienceParcelIdentifier identifier;
+    private volatile FDNToken typeID;
+    private volatile PetasosEpisodeIdentifier episodeIdentifier;
+    private volatile UoW actualUoW;
+    private volatile WUPIdentifier associatedWUPIdentifier;
+    private volatile HashSet<PetasosEpisodeIdentifier> downstreamEpisodeIdentifierSet;
+    private volatile PetasosEpisodeIdentifier upstreamEpisodeIdentifier;
     private final static String INSTANCE_QUALIFIER_TYPE = "ParcelInstance";
     private final static String TYPE_QUALIFIER_TYPE = "ParcelType";
-    private ResilienceParcelFinalisationStatusEnum finalisationStatus;
-    private SerializableObject finalisationStatusLock;
-    private ResilienceParcelProcessingStatusEnum processingStatus;
-    private SerializableObject processingStatusLock;
-    private Date registrationDate;
-    private SerializableObject registrationDateLock;
-    private Date startDate;
-    private SerializableObject startDateLock;
-    private Date finishedDate;
-    private SerializableObject finishedDateLock;
-    private Date finalisationDate;
-    private SerializableObject finalisationDateLock;
-    private Date cancellationDate;
-    private SerializableObject cancellationDateLock;
-
-    private boolean anInteractWUP;
-    private String associatedPortValue;
-    private String associatedPortType;
+    private volatile ResilienceParcelFinalisationStatusEnum finalisationStatus;
+    private volatile ResilienceParcelProcessingStatusEnum processingStatus;
+    private volatile Date registrationDate;
+    private volatile Date startDate;
+    private volatile Date finishedDate;
+    private volatile Date finalisationDate;
+    private volatile Date cancellationDate;
+
+    private volatile boolean anInteractWUP;
+    private volatile String associatedPortValue;
+    private volatile String associatedPortType;
 
     //
     // Constructors
@@ -102,20 +96,6 @@ public class ResilienceParcel implements Serializable {
         this.anInteractWUP = false;
         this.associatedPortType = null;
         this.associatedPortValue = null;
-        this.instanceIDLock = new SerializableObject();
-        this.typeIDLock = new SerializableObject();
-        this.episodeIdentifierLock = new SerializableObject();
-        this.actualUoWLock = new SerializableObject();
-        this.associatedWUPIdentifierLock = new SerializableObject();
-        this.downstreamEpisodeIdentifierSetLock = new SerializableObject();
-        this.upstreamEpisodeIdentifierLock = new SerializableObject();
-        this.finalisationStatusLock = new SerializableObject();
-        this.processingStatusLock = new SerializableObject();
-        this.registrationDateLock = new SerializableObject();
-        this.startDateLock = new SerializableObject();
-        this.finishedDateLock = new SerializableObject();
-        this.finalisationDateLock = new SerializableObject();
-        this.cancellationDateLock = new SerializableObject();
         // Now, add what we have been supplied
         this.associatedWUPIdentifier = activityID.getPresentWUPIdentifier();
         this.episodeIdentifier = this.buildEpisodeID(activityID, theUoW);
@@ -145,65 +125,53 @@ public class ResilienceParcel implements Serializable {
         this.anInteractWUP = false;
         this.associatedPortType = null;
         this.associatedPortValue = null;
-        this.instanceIDLock = new SerializableObject();
-        this.typeIDLock = new SerializableObject();
-        this.episodeIdentifierLock = new SerializableObject();
-        this.actualUoWLock = new SerializableObject();
-        this.associatedWUPIdentifierLock = new SerializableObject();
-        this.downstreamEpisodeIdentifierSetLock = new SerializableObject();
-        this.upstreamEpisodeIdentifierLock = new SerializableObject();
-        this.finalisationStatusLock = new SerializableObject();
-        this.processingStatusLock = new SerializableObject();
-        this.registrationDateLock = new SerializableObject();
-        this.startDateLock = new SerializableObject();
-        this.finishedDateLock = new SerializableObject();
-        this.finalisationDateLock = new SerializableObject();
-        this.cancellationDateLock = new SerializableObject();
         // Now, add what we have been supplied
-        if (originalParcel.hasCancellationDate()) {
-            this.cancellationDate = originalParcel.getCancellationDate();
-        }
-        if (originalParcel.hasAssociatedWUPIdentifier()) {
-            this.associatedWUPIdentifier = originalParcel.getAssociatedWUPIdentifier();
-        }
-        if (originalParcel.hasActualUoW()) {
-            this.actualUoW = originalParcel.getActualUoW();
-        }
-        if (originalParcel.hasFinalisationDate()) {
-            this.finalisationDate = originalParcel.getFinalisationDate();
-        }
-        if (originalParcel.hasFinishedDate()) {
-            this.finishedDate = originalParcel.getFinishedDate();
-        }
-        if (originalParcel.hasInstanceIdentifier()) {
-            this.identifier = originalParcel.getIdentifier();
-        }
-        if (originalParcel.hasRegistrationDate()) {
-            this.registrationDate = originalParcel.getRegistrationDate();
-        }
-        if (originalParcel.hasStartDate()) {
-            this.startDate = originalParcel.getStartDate();
-        }
-        if (originalParcel.hasTypeID()) {
-            this.typeID = originalParcel.getTypeID();
-        }
-        if (originalParcel.hasUpstreamEpisodeIdentifier()) {
-            this.upstreamEpisodeIdentifier = originalParcel.getUpstreamEpisodeIdentifier();
-        }
-        if (originalParcel.hasDownstreamEpisodeIdentifierSet()) {
-            this.downstreamEpisodeIdentifierSet = new HashSet<PetasosEpisodeIdentifier>();
-            this.downstreamEpisodeIdentifierSet.addAll(originalParcel.getDownstreamEpisodeIdentifierSet());
-        }
-        if (originalParcel.hasEpisodeIdentifier()) {
-            this.episodeIdentifier = originalParcel.getEpisodeIdentifier();
-        }
-        if(originalParcel.hasAssociatedPortValue()){
-            this.associatedPortValue = originalParcel.getAssociatedPortValue();
-        }
-        if(originalParcel.hasAssociatedPortType()){
-            this.associatedPortType = originalParcel.getAssociatedPortType();
+        synchronized (originalParcel) {
+            if (originalParcel.hasCancellationDate()) {
+                this.cancellationDate = originalParcel.getCancellationDate();
+            }
+            if (originalParcel.hasAssociatedWUPIdentifier()) {
+                this.associatedWUPIdentifier = originalParcel.getAssociatedWUPIdentifier();
+            }
+            if (originalParcel.hasActualUoW()) {
+                this.actualUoW = originalParcel.getActualUoW();
+            }
+            if (originalParcel.hasFinalisationDate()) {
+                this.finalisationDate = originalParcel.getFinalisationDate();
+            }
+            if (originalParcel.hasFinishedDate()) {
+                this.finishedDate = originalParcel.getFinishedDate();
+            }
+            if (originalParcel.hasInstanceIdentifier()) {
+                this.identifier = originalParcel.getIdentifier();
+            }
+            if (originalParcel.hasRegistrationDate()) {
+                this.registrationDate = originalParcel.getRegistrationDate();
+            }
+            if (originalParcel.hasStartDate()) {
+                this.startDate = originalParcel.getStartDate();
+            }
+            if (originalParcel.hasTypeID()) {
+                this.typeID = originalParcel.getTypeID();
+            }
+            if (originalParcel.hasUpstreamEpisodeIdentifier()) {
+                this.upstreamEpisodeIdentifier = originalParcel.getUpstreamEpisodeIdentifier();
+            }
+            if (originalParcel.hasDownstreamEpisodeIdentifierSet()) {
+                this.downstreamEpisodeIdentifierSet = new HashSet<PetasosEpisodeIdentifier>();
+                this.downstreamEpisodeIdentifierSet.addAll(originalParcel.getDownstreamEpisodeIdentifierSet());
+            }
+            if (originalParcel.hasEpisodeIdentifier()) {
+                this.episodeIdentifier = originalParcel.getEpisodeIdentifier();
+            }
+            if(originalParcel.hasAssociatedPortValue()){
+                this.associatedPortValue = originalParcel.getAssociatedPortValue();
+            }
+            if(originalParcel.hasAssociatedPortType()){
+                this.associatedPortType = originalParcel.getAssociatedPortType();
+            }
+            this.anInteractWUP = originalParcel.isAnInteractWUP();
         }
-        this.anInteractWUP = originalParcel.isAnInteractWUP();
     }
 
     //
@@ -259,9 +227,7 @@ public class ResilienceParcel implements Serializable {
     }
 
     public void setCancellationDate(Date newCancellationDate) {
-        synchronized (cancellationDateLock) {
-            this.cancellationDate = newCancellationDate;
-        }
+        this.cancellationDate = newCancellationDate;
     }
 
     // Helper methods for the this.actualUoW attribute
@@ -284,9 +250,19 @@ public class ResilienceParcel implements Serializable {
      * @param actualUoW the containedUoW to set
      */
     public void setActualUoW(UoW actualUoW) {
-        synchronized (actualUoWLock) {
-            this.actualUoW = new UoW(actualUoW);
-        }
+        this.actualUoW = new UoW(actualUoW);
+    }
+
+    /**
+     * Atomically replace the UoW, but only if it is still the expected UoW. Unlike setActualUoW(), the new UoW is
+     * adopted as-is rather than copied, so it must be one the caller owns (e.g. a copy it has just made).
+     *
+     * @param expectedUoW The expected (current) UoW
+     * @param ownedUoW The (caller owned) UoW to adopt
+     * @return True if the UoW was replaced, false if the current UoW was not the expected UoW
+     */
+    public boolean compareAndSetActualUoW(UoW expectedUoW, UoW ownedUoW) {
+        return (ACTUAL_UOW_UPDATER.compareAndSet(this, expectedUoW, ownedUoW));
     }
 
     // Helper methods for the this.actualUoW attribute
@@ -316,10 +292,8 @@ public class ResilienceParcel implements Serializable {
      * this Parcel
      */
     public void setDownstreamEpisodeIdentifierSet(HashSet<PetasosEpisodeIdentifier> downstreamEpisodeIdentifierSet) {
-        synchronized (downstreamEpisodeIdentifierSetLock) {
-            if (downstreamEpisodeIdentifierSet == null) {
-                this.downstreamEpisodeIdentifierSet = new HashSet<PetasosEpisodeIdentifier>();
-            }
+        if (downstreamEpisodeIdentifierSet == null) {
+            this.downstreamEpisodeIdentifierSet = new HashSet<PetasosEpisodeIdentifier>();
         }
     }
 
@@ -344,9 +318,7 @@ public class ResilienceParcel implements Serializable {
      * @param upstreamEpisodeIdentifier the "Upstream" or "Precursor" Parcel to set
      */
     public void setUpstreamEpisodeIdentifier(PetasosEpisodeIdentifier upstreamEpisodeIdentifier) {
-        synchronized (upstreamEpisodeIdentifierLock) {
-            this.upstreamEpisodeIdentifier = upstreamEpisodeIdentifier;
-        }
+        this.upstreamEpisodeIdentifier = upstreamEpisodeIdentifier;
     }
 
     // Helper methods for the this.parcelInstanceID attribute
@@ -362,9 +334,7 @@ public class ResilienceParcel implements Serializable {
     }
 
     public void setIdentifier(ResilienceParcelIdentifier parcelInstance) {
-        synchronized (instanceIDLock) {
-            this.identifier = parcelInstance;
-        }
+        this.identifier = parcelInstance;
     }
 
     // Helper methods for the this.parcelTypeID attribute
@@ -380,15 +350,11 @@ public class ResilienceParcel implements Serializable {
     }
 
     public void setTypeID(FDNToken typeID) {
-        synchronized (typeIDLock) {
-            this.typeID = typeID;
-        }
+        this.typeID = typeID;
     }
 
     public void setParcelTypeFDN(FDNToken parcelType) {
-        synchronized (typeIDLock) {
-            this.typeID = parcelType;
-        }
+        this.typeID = parcelType;
     }
 
     // Helper methods for the this.parcelRegistrationDate attribute
@@ -404,9 +370,7 @@ public class ResilienceParcel implements Serializable {
     }
 
     public void setRegistrationDate(Date registrationDate) {
-        synchronized (registrationDateLock) {
-            this.registrationDate = registrationDate;
-        }
+        this.registrationDate = registrationDate;
     }
 
     // Helper methods for the this.parcelStartDate attribute
@@ -422,9 +386,7 @@ public class ResilienceParcel implements Serializable {
     }
 
     public void setStartDate(Date startDate) {
-        synchronized (startDateLock) {
-            this.startDate = startDate;
-        }
+        this.startDate = startDate;
     }
 
     // Helper methods for the this.parcelFinishedDate attribute
@@ -440,9 +402,7 @@ public class ResilienceParcel implements Serializable {
     }
 
     public void setFinishedDate(Date finishedDate) {
-        synchronized (finishedDateLock) {
-            this.finishedDate = finishedDate;
-        }
+        this.finishedDate = finishedDate;
     }
 
     // Helper methods for the this.parcelFinalisationDate attribute
@@ -458,9 +418,7 @@ public class ResilienceParcel implements Serializable {
     }
 
     public void setFinalisationDate(Date finalisationDate) {
-        synchronized (finalisationDateLock) {
-            this.finalisationDate = finalisationDate;
-        }
+        this.finalisationDate = finalisationDate;
     }
 
     // Helper methods for the this.associatedWUPInstanceID attribute
@@ -476,9 +434,7 @@ public class ResilienceParcel implements Serializable {
     }
 
     public void setAssociatedWUPIdentifier(WUPIdentifier associatedWUPIdentifier) {
-        synchronized (associatedWUPIdentifierLock) {
-            this.associatedWUPIdentifier = associatedWUPIdentifier;
-        }
+        this.associatedWUPIdentifier = associatedWUPIdentifier;
     }
 
     public boolean hasFinalisationStatus() {
@@ -494,9 +450,7 @@ public class ResilienceParcel implements Serializable {
     }
 
     public void setFinalisationStatus(ResilienceParcelFinalisationStatusEnum finalisationStatus) {
-        synchronized (finalisationStatusLock) {
-            this.finalisationStatus = finalisationStatus;
-        }
+        this.finalisationStatus = finalisationStatus;
     }
 
     public boolean hasProcessingStatus() {
@@ -512,9 +466,61 @@ public class ResilienceParcel implements Serializable {
     }
 
     public void setProcessingStatus(ResilienceParcelProcessingStatusEnum processingStatus) {
-        synchronized (processingStatusLock) {
-            this.processingStatus = processingStatus;
-        }
+        this.processingStatus = processingStatus;
+    }
+
+    /**
+     * Atomically transition the processing status (and, optionally, the finalisation status) of the Parcel, setting
+     * the date that matches the new processing status at the same time.
+     *
+     * @param newProcessingStatus The new processing status
+     * @param newFinalisationStatus The new finalisation status (or null to leave it unchanged)
+     * @param transitionDate The date of the transition
+     */
+    public synchronized void updateProcessingStatus(ResilienceParcelProcessingStatusEnum newProcessingStatus, ResilienceParcelFinalisationStatusEnum newFinalisationStatus, Date transitionDate) {
+        if (newProcessingStatus == null) {
+            throw (new IllegalArgumentException(".updateProcessingStatus(): newProcessingStatus is null"));
+        }
+        switch (newProcessingStatus) {
+            case PARCEL_STATUS_ACTIVE:
+                this.startDate = transitionDate;
+                break;
+            case PARCEL_STATUS_FINISHED:
+            case PARCEL_STATUS_FAILED:
+                this.finishedDate = transitionDate;
+                break;
+            case PARCEL_STATUS_FINALISED:
+                if (this.finishedDate == null) {
+                    this.finishedDate = transitionDate;
+                }
+                this.finalisationDate = transitionDate;
+                break;
+            case PARCEL_STATUS_CANCELLED:
+                this.cancellationDate = transitionDate;
+                break;
+            default:
+                break;
+        }
+        if (newFinalisationStatus != null) {
+            this.finalisationStatus = newFinalisationStatus;
+        }
+        this.processingStatus = newProcessingStatus;
+    }
+
+    /**
+     * Returns the Parcel to a freshly registered state - REGISTERED and NOT_FINALISED, with the given registration
+     * date and no start, finished, finalisation or cancellation date - as a single transition (see
+     * updateProcessingStatus()).
+     * @param newRegistrationDate The date of the (re-)registration
+     */
+    public synchronized void resetProcessingStatus(Date newRegistrationDate) {
+        this.registrationDate = newRegistrationDate;
+        this.startDate = null;
+        this.finishedDate = null;
+        this.finalisationDate = null;
+        this.cancellationDate = null;
+        this.finalisationStatus = ResilienceParcelFinalisationStatusEnum.PARCEL_FINALISATION_STATUS_NOT_FINALISED;
+        this.processingStatus = ResilienceParcelProcessingStatusEnum.PARCEL_STATUS_REGISTERED;
     }
 
     public boolean hasEpisodeIdentifier() {
@@ -530,9 +536,7 @@ public class ResilienceParcel implements Serializable {
     }
 
     public void setEpisodeIdentifier(PetasosEpisodeIdentifier episodeIdentifier) {
-        synchronized (episodeIdentifierLock) {
-            this.episodeIdentifier = episodeIdentifier;
-        }
+        this.episodeIdentifier = episodeIdentifier;
     }
 
     public PetasosEpisodeIdentifier buildEpisodeID(ActivityID activityID, UoW theUoW) {
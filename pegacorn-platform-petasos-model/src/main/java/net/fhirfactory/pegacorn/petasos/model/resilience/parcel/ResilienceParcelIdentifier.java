@@ -35,7 +35,7 @@ import net.fhirfactory.pegacorn.common.model.generalid.RDN;
 public class ResilienceParcelIdentifier extends FDNToken implements Serializable {
 	
     public ResilienceParcelIdentifier(FDNToken originalToken) {
-        this.setContent(new String(originalToken.getContent()));
+        super(originalToken);
     }
 
     public ResilienceParcelIdentifier(){
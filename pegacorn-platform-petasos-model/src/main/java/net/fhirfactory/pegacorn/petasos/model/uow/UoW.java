@@ -26,7 +26,6 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.Serializable;
-import java.time.Instant;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -35,7 +34,6 @@ import net.fhirfactory.pegacorn.common.model.generalid.FDNToken;
 import net.fhirfactory.pegacorn.common.model.generalid.RDN;
 import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
 import net.fhirfactory.pegacorn.components.dataparcel.DataParcelToken;
-import org.apache.commons.lang3.SerializationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -93,7 +91,7 @@ public class UoW implements Serializable {
     public UoW(UoWPayload inputPayload) {
         getLogger().debug(".UoW(): Constructor: inputPayload -->{}", inputPayload);
         getLogger().trace(".UoW(): Clone the ingressContent and assign it");
-        this.ingresContent = SerializationUtils.clone(inputPayload);
+        this.ingresContent = new UoWPayload(inputPayload);
         getLogger().trace(".UoW(): ingressContent cloned and assigned");
         getLogger().trace(".UoW(): create an empty UoWPayloadSet and assign it to the egressContent");
         this.egressContent = new UoWPayloadSet();
@@ -103,8 +101,8 @@ public class UoW implements Serializable {
         FDN contentFDN = inputPayload.getPayloadManifest().getContentDescriptor().toFDN();
         getLogger().trace(".UoW(): Creating the typeID, now convert to an FDNToken");
         FDNToken contentFDNToken = contentFDN.getToken();
-        getLogger().trace(".UoW(): Creating the typeID, now clone it and assign it to the typeID of this UoW");
-        this.typeID = SerializationUtils.clone(contentFDNToken);
+        getLogger().trace(".UoW(): Creating the typeID, now assign it to the typeID of this UoW (it is freshly generated, so no need to clone it)");
+        this.typeID = contentFDNToken;
         getLogger().trace(".UoW(): typeID --> {}", this.typeID);
         this.failureDescription = null;
         getLogger().trace(".UoW(): Now generating instanceID");
@@ -115,22 +113,34 @@ public class UoW implements Serializable {
         }
     }
 
+    /**
+     * Structural copy constructor: the identifiers (typeID, instanceID) and the String payloads are immutable
+     * and are shared with the originalUoW, whereas the payload containers (UoWPayload) are copied.
+     *
+     * @param originalUoW The UoW to be copied
+     */
     public UoW(UoW originalUoW) {
-        this.failureDescription = null;
-        this.instanceID = SerializationUtils.clone(originalUoW.getInstanceID());
-        this.ingresContent = SerializationUtils.clone(originalUoW.getIngresContent());
+        this.failureDescription = originalUoW.getFailureDescription();
+        this.instanceID = originalUoW.getInstanceID();
+        this.ingresContent = null;
+        if(originalUoW.hasIngresContent()) {
+            this.ingresContent = new UoWPayload(originalUoW.getIngresContent());
+        }
         this.egressContent = new UoWPayloadSet();
-        for(UoWPayload currentPayload: originalUoW.egressContent.getPayloadElements()) {
-            this.egressContent.getPayloadElements().add(SerializationUtils.clone(currentPayload));
+        if(originalUoW.getEgressContent() != null) {
+            for (UoWPayload currentPayload : originalUoW.getEgressContent().getPayloadElements()) {
+                this.egressContent.getPayloadElements().add(new UoWPayload(currentPayload));
+            }
         }
         this.processingOutcome = originalUoW.getProcessingOutcome();
-        this.typeID = SerializationUtils.clone(originalUoW.getTypeID());
+        this.typeID = originalUoW.getTypeID();
     }
 
     private void generateInstanceID() {
         getLogger().debug(".generateInstanceID(): Entry");
-        getLogger().trace(".generateInstanceID(): generating an instance id based on Timestamp");
-        String generatedInstanceValue = Long.toString(Instant.now().getNano());
+        getLogger().trace(".generateInstanceID(): generating an instance id based on the (time ordered) InstanceQualifier sequence");
+        String generatedInstanceValue = UoWInstanceQualifierGenerator.nextInstanceQualifier();
+        // The FDN keeps the (canonical) typeID token content, so appendRDN() just extends it rather than regenerating it
         FDN instanceFDN = new FDN(this.typeID);
         RDN newRDN = new RDN(HASH_ATTRIBUTE, generatedInstanceValue);
         instanceFDN.appendRDN(newRDN);
@@ -30,7 +30,7 @@ import java.io.Serializable;
 public class UoWIdentifier extends FDNToken implements Serializable {
 	
     public UoWIdentifier(FDNToken originalToken) {
-        this.setContent(new String(originalToken.getContent()));
+        super(originalToken);
     }
     
     public UoWIdentifier(){super();}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.model.uow;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates the InstanceQualifier values used to build UoW instance identifiers (and, as they are derived
+ * from the UoW instance identifier, the ResilienceParcel and PetasosEpisode identifiers).
+ *
+ * Each qualifier is of the (fixed width) form {@code <16 hex digit sequence>-<8 hex digit node prefix>}, where
+ * the sequence is the number of milliseconds since {@link #QUALIFIER_EPOCH_MILLIS} shifted left to leave room
+ * for a per-millisecond counter. The sequence is advanced with a CAS loop (no locks) and never goes backwards,
+ * even if the wall clock does, so the qualifiers are unique within this JVM and sort (lexically and numerically)
+ * in creation order. The node prefix distinguishes the qualifiers of different JVMs; it is random unless the
+ * {@link #NODE_PREFIX_PROPERTY_NAME} system property is set.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public final class UoWInstanceQualifierGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(UoWInstanceQualifierGenerator.class);
+
+    public static final String NODE_PREFIX_PROPERTY_NAME = "petasos.uow.instance.qualifier.node.prefix";
+    // 2021-01-01T00:00:00Z
+    public static final long QUALIFIER_EPOCH_MILLIS = 1609459200000L;
+
+    private static final int COUNTER_BITS = 22;
+    private static final int SEQUENCE_HEX_DIGITS = 16;
+    private static final int NODE_PREFIX_HEX_DIGITS = 8;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private static final AtomicLong lastSequence = new AtomicLong(0);
+    private static final String nodePrefix = resolveNodePrefix();
+
+    private UoWInstanceQualifierGenerator(){
+    }
+
+    /**
+     * @return A new (unique within the deployment, creation time ordered) InstanceQualifier value
+     */
+    public static String nextInstanceQualifier(){
+        long sequence = nextSequence();
+        char[] qualifier = new char[SEQUENCE_HEX_DIGITS + 1 + nodePrefix.length()];
+        for(int position = SEQUENCE_HEX_DIGITS - 1; position >= 0; position--){
+            qualifier[position] = HEX_DIGITS[(int)(sequence & 0xF)];
+            sequence >>>= 4;
+        }
+        qualifier[SEQUENCE_HEX_DIGITS] = '-';
+        nodePrefix.getChars(0, nodePrefix.length(), qualifier, SEQUENCE_HEX_DIGITS + 1);
+        return(new String(qualifier));
+    }
+
+    /**
+     * The sequence is (milliseconds since the epoch << COUNTER_BITS), or the previous sequence + 1 if that is
+     * larger (i.e. more than 2^COUNTER_BITS values have been issued within the millisecond, or the clock has
+     * stepped backwards), so it is strictly increasing.
+     *
+     * @return The next sequence value
+     */
+    static long nextSequence(){
+        long timeBasedSequence = (System.currentTimeMillis() - QUALIFIER_EPOCH_MILLIS) << COUNTER_BITS;
+        while(true){
+            long previousSequence = lastSequence.get();
+            long nextSequence = Math.max(timeBasedSequence, previousSequence + 1);
+            if(lastSequence.compareAndSet(previousSequence, nextSequence)){
+                return(nextSequence);
+            }
+        }
+    }
+
+    public static String getNodePrefix(){
+        return(nodePrefix);
+    }
+
+    private static String resolveNodePrefix(){
+        String configuredPrefix = System.getProperty(NODE_PREFIX_PROPERTY_NAME);
+        if(StringUtils.isNotBlank(configuredPrefix)){
+            String sanitisedPrefix = configuredPrefix.trim().replace('.', '_').replace('<', '_').replace('>', '_');
+            LOG.info(".resolveNodePrefix(): Using configured node prefix, nodePrefix->{}", sanitisedPrefix);
+            return(sanitisedPrefix);
+        }
+        int randomPrefix = new SecureRandom().nextInt();
+        char[] prefix = new char[NODE_PREFIX_HEX_DIGITS];
+        for(int position = NODE_PREFIX_HEX_DIGITS - 1; position >= 0; position--){
+            prefix[position] = HEX_DIGITS[randomPrefix & 0xF];
+            randomPrefix >>>= 4;
+        }
+        String generatedPrefix = new String(prefix);
+        LOG.info(".resolveNodePrefix(): Using generated node prefix, nodePrefix->{}", generatedPrefix);
+        return(generatedPrefix);
+    }
+}
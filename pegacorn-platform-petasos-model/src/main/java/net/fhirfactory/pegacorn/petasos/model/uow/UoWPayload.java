@@ -30,10 +30,23 @@ import org.slf4j.LoggerFactory;
 
 import net.fhirfactory.pegacorn.components.dataparcel.DataParcelToken;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
 /**
+ * The payload is normally held as a String, but may be moved off-heap (see moveToOffHeap()) into a (reference
+ * counted) UoWPayloadContent - in which case it is decoded only when asked for, copies of the UoWPayload share the
+ * content rather than each retaining the body, and Java serialisation writes it back out as a String.
+ * <p>
+ * Each UoWPayload holds its own reference to the content, which it gives up when its payload is replaced
+ * (setPayload()), when it is moved back on-heap (moveToHeap()) or - via the UoWPayloadBufferArena - once it is no
+ * longer reachable. So a UoWPayload that is still in use always has its payload, however many copies of it have come
+ * and gone. The changes of how the payload is held (setPayload(), moveToOffHeap(), moveToHeap()) are synchronized
+ * with each other, so none of them can undo another's; readers need no lock.
+ *
  * @author Mark A. Hunter
  */
 public class UoWPayload implements Serializable {
@@ -43,32 +56,148 @@ public class UoWPayload implements Serializable {
     }
 
     private DataParcelManifest payloadManifest;
-    private String payload;
+    private volatile String payload;
+    private transient volatile UoWPayloadContent.HolderReference payloadContent;
 
     public UoWPayload() {
         payload = null;
+        payloadContent = null;
         payloadManifest = null;
     }
 
     public UoWPayload(UoWPayload originalUoWPayload) {
-        this.payload = (String)SerializationUtils.clone(originalUoWPayload.getPayload());
-        this.payloadManifest = (DataParcelManifest) SerializationUtils.clone(originalUoWPayload.getPayloadManifest());
+        UoWPayloadContent.HolderReference originalContent = originalUoWPayload.payloadContent;
+        UoWPayloadContent.HolderReference sharedContent = null;
+        if(originalContent != null) {
+            sharedContent = originalContent.getContent().holdFor(this);
+        }
+        if(sharedContent != null) {
+            this.payloadContent = sharedContent;
+            this.payload = null;
+        } else {
+            this.payloadContent = null;
+            this.payload = originalUoWPayload.getPayload();
+        }
+        this.payloadManifest = copyPayloadManifest(originalUoWPayload.getPayloadManifest());
     }
 
     public UoWPayload(DataParcelManifest payloadType, String payloadContent){
-        this.payload = (String)SerializationUtils.clone(payloadContent);
-        this.payloadManifest = (DataParcelManifest) SerializationUtils.clone(payloadType);
+        this.payload = payloadContent;
+        this.payloadManifest = copyPayloadManifest(payloadType);
+    }
+
+    /**
+     * The payload (String) is immutable and so can be shared between copies, but the DataParcelManifest
+     * is mutable (e.g. the intendedTargetSystem is set per subscriber) and is small, so each UoWPayload
+     * gets its own copy.
+     *
+     * @param originalManifest The DataParcelManifest to be copied
+     * @return A copy of the DataParcelManifest (or null if originalManifest was null)
+     */
+    private static DataParcelManifest copyPayloadManifest(DataParcelManifest originalManifest){
+        if(originalManifest == null){
+            return(null);
+        }
+        return(SerializationUtils.clone(originalManifest));
     }
 
     public String getPayload() {
         getLogger().debug(".getPayload(): Entry");
-        getLogger().debug(".getPayload(): Exit, returning Payload (String) --> {}", this.payload);
-        return payload;
+        String currentPayload = this.payload;
+        if(currentPayload == null) {
+            UoWPayloadContent.HolderReference currentContent = this.payloadContent;
+            if(currentContent != null) {
+                // (shared and cached by the content, so repeat readers do not each decode their own copy)
+                currentPayload = currentContent.getContent().asString();
+            }
+            if(currentPayload == null) {
+                // the payload was replaced (and the content released) whilst being read
+                currentPayload = this.payload;
+            }
+        }
+        getLogger().trace(".getPayload(): Exit, returning Payload (String) --> {}", currentPayload);
+        return currentPayload;
     }
 
-    public void setPayload(String payload) {
+    public synchronized void setPayload(String payload) {
         getLogger().debug(".setPayload(): Entry, payload (String) --> {}", payload);
-        this.payload = (String) SerializationUtils.clone(payload);
+        UoWPayloadContent.HolderReference previousContent = this.payloadContent;
+        this.payload = payload;
+        this.payloadContent = null;
+        if(previousContent != null) {
+            previousContent.release();
+        }
+    }
+
+    public boolean hasOffHeapPayload() {
+        return (this.payloadContent != null);
+    }
+
+    /**
+     * Move the (String) payload off-heap, into a UoWPayloadContent allocated from the arena. This changes how this
+     * UoWPayload holds its payload, so should only be applied to a UoWPayload owned by the caller (e.g. a copy).
+     *
+     * @param arena The UoWPayloadBufferArena from which to allocate the content
+     * @return True if the payload was moved, false if there is no payload or it is already off-heap
+     */
+    public synchronized boolean moveToOffHeap(UoWPayloadBufferArena arena) {
+        String currentPayload = this.payload;
+        if((currentPayload == null) || (this.payloadContent != null)) {
+            return (false);
+        }
+        // publish the content before dropping the String, so concurrent readers always see one or the other
+        this.payloadContent = UoWPayloadContent.fromString(currentPayload, arena, this);
+        this.payload = null;
+        return (true);
+    }
+
+    /**
+     * Move an off-heap payload back into a (String) payload, giving up this UoWPayload's reference to the content.
+     *
+     * @return True if the payload was moved, false if it was not off-heap
+     */
+    public synchronized boolean moveToHeap() {
+        UoWPayloadContent.HolderReference currentContent = this.payloadContent;
+        if(currentContent == null) {
+            return (false);
+        }
+        // publish the String before dropping the content, so concurrent readers always see one or the other
+        this.payload = currentContent.getContent().asString();
+        this.payloadContent = null;
+        currentContent.release();
+        return (true);
+    }
+
+    /**
+     * @return The payload as UTF-8 bytes (read directly from the off-heap content, if it is off-heap), or null if there is no payload
+     */
+    @JsonIgnore
+    public InputStream getPayloadInputStream() {
+        UoWPayloadContent.HolderReference currentContent = this.payloadContent;
+        if(currentContent != null) {
+            InputStream contentStream = currentContent.getContent().asInputStream();
+            if(contentStream != null) {
+                return (contentStream);
+            }
+        }
+        String currentPayload = getPayload();
+        if(currentPayload == null) {
+            return (null);
+        }
+        return (new ByteArrayInputStream(currentPayload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Java serialisation (e.g. of the clustered caches) always carries the payload as a String.
+     */
+    private Object writeReplace() {
+        if(this.payloadContent == null) {
+            return (this);
+        }
+        UoWPayload onHeapPayload = new UoWPayload();
+        onHeapPayload.payloadManifest = this.payloadManifest;
+        onHeapPayload.payload = getPayload();
+        return (onHeapPayload);
     }
 
     public DataParcelManifest getPayloadManifest() {
@@ -79,7 +208,7 @@ public class UoWPayload implements Serializable {
 
     public void setPayloadManifest(DataParcelManifest payloadManifest) {
         getLogger().debug(".setPayloadTopicID(): Entry, payloadTopicID (TopicToken) --> {}", payloadManifest);
-        this.payloadManifest = (DataParcelManifest) SerializationUtils.clone(payloadManifest);
+        this.payloadManifest = copyPayloadManifest(payloadManifest);
     }
 
     public boolean hasDataParcelQualityStatement(){
@@ -103,6 +232,13 @@ public class UoWPayload implements Serializable {
 
     @Override
     public String toString() {
+        UoWPayloadContent.HolderReference currentContent = this.payloadContent;
+        if(currentContent != null) {
+            return "UoWPayload{" +
+                    "payloadManifest=" + payloadManifest +
+                    ", payload=[off-heap, " + currentContent.getContent().getByteLength() + " bytes]" +
+                    '}';
+        }
         return "UoWPayload{" +
                 "payloadManifest=" + payloadManifest +
                 ", payload=" + payload +
@@ -114,11 +250,32 @@ public class UoWPayload implements Serializable {
         if (this == o) return true;
         if (!(o instanceof UoWPayload)) return false;
         UoWPayload that = (UoWPayload) o;
-        return Objects.equals(getPayloadManifest(), that.getPayloadManifest()) && Objects.equals(getPayload(), that.getPayload());
+        if(!Objects.equals(getPayloadManifest(), that.getPayloadManifest())) return false;
+        UoWPayloadContent.HolderReference thisContent = this.payloadContent;
+        UoWPayloadContent.HolderReference thatContent = that.payloadContent;
+        if((thisContent != null) && (thatContent != null)) {
+            Boolean contentEquality = thisContent.getContent().contentEquals(thatContent.getContent());
+            if(contentEquality != null) {
+                return contentEquality;
+            }
+        }
+        return Objects.equals(getPayload(), that.getPayload());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getPayloadManifest(), getPayload());
+        // the same value as Objects.hash(getPayloadManifest(), getPayload()), without decoding an off-heap payload
+        // (read the String first - moveToOffHeap() publishes the content before dropping it)
+        String currentPayload = this.payload;
+        int payloadHash = 0;
+        if(currentPayload != null) {
+            payloadHash = currentPayload.hashCode();
+        } else {
+            UoWPayloadContent.HolderReference currentContent = this.payloadContent;
+            if(currentContent != null) {
+                payloadHash = currentContent.getContent().getContentHash();
+            }
+        }
+        return Objects.hash(getPayloadManifest(), payloadHash);
     }
 }
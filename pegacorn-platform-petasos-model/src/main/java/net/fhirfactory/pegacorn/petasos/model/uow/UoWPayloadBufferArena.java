@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.model.uow;
+
+import java.lang.ref.ReferenceQueue;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A pool of (off-heap) direct ByteBuffers for UoWPayloadContent. Buffers are handed out in power-of-two size classes
+ * (4 KB to 16 MB) and, once released, are kept for reuse up to the maximum pooled bytes - beyond that (or above the
+ * largest size class) they are simply dropped and the JVM frees them when they become unreachable, as it does for
+ * any buffer whose UoWPayloadContent is never released.
+ * <p>
+ * The arena also tracks the holders of each UoWPayloadContent (see UoWPayloadContent.HolderReference), so that the
+ * reference of a holder that becomes unreachable without having released it is released on its behalf - this is
+ * done as buffers are allocated, or on demand via reclaimUnreachableHolders().
+ * <p>
+ * The (capacity) bytes of the buffers handed out and not yet recycled are counted (see getInUseBytes()), so that
+ * users of the arena can hold their off-heap payloads to a budget.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public class UoWPayloadBufferArena {
+    private static final int MINIMUM_SIZE_CLASS_SHIFT = 12;
+    private static final int MAXIMUM_SIZE_CLASS_SHIFT = 24;
+
+    private final ConcurrentLinkedQueue<ByteBuffer>[] freeBufferQueues;
+    private final long maximumPooledBytes;
+    private final AtomicLong pooledBytes;
+    private final AtomicLong inUseBytes;
+    private final LongAdder allocationCount;
+    private final LongAdder poolHitCount;
+    private final ReferenceQueue<Object> unreachableHolders;
+    private final Set<UoWPayloadContent.HolderReference> holderReferences;
+    private final LongAdder reclaimedHolderCount;
+
+    @SuppressWarnings("unchecked")
+    public UoWPayloadBufferArena(long maximumPooledBytes){
+        if(maximumPooledBytes < 0){
+            throw(new IllegalArgumentException(".UoWPayloadBufferArena(): maximumPooledBytes is negative, maximumPooledBytes->" + maximumPooledBytes));
+        }
+        this.freeBufferQueues = new ConcurrentLinkedQueue[MAXIMUM_SIZE_CLASS_SHIFT - MINIMUM_SIZE_CLASS_SHIFT + 1];
+        for(int sizeClass = 0; sizeClass < freeBufferQueues.length; sizeClass++){
+            freeBufferQueues[sizeClass] = new ConcurrentLinkedQueue<>();
+        }
+        this.maximumPooledBytes = maximumPooledBytes;
+        this.pooledBytes = new AtomicLong(0);
+        this.inUseBytes = new AtomicLong(0);
+        this.allocationCount = new LongAdder();
+        this.poolHitCount = new LongAdder();
+        this.unreachableHolders = new ReferenceQueue<>();
+        this.holderReferences = ConcurrentHashMap.newKeySet();
+        this.reclaimedHolderCount = new LongAdder();
+    }
+
+    /**
+     * Allocate a (cleared) direct ByteBuffer with a capacity of at least byteLength.
+     *
+     * @param byteLength The number of bytes required
+     * @return A ByteBuffer (from the pool, if one of the right size class is available)
+     */
+    public ByteBuffer allocate(int byteLength){
+        if(byteLength < 0){
+            throw(new IllegalArgumentException(".allocate(): byteLength is negative, byteLength->" + byteLength));
+        }
+        allocationCount.increment();
+        reclaimUnreachableHolders();
+        int sizeClass = sizeClassOf(byteLength);
+        if(sizeClass < 0){
+            inUseBytes.addAndGet(byteLength);
+            return(ByteBuffer.allocateDirect(byteLength));
+        }
+        ByteBuffer buffer = freeBufferQueues[sizeClass].poll();
+        if(buffer == null){
+            buffer = ByteBuffer.allocateDirect(1 << (sizeClass + MINIMUM_SIZE_CLASS_SHIFT));
+            inUseBytes.addAndGet(buffer.capacity());
+            return(buffer);
+        }
+        pooledBytes.addAndGet(-buffer.capacity());
+        inUseBytes.addAndGet(buffer.capacity());
+        poolHitCount.increment();
+        buffer.clear();
+        return(buffer);
+    }
+
+    /**
+     * Return a ByteBuffer (obtained from allocate()) to the pool. The caller must hold no other reference to it (see
+     * UoWPayloadContent, which only recycles its buffer once no holder or reader has a reference to it).
+     *
+     * @param buffer The ByteBuffer to be recycled
+     */
+    public void recycle(ByteBuffer buffer){
+        if(buffer == null){
+            return;
+        }
+        int capacity = buffer.capacity();
+        inUseBytes.addAndGet(-capacity);
+        int sizeClass = sizeClassOf(capacity);
+        if((sizeClass < 0) || (capacity != (1 << (sizeClass + MINIMUM_SIZE_CLASS_SHIFT))) || !buffer.isDirect()){
+            return;
+        }
+        if(pooledBytes.addAndGet(capacity) > maximumPooledBytes){
+            pooledBytes.addAndGet(-capacity);
+            return;
+        }
+        freeBufferQueues[sizeClass].offer(buffer);
+    }
+
+    /**
+     * Register holder as holding one (already taken) reference to the content.
+     */
+    UoWPayloadContent.HolderReference registerHolder(Object holder, UoWPayloadContent content){
+        UoWPayloadContent.HolderReference holderReference = new UoWPayloadContent.HolderReference(holder, content, unreachableHolders);
+        holderReferences.add(holderReference);
+        return(holderReference);
+    }
+
+    void deregisterHolder(UoWPayloadContent.HolderReference holderReference){
+        holderReferences.remove(holderReference);
+    }
+
+    /**
+     * Release the references of any holders that have become unreachable without releasing them.
+     *
+     * @return The number of references released
+     */
+    public int reclaimUnreachableHolders(){
+        int reclaimedCount = 0;
+        UoWPayloadContent.HolderReference unreachableHolder = (UoWPayloadContent.HolderReference)unreachableHolders.poll();
+        while(unreachableHolder != null){
+            if(unreachableHolder.release()){
+                reclaimedCount += 1;
+            }
+            unreachableHolder = (UoWPayloadContent.HolderReference)unreachableHolders.poll();
+        }
+        if(reclaimedCount > 0){
+            reclaimedHolderCount.add(reclaimedCount);
+        }
+        return(reclaimedCount);
+    }
+
+    private static int sizeClassOf(int byteLength){
+        int shift = MINIMUM_SIZE_CLASS_SHIFT;
+        if(byteLength > (1 << MINIMUM_SIZE_CLASS_SHIFT)){
+            shift = 32 - Integer.numberOfLeadingZeros(byteLength - 1);
+        }
+        if(shift > MAXIMUM_SIZE_CLASS_SHIFT){
+            return(-1);
+        }
+        return(shift - MINIMUM_SIZE_CLASS_SHIFT);
+    }
+
+    public long getPooledBytes() {
+        return(pooledBytes.get());
+    }
+
+    public long getMaximumPooledBytes() {
+        return(maximumPooledBytes);
+    }
+
+    /**
+     * @return The (capacity) bytes of the buffers allocated from the arena and not yet recycled
+     */
+    public long getInUseBytes() {
+        return(inUseBytes.get());
+    }
+
+    public long getAllocationCount() {
+        return(allocationCount.sum());
+    }
+
+    public long getPoolHitCount() {
+        return(poolHitCount.sum());
+    }
+
+    public int getHolderCount() {
+        return(holderReferences.size());
+    }
+
+    public long getReclaimedHolderCount() {
+        return(reclaimedHolderCount.sum());
+    }
+}
@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.model.uow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The (reference counted) UTF-8 body of a UoWPayload, held off-heap in a ByteBuffer from a UoWPayloadBufferArena
+ * rather than as a (UTF-16) String. Each UoWPayload sharing the content holds one reference, as a HolderReference
+ * (see holdFor()). A holder's reference is released when the holder replaces its payload or, failing that, once the
+ * holder itself has become unreachable (see UoWPayloadBufferArena.reclaimUnreachableHolders()) - so a holder that is
+ * still in use never loses its payload. The buffer goes back to the arena once every reference has been released.
+ * <p>
+ * Every read (asString(), contentEquals(), asInputStream()) takes its own reference for as long as it reads the buffer,
+ * so a buffer can never be recycled (and reused for another payload) underneath a reader. The decoded String is
+ * cached (weakly), so repeat readers share it rather than each decoding their own copy.
+ *
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+public final class UoWPayloadContent {
+    private final UoWPayloadBufferArena arena;
+    private final ByteBuffer buffer;
+    private final int byteLength;
+    private final int contentHash;
+    private final AtomicInteger referenceCount;
+    private volatile WeakReference<String> decodedContent;
+
+    private UoWPayloadContent(UoWPayloadBufferArena arena, ByteBuffer buffer, int byteLength, int contentHash){
+        this.arena = arena;
+        this.buffer = buffer;
+        this.byteLength = byteLength;
+        this.contentHash = contentHash;
+        this.referenceCount = new AtomicInteger(1);
+        this.decodedContent = null;
+    }
+
+    /**
+     * Encode the content (as UTF-8) into a buffer from the arena, on behalf of the holder.
+     *
+     * @param content The payload content
+     * @param arena The UoWPayloadBufferArena from which to allocate the buffer
+     * @param holder The object (typically a UoWPayload) that will hold the content
+     * @return The holder's (only) HolderReference to the (off-heap) UoWPayloadContent
+     */
+    public static HolderReference fromString(String content, UoWPayloadBufferArena arena, Object holder){
+        if(content == null){
+            throw(new IllegalArgumentException(".fromString(): content is null"));
+        }
+        if(arena == null){
+            throw(new IllegalArgumentException(".fromString(): arena is null"));
+        }
+        if(holder == null){
+            throw(new IllegalArgumentException(".fromString(): holder is null"));
+        }
+        byte[] encodedContent = content.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = arena.allocate(encodedContent.length);
+        buffer.put(encodedContent);
+        buffer.flip();
+        UoWPayloadContent newContent = new UoWPayloadContent(arena, buffer, encodedContent.length, content.hashCode());
+        newContent.decodedContent = new WeakReference<>(content);
+        return(arena.registerHolder(holder, newContent));
+    }
+
+    /**
+     * Take another reference to the content on behalf of the holder.
+     *
+     * @param holder The object (typically a copy of a UoWPayload) that will hold the content
+     * @return The holder's HolderReference, or null if the content has already been (fully) released
+     */
+    public HolderReference holdFor(Object holder){
+        if(holder == null){
+            throw(new IllegalArgumentException(".holdFor(): holder is null"));
+        }
+        if(!tryRetain()){
+            return(null);
+        }
+        return(arena.registerHolder(holder, this));
+    }
+
+    private boolean tryRetain(){
+        while(true){
+            int currentCount = referenceCount.get();
+            if(currentCount <= 0){
+                return(false);
+            }
+            if(referenceCount.compareAndSet(currentCount, currentCount + 1)){
+                return(true);
+            }
+        }
+    }
+
+    private void release(){
+        int remainingCount = referenceCount.decrementAndGet();
+        if(remainingCount == 0){
+            arena.recycle(buffer);
+            return;
+        }
+        if(remainingCount < 0){
+            throw(new IllegalStateException(".release(): UoWPayloadContent has already been released"));
+        }
+    }
+
+    /**
+     * @return The decoded content, or null if the content has been (fully) released
+     */
+    public String asString(){
+        WeakReference<String> cachedReference = this.decodedContent;
+        String cachedContent = (cachedReference == null) ? null : cachedReference.get();
+        if(cachedContent != null){
+            return(cachedContent);
+        }
+        if(!tryRetain()){
+            return(null);
+        }
+        try {
+            byte[] contentBytes = new byte[byteLength];
+            contentView().get(contentBytes);
+            String decoded = new String(contentBytes, StandardCharsets.UTF_8);
+            this.decodedContent = new WeakReference<>(decoded);
+            return(decoded);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * @return An InputStream over the UTF-8 bytes of the content, which holds its own reference until closed
+     * (or null if the content has been (fully) released)
+     */
+    public InputStream asInputStream(){
+        if(!tryRetain()){
+            return(null);
+        }
+        return(new ContentInputStream(this));
+    }
+
+    /**
+     * @param otherContent The content to compare with
+     * @return Whether the two contents are equal, or null if either has been (fully) released
+     */
+    public Boolean contentEquals(UoWPayloadContent otherContent){
+        if(otherContent == this){
+            return(true);
+        }
+        if((otherContent == null) || (otherContent.byteLength != byteLength) || (otherContent.contentHash != contentHash)){
+            return(false);
+        }
+        if(!tryRetain()){
+            return(null);
+        }
+        try {
+            if(!otherContent.tryRetain()){
+                return(null);
+            }
+            try {
+                return(contentView().equals(otherContent.contentView()));
+            } finally {
+                otherContent.release();
+            }
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * @return The String.hashCode() of the content, so that on and off heap UoWPayloads hash alike
+     */
+    public int getContentHash() {
+        return(contentHash);
+    }
+
+    public int getByteLength() {
+        return(byteLength);
+    }
+
+    public int getReferenceCount() {
+        return(referenceCount.get());
+    }
+
+    // Only invoked whilst holding a reference
+    private ByteBuffer contentView(){
+        ByteBuffer view = buffer.duplicate();
+        view.position(0);
+        view.limit(byteLength);
+        return(view);
+    }
+
+    /**
+     * A holder's reference to the content. It is released explicitly (release()) when the holder replaces its
+     * payload, or by the arena once the holder has become unreachable - whichever comes first, and only once.
+     */
+    public static final class HolderReference extends PhantomReference<Object> {
+        private final UoWPayloadContent content;
+        private final AtomicBoolean released;
+
+        HolderReference(Object holder, UoWPayloadContent content, ReferenceQueue<Object> queue){
+            super(holder, queue);
+            this.content = content;
+            this.released = new AtomicBoolean(false);
+        }
+
+        public UoWPayloadContent getContent() {
+            return(content);
+        }
+
+        public boolean isReleased() {
+            return(released.get());
+        }
+
+        /**
+         * Release the holder's reference to the content (if it has not already been released).
+         *
+         * @return True if this call released the reference
+         */
+        public boolean release(){
+            if(!released.compareAndSet(false, true)){
+                return(false);
+            }
+            content.arena.deregisterHolder(this);
+            content.release();
+            return(true);
+        }
+    }
+
+    private static class ContentInputStream extends InputStream {
+        private final UoWPayloadContent content;
+        private final ByteBuffer view;
+        private boolean closed;
+
+        private ContentInputStream(UoWPayloadContent content){
+            this.content = content;
+            this.view = content.contentView();
+            this.closed = false;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkOpen();
+            if(!view.hasRemaining()){
+                return(-1);
+            }
+            return(view.get() & 0xFF);
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            checkOpen();
+            if(length == 0){
+                return(0);
+            }
+            if(!view.hasRemaining()){
+                return(-1);
+            }
+            int readLength = Math.min(length, view.remaining());
+            view.get(bytes, offset, readLength);
+            return(readLength);
+        }
+
+        @Override
+        public int available() throws IOException {
+            checkOpen();
+            return(view.remaining());
+        }
+
+        @Override
+        public synchronized void close() {
+            if(!closed){
+                closed = true;
+                content.release();
+            }
+        }
+
+        private void checkOpen() throws IOException {
+            if(closed){
+                throw(new IOException("Stream closed"));
+            }
+        }
+    }
+}
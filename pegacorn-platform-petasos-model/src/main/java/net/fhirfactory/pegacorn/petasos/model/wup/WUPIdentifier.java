@@ -25,7 +25,6 @@ package net.fhirfactory.pegacorn.petasos.model.wup;
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDN;
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeFDNToken;
 import net.fhirfactory.pegacorn.common.model.componentid.TopologyNodeRDN;
-import org.apache.commons.lang3.SerializationUtils;
 
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -37,7 +36,7 @@ import java.util.ArrayList;
 public class WUPIdentifier extends TopologyNodeFDNToken implements Serializable {
 	
     public WUPIdentifier(TopologyNodeFDNToken originalToken) {
-        this.setTokenValue(SerializationUtils.clone(originalToken.getTokenValue()));
+        super(originalToken);
     }
     public WUPIdentifier(){super();}
 	
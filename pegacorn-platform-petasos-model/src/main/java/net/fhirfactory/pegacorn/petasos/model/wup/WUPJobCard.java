@@ -31,32 +31,27 @@ import org.slf4j.LoggerFactory;
 
 import net.fhirfactory.pegacorn.petasos.model.pathway.ActivityID;
 
-
+/**
+ * The WUPJobCard carries the (requested, granted and current) activity status of a WUP for a single Work Unit.
+ *
+ * Each attribute is a single volatile field, so simple gets/sets need no locking. Where related attributes must change
+ * together (see updateStatus() and grantRequestedStatus()) the change is made while holding the card's own monitor,
+ * which is also held while the card is copied - so a copy never sees half of a compound change.
+ */
 public class WUPJobCard {
     private static final Logger LOG = LoggerFactory.getLogger(WUPJobCard.class);
     protected Logger getLogger(){
         return(LOG);
     }
 
-    private ActivityID activityID;
-    private Object activityIDLock;
-    private Date updateDate;
-    private Object updateDateLock;
-    private WUPActivityStatusEnum currentStatus;
-    private Object currentStatusLock;
-    private WUPActivityStatusEnum requestedStatus;
-    private Object requestedStatusLock;
-    private WUPActivityStatusEnum grantedStatus;
-    private Object grantedStatusLock;
-    private ConcurrencyModeEnum clusterMode;
-    private Object clusterModeLock;
-    private ResilienceModeEnum systemMode;
-    private Object systemModeLock;
-    private boolean isToBeDiscarded;
-    private Object isToBeDiscardedLock;
-
-
-    private String toStringValue;
+    private volatile ActivityID activityID;
+    private volatile Date updateDate;
+    private volatile WUPActivityStatusEnum currentStatus;
+    private volatile WUPActivityStatusEnum requestedStatus;
+    private volatile WUPActivityStatusEnum grantedStatus;
+    private volatile ConcurrencyModeEnum clusterMode;
+    private volatile ResilienceModeEnum systemMode;
+    private volatile boolean isToBeDiscarded;
 
     public WUPJobCard(
             ActivityID activityID,
@@ -72,16 +67,7 @@ public class WUPJobCard {
         this.requestedStatus = null;
         this.clusterMode = null;
         this.systemMode = null;
-        this.toStringValue = null;
         this.grantedStatus = null;
-        this.activityIDLock = new Object();
-        this.updateDateLock = new Object();
-        this.currentStatusLock =  new Object();
-        this.requestedStatusLock = new Object();
-        this.grantedStatusLock = new Object();
-        this.clusterModeLock = new Object();
-        this.systemModeLock = new Object();
-        this.isToBeDiscardedLock = new Object();
 
         if ((activityID == null)) {
             throw (new IllegalArgumentException("WUP Continuity Record is null in Constructor"));
@@ -93,7 +79,6 @@ public class WUPJobCard {
         this.requestedStatus = requestedStatus;
         this.systemMode = systemMode;
         this.isToBeDiscarded = false;
-        generateToString();
     }
 
     public WUPJobCard(WUPJobCard originalCard) {
@@ -103,28 +88,20 @@ public class WUPJobCard {
         this.requestedStatus = null;
         this.clusterMode = null;
         this.systemMode = null;
-        this.toStringValue = null;
         this.grantedStatus = null;
-        this.activityIDLock = new Object();
-        this.updateDateLock = new Object();
-        this.currentStatusLock =  new Object();
-        this.requestedStatusLock = new Object();
-        this.grantedStatusLock = new Object();
-        this.clusterModeLock = new Object();
-        this.systemModeLock = new Object();
-        this.isToBeDiscardedLock = new Object();
         if (originalCard == null) {
             throw (new IllegalArgumentException("originalCard (WUPJobCard) is null in Copy Constructor"));
         }
-        this.activityID = new ActivityID(originalCard.getActivityID());
-        this.updateDate = originalCard.getUpdateDate();
-        this.currentStatus = originalCard.getCurrentStatus();
-        this.clusterMode = originalCard.getClusterMode();
-        this.requestedStatus = originalCard.getRequestedStatus();
-        this.systemMode = originalCard.getSystemMode();
-        this.grantedStatus = originalCard.getGrantedStatus();
+        synchronized (originalCard) {
+            this.activityID = new ActivityID(originalCard.getActivityID());
+            this.updateDate = originalCard.getUpdateDate();
+            this.currentStatus = originalCard.getCurrentStatus();
+            this.clusterMode = originalCard.getClusterMode();
+            this.requestedStatus = originalCard.getRequestedStatus();
+            this.systemMode = originalCard.getSystemMode();
+            this.grantedStatus = originalCard.getGrantedStatus();
+        }
         this.isToBeDiscarded = false;
-        generateToString();
     }
 
     public boolean hasGrantedStatus(){
@@ -140,10 +117,7 @@ public class WUPJobCard {
     }
 
     public void setGrantedStatus(WUPActivityStatusEnum grantedStatus) {
-        synchronized (grantedStatusLock) {
-            this.grantedStatus = grantedStatus;
-            generateToString();
-        }
+        this.grantedStatus = grantedStatus;
     }
 
     public boolean getIsToBeDiscarded() {
@@ -151,10 +125,7 @@ public class WUPJobCard {
     }
 
     public void setIsToBeDiscarded(boolean beDiscarded){
-        synchronized (isToBeDiscardedLock) {
-            this.isToBeDiscarded = beDiscarded;
-            generateToString();
-        }
+        this.isToBeDiscarded = beDiscarded;
     }
 
     // Helper/accessor methods for the cardID attribute
@@ -171,10 +142,7 @@ public class WUPJobCard {
     }
 
     public void setActivityID(ActivityID newCardID) {
-        synchronized (activityIDLock) {
-            this.activityID = newCardID;
-            generateToString();
-        }
+        this.activityID = newCardID;
     }
 
     public boolean hasUpdateDate() {
@@ -190,10 +158,7 @@ public class WUPJobCard {
     }
 
     public void setUpdateDate(Date updateDate) {
-        synchronized (updateDateLock) {
-            this.updateDate = updateDate;
-            generateToString();
-        }
+        this.updateDate = updateDate;
     }
 
     public boolean hasCurrentStatus() {
@@ -209,10 +174,7 @@ public class WUPJobCard {
     }
 
     public void setCurrentStatus(WUPActivityStatusEnum currentStatus) {
-        synchronized (currentStatusLock) {
-            this.currentStatus = currentStatus;
-            generateToString();
-        }
+        this.currentStatus = currentStatus;
     }
 
     public boolean hasClusterMode() {
@@ -228,18 +190,42 @@ public class WUPJobCard {
     }
 
     public void setClusterMode(ConcurrencyModeEnum clusterMode) {
-        synchronized (clusterModeLock) {
-            this.clusterMode = clusterMode;
-            generateToString();
-        }
+        this.clusterMode = clusterMode;
     }
 
-    @Override
-    public String toString() {
-        return (this.toStringValue);
+    /**
+     * Atomically set the current and requested status (and the update date) of the card.
+     *
+     * @param newCurrentStatus The new current status
+     * @param newRequestedStatus The new requested status
+     * @param newUpdateDate The date of the update
+     */
+    public synchronized void updateStatus(WUPActivityStatusEnum newCurrentStatus, WUPActivityStatusEnum newRequestedStatus, Date newUpdateDate) {
+        this.currentStatus = newCurrentStatus;
+        this.requestedStatus = newRequestedStatus;
+        this.updateDate = newUpdateDate;
+    }
+
+    /**
+     * Atomically grant the (currently) requested status and set the update date of the card.
+     *
+     * @param newUpdateDate The date of the update
+     */
+    public synchronized void grantRequestedStatus(Date newUpdateDate) {
+        this.grantedStatus = this.requestedStatus;
+        this.updateDate = newUpdateDate;
     }
 
+    /**
+     * The String representation is now built on demand (see toString()), so there is nothing to (re)generate.
+     */
+    @Deprecated
     public void generateToString() {
+        // Nothing to do
+    }
+
+    @Override
+    public String toString() {
         String cardIDString;
         if (hasActivityID()) {
             cardIDString = "(cardID:" + this.getActivityID().toString() + ")";
@@ -282,7 +268,7 @@ public class WUPJobCard {
         } else {
             grantedStatusString = "(grantedStatus:null)";
         }
-        this.toStringValue = "WUPJobCard={"
+        String toStringValue = "WUPJobCard={"
                 + cardIDString + ","
                 + updateDateString + ","
                 + currentStatusString + ","
@@ -291,6 +277,7 @@ public class WUPJobCard {
                 + systemModeString + ","
                 + clusterModeString + ","
                 + "(isToBeDiscarded=" + this.isToBeDiscarded + ")}";
+        return (toStringValue);
     }
 
     boolean hasRequestedStatus() {
@@ -306,10 +293,7 @@ public class WUPJobCard {
     }
 
     public void setRequestedStatus(WUPActivityStatusEnum requestedStatus) {
-        synchronized (requestedStatusLock) {
-            this.requestedStatus = requestedStatus;
-            generateToString();
-        }
+        this.requestedStatus = requestedStatus;
     }
 
     public boolean hasSystemMode() {
@@ -325,9 +309,6 @@ public class WUPJobCard {
     }
 
     public void setSystemMode(ResilienceModeEnum systemMode) {
-        synchronized (systemModeLock) {
-            this.systemMode = systemMode;
-            generateToString();
-        }
+        this.systemMode = systemMode;
     }
 }
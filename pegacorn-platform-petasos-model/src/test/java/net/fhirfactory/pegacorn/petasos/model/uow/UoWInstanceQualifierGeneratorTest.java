@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.model.uow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelManifest;
+import net.fhirfactory.pegacorn.components.dataparcel.DataParcelTypeDescriptor;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+class UoWInstanceQualifierGeneratorTest {
+	private static final Logger LOG = LoggerFactory.getLogger(UoWInstanceQualifierGeneratorTest.class);
+
+	private static final int QUALIFIER_COUNT = 100000;
+	private static final int THREAD_COUNT = 8;
+	private static final int COUNTER_BITS = 22;
+
+	@Test
+	void testQualifierFormat() {
+		LOG.info(".testQualifierFormat(): Entry");
+		String nodePrefix = UoWInstanceQualifierGenerator.getNodePrefix();
+		// (random, as the node prefix property is not set for the tests)
+		assertTrue(nodePrefix.matches("[0-9a-f]{8}"), nodePrefix);
+		String qualifier = UoWInstanceQualifierGenerator.nextInstanceQualifier();
+		assertTrue(qualifier.matches("[0-9a-f]{16}-" + nodePrefix), qualifier);
+	}
+
+	@Test
+	void testQualifiersAreStrictlyIncreasing() {
+		LOG.info(".testQualifiersAreStrictlyIncreasing(): Entry");
+		String previousQualifier = UoWInstanceQualifierGenerator.nextInstanceQualifier();
+		for (int counter = 0; counter < QUALIFIER_COUNT; counter++) {
+			String qualifier = UoWInstanceQualifierGenerator.nextInstanceQualifier();
+			assertTrue(qualifier.compareTo(previousQualifier) > 0, previousQualifier + " then " + qualifier);
+			previousQualifier = qualifier;
+		}
+	}
+
+	@Test
+	void testSequenceIsTimeBased() {
+		LOG.info(".testSequenceIsTimeBased(): Entry");
+		long beforeMillis = System.currentTimeMillis();
+		long sequence = UoWInstanceQualifierGenerator.nextSequence();
+		long afterMillis = System.currentTimeMillis();
+		long sequenceMillis = (sequence >>> COUNTER_BITS) + UoWInstanceQualifierGenerator.QUALIFIER_EPOCH_MILLIS;
+		assertTrue(sequenceMillis >= beforeMillis);
+		assertTrue(sequenceMillis <= afterMillis);
+		// (and the qualifier is the hex of a later sequence)
+		assertTrue(Long.parseLong(UoWInstanceQualifierGenerator.nextInstanceQualifier().substring(0, 16), 16) > sequence);
+	}
+
+	@Test
+	void testQualifiersAreUniqueAcrossThreads() throws Exception {
+		LOG.info(".testQualifiersAreUniqueAcrossThreads(): Entry");
+		Set<String> qualifierSet = ConcurrentHashMap.newKeySet();
+		CyclicBarrier startBarrier = new CyclicBarrier(THREAD_COUNT);
+		List<Throwable> failureList = new ArrayList<>();
+		List<Thread> threadList = new ArrayList<>();
+		for (int threadCounter = 0; threadCounter < THREAD_COUNT; threadCounter++) {
+			Thread generatorThread = new Thread(() -> {
+				try {
+					startBarrier.await();
+					String previousQualifier = "";
+					for (int counter = 0; counter < QUALIFIER_COUNT / THREAD_COUNT; counter++) {
+						String qualifier = UoWInstanceQualifierGenerator.nextInstanceQualifier();
+						assertTrue(qualifier.compareTo(previousQualifier) > 0);
+						assertTrue(qualifierSet.add(qualifier), qualifier);
+						previousQualifier = qualifier;
+					}
+				} catch (Throwable failure) {
+					synchronized (failureList) {
+						failureList.add(failure);
+					}
+				}
+			});
+			threadList.add(generatorThread);
+			generatorThread.start();
+		}
+		for (Thread generatorThread : threadList) {
+			generatorThread.join();
+		}
+		assertTrue(failureList.isEmpty(), failureList.toString());
+		assertEquals((QUALIFIER_COUNT / THREAD_COUNT) * THREAD_COUNT, qualifierSet.size());
+	}
+
+	@Test
+	void testUoWInstanceIDsAreUnique() {
+		LOG.info(".testUoWInstanceIDsAreUnique(): Entry");
+		DataParcelTypeDescriptor descriptor = new DataParcelTypeDescriptor();
+		descriptor.setDataParcelDefiner("FHIRFactory");
+		descriptor.setDataParcelCategory("Test");
+		descriptor.setDataParcelSubCategory("Petasos");
+		descriptor.setDataParcelResource("Resource");
+		DataParcelManifest manifest = new DataParcelManifest(descriptor);
+		Set<String> instanceIDSet = new HashSet<>();
+		for (int counter = 0; counter < 1000; counter++) {
+			UoW uow = new UoW(new UoWPayload(manifest, "payload"));
+			assertTrue(uow.hasInstanceID());
+			assertTrue(instanceIDSet.add(uow.getInstanceID().getContent()));
+		}
+	}
+}
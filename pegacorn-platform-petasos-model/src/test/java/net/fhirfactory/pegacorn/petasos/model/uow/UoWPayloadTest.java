@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2021 Mark A. Hunter
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package net.fhirfactory.pegacorn.petasos.model.uow;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.CyclicBarrier;
+
+/**
+ * @author Mark A. Hunter
+ * @since 2021-01-18
+ */
+class UoWPayloadTest {
+	private static final Logger LOG = LoggerFactory.getLogger(UoWPayloadTest.class);
+
+	private static final int PAYLOAD_SIZE = 8192;
+	private static final int ROUND_COUNT = 500;
+
+	UoWPayloadBufferArena arena;
+
+	@BeforeEach
+	void setUp() {
+		LOG.debug(".setUp(): Entry...");
+		arena = new UoWPayloadBufferArena(0);
+	}
+
+	String newPayloadContent(char fill) {
+		char[] content = new char[PAYLOAD_SIZE];
+		Arrays.fill(content, fill);
+		return (new String(content));
+	}
+
+	@Test
+	void testMoveToHeapReleasesTheContent() {
+		LOG.info(".testMoveToHeapReleasesTheContent(): Entry");
+		String content = newPayloadContent('a');
+		UoWPayload payload = new UoWPayload(null, content);
+		assertTrue(payload.moveToOffHeap(arena));
+		assertEquals(1, arena.getHolderCount());
+		assertTrue(arena.getInUseBytes() >= PAYLOAD_SIZE);
+
+		assertTrue(payload.moveToHeap());
+		assertFalse(payload.hasOffHeapPayload());
+		assertEquals(content, payload.getPayload());
+		assertEquals(0, arena.getHolderCount());
+		assertEquals(0, arena.getInUseBytes());
+		assertFalse(payload.moveToHeap());
+	}
+
+	@Test
+	void testSharedContentIsCountedOnce() {
+		LOG.info(".testSharedContentIsCountedOnce(): Entry");
+		UoWPayload payload = new UoWPayload(null, newPayloadContent('b'));
+		assertTrue(payload.moveToOffHeap(arena));
+		long inUseBytes = arena.getInUseBytes();
+		UoWPayload payloadCopy = new UoWPayload(payload);
+		assertEquals(2, arena.getHolderCount());
+		assertEquals(inUseBytes, arena.getInUseBytes());
+
+		// the buffer is only recycled once the last holder lets go
+		payload.setPayload("replaced");
+		assertEquals(inUseBytes, arena.getInUseBytes());
+		payloadCopy.moveToHeap();
+		assertEquals(0, arena.getInUseBytes());
+	}
+
+	@Test
+	void testSetPayloadIsNotUndoneByAConcurrentMove() throws Exception {
+		LOG.info(".testSetPayloadIsNotUndoneByAConcurrentMove(): Entry");
+		String originalContent = newPayloadContent('c');
+		String replacementContent = newPayloadContent('d');
+		for (int round = 0; round < ROUND_COUNT; round += 1) {
+			UoWPayload payload = new UoWPayload(null, originalContent);
+			CyclicBarrier startBarrier = new CyclicBarrier(2);
+			Thread mover = new Thread(() -> {
+				try {
+					startBarrier.await();
+					payload.moveToOffHeap(arena);
+				} catch (Exception ex) {
+					throw (new IllegalStateException(ex));
+				}
+			});
+			mover.start();
+			startBarrier.await();
+			payload.setPayload(replacementContent);
+			mover.join();
+			// whichever ran first, the replacement must be the payload (on or off heap)
+			assertEquals(replacementContent, payload.getPayload(), "round " + round);
+			payload.moveToHeap();
+		}
+		assertEquals(0, arena.getHolderCount());
+		assertEquals(0, arena.getInUseBytes());
+	}
+}